@@ -154,6 +154,18 @@ public class IridaApiJdbcDataSourceConfig implements DataConfig {
 		properties.setProperty("org.hibernate.envers.store_data_at_delete",
 				environment.getProperty("org.hibernate.envers.store_data_at_delete"));
 		properties.setProperty("show_sql", "false");
+
+		// send updates, deletes and audit inserts for entities saved together to the database in batches. Entities
+		// with IDENTITY ids (like metadata entries) are still inserted one at a time.
+		properties.setProperty(AvailableSettings.STATEMENT_BATCH_SIZE,
+				environment.getProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "50"));
+		properties.setProperty(AvailableSettings.ORDER_INSERTS, "true");
+		properties.setProperty(AvailableSettings.ORDER_UPDATES, "true");
+
+		// load the eager associations of entities read in a list (like the qc entries of a sample's files) for
+		// several entities at once instead of one query per entity
+		properties.setProperty(AvailableSettings.DEFAULT_BATCH_FETCH_SIZE,
+				environment.getProperty(AvailableSettings.DEFAULT_BATCH_FETCH_SIZE, "25"));
 		return properties;
 	}
 }
@@ -4,10 +4,16 @@ import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
 import ca.corefacility.bioinformatics.irida.security.IgnoreExpiredCredentialsForPasswordChangeChecker;
 import ca.corefacility.bioinformatics.irida.security.PasswordExpiryChecker;
 import ca.corefacility.bioinformatics.irida.security.permissions.BasePermission;
+import ca.corefacility.bioinformatics.irida.security.permissions.IridaMethodSecurityExpressionHandler;
 import ca.corefacility.bioinformatics.irida.security.permissions.IridaPermissionEvaluator;
+import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectMembershipCache;
+import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectMembershipChangeListener;
 import com.google.common.base.Joiner;
 import org.apache.oltu.oauth2.client.OAuthClient;
 import org.apache.oltu.oauth2.client.URLConnectionClient;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -28,6 +34,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.access.expression.DefaultWebSecurityExpressionHandler;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
 
 /**
@@ -65,10 +72,9 @@ public class IridaApiSecurityConfig extends GlobalMethodSecurityConfiguration {
 
 	@Override
 	protected MethodSecurityExpressionHandler createExpressionHandler() {
-		DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler();
 		IridaPermissionEvaluator permissionEvaluator = new IridaPermissionEvaluator(basePermissions);
 		permissionEvaluator.init();
-		handler.setPermissionEvaluator(permissionEvaluator);
+		DefaultMethodSecurityExpressionHandler handler = new IridaMethodSecurityExpressionHandler(permissionEvaluator);
 		RoleHierarchyImpl roleHierarchy = new RoleHierarchyImpl();
 		roleHierarchy.setHierarchy(ROLE_HIERARCHY);
 		handler.setRoleHierarchy(roleHierarchy);
@@ -146,4 +152,27 @@ public class IridaApiSecurityConfig extends GlobalMethodSecurityConfiguration {
 	public DefaultWebSecurityExpressionHandler webSecurityExpressionHandler() {
 		return new DefaultWebSecurityExpressionHandler();
 	}
+
+	/**
+	 * Register the listener that clears cached project membership when
+	 * membership changes.  The listener is registered with Hibernate here
+	 * rather than on the join entities so that the model doesn't depend on the
+	 * security package.
+	 *
+	 * @param entityManagerFactory the entity manager factory to listen to
+	 * @param membershipCache      the cache to clear
+	 * @return the registered listener
+	 */
+	@Bean
+	public ProjectMembershipChangeListener projectMembershipChangeListener(EntityManagerFactory entityManagerFactory,
+			ProjectMembershipCache membershipCache) {
+		ProjectMembershipChangeListener listener = new ProjectMembershipChangeListener(membershipCache);
+		EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry()
+				.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, listener);
+		registry.appendListeners(EventType.POST_UPDATE, listener);
+		registry.appendListeners(EventType.POST_DELETE, listener);
+		return listener;
+	}
 }
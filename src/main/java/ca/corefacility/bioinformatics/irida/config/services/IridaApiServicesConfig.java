@@ -20,8 +20,10 @@ import ca.corefacility.bioinformatics.irida.repositories.sample.QCEntryRepositor
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
 import ca.corefacility.bioinformatics.irida.service.AnalysisSubmissionCleanupService;
 import ca.corefacility.bioinformatics.irida.service.TaxonomyService;
+import ca.corefacility.bioinformatics.irida.service.analysis.AnalysisStateTransitionService;
 import ca.corefacility.bioinformatics.irida.service.impl.InMemoryTaxonomyService;
 import ca.corefacility.bioinformatics.irida.service.impl.analysis.submission.AnalysisSubmissionCleanupServiceImpl;
+import ca.corefacility.bioinformatics.irida.service.remote.ProjectHashingService;
 import ca.corefacility.bioinformatics.irida.service.user.UserService;
 import ca.corefacility.bioinformatics.irida.util.IridaPluginMessageSource;
 import com.google.common.collect.ImmutableList;
@@ -37,6 +39,9 @@ import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.*;
 import org.springframework.context.support.ReloadableResourceBundleMessageSource;
 import org.springframework.context.support.ResourceBundleMessageSource;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
 import org.springframework.core.env.Environment;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.ClassRelativeResourceLoader;
@@ -54,6 +59,7 @@ import org.thymeleaf.spring5.SpringTemplateEngine;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
 
+import javax.persistence.EntityManagerFactory;
 import javax.validation.Validator;
 import java.io.IOException;
 import java.net.URISyntaxException;
@@ -63,6 +69,7 @@ import java.util.*;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -96,6 +103,9 @@ public class IridaApiServicesConfig {
 	@Value("${file.processing.decompress.remove.compressed.file}")
 	private Boolean removeCompressedFiles;
 
+	@Value("${file.processing.fused:false}")
+	private Boolean fusedFileProcessing;
+
 	// the key + colon syntax allows default values. we use `false` here so we can conditionally show tags on the page with thymeleaf
 	@Value("${help.page.title:false}")
 	private String helpPageTitle;
@@ -118,6 +128,21 @@ public class IridaApiServicesConfig {
 	@Value("${file.processing.queue.capacity}")
 	private int fpQueueCapacity;
 
+	@Value("${file.processing.fastqc.threads:4}")
+	private int fastqcThreads;
+
+	@Value("${file.processing.fastqc.memory.budget:2048}")
+	private int fastqcMemoryBudget;
+
+	@Value("${file.processing.fastqc.memory.per.file:512}")
+	private int fastqcMemoryPerFile;
+
+	@Value("${file.processing.decompress.threads:4}")
+	private int decompressThreads;
+
+	@Value("${irida.scheduled.subscription.threads:4}")
+	private int subscriptionEmailThreads;
+
 	@Value("${irida.debug.nrepl.server.port:#{null}}")
 	private Integer nreplPort;
 
@@ -286,9 +311,23 @@ public class IridaApiServicesConfig {
 	public FileProcessingChain fileProcessorChain(SequencingObjectRepository sequencingObjectRepository,
 			QCEntryRepository qcRepository, GzipFileProcessor gzipFileProcessor,
 			FastqcFileProcessor fastQcFileProcessor, ChecksumFileProcessor checksumProcessor,
-			CoverageFileProcessor coverageProcessor, AutomatedAnalysisFileProcessor automatedAnalysisFileProcessor) {
+			CoverageFileProcessor coverageProcessor, AutomatedAnalysisFileProcessor automatedAnalysisFileProcessor,
+			StreamingFastqFileProcessor streamingFastqFileProcessor, FileAnalysisExecutor fileAnalysisExecutor,
+			GzipDecompressor gzipDecompressor) {
+
+		fastQcFileProcessor.setFileAnalysisExecutor(fileAnalysisExecutor);
+
+		if (fusedFileProcessing) {
+			logger.info("Checksum, decompression, FastQC and coverage run in one pass [file.processing.fused=true]");
+			streamingFastqFileProcessor.setDecompressFiles(decompressFiles);
+			streamingFastqFileProcessor.setRemoveCompressedFiles(removeCompressedFiles);
+
+			return new DefaultFileProcessingChain(sequencingObjectRepository, qcRepository,
+					Lists.newArrayList(streamingFastqFileProcessor, automatedAnalysisFileProcessor));
+		}
 
 		gzipFileProcessor.setRemoveCompressedFiles(removeCompressedFiles);
+		gzipFileProcessor.setDecompressor(gzipDecompressor);
 
 		final List<FileProcessor> fileProcessors = Lists.newArrayList(checksumProcessor, gzipFileProcessor,
 				fastQcFileProcessor, coverageProcessor, automatedAnalysisFileProcessor);
@@ -301,6 +340,53 @@ public class IridaApiServicesConfig {
 		return new DefaultFileProcessingChain(sequencingObjectRepository, qcRepository, fileProcessors);
 	}
 
+	/**
+	 * Builds the {@link FileAnalysisExecutor} used to run FastQC on the files of
+	 * a sequencing object concurrently, limited by a server-wide memory budget.
+	 *
+	 * @return the {@link FileAnalysisExecutor}
+	 */
+	@Bean
+	public FileAnalysisExecutor fileAnalysisExecutor() {
+		checkArgument(fastqcThreads > 0, "file.processing.fastqc.threads=" + fastqcThreads + " must be > 0");
+		logger.info("Creating thread pool for FastQC with " + fastqcThreads + " threads and a " + fastqcMemoryBudget
+				+ "MB memory budget");
+		return new FileAnalysisExecutor(fastqcExecutorService(), fastqcMemoryBudget, fastqcMemoryPerFile);
+	}
+
+	@Bean(name = "fastqcExecutorService")
+	public ExecutorService fastqcExecutorService() {
+		return Executors.newFixedThreadPool(fastqcThreads);
+	}
+
+	/**
+	 * Builds the {@link GzipDecompressor} used to decompress uploaded files.
+	 * Writing a file happens on a separate thread from inflating it, and BGZF
+	 * files are inflated in parallel.
+	 *
+	 * @return the {@link GzipDecompressor}
+	 */
+	@Bean
+	public GzipDecompressor gzipDecompressor() {
+		checkArgument(decompressThreads >= 0, "file.processing.decompress.threads=" + decompressThreads
+				+ " must be >= 0");
+		if (decompressThreads == 0) {
+			logger.info("Decompressing files in the file processing threads [file.processing.decompress.threads=0]");
+			return new GzipDecompressor();
+		}
+
+		logger.info("Creating thread pool for gzip decompression with " + decompressThreads + " threads");
+		return new GzipDecompressor(decompressExecutorService(), decompressThreads);
+	}
+
+	@Bean(name = "decompressExecutorService")
+	public ExecutorService decompressExecutorService() {
+		// writers only wait on the file processing thread decompressing their
+		// file, so a busy pool slows decompression down but can't deadlock.
+		// leave room for a writer alongside the threads inflating blocks
+		return Executors.newFixedThreadPool(Math.max(decompressThreads, 1) + 1);
+	}
+
 	@Bean(name = "fileProcessingChainExecutor")
 	public ThreadPoolTaskExecutor fileProcessingChainExecutor() {
 		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
@@ -311,6 +397,26 @@ public class IridaApiServicesConfig {
 		return taskExecutor;
 	}
 
+	/**
+	 * Builds the {@link Executor} used to render and send subscription
+	 * emails. The queue is bounded, so once it's full the scheduled task sends
+	 * emails itself rather than building up every digest in memory.
+	 *
+	 * @return the {@link ThreadPoolTaskExecutor} for subscription emails
+	 */
+	@Bean(name = "subscriptionEmailExecutor")
+	public ThreadPoolTaskExecutor subscriptionEmailExecutor() {
+		checkArgument(subscriptionEmailThreads > 0,
+				"irida.scheduled.subscription.threads=" + subscriptionEmailThreads + " must be > 0");
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(subscriptionEmailThreads);
+		taskExecutor.setMaxPoolSize(subscriptionEmailThreads);
+		taskExecutor.setQueueCapacity(subscriptionEmailThreads * 4);
+		taskExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		taskExecutor.setThreadNamePrefix("subscription-email-");
+		return taskExecutor;
+	}
+
 
 	@Bean
 	public Validator validator() {
@@ -345,8 +451,55 @@ public class IridaApiServicesConfig {
 		return new DelegatingSecurityContextExecutorService(delegateExecutor, schedulerContext);
 	}
 
+	/**
+	 * Register the listener that records the state transitions of analysis
+	 * submissions. The listener is registered with Hibernate here rather than
+	 * on the submission entity so that the model doesn't depend on the service
+	 * layer. Submissions cleaned up at startup are saved after this so their
+	 * transitions are recorded.
+	 *
+	 * @param entityManagerFactory the entity manager factory to listen to
+	 * @param transitionService    the service to record transitions with
+	 * @return the registered listener
+	 */
+	@Bean
+	public AnalysisStateTransitionService.StateChangeListener analysisStateChangeListener(
+			EntityManagerFactory entityManagerFactory, AnalysisStateTransitionService transitionService) {
+		AnalysisStateTransitionService.StateChangeListener listener = new AnalysisStateTransitionService.StateChangeListener(
+				transitionService);
+		EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry()
+				.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_LOAD, listener);
+		registry.appendListeners(EventType.POST_INSERT, listener);
+		registry.appendListeners(EventType.POST_UPDATE, listener);
+		return listener;
+	}
+
+	/**
+	 * Register the listener that clears the stored content hashes of samples
+	 * and projects when they change.
+	 *
+	 * @param entityManagerFactory  the entity manager factory to listen to
+	 * @param projectHashingService the service whose hashes are cleared
+	 * @return the registered listener
+	 */
+	@Bean
+	public ProjectHashingService.ContentChangeListener contentChangeListener(
+			EntityManagerFactory entityManagerFactory, ProjectHashingService projectHashingService) {
+		ProjectHashingService.ContentChangeListener listener = new ProjectHashingService.ContentChangeListener(
+				projectHashingService);
+		EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry()
+				.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, listener);
+		registry.appendListeners(EventType.POST_UPDATE, listener);
+		registry.appendListeners(EventType.POST_DELETE, listener);
+		return listener;
+	}
+
 	@Bean
-	@DependsOn("springLiquibase")
+	@DependsOn({ "springLiquibase", "analysisStateChangeListener" })
 	@Profile({ "prod", "analysis" })
 	public AnalysisSubmissionCleanupService analysisSubmissionCleanupService(
 			AnalysisSubmissionRepository analysisSubmissionRepository, UserService userService) {
@@ -19,10 +19,14 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * Scheduled task configuration for running analysis pipelines
  */
@@ -56,6 +60,30 @@ public class AnalysisScheduledTaskConfig {
 	@Value("${irida.analysis.cleanup.days}")
 	private Double daysToCleanup;
 
+	/**
+	 * The number of running analyses to check in Galaxy at the same time.
+	 */
+	@Value("${irida.analysis.monitor.threads:8}")
+	private int monitorThreads;
+
+	/**
+	 * The number of running analyses to load from the database at a time.
+	 */
+	@Value("${irida.analysis.monitor.page.size:100}")
+	private int monitorPageSize;
+
+	/**
+	 * Seconds to wait before checking a running analysis again once its progress stops changing.
+	 */
+	@Value("${irida.analysis.monitor.backoff.initial:15}")
+	private long monitorInitialBackoff;
+
+	/**
+	 * The most seconds to wait between checks of a running analysis.
+	 */
+	@Value("${irida.analysis.monitor.backoff.max:300}")
+	private long monitorMaxBackoff;
+
 	/**
 	 * Rate in milliseconds of the analysis execution tasks.
 	 */
@@ -123,9 +151,35 @@ public class AnalysisScheduledTaskConfig {
 	@DependsOn("analysisSubmissionCleanupService")
 	@Bean
 	public AnalysisExecutionScheduledTask analysisExecutionScheduledTask() {
+		checkArgument(monitorPageSize > 0, "irida.analysis.monitor.page.size=" + monitorPageSize + " must be > 0");
+		checkArgument(monitorInitialBackoff >= 0 && monitorMaxBackoff >= monitorInitialBackoff,
+				"irida.analysis.monitor.backoff.max=" + monitorMaxBackoff
+						+ " must be >= irida.analysis.monitor.backoff.initial=" + monitorInitialBackoff + " >= 0");
 		return new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository, analysisExecutionService,
 				cleanupAnalysisSubmissionCondition(), galaxyJobErrorsService, jobErrorRepository, emailController,
-				analysisWorkspaceService);
+				analysisWorkspaceService, analysisMonitorExecutor(), monitorPageSize,
+				Duration.ofSeconds(monitorInitialBackoff), Duration.ofSeconds(monitorMaxBackoff));
+	}
+
+	/**
+	 * Builds the executor used to check the state of running analyses in
+	 * Galaxy. The queue is bounded, so once it's full the scheduled task
+	 * checks analyses itself rather than loading every running analysis at
+	 * once.
+	 *
+	 * @return the {@link ThreadPoolTaskExecutor} for checking running analyses
+	 */
+	@Bean(name = "analysisMonitorExecutor")
+	public ThreadPoolTaskExecutor analysisMonitorExecutor() {
+		checkArgument(monitorThreads > 0, "irida.analysis.monitor.threads=" + monitorThreads + " must be > 0");
+		logger.info("Creating thread pool for monitoring running analyses with " + monitorThreads + " threads");
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(monitorThreads);
+		taskExecutor.setMaxPoolSize(monitorThreads);
+		taskExecutor.setQueueCapacity(monitorThreads * 4);
+		taskExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		taskExecutor.setThreadNamePrefix("analysis-monitor-");
+		return taskExecutor;
 	}
 
 	/**
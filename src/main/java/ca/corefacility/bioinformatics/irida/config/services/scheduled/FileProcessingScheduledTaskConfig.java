@@ -1,13 +1,20 @@
 package ca.corefacility.bioinformatics.irida.config.services.scheduled;
 
+import ca.corefacility.bioinformatics.irida.events.SequencingObjectCreatedEvent;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectProcessingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Scheduled task configuration for running file processors
@@ -20,9 +27,15 @@ public class FileProcessingScheduledTaskConfig {
 	@Autowired
 	private SequencingObjectProcessingService fileProcessingService;
 
+	@Autowired
+	@Qualifier("scheduledTaskExecutor")
+	private Executor taskExecutor;
+
 	@Value("${file.processing.process}")
 	private boolean processFiles;
 
+	private final AtomicBoolean processingRequested = new AtomicBoolean(false);
+
 	/**
 	 * Check for newly uploaded files to process
 	 */
@@ -34,4 +47,21 @@ public class FileProcessingScheduledTaskConfig {
 			logger.trace("Skipping file processing.  It is disabled on this server.");
 		}
 	}
+
+	/**
+	 * Run the file processing job as soon as a new {@link SequencingObject} has been committed rather than waiting
+	 * for the next scheduled run.  Many objects created at once only trigger one extra run.
+	 *
+	 * @param event the event for the created {@link SequencingObject}
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void sequencingObjectCreated(SequencingObjectCreatedEvent event) {
+		if (processFiles && processingRequested.compareAndSet(false, true)) {
+			logger.trace("Sequencing object " + event.getSequencingObjectId() + " created, running file processing");
+			taskExecutor.execute(() -> {
+				processingRequested.set(false);
+				fileProcessingService.runProcessingJob();
+			});
+		}
+	}
 }
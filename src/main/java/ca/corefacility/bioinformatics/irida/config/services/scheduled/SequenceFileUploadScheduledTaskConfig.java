@@ -0,0 +1,31 @@
+package ca.corefacility.bioinformatics.irida.config.services.scheduled;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import ca.corefacility.bioinformatics.irida.service.SequenceFileUploadService;
+
+/**
+ * Scheduled task configuration for removing sequence file uploads that were
+ * never completed
+ */
+@Profile({ "dev", "prod", "web" })
+@Configuration
+public class SequenceFileUploadScheduledTaskConfig {
+
+	@Autowired
+	private SequenceFileUploadService uploadService;
+
+	// rate in MS of the expired upload cleanup
+	private static final long UPLOAD_CLEANUP_TASK_RATE = 3600000; // 1 hour
+
+	/**
+	 * Remove expired uploads
+	 */
+	@Scheduled(initialDelay = UPLOAD_CLEANUP_TASK_RATE, fixedDelay = UPLOAD_CLEANUP_TASK_RATE)
+	public void removeExpiredUploads() {
+		uploadService.removeExpiredUploads();
+	}
+}
@@ -1,6 +1,10 @@
 package ca.corefacility.bioinformatics.irida.config.web;
 
+import java.util.EnumSet;
+
+import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
+import javax.servlet.FilterRegistration;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 
@@ -32,8 +36,11 @@ public class IridaWebApplicationInitializer extends AbstractAnnotationConfigDisp
 		final DelegatingFilterProxy springSecurityFilterChain = new DelegatingFilterProxy("springSecurityFilterChain");
 		springSecurityFilterChain
 				.setContextAttribute("org.springframework.web.servlet.FrameworkServlet.CONTEXT.dispatcher");
-		servletContext.addFilter("springSecurityFilterChain", springSecurityFilterChain).addMappingForUrlPatterns(null,
-				false, "/*");
+		FilterRegistration.Dynamic securityFilter = servletContext.addFilter("springSecurityFilterChain",
+				springSecurityFilterChain);
+		// event streams, like analysis progress, are written asynchronously
+		securityFilter.setAsyncSupported(true);
+		securityFilter.addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST, DispatcherType.ASYNC), false, "/*");
 	}
 
 	@Override
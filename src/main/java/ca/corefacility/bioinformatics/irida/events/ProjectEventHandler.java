@@ -4,13 +4,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ca.corefacility.bioinformatics.irida.events.annotations.LaunchesProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.IridaThing;
 import ca.corefacility.bioinformatics.irida.model.enums.UserGroupRemovedProjectEvent;
 import ca.corefacility.bioinformatics.irida.model.event.DataAddedToSampleProjectEvent;
 import ca.corefacility.bioinformatics.irida.model.event.ProjectEvent;
@@ -80,13 +84,14 @@ public class ProjectEventHandler {
 			events.add(handleUserRoleSetProjectEvent(methodEvent));
 		} else if (eventClass.equals(DataAddedToSampleProjectEvent.class)) {
 			final Collection<DataAddedToSampleProjectEvent> dataAddedEvents = handleSequenceFileAddedEvent(methodEvent);
-			
+
 			/*
 			 * We want the sample to show modification when these events are
 			 * added, so update mod date
 			 */
-			for (final DataAddedToSampleProjectEvent e : dataAddedEvents) {
-				final Sample s = e.getSample();
+			for (final Sample s : distinct(dataAddedEvents.stream()
+					.map(DataAddedToSampleProjectEvent::getSample)
+					.collect(Collectors.toList()))) {
 				s.setModifiedDate(eventDate);
 				sampleRepository.save(s);
 			}
@@ -101,12 +106,39 @@ public class ProjectEventHandler {
 			logger.warn("No handler found for event class " + eventClass.getName());
 		}
 
-		for (ProjectEvent e : events) {
-			Project project = e.getProject();
+		if (events.isEmpty()) {
+			return;
+		}
+
+		/*
+		 * Sharing or removing many samples creates an event for each sample, so
+		 * insert the events together and only update each project once.
+		 */
+		eventRepository.insertEvents(events);
+
+		for (Project project : distinct(events.stream()
+				.map(ProjectEvent::getProject)
+				.collect(Collectors.toList()))) {
 			project.setModifiedDate(eventDate);
 			projectRepository.save(project);
 		}
 	}
+
+	/**
+	 * Get the distinct entities from a list, by id if the entity has been
+	 * saved.
+	 * 
+	 * @param entities
+	 *            the entities to filter
+	 * @return the distinct entities, in the order they were first seen
+	 */
+	private static <T extends IridaThing> Collection<T> distinct(List<T> entities) {
+		Map<Object, T> distinct = new LinkedHashMap<>();
+		for (T entity : entities) {
+			distinct.putIfAbsent(entity.getId() != null ? entity.getId() : entity, entity);
+		}
+		return distinct.values();
+	}
 	
 	/**
 	 * Create one or more {@link SampleAddedProjectEvent}. Can be run on methods
@@ -128,7 +160,7 @@ public class ProjectEventHandler {
 				}
 				logger.trace("Adding multi sample " + singleElement.toString());
 
-				events.add(eventRepository.save(new SampleAddedProjectEvent((ProjectSampleJoin) singleElement)));
+				events.add(new SampleAddedProjectEvent((ProjectSampleJoin) singleElement));
 			}
 
 		} else {
@@ -139,7 +171,7 @@ public class ProjectEventHandler {
 
 			logger.trace("Adding single sample " + returnValue.toString());
 
-			events.add(eventRepository.save(new SampleAddedProjectEvent((ProjectSampleJoin) returnValue)));
+			events.add(new SampleAddedProjectEvent((ProjectSampleJoin) returnValue));
 		}
 
 		return events;
@@ -167,7 +199,7 @@ public class ProjectEventHandler {
 			throw new IllegalArgumentException(
 					"Project or user cannot be found on method annotated with @LaunchesProjectEvent(UserRemovedProjectEvent.class)");
 		}
-		return eventRepository.save(new UserRemovedProjectEvent(project, user));
+		return new UserRemovedProjectEvent(project, user);
 	}
 
 	/**
@@ -184,7 +216,7 @@ public class ProjectEventHandler {
 			throw new IllegalArgumentException(
 					"Project or user group cannot be found on method annotated with @LaunchesProjectEvent(UserGroupRemovedProjectEvent.class)");
 		}
-		return eventRepository.save(new UserGroupRemovedProjectEvent((Project) project.get(), (UserGroup) user.get()));
+		return new UserGroupRemovedProjectEvent((Project) project.get(), (UserGroup) user.get());
 	}
 
 	/**
@@ -201,7 +233,7 @@ public class ProjectEventHandler {
 					"Method annotated with @LaunchesProjectEvent(UserRoleSetProjectEvent.class) method must return ProjectUserJoin");
 		}
 		ProjectUserJoin join = (ProjectUserJoin) returnValue;
-		return eventRepository.save(new UserRoleSetProjectEvent(join));
+		return new UserRoleSetProjectEvent(join);
 
 	}
 
@@ -219,7 +251,7 @@ public class ProjectEventHandler {
 					"Method annotated with @LaunchesProjectEvent(UserGroupRoleSetProjectEvent.class) method must return UserGroupProjectJoin");
 		}
 		UserGroupProjectJoin join = (UserGroupProjectJoin) returnValue;
-		return eventRepository.save(new UserGroupRoleSetProjectEvent(join));
+		return new UserGroupRoleSetProjectEvent(join);
 
 	}
 
@@ -270,7 +302,7 @@ public class ProjectEventHandler {
 
 		List<Join<Project, Sample>> projectForSample = psjRepository.getProjectForSample(subject);
 		for (Join<Project, Sample> psj : projectForSample) {
-			events.add(eventRepository.save(new DataAddedToSampleProjectEvent(psj.getSubject(), subject)));
+			events.add(new DataAddedToSampleProjectEvent(psj.getSubject(), subject));
 		}
 		return events;
 	}
@@ -294,12 +326,12 @@ public class ProjectEventHandler {
 			if (sampleOpt.isPresent()) {
 				Sample sample = (Sample) sampleOpt.get();
 
-				events.add(eventRepository.save(new SampleRemovedProjectEvent(project, sample.getSampleName())));
+				events.add(new SampleRemovedProjectEvent(project, sample.getSampleName()));
 			} else if (sampleListOpt.isPresent()) {
 				@SuppressWarnings("unchecked")
 				Iterable<Sample> samples = (Iterable<Sample>) sampleListOpt.get();
 				for (Sample sample : samples) {
-					events.add(eventRepository.save(new SampleRemovedProjectEvent(project, sample.getSampleName())));
+					events.add(new SampleRemovedProjectEvent(project, sample.getSampleName()));
 				}
 			}
 		}
@@ -0,0 +1,26 @@
+package ca.corefacility.bioinformatics.irida.events;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+
+/**
+ * Published when a new {@link SequencingObject} has been created. Listeners
+ * that need the object to be visible to other transactions (like the file
+ * processors) should listen for this event after the creating transaction
+ * commits.
+ */
+public class SequencingObjectCreatedEvent {
+	private final Long sequencingObjectId;
+
+	public SequencingObjectCreatedEvent(Long sequencingObjectId) {
+		this.sequencingObjectId = sequencingObjectId;
+	}
+
+	/**
+	 * Get the id of the {@link SequencingObject} that was created
+	 *
+	 * @return the id of the created {@link SequencingObject}
+	 */
+	public Long getSequencingObjectId() {
+		return sequencingObjectId;
+	}
+}
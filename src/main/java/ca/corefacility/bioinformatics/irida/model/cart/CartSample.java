@@ -0,0 +1,75 @@
+package ca.corefacility.bioinformatics.irida.model.cart;
+
+import java.util.Date;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+import org.hibernate.annotations.Formula;
+
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+
+/**
+ * A {@link Sample} in a {@link User}'s cart, with the {@link Project} it was
+ * added from. The sample's name is read with it since samples with the same
+ * name can't be run in a pipeline together, and the cart is checked for them
+ * whenever samples are added. The name is read from the sample table, so it's
+ * always the sample's current name.
+ */
+@Entity
+@Table(name = "cart_sample", uniqueConstraints = @UniqueConstraint(columnNames = { "user_id",
+		"sample_id" }, name = "UK_CART_SAMPLE_USER_SAMPLE"))
+public class CartSample {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@NotNull
+	@Column(name = "user_id")
+	private Long userId;
+
+	@NotNull
+	@Column(name = "sample_id")
+	private Long sampleId;
+
+	@NotNull
+	@Column(name = "project_id")
+	private Long projectId;
+
+	@Formula("(select s.sampleName from sample s where s.id = sample_id)")
+	private String sampleName;
+
+	@NotNull
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "created_date")
+	private Date createdDate;
+
+	protected CartSample() {
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public Long getSampleId() {
+		return sampleId;
+	}
+
+	public Long getProjectId() {
+		return projectId;
+	}
+
+	public String getSampleName() {
+		return sampleName;
+	}
+
+	public Date getCreatedDate() {
+		return createdDate;
+	}
+}
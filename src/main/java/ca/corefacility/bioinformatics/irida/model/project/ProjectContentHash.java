@@ -0,0 +1,67 @@
+package ca.corefacility.bioinformatics.irida.model.project;
+
+import java.util.Date;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+import ca.corefacility.bioinformatics.irida.model.sample.SampleContentHash;
+
+/**
+ * The hash of a {@link Project} and the {@link SampleContentHash}es of all of
+ * its samples. Cleared, and the version increased, whenever the project, its
+ * samples or any of the sample digests change. A calculated hash is only stored
+ * if the version is still the one read before the project was.
+ */
+@Entity
+@Table(name = "project_content_hash")
+public class ProjectContentHash {
+	@Id
+	@Column(name = "project_id")
+	private Long projectId;
+
+	@Column(name = "project_hash")
+	private Integer projectHash;
+
+	@Column(name = "version")
+	private Long version;
+
+	@NotNull
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "created_date")
+	private Date createdDate;
+
+	protected ProjectContentHash() {
+	}
+
+	/**
+	 * Create a hash for a project
+	 *
+	 * @param projectId   the id of the project
+	 * @param projectHash the hash of the project
+	 * @param version     the version read before the project was, or null if
+	 *                    the project didn't have a stored hash
+	 */
+	public ProjectContentHash(Long projectId, Integer projectHash, Long version) {
+		this.projectId = projectId;
+		this.projectHash = projectHash;
+		this.version = version;
+		this.createdDate = new Date();
+	}
+
+	public Long getProjectId() {
+		return projectId;
+	}
+
+	public Integer getProjectHash() {
+		return projectHash;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public Date getCreatedDate() {
+		return createdDate;
+	}
+}
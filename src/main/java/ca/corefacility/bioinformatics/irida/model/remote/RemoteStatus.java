@@ -56,6 +56,10 @@ public class RemoteStatus {
 	@Column(name = "remote_hash_code")
 	private int remoteHashCode;
 
+	// the content digest of the remote object when it was last synchronized
+	@Column(name = "remote_content_hash", length = 64)
+	private String remoteContentHash;
+
 	@ManyToOne(fetch = FetchType.EAGER)
 	@JoinColumn(name = "read_by")
 	private User readBy;
@@ -111,6 +115,14 @@ public class RemoteStatus {
 		this.remoteHashCode = remoteHashCode;
 	}
 
+	public String getRemoteContentHash() {
+		return remoteContentHash;
+	}
+
+	public void setRemoteContentHash(String remoteContentHash) {
+		this.remoteContentHash = remoteContentHash;
+	}
+
 	public User getReadBy() {
 		return readBy;
 	}
@@ -0,0 +1,68 @@
+package ca.corefacility.bioinformatics.irida.model.sample;
+
+import java.util.Date;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+/**
+ * The digest of everything in a {@link Sample} that a remote IRIDA
+ * synchronizes: the sample's own fields, its metadata, its sequencing objects
+ * and its assemblies. When any of those change the digest is cleared and the
+ * version increased, and the digest is calculated again the next time the hash
+ * of a project containing the sample is requested. A calculated digest is only
+ * stored if the version is still the one read before the sample was, so a
+ * digest of contents that changed while it was calculated is never kept.
+ */
+@Entity
+@Table(name = "sample_content_hash")
+public class SampleContentHash {
+	@Id
+	@Column(name = "sample_id")
+	private Long sampleId;
+
+	@Column(name = "content_hash", length = 64)
+	private String contentHash;
+
+	@Column(name = "version")
+	private Long version;
+
+	@NotNull
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "created_date")
+	private Date createdDate;
+
+	protected SampleContentHash() {
+	}
+
+	/**
+	 * Create a digest for a sample
+	 *
+	 * @param sampleId    the id of the sample
+	 * @param contentHash the digest of the sample
+	 * @param version     the version read before the sample was, or null if
+	 *                    the sample didn't have a stored digest
+	 */
+	public SampleContentHash(Long sampleId, String contentHash, Long version) {
+		this.sampleId = sampleId;
+		this.contentHash = contentHash;
+		this.version = version;
+		this.createdDate = new Date();
+	}
+
+	public Long getSampleId() {
+		return sampleId;
+	}
+
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public Date getCreatedDate() {
+		return createdDate;
+	}
+}
@@ -120,4 +120,9 @@ public class MetadataEntry {
 	public void setSample(Sample sample) {
 		this.sample = sample;
 	}
+
+	@JsonIgnore
+	public Sample getSample() {
+		return sample;
+	}
 }
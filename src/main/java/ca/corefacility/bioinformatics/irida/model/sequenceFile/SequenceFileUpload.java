@@ -0,0 +1,155 @@
+package ca.corefacility.bioinformatics.irida.model.sequenceFile;
+
+import java.util.Date;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import ca.corefacility.bioinformatics.irida.model.IridaResourceSupport;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A file being uploaded to a {@link Sample} in parts. Each part covers a fixed
+ * range of the file, so parts can be sent in any order, at the same time, and
+ * sent again if they fail. Once every part has been received the upload is
+ * completed into a {@link SequenceFile}.
+ * <p>
+ * Uploads are not stored in the database. They're kept in the sequence file
+ * directory until they're completed or expire.
+ */
+public class SequenceFileUpload extends IridaResourceSupport {
+	private String uploadId;
+	private Long sampleId;
+	private String username;
+	private String fileName;
+	private long size;
+	private long partSize;
+	private String expectedSha256;
+	private Date createdDate;
+
+	private SortedSet<Integer> completedParts = new TreeSet<>();
+	private String sha256;
+
+	public SequenceFileUpload() {
+	}
+
+	public SequenceFileUpload(String uploadId, Long sampleId, String username, String fileName, long size,
+			long partSize, String expectedSha256) {
+		this.uploadId = uploadId;
+		this.sampleId = sampleId;
+		this.username = username;
+		this.fileName = fileName;
+		this.size = size;
+		this.partSize = partSize;
+		this.expectedSha256 = expectedSha256;
+		this.createdDate = new Date();
+	}
+
+	/**
+	 * Get the number of parts the file is uploaded in. An empty file is still
+	 * uploaded as a single empty part.
+	 *
+	 * @return the number of parts
+	 */
+	public int getPartCount() {
+		return size == 0 ? 1 : (int) ((size + partSize - 1) / partSize);
+	}
+
+	/**
+	 * Get the position in the file a part starts at
+	 *
+	 * @param partNumber the part, starting at 1
+	 * @return the offset of the part in the file
+	 */
+	@JsonIgnore
+	public long getPartOffset(int partNumber) {
+		return (partNumber - 1) * partSize;
+	}
+
+	/**
+	 * Get the number of bytes in a part. Every part is {@code partSize} bytes
+	 * except the last one.
+	 *
+	 * @param partNumber the part, starting at 1
+	 * @return the length of the part
+	 */
+	@JsonIgnore
+	public long getPartLength(int partNumber) {
+		return Math.min(partSize, size - getPartOffset(partNumber));
+	}
+
+	/**
+	 * Check whether a part number is one of the parts of this upload
+	 *
+	 * @param partNumber the part number
+	 * @return true if the upload has the part
+	 */
+	public boolean hasPart(int partNumber) {
+		return partNumber >= 1 && partNumber <= getPartCount();
+	}
+
+	@JsonIgnore
+	public boolean isComplete() {
+		return completedParts.size() == getPartCount();
+	}
+
+	public String getUploadId() {
+		return uploadId;
+	}
+
+	public Long getSampleId() {
+		return sampleId;
+	}
+
+	@JsonIgnore
+	public String getUsername() {
+		return username;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public long getPartSize() {
+		return partSize;
+	}
+
+	public String getExpectedSha256() {
+		return expectedSha256;
+	}
+
+	public Date getCreatedDate() {
+		return createdDate;
+	}
+
+	public void setCreatedDate(Date createdDate) {
+		this.createdDate = createdDate;
+	}
+
+	public SortedSet<Integer> getCompletedParts() {
+		return completedParts;
+	}
+
+	public void setCompletedParts(SortedSet<Integer> completedParts) {
+		this.completedParts = completedParts;
+	}
+
+	/**
+	 * Get the sha256 checksum of the uploaded file. This is only known once
+	 * every part has been received and the upload is completed.
+	 *
+	 * @return the checksum, or null if the upload isn't completed
+	 */
+	public String getSha256() {
+		return sha256;
+	}
+
+	public void setSha256(String sha256) {
+		this.sha256 = sha256;
+	}
+}
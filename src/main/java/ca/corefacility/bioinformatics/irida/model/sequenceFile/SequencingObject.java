@@ -78,6 +78,11 @@ public abstract class SequencingObject extends IridaResourceSupport implements M
 	@Column(name = "file_processor")
 	private String fileProcessor;
 
+	@NotAudited
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "processing_lease")
+	private Date processingLease;
+
 	public SequencingObject() {
 		createdDate = new Date();
 		processingState = ProcessingState.UNPROCESSED;
@@ -203,6 +208,23 @@ public abstract class SequencingObject extends IridaResourceSupport implements M
 		return fileProcessor;
 	}
 
+	/**
+	 * Get the last time the file processor that claimed this object reported
+	 * that it was still alive. Used to reclaim objects from processors that
+	 * have gone away.
+	 *
+	 * @return the time of the last heartbeat from the file processor
+	 */
+	@JsonIgnore
+	public Date getProcessingLease() {
+		return processingLease;
+	}
+
+	@JsonIgnore
+	public void setProcessingLease(Date processingLease) {
+		this.processingLease = processingLease;
+	}
+
 	/**
 	 * The status of the file processing upon upload
 	 */
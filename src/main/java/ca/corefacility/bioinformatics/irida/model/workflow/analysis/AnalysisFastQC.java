@@ -3,6 +3,7 @@ package ca.corefacility.bioinformatics.irida.model.workflow.analysis;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.OverrepresentedSequence;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.type.BuiltInAnalysisTypes;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
 import com.google.common.collect.ImmutableSet;
 
 import javax.persistence.*;
@@ -47,6 +48,11 @@ public class AnalysisFastQC extends Analysis {
 	@JoinTable(joinColumns = @JoinColumn(name = "analysis_fastqc_id"))
 	private final Set<OverrepresentedSequence> overrepresentedSequences;
 
+	// the FastQC chart series as JSON, see FastQCChartData
+	@Lob
+	@Column(name = "chart_data")
+	private final String chartData;
+
 	/**
 	 * Required for hibernate, should not be used anywhere else, so private.
 	 */
@@ -62,6 +68,7 @@ public class AnalysisFastQC extends Analysis {
 		this.gcContent = null;
 		this.overrepresentedSequences = null;
 		this.fastqcVersion = null;
+		this.chartData = null;
 
 		this.setAnalysisType(BuiltInAnalysisTypes.FASTQC);
 	}
@@ -78,6 +85,7 @@ public class AnalysisFastQC extends Analysis {
 		this.gcContent = builder.gcContent;
 		this.overrepresentedSequences = builder.overrepresentedSequences;
 		this.fastqcVersion = builder.fastqcVersion;
+		this.chartData = builder.chartData;
 
 		this.setAnalysisType(BuiltInAnalysisTypes.FASTQC);
 	}
@@ -109,6 +117,7 @@ public class AnalysisFastQC extends Analysis {
 		private AnalysisOutputFile perSequenceQualityScoreChart;
 		private AnalysisOutputFile duplicationLevelChart;
 		private Set<OverrepresentedSequence> overrepresentedSequences;
+		private String chartData;
 		private String description;
 		private String executionManagerAnalysisId;
 		private Map<String, String> additionalProperties;
@@ -176,6 +185,17 @@ public class AnalysisFastQC extends Analysis {
 			return this;
 		}
 
+		/**
+		 * Set the chart series computed by FastQC, serialized as JSON
+		 *
+		 * @param chartData the {@link FastQCChartData} as JSON
+		 * @return the builder
+		 */
+		public AnalysisFastQCBuilder chartData(final String chartData) {
+			this.chartData = chartData;
+			return this;
+		}
+
 		/**
 		 * set the duplicationLevelChart
 		 *
@@ -305,9 +325,17 @@ public class AnalysisFastQC extends Analysis {
 		 */
 		public AnalysisFastQC build() {
 			images = new HashMap<>();
-			images.put("perBaseQualityScoreChart", perBaseQualityScoreChart);
-			images.put("perSequenceQualityScoreChart", perSequenceQualityScoreChart);
-			images.put("duplicationLevelChart", duplicationLevelChart);
+			// charts are only stored as images for analyses that predate chart
+			// data, new analyses are drawn from chartData when requested
+			if (perBaseQualityScoreChart != null) {
+				images.put("perBaseQualityScoreChart", perBaseQualityScoreChart);
+			}
+			if (perSequenceQualityScoreChart != null) {
+				images.put("perSequenceQualityScoreChart", perSequenceQualityScoreChart);
+			}
+			if (duplicationLevelChart != null) {
+				images.put("duplicationLevelChart", duplicationLevelChart);
+			}
 
 			return new AnalysisFastQC(this);
 		}
@@ -346,6 +374,18 @@ public class AnalysisFastQC extends Analysis {
 		return getBytesForFile("duplicationLevelChart");
 	}
 
+	/**
+	 * The numeric series behind the FastQC charts as a JSON-serialized
+	 * {@link FastQCChartData}. This is <code>null</code> for analyses whose
+	 * charts were stored as images.
+	 *
+	 * @return the chart series as JSON
+	 */
+	@JsonRawValue
+	public String getChartData() {
+		return chartData;
+	}
+
 	public String getFastqcVersion() {
 		return fastqcVersion;
 	}
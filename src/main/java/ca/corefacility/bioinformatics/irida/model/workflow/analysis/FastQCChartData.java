@@ -0,0 +1,221 @@
+package ca.corefacility.bioinformatics.irida.model.workflow.analysis;
+
+/**
+ * The numeric series behind the charts drawn by FastQC for a single file. These
+ * are stored with an {@link AnalysisFastQC} instead of the rendered images so
+ * that charts can be drawn only when somebody asks to see them.
+ */
+public class FastQCChartData {
+	private BoxPlot perBaseQualityScores;
+	private LineChart perSequenceQualityScores;
+	private LineChart duplicationLevels;
+
+	public FastQCChartData() {
+	}
+
+	public FastQCChartData(BoxPlot perBaseQualityScores, LineChart perSequenceQualityScores,
+			LineChart duplicationLevels) {
+		this.perBaseQualityScores = perBaseQualityScores;
+		this.perSequenceQualityScores = perSequenceQualityScores;
+		this.duplicationLevels = duplicationLevels;
+	}
+
+	public BoxPlot getPerBaseQualityScores() {
+		return perBaseQualityScores;
+	}
+
+	public void setPerBaseQualityScores(BoxPlot perBaseQualityScores) {
+		this.perBaseQualityScores = perBaseQualityScores;
+	}
+
+	public LineChart getPerSequenceQualityScores() {
+		return perSequenceQualityScores;
+	}
+
+	public void setPerSequenceQualityScores(LineChart perSequenceQualityScores) {
+		this.perSequenceQualityScores = perSequenceQualityScores;
+	}
+
+	public LineChart getDuplicationLevels() {
+		return duplicationLevels;
+	}
+
+	public void setDuplicationLevels(LineChart duplicationLevels) {
+		this.duplicationLevels = duplicationLevels;
+	}
+
+	/**
+	 * The values for a box and whisker plot with one box per position.
+	 */
+	public static class BoxPlot {
+		private String title;
+		private String[] xLabels;
+		private double[] means;
+		private double[] medians;
+		private double[] lowest;
+		private double[] highest;
+		private double[] lowerQuartile;
+		private double[] upperQuartile;
+		private double minY;
+		private double maxY;
+		private double yInterval;
+
+		public String getTitle() {
+			return title;
+		}
+
+		public void setTitle(String title) {
+			this.title = title;
+		}
+
+		public String[] getxLabels() {
+			return xLabels;
+		}
+
+		public void setxLabels(String[] xLabels) {
+			this.xLabels = xLabels;
+		}
+
+		public double[] getMeans() {
+			return means;
+		}
+
+		public void setMeans(double[] means) {
+			this.means = means;
+		}
+
+		public double[] getMedians() {
+			return medians;
+		}
+
+		public void setMedians(double[] medians) {
+			this.medians = medians;
+		}
+
+		public double[] getLowest() {
+			return lowest;
+		}
+
+		public void setLowest(double[] lowest) {
+			this.lowest = lowest;
+		}
+
+		public double[] getHighest() {
+			return highest;
+		}
+
+		public void setHighest(double[] highest) {
+			this.highest = highest;
+		}
+
+		public double[] getLowerQuartile() {
+			return lowerQuartile;
+		}
+
+		public void setLowerQuartile(double[] lowerQuartile) {
+			this.lowerQuartile = lowerQuartile;
+		}
+
+		public double[] getUpperQuartile() {
+			return upperQuartile;
+		}
+
+		public void setUpperQuartile(double[] upperQuartile) {
+			this.upperQuartile = upperQuartile;
+		}
+
+		public double getMinY() {
+			return minY;
+		}
+
+		public void setMinY(double minY) {
+			this.minY = minY;
+		}
+
+		public double getMaxY() {
+			return maxY;
+		}
+
+		public void setMaxY(double maxY) {
+			this.maxY = maxY;
+		}
+
+		public double getyInterval() {
+			return yInterval;
+		}
+
+		public void setyInterval(double yInterval) {
+			this.yInterval = yInterval;
+		}
+	}
+
+	/**
+	 * The values for a line chart with one or more lines over the same set of
+	 * categories.
+	 */
+	public static class LineChart {
+		private String title;
+		private String xLabel;
+		private String[] xCategories;
+		private String[] seriesTitles;
+		private double[][] data;
+		private double minY;
+		private double maxY;
+
+		public String getTitle() {
+			return title;
+		}
+
+		public void setTitle(String title) {
+			this.title = title;
+		}
+
+		public String getxLabel() {
+			return xLabel;
+		}
+
+		public void setxLabel(String xLabel) {
+			this.xLabel = xLabel;
+		}
+
+		public String[] getxCategories() {
+			return xCategories;
+		}
+
+		public void setxCategories(String[] xCategories) {
+			this.xCategories = xCategories;
+		}
+
+		public String[] getSeriesTitles() {
+			return seriesTitles;
+		}
+
+		public void setSeriesTitles(String[] seriesTitles) {
+			this.seriesTitles = seriesTitles;
+		}
+
+		public double[][] getData() {
+			return data;
+		}
+
+		public void setData(double[][] data) {
+			this.data = data;
+		}
+
+		public double getMinY() {
+			return minY;
+		}
+
+		public void setMinY(double minY) {
+			this.minY = minY;
+		}
+
+		public double getMaxY() {
+			return maxY;
+		}
+
+		public void setMaxY(double maxY) {
+			this.maxY = maxY;
+		}
+	}
+}
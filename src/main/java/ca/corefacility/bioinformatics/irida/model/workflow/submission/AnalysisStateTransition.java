@@ -0,0 +1,74 @@
+package ca.corefacility.bioinformatics.irida.model.workflow.submission;
+
+import java.util.Date;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
+
+/**
+ * A change of the {@link AnalysisState} of an {@link AnalysisSubmission}. The
+ * time an analysis entered a state and the state it was in before an error can
+ * be read from these without loading the audited revisions of the submission.
+ */
+@Entity
+@Table(name = "analysis_state_transition")
+public class AnalysisStateTransition {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@NotNull
+	@Column(name = "analysis_submission_id")
+	private Long submissionId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "previous_state")
+	private AnalysisState previousState;
+
+	@NotNull
+	@Enumerated(EnumType.STRING)
+	@Column(name = "analysis_state")
+	private AnalysisState analysisState;
+
+	@NotNull
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "transition_date")
+	private Date transitionDate;
+
+	protected AnalysisStateTransition() {
+	}
+
+	public AnalysisStateTransition(Long submissionId, AnalysisState previousState, AnalysisState analysisState,
+			Date transitionDate) {
+		this.submissionId = submissionId;
+		this.previousState = previousState;
+		this.analysisState = analysisState;
+		this.transitionDate = transitionDate;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getSubmissionId() {
+		return submissionId;
+	}
+
+	public AnalysisState getPreviousState() {
+		return previousState;
+	}
+
+	public AnalysisState getAnalysisState() {
+		return analysisState;
+	}
+
+	public Date getTransitionDate() {
+		return transitionDate;
+	}
+}
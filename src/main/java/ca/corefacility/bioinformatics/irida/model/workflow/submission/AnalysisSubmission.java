@@ -53,6 +53,13 @@ public class AnalysisSubmission extends AbstractAnalysisSubmission implements Co
 	@Column(name = "analysis_state")
 	private AnalysisState analysisState;
 
+	/**
+	 * The state this submission was in when it was loaded, used to record the
+	 * transition to a new state when it's saved.
+	 */
+	@Transient
+	private AnalysisState loadedAnalysisState;
+
 	@NotNull
 	@Enumerated(EnumType.STRING)
 	@Column(name = "analysis_cleaned_state")
@@ -201,6 +208,26 @@ public class AnalysisSubmission extends AbstractAnalysisSubmission implements Co
 		this.analysisState = analysisState;
 	}
 
+	/**
+	 * Gets the state of this analysis when it was loaded or last saved.
+	 *
+	 * @return The stored state of this analysis, null if it hasn't been saved.
+	 */
+	@JsonIgnore
+	public AnalysisState getLoadedAnalysisState() {
+		return loadedAnalysisState;
+	}
+
+	/**
+	 * Sets the state of this analysis when it was loaded or last saved.
+	 *
+	 * @param loadedAnalysisState The stored state of this analysis.
+	 */
+	@JsonIgnore
+	public void setLoadedAnalysisState(AnalysisState loadedAnalysisState) {
+		this.loadedAnalysisState = loadedAnalysisState;
+	}
+
 	/**
 	 * @return the analysis
 	 */
@@ -2,7 +2,7 @@ package ca.corefacility.bioinformatics.irida.processing;
 
 import java.util.List;
 
-import ca.corefacility.bioinformatics.irida.exceptions.FileProcessorTimeoutException;
+import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 
 /**
@@ -21,11 +21,13 @@ public interface FileProcessingChain {
 	 * @return any {@link Exception} thrown during chain processing (in the same
 	 *         order as {@link FileProcessor} returned by
 	 *         {@link #getFileProcessors()}).
-	 * @throws FileProcessorTimeoutException
-	 *             when the processor chain waits too long for the specified
-	 *             {@link SequencingObject} to appear in the database.
+	 * @throws EntityNotFoundException
+	 *             when the specified {@link SequencingObject} is not in the
+	 *             database. The chain must only be launched after the
+	 *             transaction that created the {@link SequencingObject} has
+	 *             committed.
 	 */
-	public List<Exception> launchChain(Long sequencingObjectId) throws FileProcessorTimeoutException;
+	public List<Exception> launchChain(Long sequencingObjectId) throws EntityNotFoundException;
 
 	/**
 	 * Get the collection of {@link FileProcessor} that this
@@ -44,24 +46,4 @@ public interface FileProcessingChain {
 	 *            whether or not the chain should fail on exceptions.
 	 */
 	public void setFastFail(Boolean fastFail);
-
-	/**
-	 * Set the total amount of time (in seconds) that the processor chain should
-	 * wait for the {@link SequencingObject} to appear before failing.
-	 * 
-	 * @param timeout
-	 *            the total amount of time in seconds that the processor chain
-	 *            should wait.
-	 */
-	public void setTimeout(Integer timeout);
-
-	/**
-	 * Set the amount of time (in seconds) that the processor chain should sleep
-	 * each time it sleeps.
-	 * 
-	 * @param sleepDuration
-	 *            the amount of time in seconds that the processor chain should
-	 *            wait.
-	 */
-	public void setSleepDuration(Integer sleepDuration);
 }
@@ -19,7 +19,10 @@ import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFi
 
 /**
  * {@link FileProcessor} used to calculate a checksum using sha256 for uploaded
- * {@link SequenceFile}s
+ * {@link SequenceFile}s. Files that already have a checksum aren't read
+ * again. Checksums are only set before processing when this server calculated
+ * them, like for files uploaded in parts; files synchronized from a remote
+ * IRIDA have the remote's checksum cleared.
  */
 @Component
 public class ChecksumFileProcessor implements FileProcessor {
@@ -48,6 +51,10 @@ public class ChecksumFileProcessor implements FileProcessor {
 		Set<SequenceFile> files = sequencingObject.getFiles();
 
 		for (SequenceFile file : files) {
+			if (file.getUploadSha256() != null) {
+				logger.trace("File " + file.getId() + " already has a checksum");
+				continue;
+			}
 
 			try (InputStream is = Files.newInputStream(file.getFile())) {
 				String shaDigest = DigestUtils.sha256Hex(is);
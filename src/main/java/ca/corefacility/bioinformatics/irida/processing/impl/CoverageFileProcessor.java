@@ -44,14 +44,7 @@ public class CoverageFileProcessor implements FileProcessor {
 	public void process(SequencingObject sequencingObject) {
 		logger.trace("Counting coverage for file " + sequencingObject);
 
-		//if we have any existing coverage entries, we will removed them
-		if (sequencingObject.getQcEntries() != null) {
-			// remove any existing coverage entries
-			sequencingObject.getQcEntries()
-					.stream()
-					.filter(q -> q instanceof CoverageQCEntry)
-					.forEach(q -> qcEntryRepository.delete(q));
-		}
+		removeCoverageEntries(sequencingObject);
 
 		try {
 			long totalBases = sequencingObject.getFiles()
@@ -76,4 +69,41 @@ public class CoverageFileProcessor implements FileProcessor {
 
 	}
 
+	/**
+	 * Replace any existing {@link CoverageQCEntry} for a
+	 * {@link SequencingObject} using a base count that has already been
+	 * computed by the caller (for example while streaming the files through
+	 * FastQC), without looking up the FastQC results again.
+	 *
+	 * @param sequencingObject
+	 *            the {@link SequencingObject} to save coverage for
+	 * @param totalBases
+	 *            the total number of bases in all files of the object
+	 */
+	public void saveCoverage(SequencingObject sequencingObject, long totalBases) {
+		logger.trace("Saving precomputed coverage for file " + sequencingObject);
+
+		removeCoverageEntries(sequencingObject);
+
+		qcEntryRepository.save(new CoverageQCEntry(sequencingObject, totalBases));
+	}
+
+	/**
+	 * Remove any existing {@link CoverageQCEntry} for a
+	 * {@link SequencingObject}
+	 *
+	 * @param sequencingObject
+	 *            the {@link SequencingObject} to remove entries from
+	 */
+	private void removeCoverageEntries(SequencingObject sequencingObject) {
+		//if we have any existing coverage entries, we will removed them
+		if (sequencingObject.getQcEntries() != null) {
+			// remove any existing coverage entries
+			sequencingObject.getQcEntries()
+					.stream()
+					.filter(q -> q instanceof CoverageQCEntry)
+					.forEach(q -> qcEntryRepository.delete(q));
+		}
+	}
+
 }
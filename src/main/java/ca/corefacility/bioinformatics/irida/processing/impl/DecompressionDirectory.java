@@ -0,0 +1,70 @@
+package ca.corefacility.bioinformatics.irida.processing.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import ca.corefacility.bioinformatics.irida.util.FileUtils;
+
+/**
+ * Keeps the files being decompressed by the {@link GzipFileProcessor} and
+ * {@link StreamingFastqFileProcessor} in a {@code decompress} directory under
+ * the sequence file directory. Decompressed files are written on the same
+ * filesystem as their revision directories, so saving them is still a rename,
+ * but a file left behind when a server stops part way through decompressing
+ * it isn't left in a revision directory. Those files are removed at startup.
+ */
+@Component
+public class DecompressionDirectory {
+	public static final int DEFAULT_EXPIRY_HOURS = 24;
+
+	private static final String DECOMPRESS_DIRECTORY = "decompress";
+
+	private final Path directory;
+	private final int expiryHours;
+
+	@Autowired
+	public DecompressionDirectory(@Qualifier("sequenceFileBaseDirectory") Path baseDirectory) {
+		this(baseDirectory, DEFAULT_EXPIRY_HOURS);
+	}
+
+	/**
+	 * Create a new {@link DecompressionDirectory}.
+	 *
+	 * @param baseDirectory the sequence file directory
+	 * @param expiryHours   the number of hours after which an abandoned
+	 *                      decompressed file is removed at startup
+	 */
+	public DecompressionDirectory(Path baseDirectory, int expiryHours) {
+		this.directory = baseDirectory.resolve(DECOMPRESS_DIRECTORY);
+		this.expiryHours = expiryHours;
+	}
+
+	/**
+	 * Create a new directory to decompress a single file into.
+	 *
+	 * @return the new directory
+	 * @throws IOException if the directory couldn't be created
+	 */
+	public Path createDirectory() throws IOException {
+		Files.createDirectories(directory);
+		return Files.createTempDirectory(directory, DECOMPRESS_DIRECTORY);
+	}
+
+	/**
+	 * Remove directories left behind by a server that stopped while it was
+	 * decompressing a file. Servers sharing the sequence file directory may be
+	 * decompressing files right now, so only directories that haven't been
+	 * written to for {@code expiryHours} are removed.
+	 */
+	@PostConstruct
+	public void removeAbandonedDirectories() {
+		FileUtils.removeAbandonedDirectories(directory, expiryHours);
+	}
+}
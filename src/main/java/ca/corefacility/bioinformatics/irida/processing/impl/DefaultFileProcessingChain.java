@@ -6,7 +6,7 @@ import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ca.corefacility.bioinformatics.irida.exceptions.FileProcessorTimeoutException;
+import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 import ca.corefacility.bioinformatics.irida.model.sample.FileProcessorErrorQCEntry;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
@@ -30,10 +30,6 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 
 	private Boolean fastFail = false;
 
-	private Integer timeout = 60;
-
-	private Integer sleepDuration = 1000;
-
 	private final SequencingObjectRepository sequencingObjectRepository;
 	private QCEntryRepository qcRepository;
 
@@ -53,34 +49,22 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 	 * {@inheritDoc}
 	 */
 	@Override
-	public List<Exception> launchChain(Long sequencingObjectId) throws FileProcessorTimeoutException {
+	public List<Exception> launchChain(Long sequencingObjectId) {
 		List<Exception> ignoredExceptions = new ArrayList<>();
-		Integer waiting = 0;
-
-		// this class is typically launched in a thread after a file has been
-		// initially saved to the database, but not necessarily before the
-		// transaction has completed and closed, so we need to block until the
-		// file has been persisted in the database.
-		while (!sequencingObjectRepository.existsById(sequencingObjectId)) {
-			if (waiting > timeout) {
-				throw new FileProcessorTimeoutException(
-						"Waiting for longer than " + sleepDuration * timeout + "ms, bailing out.");
-			}
-
-			waiting++;
 
-			try {
-				Thread.sleep(sleepDuration);
-			} catch (InterruptedException e) {
-			}
+		// the chain is only launched for objects that have been claimed from
+		// the database after the transaction that created them committed, so
+		// the object and its files must already be there.
+		if (!sequencingObjectRepository.existsById(sequencingObjectId)) {
+			throw new EntityNotFoundException("Sequencing object " + sequencingObjectId + " does not exist");
 		}
 
 		for (FileProcessor fileProcessor : fileProcessors) {
 			try {
-				SequencingObject settledSequencingObject = getSettledSequencingObject(sequencingObjectId);
+				SequencingObject sequencingObject = getSequencingObjectWithFiles(sequencingObjectId);
 
-				if (fileProcessor.shouldProcessFile(settledSequencingObject)) {
-					fileProcessor.process(settledSequencingObject);
+				if (fileProcessor.shouldProcessFile(sequencingObject)) {
+					fileProcessor.process(sequencingObject);
 				}
 			} catch (FileProcessorException e) {
 				SequencingObject sequencingObject = sequencingObjectRepository.findById(sequencingObjectId).orElse(null);
@@ -126,61 +110,28 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 	}
 
 	/**
-	 * {@inheritDoc}
-	 */
-	public void setTimeout(Integer timeout) {
-		this.timeout = timeout;
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	public void setSleepDuration(Integer sleepDuration) {
-		this.sleepDuration = sleepDuration * 1000;
-	}
-
-	/**
-	 * Checks the {@link SequenceFile}s for the given {@link SequencingObject}
-	 * to see if it's files are in the place they should be. Since there's lots
-	 * of saves going on during the {@link FileProcessingChain} the transaction
-	 * might not be complete in the time the file is first read.
+	 * Read the current state of a {@link SequencingObject} before running a
+	 * {@link FileProcessor}. The previous {@link FileProcessor} may have moved
+	 * the files, so the object is re-read each time.
 	 * 
 	 * @param sequencingObjectId
-	 *            the id of the {@link SequencingObject} to check
-	 * @return the settled {@link SequencingObject}
-	 * @throws FileProcessorTimeoutException
-	 *             if the files don't settle in the configured timeout
+	 *            the id of the {@link SequencingObject} to read
+	 * @return the {@link SequencingObject}
+	 * @throws FileProcessorException
+	 *             if any of the object's files are missing
 	 */
-	private SequencingObject getSettledSequencingObject(Long sequencingObjectId) throws FileProcessorTimeoutException {
-		boolean filesNotSettled = true;
-
-		Integer waiting = 0;
-
-		Optional<SequencingObject> sequencingObject;
-
-		do {
-			if (waiting > timeout) {
-				throw new FileProcessorTimeoutException("Waiting for longer than " + sleepDuration * timeout
-						+ "ms, bailing out.  File id " + sequencingObjectId);
-			}
-
-			waiting++;
-
-			try {
-				Thread.sleep(sleepDuration);
-			} catch (InterruptedException e) {
-			}
-
-			sequencingObject = sequencingObjectRepository.findById(sequencingObjectId);
-
-			if(sequencingObject.isPresent()) {
-				Set<SequenceFile> files = sequencingObject.get().getFiles();
-				filesNotSettled = files.stream().anyMatch(f -> {
-					return !Files.exists(f.getFile());
-				});
-			}
-		} while (filesNotSettled);
+	private SequencingObject getSequencingObjectWithFiles(Long sequencingObjectId) {
+		SequencingObject sequencingObject = sequencingObjectRepository.findById(sequencingObjectId)
+				.orElseThrow(() -> new EntityNotFoundException(
+						"Sequencing object " + sequencingObjectId + " does not exist"));
+
+		Set<SequenceFile> files = sequencingObject.getFiles();
+		Optional<SequenceFile> missing = files.stream().filter(f -> !Files.exists(f.getFile())).findAny();
+		if (missing.isPresent()) {
+			throw new FileProcessorException(
+					"File " + missing.get().getFile() + " for sequencing object " + sequencingObjectId + " is missing");
+		}
 
-		return sequencingObject.get();
+		return sequencingObject;
 	}
 }
@@ -0,0 +1,153 @@
+package ca.corefacility.bioinformatics.irida.processing.impl;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData;
+import uk.ac.babraham.FastQC.Graphs.LineGraph;
+import uk.ac.babraham.FastQC.Graphs.QualityBoxPlot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Draws the FastQC charts for an {@link AnalysisFastQC} when they're requested.
+ * Analyses created by the {@link FastqcFileProcessor} only store the numeric
+ * series behind each chart, older analyses have the charts stored as PNG
+ * files and those are returned as they are.
+ */
+@Component
+public class FastQCChartRenderer {
+	private static final Logger logger = LoggerFactory.getLogger(FastQCChartRenderer.class);
+
+	public static final String PER_BASE_QUALITY_SCORE_CHART = "perBaseQualityScoreChart";
+	public static final String PER_SEQUENCE_QUALITY_SCORE_CHART = "perSequenceQualityScoreChart";
+	public static final String DUPLICATION_LEVEL_CHART = "duplicationLevelChart";
+
+	private static final int WIDTH = 800;
+	private static final int HEIGHT = 600;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	/**
+	 * Get the per-base quality score box plot as a PNG.
+	 *
+	 * @param analysis the {@link AnalysisFastQC} to draw the chart for
+	 * @return a PNG-formatted byte array, empty if there's no data for the chart
+	 * @throws IOException if the chart could not be read or drawn
+	 */
+	public byte[] renderPerBaseQualityScoreChart(AnalysisFastQC analysis) throws IOException {
+		if (analysis.getAnalysisOutputFile(PER_BASE_QUALITY_SCORE_CHART) != null) {
+			return analysis.getPerBaseQualityScoreChart();
+		}
+
+		FastQCChartData chartData = readChartData(analysis);
+		if (chartData == null || chartData.getPerBaseQualityScores() == null) {
+			return new byte[0];
+		}
+
+		FastQCChartData.BoxPlot data = chartData.getPerBaseQualityScores();
+		QualityBoxPlot plot = new QualityBoxPlot(data.getMeans(), data.getMedians(), data.getLowest(),
+				data.getHighest(), data.getLowerQuartile(), data.getUpperQuartile(), data.getMinY(), data.getMaxY(),
+				data.getyInterval(), data.getxLabels(), data.getTitle());
+
+		return toPng(g -> plot.paint(g, WIDTH, HEIGHT));
+	}
+
+	/**
+	 * Get the per-sequence quality score line chart as a PNG.
+	 *
+	 * @param analysis the {@link AnalysisFastQC} to draw the chart for
+	 * @return a PNG-formatted byte array, empty if there's no data for the chart
+	 * @throws IOException if the chart could not be read or drawn
+	 */
+	public byte[] renderPerSequenceQualityScoreChart(AnalysisFastQC analysis) throws IOException {
+		if (analysis.getAnalysisOutputFile(PER_SEQUENCE_QUALITY_SCORE_CHART) != null) {
+			return analysis.getPerSequenceQualityScoreChart();
+		}
+
+		FastQCChartData chartData = readChartData(analysis);
+		if (chartData == null) {
+			return new byte[0];
+		}
+
+		return renderLineChart(chartData.getPerSequenceQualityScores());
+	}
+
+	/**
+	 * Get the duplication level line chart as a PNG.
+	 *
+	 * @param analysis the {@link AnalysisFastQC} to draw the chart for
+	 * @return a PNG-formatted byte array, empty if there's no data for the chart
+	 * @throws IOException if the chart could not be read or drawn
+	 */
+	public byte[] renderDuplicationLevelChart(AnalysisFastQC analysis) throws IOException {
+		if (analysis.getAnalysisOutputFile(DUPLICATION_LEVEL_CHART) != null) {
+			return analysis.getDuplicationLevelChart();
+		}
+
+		FastQCChartData chartData = readChartData(analysis);
+		if (chartData == null) {
+			return new byte[0];
+		}
+
+		return renderLineChart(chartData.getDuplicationLevels());
+	}
+
+	/**
+	 * Read the chart series stored with an analysis.
+	 *
+	 * @param analysis the {@link AnalysisFastQC}
+	 * @return the {@link FastQCChartData}, or null if the analysis has none
+	 * @throws IOException if the chart data could not be parsed
+	 */
+	private FastQCChartData readChartData(AnalysisFastQC analysis) throws IOException {
+		if (analysis.getChartData() == null) {
+			logger.debug("No chart data for FastQC analysis " + analysis.getId());
+			return null;
+		}
+
+		return objectMapper.readValue(analysis.getChartData(), FastQCChartData.class);
+	}
+
+	private byte[] renderLineChart(FastQCChartData.LineChart data) throws IOException {
+		if (data == null) {
+			return new byte[0];
+		}
+
+		LineGraph graph = new LineGraph(data.getData(), data.getMinY(), data.getMaxY(), data.getxLabel(),
+				data.getSeriesTitles(), data.getxCategories(), data.getTitle());
+
+		return toPng(g -> graph.paint(g, WIDTH, HEIGHT));
+	}
+
+	/**
+	 * Paint a chart onto an image and encode it as a PNG.
+	 *
+	 * @param painter paints the chart onto the image's {@link Graphics}
+	 * @return the PNG-formatted bytes of the image
+	 * @throws IOException if the image could not be encoded
+	 */
+	private byte[] toPng(Consumer<Graphics> painter) throws IOException {
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics g = image.getGraphics();
+		try {
+			painter.accept(g);
+		} finally {
+			g.dispose();
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "PNG", out);
+		return out.toByteArray();
+	}
+}
@@ -6,11 +6,11 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC.AnalysisFastQCBuilder;
-import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisOutputFile;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
-import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisOutputFileRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +18,7 @@ import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ReflectionUtils;
 import uk.ac.babraham.FastQC.FastQCApplication;
 import uk.ac.babraham.FastQC.Graphs.LineGraph;
 import uk.ac.babraham.FastQC.Graphs.QualityBoxPlot;
@@ -26,16 +27,14 @@ import uk.ac.babraham.FastQC.Modules.OverRepresentedSeqs.OverrepresentedSeq;
 import uk.ac.babraham.FastQC.Sequence.QualityEncoding.PhredEncoding;
 import uk.ac.babraham.FastQC.Sequence.Sequence;
 import uk.ac.babraham.FastQC.Sequence.SequenceFactory;
+import uk.ac.babraham.FastQC.Sequence.SequenceFormatException;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.math.BigDecimal;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -49,80 +48,72 @@ public class FastqcFileProcessor implements FileProcessor {
 
 	private static final String EXECUTION_MANAGER_ANALYSIS_ID = "internal-fastqc";
 
+	private static final ObjectMapper chartDataMapper = new ObjectMapper();
+
 	private final SequenceFileRepository sequenceFileRepository;
-	private final AnalysisOutputFileRepository outputFileRepository;
 	private final MessageSource messageSource;
 
+	private FileAnalysisExecutor fileAnalysisExecutor = new FileAnalysisExecutor();
+
 	/**
 	 * Create a new {@link FastqcFileProcessor}
 	 *
 	 * @param messageSource          the message source for i18n (used to add an internationalized description for the
 	 *                               analysis).
 	 * @param sequenceFileRepository Repository for storing sequence files
-	 * @param outputFileRepository   Repository for storing analysis output files
 	 */
 	@Autowired
-	public FastqcFileProcessor(final MessageSource messageSource, final SequenceFileRepository sequenceFileRepository,
-			AnalysisOutputFileRepository outputFileRepository) {
+	public FastqcFileProcessor(final MessageSource messageSource, final SequenceFileRepository sequenceFileRepository) {
 		this.messageSource = messageSource;
 		this.sequenceFileRepository = sequenceFileRepository;
-		this.outputFileRepository = outputFileRepository;
+	}
+
+	/**
+	 * Set the {@link FileAnalysisExecutor} used to run FastQC on the files of
+	 * a {@link SequencingObject} concurrently. By default files are analyzed
+	 * one after the other in the calling thread.
+	 *
+	 * @param fileAnalysisExecutor the executor to run FastQC with
+	 */
+	public void setFileAnalysisExecutor(FileAnalysisExecutor fileAnalysisExecutor) {
+		this.fileAnalysisExecutor = fileAnalysisExecutor;
+	}
+
+	/**
+	 * Get the {@link FileAnalysisExecutor} used to run FastQC on multiple
+	 * files at once.
+	 *
+	 * @return the {@link FileAnalysisExecutor}
+	 */
+	public FileAnalysisExecutor getFileAnalysisExecutor() {
+		return fileAnalysisExecutor;
 	}
 
 	@Override
 	@Transactional
 	public void process(SequencingObject sequencingObject) {
-		for (SequenceFile file : sequencingObject.getFiles()) {
-			processSingleFile(file);
+		// parse the files concurrently, but build and save the results in this
+		// thread so they're part of this transaction
+		Map<SequenceFile, FastQCModules> modules = fileAnalysisExecutor.analyze(sequencingObject.getFiles(),
+				f -> runModules(SequenceFactory.getSequenceFile(f.getFile().toFile())));
+
+		for (Map.Entry<SequenceFile, FastQCModules> fileModules : modules.entrySet()) {
+			processSingleFile(fileModules.getKey(), fileModules.getValue());
 		}
 	}
 
 	/**
-	 * Process a single {@link SequenceFile}
+	 * Save the FastQC results for a single {@link SequenceFile}
 	 *
 	 * @param sequenceFile file to process
+	 * @param modules      the FastQC modules that were run over the file
 	 * @throws FileProcessorException if an error occurs while processing
 	 */
-	private void processSingleFile(SequenceFile sequenceFile) throws FileProcessorException {
-		Path fileToProcess = sequenceFile.getFile();
-		AnalysisFastQC.AnalysisFastQCBuilder analysis = AnalysisFastQC.builder()
-				.fastqcVersion(FastQCApplication.VERSION)
-				.executionManagerAnalysisId(EXECUTION_MANAGER_ANALYSIS_ID)
-				.description(messageSource.getMessage("fastqc.file.processor.analysis.description", new Object[] {FastQCApplication.VERSION},
-						LocaleContextHolder.getLocale()));
+	private void processSingleFile(SequenceFile sequenceFile, FastQCModules modules) throws FileProcessorException {
 		try {
-			uk.ac.babraham.FastQC.Sequence.SequenceFile fastQCSequenceFile = SequenceFactory.getSequenceFile(
-					fileToProcess.toFile());
-			BasicStats basicStats = new BasicStats();
-			PerBaseQualityScores pbqs = new PerBaseQualityScores();
-			PerSequenceQualityScores psqs = new PerSequenceQualityScores();
-			OverRepresentedSeqs overRep = new OverRepresentedSeqs();
-			QCModule[] moduleList = new QCModule[] { basicStats, pbqs, psqs, overRep };
-
-			logger.debug("Launching FastQC analysis modules on all sequences.");
-			while (fastQCSequenceFile.hasNext()) {
-				Sequence sequence = fastQCSequenceFile.next();
-				for (QCModule module : moduleList) {
-					module.processSequence(sequence);
-				}
-			}
-
-			logger.debug("Finished FastQC analysis modules.");
-
-			Path outputDirectory = Files.createTempDirectory("analysis-output");
-
-			handleBasicStats(basicStats, analysis);
-			handlePerBaseQualityScores(pbqs, analysis, outputDirectory);
-			handlePerSequenceQualityScores(psqs, analysis, outputDirectory);
-			handleDuplicationLevel(overRep.duplicationLevelModule(), analysis, outputDirectory);
-			Set<OverrepresentedSequence> overrepresentedSequences = handleOverRepresentedSequences(overRep);
-
-			logger.trace("Saving FastQC analysis.");
-			analysis.overrepresentedSequences(overrepresentedSequences);
-
-			AnalysisFastQC analysisFastQC = analysis.build();
+			AnalysisFastQC analysisFastQC = buildAnalysis(modules);
 
-			sequenceFile.setFastQCAnalysis(analysis.build());
+			sequenceFile.setFastQCAnalysis(analysisFastQC);
 
 			sequenceFileRepository.saveMetadata(sequenceFile);
 		} catch (Exception e) {
@@ -131,6 +122,58 @@ public class FastqcFileProcessor implements FileProcessor {
 		}
 	}
 
+	/**
+	 * Run the FastQC analysis modules over every sequence provided by a FastQC
+	 * {@link uk.ac.babraham.FastQC.Sequence.SequenceFile}. The sequences can
+	 * come from a file on disk, or from a stream that is being consumed by
+	 * other processors at the same time. This doesn't touch the database, so
+	 * it is safe to run outside of the processor's thread.
+	 *
+	 * @param fastQCSequenceFile the source of sequences to analyze
+	 * @return the modules after processing every sequence
+	 * @throws SequenceFormatException if the sequences could not be parsed
+	 */
+	FastQCModules runModules(uk.ac.babraham.FastQC.Sequence.SequenceFile fastQCSequenceFile)
+			throws SequenceFormatException {
+		FastQCModules modules = new FastQCModules();
+
+		logger.debug("Launching FastQC analysis modules on all sequences.");
+		while (fastQCSequenceFile.hasNext()) {
+			Sequence sequence = fastQCSequenceFile.next();
+			for (QCModule module : modules.moduleList) {
+				module.processSequence(sequence);
+			}
+		}
+
+		logger.debug("Finished FastQC analysis modules.");
+
+		return modules;
+	}
+
+	/**
+	 * Build an {@link AnalysisFastQC} from the results of the FastQC modules.
+	 *
+	 * @param modules the modules after processing every sequence
+	 * @return the {@link AnalysisFastQC} (not yet attached to a {@link SequenceFile})
+	 * @throws IOException if the chart data could not be serialized
+	 */
+	AnalysisFastQC buildAnalysis(FastQCModules modules) throws IOException {
+		AnalysisFastQC.AnalysisFastQCBuilder analysis = AnalysisFastQC.builder()
+				.fastqcVersion(FastQCApplication.VERSION)
+				.executionManagerAnalysisId(EXECUTION_MANAGER_ANALYSIS_ID)
+				.description(messageSource.getMessage("fastqc.file.processor.analysis.description", new Object[] {FastQCApplication.VERSION},
+						LocaleContextHolder.getLocale()));
+
+		handleBasicStats(modules.basicStats, analysis);
+		handleChartData(modules, analysis);
+		Set<OverrepresentedSequence> overrepresentedSequences = handleOverRepresentedSequences(modules.overRep);
+
+		logger.trace("Saving FastQC analysis.");
+		analysis.overrepresentedSequences(overrepresentedSequences);
+
+		return analysis.build();
+	}
+
 	/**
 	 * Handle writing the {@link BasicStats} to the database.
 	 *
@@ -151,54 +194,78 @@ public class FastqcFileProcessor implements FileProcessor {
 	}
 
 	/**
-	 * Handle writing the {@link PerBaseQualityScores} to the database.
+	 * Handle writing the series behind the per-base quality, per-sequence quality and duplication level charts to the
+	 * database. The charts themselves are only drawn when they're requested (see {@link FastQCChartRenderer}).
 	 *
-	 * @param scores   the {@link PerBaseQualityScores} computed by fastqc.
+	 * @param modules  the modules after processing every sequence
 	 * @param analysis the {@link AnalysisFastQCBuilder} to update.
+	 * @throws IOException if the chart data could not be serialized
 	 */
-	private void handlePerBaseQualityScores(PerBaseQualityScores scores, AnalysisFastQCBuilder analysis,
-			Path tempDirectory) throws IOException {
-		QualityBoxPlot bp = (QualityBoxPlot) scores.getResultsPanel();
-		BufferedImage b = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
-		Graphics g = b.getGraphics();
-		bp.paint(g, b.getWidth(), b.getHeight());
-
-		AnalysisOutputFile file = writeImageToFile(tempDirectory, b, "perBaseQualityScoreChart.png");
-		analysis.perBaseQualityScoreChart(file);
+	private void handleChartData(FastQCModules modules, AnalysisFastQCBuilder analysis) throws IOException {
+		FastQCChartData chartData = new FastQCChartData(
+				handlePerBaseQualityScores((QualityBoxPlot) modules.pbqs.getResultsPanel()),
+				handleLineGraph((LineGraph) modules.psqs.getResultsPanel()),
+				handleLineGraph((LineGraph) modules.overRep.duplicationLevelModule().getResultsPanel()));
+
+		analysis.chartData(chartDataMapper.writeValueAsString(chartData));
 	}
 
 	/**
-	 * Handle writing the {@link PerSequenceQualityScores} to the database.
+	 * Get the values of the {@link PerBaseQualityScores} box plot.
 	 *
-	 * @param scores   the {@link PerSequenceQualityScores} computed by fastqc.
-	 * @param analysis the {@link AnalysisFastQCBuilder} to update.
+	 * @param plot the {@link QualityBoxPlot} built by fastqc.
+	 * @return the values of the plot.
 	 */
-	private void handlePerSequenceQualityScores(PerSequenceQualityScores scores, AnalysisFastQCBuilder analysis,
-			Path tempDirectory) throws IOException {
-		LineGraph lg = (LineGraph) scores.getResultsPanel();
-		BufferedImage b = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
-		Graphics g = b.getGraphics();
-		lg.paint(g, b.getWidth(), b.getHeight());
-
-		AnalysisOutputFile file = writeImageToFile(tempDirectory, b, "perSequenceQualityScoreChart.png");
-		analysis.perSequenceQualityScoreChart(file);
+	private FastQCChartData.BoxPlot handlePerBaseQualityScores(QualityBoxPlot plot) {
+		FastQCChartData.BoxPlot boxPlot = new FastQCChartData.BoxPlot();
+		boxPlot.setTitle(readField(plot, "graphTitle"));
+		boxPlot.setxLabels(readField(plot, "xLabels"));
+		boxPlot.setMeans(readField(plot, "means"));
+		boxPlot.setMedians(readField(plot, "medians"));
+		boxPlot.setLowest(readField(plot, "lowest"));
+		boxPlot.setHighest(readField(plot, "highest"));
+		boxPlot.setLowerQuartile(readField(plot, "lowerQuartile"));
+		boxPlot.setUpperQuartile(readField(plot, "upperQuartile"));
+		boxPlot.setMinY(readField(plot, "minY"));
+		boxPlot.setMaxY(readField(plot, "maxY"));
+		boxPlot.setyInterval(readField(plot, "yInterval"));
+		return boxPlot;
 	}
 
 	/**
-	 * Handle writing the {@link DuplicationLevel} to the database.
+	 * Get the values of a {@link LineGraph} (used for {@link PerSequenceQualityScores} and {@link DuplicationLevel}).
 	 *
-	 * @param duplicationLevel the {@link DuplicationLevel} calculated by fastqc.
-	 * @param analysis         the {@link AnalysisFastQCBuilder} to update.
+	 * @param graph the {@link LineGraph} built by fastqc.
+	 * @return the values of the graph.
 	 */
-	private void handleDuplicationLevel(DuplicationLevel duplicationLevel, AnalysisFastQCBuilder analysis,
-			Path tempDirectory) throws IOException {
-		LineGraph lg = (LineGraph) duplicationLevel.getResultsPanel();
-		BufferedImage b = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
-		Graphics g = b.getGraphics();
-		lg.paint(g, b.getWidth(), b.getHeight());
-
-		AnalysisOutputFile file = writeImageToFile(tempDirectory, b, "duplicationLevelChart.png");
-		analysis.duplicationLevelChart(file);
+	private FastQCChartData.LineChart handleLineGraph(LineGraph graph) {
+		FastQCChartData.LineChart lineChart = new FastQCChartData.LineChart();
+		lineChart.setTitle(readField(graph, "graphTitle"));
+		lineChart.setxLabel(readField(graph, "xLabel"));
+		lineChart.setxCategories(readField(graph, "xCategories"));
+		lineChart.setSeriesTitles(readField(graph, "xTitles"));
+		lineChart.setData(readField(graph, "data"));
+		lineChart.setMinY(readField(graph, "minY"));
+		lineChart.setMaxY(readField(graph, "maxY"));
+		return lineChart;
+	}
+
+	/**
+	 * Read a private field from one of the FastQC graphs.
+	 *
+	 * @param target the graph to read from
+	 * @param name   the name of the field
+	 * @param <T>    the type of the field
+	 * @return the value of the field
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T readField(Object target, String name) {
+		Field field = ReflectionUtils.findField(target.getClass(), name);
+		if (field == null) {
+			throw new IllegalStateException("FastQC graph " + target.getClass() + " has no field " + name);
+		}
+		ReflectionUtils.makeAccessible(field);
+		return (T) ReflectionUtils.getField(field, target);
 	}
 
 	/**
@@ -227,18 +294,6 @@ public class FastqcFileProcessor implements FileProcessor {
 		return overrepresentedSequences;
 	}
 
-	private AnalysisOutputFile writeImageToFile(Path tempDirectory, BufferedImage imageBuffer, String fileName)
-			throws IOException {
-		Path filePath = tempDirectory.resolve(fileName);
-
-		ImageIO.write(imageBuffer, "PNG", filePath.toFile());
-
-		AnalysisOutputFile analysisOutputFile = outputFileRepository.save(
-				new AnalysisOutputFile(filePath, null, fileName, null));
-
-		return analysisOutputFile;
-	}
-
 	/**
 	 * {@inheritDoc}
 	 */
@@ -260,4 +315,15 @@ public class FastqcFileProcessor implements FileProcessor {
 
 		return true;
 	}
+
+	/**
+	 * The FastQC modules whose results are stored for a file.
+	 */
+	static class FastQCModules {
+		private final BasicStats basicStats = new BasicStats();
+		private final PerBaseQualityScores pbqs = new PerBaseQualityScores();
+		private final PerSequenceQualityScores psqs = new PerSequenceQualityScores();
+		private final OverRepresentedSeqs overRep = new OverRepresentedSeqs();
+		private final QCModule[] moduleList = new QCModule[] { basicStats, pbqs, psqs, overRep };
+	}
 }
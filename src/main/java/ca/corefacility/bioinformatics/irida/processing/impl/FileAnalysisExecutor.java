@@ -0,0 +1,212 @@
+package ca.corefacility.bioinformatics.irida.processing.impl;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs a per-file analysis (like FastQC) over all the {@link SequenceFile}s of
+ * a {@link SequencingObject} at the same time on a shared thread pool. The
+ * number of analyses running at once across the whole server is limited by a
+ * memory budget so that processing many large files at once can't exhaust the
+ * heap.
+ */
+public class FileAnalysisExecutor {
+	private static final Logger logger = LoggerFactory.getLogger(FileAnalysisExecutor.class);
+
+	private final ExecutorService executor;
+	private final Semaphore memoryBudget;
+	private final int memoryPerFile;
+
+	/**
+	 * Create a {@link FileAnalysisExecutor} that runs every analysis in the
+	 * calling thread, one after the other.
+	 */
+	public FileAnalysisExecutor() {
+		this.executor = null;
+		this.memoryBudget = null;
+		this.memoryPerFile = 0;
+	}
+
+	/**
+	 * Create a {@link FileAnalysisExecutor} backed by a thread pool.
+	 *
+	 * @param executor        the pool to run analyses on
+	 * @param memoryBudgetMb  the total memory (in MB) available to all running
+	 *                        analyses
+	 * @param memoryPerFileMb the memory (in MB) reserved for each running
+	 *                        analysis
+	 */
+	public FileAnalysisExecutor(ExecutorService executor, int memoryBudgetMb, int memoryPerFileMb) {
+		checkArgument(memoryBudgetMb > 0, "memoryBudgetMb=" + memoryBudgetMb + " must be positive");
+		checkArgument(memoryPerFileMb > 0, "memoryPerFileMb=" + memoryPerFileMb + " must be positive");
+
+		this.executor = executor;
+		this.memoryBudget = new Semaphore(memoryBudgetMb, true);
+		// a single file must always be able to run, even if it's larger than the budget
+		this.memoryPerFile = Math.min(memoryPerFileMb, memoryBudgetMb);
+	}
+
+	/**
+	 * A unit of work to run against a single {@link SequenceFile}.
+	 *
+	 * @param <T> the result type of the analysis
+	 */
+	@FunctionalInterface
+	public interface FileAnalysis<T> {
+		/**
+		 * Analyze the file.
+		 *
+		 * @param file the file to analyze
+		 * @return the result of the analysis
+		 * @throws Exception if the analysis fails
+		 */
+		T analyze(SequenceFile file) throws Exception;
+	}
+
+	/**
+	 * Run an analysis on each of the given files, concurrently when there is
+	 * more than one file, and wait for all of them to finish.
+	 *
+	 * @param files    the files to analyze
+	 * @param analysis the analysis to run on each file
+	 * @param <T>      the result type of the analysis
+	 * @return the result for each file, in the iteration order of the files
+	 * @throws FileProcessorException if the analysis of any file fails
+	 */
+	public <T> Map<SequenceFile, T> analyze(Collection<SequenceFile> files, FileAnalysis<T> analysis)
+			throws FileProcessorException {
+		return analyze(files, analysis, result -> {
+		});
+	}
+
+	/**
+	 * Run an analysis on each of the given files, concurrently when there is
+	 * more than one file, and wait for all of them to finish. If the analysis
+	 * of any file fails, the results of the analyses that succeeded are passed
+	 * to {@code discard} so that anything they wrote can be removed.
+	 *
+	 * @param files    the files to analyze
+	 * @param analysis the analysis to run on each file
+	 * @param discard  called with each result that won't be returned because
+	 *                 another analysis failed
+	 * @param <T>      the result type of the analysis
+	 * @return the result for each file, in the iteration order of the files
+	 * @throws FileProcessorException if the analysis of any file fails
+	 */
+	public <T> Map<SequenceFile, T> analyze(Collection<SequenceFile> files, FileAnalysis<T> analysis,
+			Consumer<T> discard) throws FileProcessorException {
+		Map<SequenceFile, T> results = new LinkedHashMap<>();
+		Map<SequenceFile, Future<T>> futures = new LinkedHashMap<>();
+		AtomicBoolean failed = new AtomicBoolean(false);
+		boolean succeeded = false;
+
+		try {
+			if (executor == null || files.size() < 2) {
+				for (SequenceFile file : files) {
+					results.put(file, runWithMemory(file, analysis));
+				}
+			} else {
+				for (SequenceFile file : files) {
+					futures.put(file, executor.submit(() -> {
+						T result = runWithMemory(file, analysis);
+						// nothing will collect the result of an analysis that
+						// finishes after another one has failed
+						if (failed.get()) {
+							discard.accept(result);
+						}
+						return result;
+					}));
+				}
+
+				try {
+					for (Map.Entry<SequenceFile, Future<T>> future : futures.entrySet()) {
+						results.put(future.getKey(), future.getValue().get());
+					}
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof FileProcessorException) {
+						throw (FileProcessorException) cause;
+					}
+					throw new FileProcessorException("Failed to analyze sequence file", cause);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new FileProcessorException("Interrupted while analyzing sequence files", e);
+				}
+			}
+
+			succeeded = true;
+			return results;
+		} finally {
+			if (!succeeded) {
+				failed.set(true);
+				cancel(futures.values());
+				results.values().forEach(discard);
+				discardFinished(futures, results.keySet(), discard);
+			}
+		}
+	}
+
+	/**
+	 * Discard the results of analyses that finished before they could be
+	 * cancelled, but weren't collected. Analyses that were still running when
+	 * they were cancelled discard their own results.
+	 */
+	private <T> void discardFinished(Map<SequenceFile, Future<T>> futures, Set<SequenceFile> collected,
+			Consumer<T> discard) {
+		for (Map.Entry<SequenceFile, Future<T>> future : futures.entrySet()) {
+			Future<T> f = future.getValue();
+			if (!collected.contains(future.getKey()) && f.isDone() && !f.isCancelled()) {
+				try {
+					discard.accept(f.get());
+				} catch (ExecutionException e) {
+					// the failed analysis cleans up after itself
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Run the analysis for a file once its share of the memory budget is
+	 * available.
+	 */
+	private <T> T runWithMemory(SequenceFile file, FileAnalysis<T> analysis) throws FileProcessorException {
+		boolean acquired = false;
+		try {
+			if (memoryBudget != null) {
+				logger.trace("Waiting for " + memoryPerFile + "MB to analyze file " + file.getId());
+				memoryBudget.acquire(memoryPerFile);
+				acquired = true;
+			}
+
+			return analysis.analyze(file);
+		} catch (FileProcessorException e) {
+			throw e;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new FileProcessorException("Interrupted while waiting to analyze file " + file.getId(), e);
+		} catch (Exception e) {
+			throw new FileProcessorException("Failed to analyze file " + file.getId(), e);
+		} finally {
+			if (acquired) {
+				memoryBudget.release(memoryPerFile);
+			}
+		}
+	}
+
+	private void cancel(Collection<? extends Future<?>> futures) {
+		futures.forEach(f -> f.cancel(true));
+	}
+}
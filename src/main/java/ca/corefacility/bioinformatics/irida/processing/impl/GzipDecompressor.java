@@ -0,0 +1,336 @@
+package ca.corefacility.bioinformatics.irida.processing.impl;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decompresses gzip files for the {@link GzipFileProcessor}.
+ * <p>
+ * When it's given a thread pool, the decompressed file is written on a pool
+ * thread while the calling thread reads and inflates, so that writing
+ * overlaps with decompression. Files written as BGZF (a series of small
+ * gzip members that each record their compressed size, as written by
+ * <code>bgzip</code> and most sequencing tools) are split into their members
+ * and the members are inflated in parallel.
+ * <p>
+ * Without a thread pool files are decompressed in the calling thread.
+ */
+public class GzipDecompressor {
+	private static final Logger logger = LoggerFactory.getLogger(GzipDecompressor.class);
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int QUEUE_DEPTH = 16;
+
+	private static final int GZIP_HEADER_LENGTH = 12;
+	private static final int GZIP_TRAILER_LENGTH = 8;
+	private static final int FEXTRA = 4;
+	private static final int MAX_BGZF_BLOCK_SIZE = 64 * 1024;
+
+	private static final Chunk END_OF_STREAM = new Chunk(new byte[0], -1);
+
+	private final ExecutorService executor;
+	private final int parallelism;
+
+	/**
+	 * Create a {@link GzipDecompressor} that decompresses in the calling
+	 * thread.
+	 */
+	public GzipDecompressor() {
+		this.executor = null;
+		this.parallelism = 1;
+	}
+
+	/**
+	 * Create a {@link GzipDecompressor} backed by a thread pool.
+	 *
+	 * @param executor    the pool to read, inflate and write on
+	 * @param parallelism the number of BGZF members of a single file to inflate
+	 *                    at once
+	 */
+	public GzipDecompressor(ExecutorService executor, int parallelism) {
+		checkArgument(parallelism > 0, "parallelism=" + parallelism + " must be positive");
+
+		this.executor = executor;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Decompress a gzip file.
+	 *
+	 * @param source the gzip compressed file
+	 * @param target where to write the decompressed file, this must not exist
+	 * @throws IOException if the file could not be decompressed
+	 */
+	public void decompress(Path source, Path target) throws IOException {
+		try {
+			if (executor == null) {
+				try (InputStream in = new GZIPInputStream(Files.newInputStream(source), BUFFER_SIZE)) {
+					Files.copy(in, target);
+				}
+			} else if (isBgzf(source)) {
+				try {
+					decompressBgzf(source, target);
+				} catch (NotBgzfException e) {
+					logger.debug("[" + source + "] is not entirely BGZF, decompressing it as a single stream", e);
+					Files.deleteIfExists(target);
+					decompressPipelined(source, target);
+				}
+			} else {
+				decompressPipelined(source, target);
+			}
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(target);
+			throw e;
+		}
+	}
+
+	/**
+	 * Check if a file starts with a BGZF member.
+	 *
+	 * @param source the file to check
+	 * @return true if the first member of the file is BGZF
+	 * @throws IOException if the file could not be read
+	 */
+	private boolean isBgzf(Path source) throws IOException {
+		try (InputStream in = Files.newInputStream(source)) {
+			return readBgzfBlock(in) != null;
+		} catch (NotBgzfException | EOFException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Inflate each BGZF member of the file on the thread pool, writing the
+	 * members out in order as they finish.
+	 */
+	private void decompressBgzf(Path source, Path target) throws IOException {
+		logger.trace("Decompressing BGZF file [" + source + "] with " + parallelism + " threads");
+		Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(source), BUFFER_SIZE);
+				OutputStream out = new BufferedOutputStream(Files.newOutputStream(target), BUFFER_SIZE)) {
+			byte[] block;
+			while ((block = readBgzfBlock(in)) != null) {
+				final byte[] compressed = block;
+				inFlight.add(executor.submit(() -> inflateBgzfBlock(compressed)));
+
+				// keep a few blocks ahead of the writer for each thread
+				if (inFlight.size() >= parallelism * 2) {
+					out.write(await(inFlight.poll()));
+				}
+			}
+
+			while (!inFlight.isEmpty()) {
+				out.write(await(inFlight.poll()));
+			}
+		} finally {
+			inFlight.forEach(f -> f.cancel(true));
+		}
+	}
+
+	/**
+	 * Read the next BGZF member from the stream.
+	 *
+	 * @param in the stream positioned at the start of a member
+	 * @return the compressed data and trailer of the member, or null at the end
+	 *         of the stream
+	 * @throws NotBgzfException if the member isn't BGZF
+	 * @throws IOException      if the stream could not be read
+	 */
+	private static byte[] readBgzfBlock(InputStream in) throws IOException {
+		byte[] header = in.readNBytes(GZIP_HEADER_LENGTH);
+		if (header.length == 0) {
+			return null;
+		} else if (header.length < GZIP_HEADER_LENGTH) {
+			throw new EOFException("Truncated gzip header");
+		}
+
+		if ((header[0] & 0xff) != 31 || (header[1] & 0xff) != 139 || header[2] != 8 || header[3] != FEXTRA) {
+			throw new NotBgzfException();
+		}
+
+		int extraLength = readUnsignedShort(header, 10);
+		byte[] extra = in.readNBytes(extraLength);
+		if (extra.length < extraLength) {
+			throw new EOFException("Truncated gzip header");
+		}
+
+		// look for the BC subfield that holds the size of the member
+		int blockSize = -1;
+		for (int i = 0; i + 4 <= extra.length; i += 4 + readUnsignedShort(extra, i + 2)) {
+			if (extra[i] == 'B' && extra[i + 1] == 'C' && readUnsignedShort(extra, i + 2) == 2 && i + 6 <= extra.length) {
+				blockSize = readUnsignedShort(extra, i + 4) + 1;
+			}
+		}
+
+		int remaining = blockSize - GZIP_HEADER_LENGTH - extraLength;
+		if (blockSize < 0 || remaining < GZIP_TRAILER_LENGTH) {
+			throw new NotBgzfException();
+		}
+
+		byte[] block = in.readNBytes(remaining);
+		if (block.length < remaining) {
+			throw new EOFException("Truncated BGZF block");
+		}
+
+		return block;
+	}
+
+	/**
+	 * Inflate the compressed data of a single BGZF member and check it against
+	 * the member's trailer.
+	 *
+	 * @param block the compressed data and trailer of the member
+	 * @return the decompressed bytes
+	 * @throws IOException if the member is corrupt
+	 */
+	private static byte[] inflateBgzfBlock(byte[] block) throws IOException {
+		int dataLength = block.length - GZIP_TRAILER_LENGTH;
+		long expectedCrc = readUnsignedInt(block, dataLength);
+		long size = readUnsignedInt(block, dataLength + 4);
+		if (size > MAX_BGZF_BLOCK_SIZE) {
+			throw new IOException("BGZF block claims to inflate to " + size + " bytes");
+		}
+
+		byte[] decompressed = new byte[(int) size];
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(block, 0, dataLength);
+			int inflated = 0;
+			while (inflated < decompressed.length && !inflater.finished()) {
+				int n = inflater.inflate(decompressed, inflated, decompressed.length - inflated);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				inflated += n;
+			}
+
+			if (inflated != decompressed.length) {
+				throw new IOException("BGZF block inflated to " + inflated + " bytes, expected " + size);
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupt BGZF block", e);
+		} finally {
+			inflater.end();
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(decompressed);
+		if (crc.getValue() != expectedCrc) {
+			throw new IOException("BGZF block failed CRC check");
+		}
+
+		return decompressed;
+	}
+
+	/**
+	 * Decompress a single gzip stream, writing the decompressed file on the
+	 * thread pool while this thread reads and inflates. Only the writer runs
+	 * on the pool and it only waits on this thread, so files decompressed at
+	 * the same time can't hold every pool thread waiting on each other.
+	 */
+	private void decompressPipelined(Path source, Path target) throws IOException {
+		logger.trace("Decompressing [" + source + "] with an inflate/write pipeline");
+		BlockingQueue<Chunk> decompressed = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+
+		Future<?> writer = executor.submit(() -> {
+			try (OutputStream out = Files.newOutputStream(target)) {
+				for (Chunk chunk = decompressed.take(); chunk != END_OF_STREAM; chunk = decompressed.take()) {
+					out.write(chunk.bytes, 0, chunk.length);
+				}
+			}
+			return null;
+		});
+
+		try (InputStream in = new GZIPInputStream(
+				new BufferedInputStream(Files.newInputStream(source), BUFFER_SIZE), BUFFER_SIZE)) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int n;
+			while ((n = in.readNBytes(buffer, 0, BUFFER_SIZE)) > 0) {
+				put(decompressed, new Chunk(buffer, n), writer);
+				buffer = new byte[BUFFER_SIZE];
+			}
+			put(decompressed, END_OF_STREAM, writer);
+
+			await(writer);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while decompressing [" + source + "]");
+		} finally {
+			writer.cancel(true);
+		}
+	}
+
+	/**
+	 * Hand a chunk to a consumer, giving up if the consumer has stopped.
+	 */
+	private static void put(BlockingQueue<Chunk> queue, Chunk chunk, Future<?> consumer)
+			throws IOException, InterruptedException {
+		while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+			if (consumer.isDone()) {
+				await(consumer);
+				throw new IOException("Decompressed file writer stopped early");
+			}
+		}
+	}
+
+	/**
+	 * Wait for a task and unwrap its failure.
+	 */
+	private static <T> T await(Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while decompressing");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Failed to decompress file", e.getCause());
+		}
+	}
+
+	private static int readUnsignedShort(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8;
+	}
+
+	private static long readUnsignedInt(byte[] bytes, int offset) {
+		return (readUnsignedShort(bytes, offset) | (long) readUnsignedShort(bytes, offset + 2) << 16);
+	}
+
+	/**
+	 * A piece of the decompressed file passed to the writer thread.
+	 */
+	private static class Chunk {
+		private final byte[] bytes;
+		private final int length;
+
+		Chunk(byte[] bytes, int length) {
+			this.bytes = bytes;
+			this.length = length;
+		}
+	}
+
+	/**
+	 * Thrown when a gzip member isn't in BGZF format.
+	 */
+	private static class NotBgzfException extends IOException {
+		NotBgzfException() {
+			super("Not a BGZF block");
+		}
+	}
+}
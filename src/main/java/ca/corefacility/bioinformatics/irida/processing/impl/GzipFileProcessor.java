@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.zip.GZIPInputStream;
 
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.Fast5Object;
 import org.slf4j.Logger;
@@ -36,17 +35,23 @@ public class GzipFileProcessor implements FileProcessor {
 	private static final String GZIP_EXTENSION = ".gz";
 
 	private final SequenceFileRepository sequenceFileRepository;
+	private final DecompressionDirectory decompressionDirectory;
 	private boolean disableFileProcessor = false;
 	private boolean removeCompressedFile;
+	private GzipDecompressor decompressor = new GzipDecompressor();
 
 	@Autowired
-	public GzipFileProcessor(final SequenceFileRepository sequenceFileRepository) {
+	public GzipFileProcessor(final SequenceFileRepository sequenceFileRepository,
+			final DecompressionDirectory decompressionDirectory) {
 		this.sequenceFileRepository = sequenceFileRepository;
+		this.decompressionDirectory = decompressionDirectory;
 		removeCompressedFile = false;
 	}
 
-	public GzipFileProcessor(final SequenceFileRepository sequenceFileRepository, Boolean removeCompressedFiles) {
+	public GzipFileProcessor(final SequenceFileRepository sequenceFileRepository,
+			final DecompressionDirectory decompressionDirectory, Boolean removeCompressedFiles) {
 		this.sequenceFileRepository = sequenceFileRepository;
+		this.decompressionDirectory = decompressionDirectory;
 		this.removeCompressedFile = removeCompressedFiles;
 	}
 
@@ -62,6 +67,16 @@ public class GzipFileProcessor implements FileProcessor {
 		this.removeCompressedFile = removeCompressedFile;
 	}
 
+	/**
+	 * Set the {@link GzipDecompressor} used to decompress files. By default
+	 * files are decompressed in the calling thread.
+	 *
+	 * @param decompressor the decompressor to use
+	 */
+	public void setDecompressor(GzipDecompressor decompressor) {
+		this.decompressor = decompressor;
+	}
+
 	/**
 	 * Disables this file processor from processing files.
 	 *
@@ -114,30 +129,41 @@ public class GzipFileProcessor implements FileProcessor {
 			if (FileUtils.isGzipped(file)) {
 				file = addExtensionToFilename(file, GZIP_EXTENSION);
 
-				try (GZIPInputStream zippedInputStream = new GZIPInputStream(Files.newInputStream(file))) {
-					logger.trace("Handling gzip compressed file.");
+				logger.trace("Handling gzip compressed file.");
 
-					Path targetDirectory = Files.createTempDirectory(null);
-					Path target = targetDirectory.resolve(nameWithoutExtension);
-					logger.debug("Target directory is [" + targetDirectory + "]");
-					logger.debug("Writing uncompressed file to [" + target + "]");
+				// decompress on the same filesystem as the revision directories
+				// so that moving the decompressed file into its new revision
+				// directory is a rename rather than another copy
+				Path targetDirectory = decompressionDirectory.createDirectory();
+				Path target = targetDirectory.resolve(nameWithoutExtension);
+				logger.debug("Target directory is [" + targetDirectory + "]");
+				logger.debug("Writing uncompressed file to [" + target + "]");
 
-					Files.copy(zippedInputStream, target);
+				try {
+					decompressor.decompress(file, target);
 
 					sequenceFile.setFile(target);
 					sequenceFile = sequenceFileRepository.save(sequenceFile);
+				} catch (final Exception e) {
+					Files.deleteIfExists(target);
+					throw e;
+				} finally {
+					// the repository moves the decompressed file out when it's saved
+					if (!Files.exists(target)) {
+						Files.deleteIfExists(targetDirectory);
+					}
+				}
 
-					if (removeCompressedFile) {
-						logger.debug(
-								"Removing original compressed files [file.processing.decompress.remove.compressed.file=true]");
-						try {
-							Files.delete(file);
-						} catch (final Exception e) {
-							logger.error("Failed to remove the original compressed file.", e);
-							// throw the exception again to be caught by the
-							// outer try/catch block:
-							throw e;
-						}
+				if (removeCompressedFile) {
+					logger.debug(
+							"Removing original compressed files [file.processing.decompress.remove.compressed.file=true]");
+					try {
+						Files.delete(file);
+					} catch (final Exception e) {
+						logger.error("Failed to remove the original compressed file.", e);
+						// throw the exception again to be caught by the
+						// outer try/catch block:
+						throw e;
 					}
 				}
 			}
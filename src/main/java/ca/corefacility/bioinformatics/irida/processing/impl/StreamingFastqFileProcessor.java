@@ -0,0 +1,321 @@
+package ca.corefacility.bioinformatics.irida.processing.impl;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.input.TeeInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.Fast5Object;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
+import ca.corefacility.bioinformatics.irida.util.FileUtils;
+
+/**
+ * {@link FileProcessor} that does the work of the {@link ChecksumFileProcessor},
+ * {@link GzipFileProcessor}, {@link FastqcFileProcessor} and
+ * {@link CoverageFileProcessor} in a single read of each uploaded file. The raw
+ * upload is streamed once through a sha256 digest, the gzip decompressor (with
+ * the decompressed bytes written out as they are read) and the FastQC analysis
+ * modules. Coverage is computed from the base counts collected by FastQC.
+ *
+ * {@link Fast5Object}s are not streamed: they are handed to the individual
+ * processors as they would be in the unfused chain.
+ */
+@Component
+public class StreamingFastqFileProcessor implements FileProcessor {
+	private static final Logger logger = LoggerFactory.getLogger(StreamingFastqFileProcessor.class);
+	private static final String GZIP_EXTENSION = ".gz";
+
+	private final SequenceFileRepository sequenceFileRepository;
+	private final ChecksumFileProcessor checksumFileProcessor;
+	private final FastqcFileProcessor fastqcFileProcessor;
+	private final CoverageFileProcessor coverageFileProcessor;
+	private final DecompressionDirectory decompressionDirectory;
+
+	private boolean decompressFiles = true;
+	private boolean removeCompressedFile = false;
+
+	@Autowired
+	public StreamingFastqFileProcessor(final SequenceFileRepository sequenceFileRepository,
+			final ChecksumFileProcessor checksumFileProcessor, final FastqcFileProcessor fastqcFileProcessor,
+			final CoverageFileProcessor coverageFileProcessor, final DecompressionDirectory decompressionDirectory) {
+		this.sequenceFileRepository = sequenceFileRepository;
+		this.checksumFileProcessor = checksumFileProcessor;
+		this.fastqcFileProcessor = fastqcFileProcessor;
+		this.coverageFileProcessor = coverageFileProcessor;
+		this.decompressionDirectory = decompressionDirectory;
+	}
+
+	/**
+	 * Decide whether or not gzip compressed uploads should be stored
+	 * decompressed. If <code>false</code> the files are still decompressed in
+	 * memory for FastQC, but the decompressed bytes are not written out.
+	 *
+	 * @param decompressFiles
+	 *            Whether or not to store decompressed files.
+	 */
+	public void setDecompressFiles(boolean decompressFiles) {
+		this.decompressFiles = decompressFiles;
+	}
+
+	/**
+	 * Decide whether or not to delete the original compressed files that are
+	 * uploaded once they're unzipped. If <code>false</code> they will be kept
+	 * in their revision directories.
+	 *
+	 * @param removeCompressedFile
+	 *            Whether or not to delete original compressed files.
+	 */
+	public void setRemoveCompressedFiles(boolean removeCompressedFile) {
+		this.removeCompressedFile = removeCompressedFile;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public void process(SequencingObject sequencingObject) {
+		if (sequencingObject instanceof Fast5Object) {
+			processUnfused(sequencingObject);
+			return;
+		}
+
+		// stream the files concurrently, but save the results in this thread
+		// so they're part of this transaction
+		Map<SequenceFile, StreamedFile> streamedFiles = fastqcFileProcessor.getFileAnalysisExecutor()
+				.analyze(sequencingObject.getFiles(), this::streamFile, f -> deletePartialFile(f.decompressedFile));
+
+		long totalBases = 0;
+		List<StreamedFile> unsaved = new ArrayList<>(streamedFiles.values());
+		try {
+			for (Iterator<StreamedFile> files = unsaved.iterator(); files.hasNext(); ) {
+				AnalysisFastQC fastqc = saveStreamedFile(files.next());
+				files.remove();
+				totalBases += fastqc.getTotalBases();
+			}
+		} finally {
+			// a file that wasn't saved still has its decompressed copy in the
+			// decompression directory
+			unsaved.forEach(f -> deletePartialFile(f.decompressedFile));
+		}
+
+		coverageFileProcessor.saveCoverage(sequencingObject, totalBases);
+	}
+
+	/**
+	 * Run the individual processors for objects whose files can't be
+	 * streamed as fastq.
+	 *
+	 * @param sequencingObject
+	 *            the {@link SequencingObject} to process
+	 */
+	private void processUnfused(SequencingObject sequencingObject) {
+		checksumFileProcessor.process(sequencingObject);
+
+		if (fastqcFileProcessor.shouldProcessFile(sequencingObject)) {
+			fastqcFileProcessor.process(sequencingObject);
+			coverageFileProcessor.process(sequencingObject);
+		}
+	}
+
+	/**
+	 * Checksum, decompress and run the FastQC modules on a single
+	 * {@link SequenceFile} in one pass over the file. Nothing is written to the
+	 * database here, so this can run outside of the processor's thread.
+	 *
+	 * @param sequenceFile
+	 *            file to process
+	 * @return the results of reading the file
+	 * @throws FileProcessorException
+	 *             if an error occurs while processing
+	 */
+	private StreamedFile streamFile(SequenceFile sequenceFile) throws FileProcessorException {
+		Path file = sequenceFile.getFile();
+		Path target = null;
+
+		try {
+			boolean gzipped = FileUtils.isGzipped(file);
+			boolean writeDecompressed = gzipped && decompressFiles;
+
+			if (writeDecompressed) {
+				String nameWithoutExtension = file.getFileName().toString();
+				if (nameWithoutExtension.endsWith(GZIP_EXTENSION)) {
+					nameWithoutExtension = nameWithoutExtension.substring(0,
+							nameWithoutExtension.lastIndexOf(GZIP_EXTENSION));
+				}
+
+				file = addExtensionToFilename(file, GZIP_EXTENSION);
+
+				// write on the same filesystem as the revision directories so that
+				// moving the decompressed file into its new revision directory is
+				// a rename, not a copy
+				Path targetDirectory = decompressionDirectory.createDirectory();
+				target = targetDirectory.resolve(nameWithoutExtension);
+				logger.debug("Writing uncompressed file to [" + target + "]");
+			}
+
+			// FastQC reports on the file name that will be stored
+			Path analyzedFile = writeDecompressed ? target : file;
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			FastqcFileProcessor.FastQCModules modules;
+
+			try (DigestInputStream digestStream = new DigestInputStream(
+					new BufferedInputStream(Files.newInputStream(file)), digest)) {
+				InputStream sequenceStream = digestStream;
+				if (gzipped) {
+					sequenceStream = new GZIPInputStream(sequenceStream);
+				}
+				if (writeDecompressed) {
+					sequenceStream = new TeeInputStream(sequenceStream,
+							new BufferedOutputStream(Files.newOutputStream(target)), true);
+				}
+
+				try (BufferedReader reader = new BufferedReader(
+						new InputStreamReader(sequenceStream, StandardCharsets.UTF_8))) {
+					modules = fastqcFileProcessor
+							.runModules(new StreamingFastqSequenceFile(analyzedFile.toFile(), reader));
+
+					// make sure any trailing bytes after the last record still
+					// make it into the digest and the decompressed file
+					sequenceStream.transferTo(OutputStream.nullOutputStream());
+					digestStream.transferTo(OutputStream.nullOutputStream());
+				}
+			}
+
+			String shaDigest = Hex.encodeHexString(digest.digest());
+			logger.trace("Checksum generated for file " + sequenceFile.getId() + ": " + shaDigest);
+
+			return new StreamedFile(sequenceFile, file, target, shaDigest, modules);
+		} catch (Exception e) {
+			logger.error("Failed to process the input file [" + sequenceFile + "]; stack trace follows.", e);
+			deletePartialFile(target);
+			throw new FileProcessorException("Failed to process input file [" + sequenceFile + "].", e);
+		}
+	}
+
+	/**
+	 * Save the checksum, decompressed file and FastQC results for a file that
+	 * has been streamed.
+	 *
+	 * @param streamedFile
+	 *            the results of streaming the file
+	 * @return the {@link AnalysisFastQC} computed for the file
+	 * @throws FileProcessorException
+	 *             if an error occurs while saving
+	 */
+	private AnalysisFastQC saveStreamedFile(StreamedFile streamedFile) throws FileProcessorException {
+		SequenceFile sequenceFile = streamedFile.sequenceFile;
+
+		try {
+			sequenceFile.setUploadSha256(streamedFile.sha256);
+
+			if (streamedFile.decompressedFile != null) {
+				sequenceFile.setFile(streamedFile.decompressedFile);
+				sequenceFile = sequenceFileRepository.save(sequenceFile);
+
+				// the repository moves the decompressed file out when it's saved
+				if (!Files.exists(streamedFile.decompressedFile)) {
+					Files.deleteIfExists(streamedFile.decompressedFile.getParent());
+				}
+
+				if (removeCompressedFile) {
+					logger.debug(
+							"Removing original compressed files [file.processing.decompress.remove.compressed.file=true]");
+					Files.delete(streamedFile.originalFile);
+				}
+			}
+
+			AnalysisFastQC analysisFastQC = fastqcFileProcessor.buildAnalysis(streamedFile.modules);
+			sequenceFile.setFastQCAnalysis(analysisFastQC);
+			sequenceFileRepository.saveMetadata(sequenceFile);
+
+			return analysisFastQC;
+		} catch (Exception e) {
+			logger.error("Failed to process the input file [" + sequenceFile + "]; stack trace follows.", e);
+			throw new FileProcessorException("Failed to process input file [" + sequenceFile + "].", e);
+		}
+	}
+
+	/**
+	 * Remove a partially written decompressed file after a failure.
+	 *
+	 * @param target
+	 *            the decompressed file, or null if there isn't one
+	 */
+	private void deletePartialFile(Path target) {
+		if (target != null) {
+			try {
+				Files.deleteIfExists(target);
+				Files.deleteIfExists(target.getParent());
+			} catch (IOException deleteException) {
+				logger.warn("Could not remove partially decompressed file [" + target + "]", deleteException);
+			}
+		}
+	}
+
+	/**
+	 * Ensures that the supplied file ends with a specific extension.
+	 *
+	 * @param file
+	 *            the file to handle.
+	 * @return the modified (or not) file.
+	 */
+	private Path addExtensionToFilename(Path file, String extension) throws IOException {
+		String currentName = file.toString();
+		if (!currentName.endsWith(extension)) {
+			Path target = Paths.get(currentName + extension);
+			file = Files.move(file, target);
+		}
+
+		return file;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Boolean modifiesFile() {
+		return decompressFiles;
+	}
+
+	/**
+	 * The results of streaming a single file, waiting to be saved.
+	 */
+	private static class StreamedFile {
+		private final SequenceFile sequenceFile;
+		private final Path originalFile;
+		private final Path decompressedFile;
+		private final String sha256;
+		private final FastqcFileProcessor.FastQCModules modules;
+
+		StreamedFile(SequenceFile sequenceFile, Path originalFile, Path decompressedFile, String sha256,
+				FastqcFileProcessor.FastQCModules modules) {
+			this.sequenceFile = sequenceFile;
+			this.originalFile = originalFile;
+			this.decompressedFile = decompressedFile;
+			this.sha256 = sha256;
+			this.modules = modules;
+		}
+	}
+}
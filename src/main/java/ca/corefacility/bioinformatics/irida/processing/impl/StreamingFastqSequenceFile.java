@@ -0,0 +1,142 @@
+package ca.corefacility.bioinformatics.irida.processing.impl;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+
+import uk.ac.babraham.FastQC.Sequence.Sequence;
+import uk.ac.babraham.FastQC.Sequence.SequenceFile;
+import uk.ac.babraham.FastQC.Sequence.SequenceFormatException;
+
+/**
+ * A FastQC {@link SequenceFile} that reads fastq records from an
+ * already-open {@link BufferedReader} instead of opening the file itself. This
+ * lets FastQC consume the same stream that is being checksummed and
+ * decompressed by {@link StreamingFastqFileProcessor}.
+ *
+ * Record parsing follows FastQC's own fastq reader, without colorspace or
+ * casava handling (neither are used by IRIDA).
+ */
+public class StreamingFastqSequenceFile implements SequenceFile {
+
+	private final BufferedReader reader;
+	private final File file;
+	private final String name;
+
+	private Sequence nextSequence = null;
+
+	/**
+	 * Create a new {@link StreamingFastqSequenceFile} and read the first
+	 * record from the stream.
+	 *
+	 * @param file
+	 *            the file that the stream was opened on (used for naming
+	 *            only, it is never read directly)
+	 * @param reader
+	 *            the reader to take fastq records from
+	 * @throws SequenceFormatException
+	 *             if the first record is not a valid fastq record
+	 */
+	public StreamingFastqSequenceFile(File file, BufferedReader reader) throws SequenceFormatException {
+		this.file = file;
+		this.name = file.getName();
+		this.reader = reader;
+
+		readNext();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNext() {
+		return nextSequence != null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Sequence next() throws SequenceFormatException {
+		Sequence sequence = nextSequence;
+		readNext();
+		return sequence;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isColorspace() {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String name() {
+		return name;
+	}
+
+	/**
+	 * Progress isn't tracked for streams, so this is always 0 until the stream
+	 * has been consumed.
+	 */
+	@Override
+	public int getPercentComplete() {
+		return hasNext() ? 0 : 100;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Read the next record from the stream, leaving nextSequence null at the
+	 * end of the stream.
+	 *
+	 * @throws SequenceFormatException
+	 *             if the record is truncated or malformed
+	 */
+	private void readNext() throws SequenceFormatException {
+		try {
+			String id;
+
+			// allow blank lines between and after records
+			do {
+				id = reader.readLine();
+				if (id == null) {
+					nextSequence = null;
+					return;
+				}
+			} while (id.isEmpty());
+
+			if (!id.startsWith("@")) {
+				nextSequence = null;
+				throw new SequenceFormatException("ID line didn't start with '@'");
+			}
+
+			String seq = reader.readLine();
+			String midLine = reader.readLine();
+			String quality = reader.readLine();
+
+			if (seq == null || midLine == null || quality == null) {
+				throw new SequenceFormatException(
+						"Ran out of data in the middle of a fastq entry.  Your file is probably truncated");
+			}
+
+			if (!midLine.startsWith("+")) {
+				throw new SequenceFormatException("Midline '" + midLine + "' didn't start with '+'");
+			}
+
+			nextSequence = new Sequence(this, seq.toUpperCase(), quality, id);
+		} catch (IOException e) {
+			throw new SequenceFormatException(e.getLocalizedMessage());
+		}
+	}
+}
@@ -0,0 +1,12 @@
+package ca.corefacility.bioinformatics.irida.repositories;
+
+import org.springframework.data.repository.CrudRepository;
+
+import ca.corefacility.bioinformatics.irida.model.project.ProjectContentHash;
+
+/**
+ * Repository for storing and retrieving {@link ProjectContentHash}es
+ */
+public interface ProjectContentHashRepository
+		extends CrudRepository<ProjectContentHash, Long>, ProjectContentHashRepositoryCustom {
+}
@@ -0,0 +1,35 @@
+package ca.corefacility.bioinformatics.irida.repositories;
+
+import java.util.Collection;
+
+import ca.corefacility.bioinformatics.irida.model.project.ProjectContentHash;
+
+/**
+ * Custom methods for storing {@link ProjectContentHash}es.
+ */
+public interface ProjectContentHashRepositoryCustom {
+	/**
+	 * Store a calculated project hash. The hash is only stored if the stored
+	 * version is still {@link ProjectContentHash#getVersion()}, or if there was
+	 * no stored hash and none has been stored since.
+	 *
+	 * @param hash the hash to store
+	 */
+	public void saveContentHash(ProjectContentHash hash);
+
+	/**
+	 * Clear the hashes of a set of projects and increase their version, so
+	 * that a hash calculated before the change can't be stored.
+	 *
+	 * @param projectIds the ids of the projects that changed
+	 */
+	public void invalidateContentHashes(Collection<Long> projectIds);
+
+	/**
+	 * Clear the hashes of all projects containing any of a set of samples and
+	 * increase their version.
+	 *
+	 * @param sampleIds the ids of the samples that changed
+	 */
+	public void invalidateContentHashesForSamples(Collection<Long> sampleIds);
+}
@@ -0,0 +1,71 @@
+package ca.corefacility.bioinformatics.irida.repositories;
+
+import java.util.Collection;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import ca.corefacility.bioinformatics.irida.model.project.ProjectContentHash;
+
+/**
+ * Impl of custom methods for {@link ProjectContentHashRepository}. Hashes are
+ * written with JDBC so that they can be stored conditionally on their version.
+ */
+public class ProjectContentHashRepositoryImpl implements ProjectContentHashRepositoryCustom {
+	private static final String INSERT_HASH = "INSERT IGNORE INTO project_content_hash (project_id, project_hash, version, created_date) VALUES (:project, :hash, 0, :createdDate)";
+	private static final String UPDATE_HASH = "UPDATE project_content_hash SET project_hash = :hash, created_date = :createdDate WHERE project_id = :project AND version = :version";
+	private static final String INVALIDATE_HASHES = "INSERT INTO project_content_hash (project_id, project_hash, version, created_date) SELECT p.id, NULL, 1, NOW() FROM project p WHERE p.id IN (:projects) ON DUPLICATE KEY UPDATE project_hash = NULL, version = version + 1";
+	private static final String INVALIDATE_HASHES_FOR_SAMPLES = "INSERT INTO project_content_hash (project_id, project_hash, version, created_date) SELECT DISTINCT j.project_id, NULL, 1, NOW() FROM project_sample j WHERE j.sample_id IN (:samples) ON DUPLICATE KEY UPDATE project_hash = NULL, version = version + 1";
+
+	private final DataSource dataSource;
+
+	@Autowired
+	public ProjectContentHashRepositoryImpl(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void saveContentHash(ProjectContentHash hash) {
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+		parameters.addValue("project", hash.getProjectId());
+		parameters.addValue("hash", hash.getProjectHash());
+		parameters.addValue("version", hash.getVersion());
+		parameters.addValue("createdDate", hash.getCreatedDate());
+
+		tmpl.update(hash.getVersion() == null ? INSERT_HASH : UPDATE_HASH, parameters);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void invalidateContentHashes(Collection<Long> projectIds) {
+		if (projectIds.isEmpty()) {
+			return;
+		}
+
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+		tmpl.update(INVALIDATE_HASHES, new MapSqlParameterSource("projects", projectIds));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void invalidateContentHashesForSamples(Collection<Long> sampleIds) {
+		if (sampleIds.isEmpty()) {
+			return;
+		}
+
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+		tmpl.update(INVALIDATE_HASHES_FOR_SAMPLES, new MapSqlParameterSource("samples", sampleIds));
+	}
+}
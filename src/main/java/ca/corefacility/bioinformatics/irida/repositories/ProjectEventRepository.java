@@ -17,7 +17,7 @@ import ca.corefacility.bioinformatics.irida.model.user.User;
  * 
  *
  */
-public interface ProjectEventRepository extends IridaJpaRepository<ProjectEvent, Long> {
+public interface ProjectEventRepository extends IridaJpaRepository<ProjectEvent, Long>, ProjectEventRepositoryCustom {
 
 	/**
 	 * Query to get events for the specified user
@@ -61,4 +61,18 @@ public interface ProjectEventRepository extends IridaJpaRepository<ProjectEvent,
 	 */
 	@Query(GET_EVENTS_FOR_USER + " AND e.createdDate > :startTime")
 	public List<ProjectEvent> getEventsForUserAfterDate(final @Param("forUser") User user, final @Param("startTime") Date startTime);
+
+	/**
+	 * Get all {@link ProjectEvent}s that occurred after a given {@link Date}
+	 * on projects that {@link User}s are subscribed to, with the subscribed
+	 * user for each event. An event is returned once for every user
+	 * subscribed to its project.
+	 * 
+	 * @param startTime
+	 *            The {@link Date} to get events after
+	 * @return pairs of subscribed {@link User} and {@link ProjectEvent},
+	 *         ordered by user
+	 */
+	@Query("SELECT j.user, e FROM ProjectUserJoin j, ProjectEvent e WHERE j.emailSubscription = true AND e.project = j.project AND e.createdDate > :startTime ORDER BY j.user.id, e.createdDate")
+	public List<Object[]> getSubscribedEventsAfterDate(final @Param("startTime") Date startTime);
 }
@@ -0,0 +1,19 @@
+package ca.corefacility.bioinformatics.irida.repositories;
+
+import java.util.Collection;
+
+import ca.corefacility.bioinformatics.irida.model.event.ProjectEvent;
+
+/**
+ * Custom methods for storing {@link ProjectEvent}s.
+ */
+public interface ProjectEventRepositoryCustom {
+	/**
+	 * Insert a set of new {@link ProjectEvent}s in a single JDBC batch. Events
+	 * use database generated ids, so Hibernate would otherwise insert them one
+	 * statement at a time. The ids of the inserted events are not set.
+	 *
+	 * @param events the {@link ProjectEvent}s to insert
+	 */
+	public void insertEvents(Collection<? extends ProjectEvent> events);
+}
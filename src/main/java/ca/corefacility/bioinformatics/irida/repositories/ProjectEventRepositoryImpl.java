@@ -0,0 +1,113 @@
+package ca.corefacility.bioinformatics.irida.repositories;
+
+import java.util.Collection;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import ca.corefacility.bioinformatics.irida.model.enums.UserGroupRemovedProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.DataAddedToSampleProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.ProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.SampleAddedProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.SampleRemovedProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.UserGroupRoleSetProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.UserRemovedProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.UserRoleSetProjectEvent;
+
+/**
+ * Impl of custom methods for {@link ProjectEventRepository}. Writes events
+ * with JDBC so that bulk sample operations don't insert their events one at a
+ * time.
+ */
+public class ProjectEventRepositoryImpl implements ProjectEventRepositoryCustom {
+	private static final String INSERT_EVENT = "INSERT INTO project_event (DTYPE, created_date, project_id, sample_id, user_id, user_group_id, role, sample_name) VALUES (:dtype, :createdDate, :project, :sample, :user, :userGroup, :role, :sampleName)";
+
+	private final DataSource dataSource;
+
+	@Autowired
+	public ProjectEventRepositoryImpl(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void insertEvents(Collection<? extends ProjectEvent> events) {
+		if (events.isEmpty()) {
+			return;
+		}
+
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+		MapSqlParameterSource[] batch = events.stream()
+				.map(this::getParameters)
+				.toArray(MapSqlParameterSource[]::new);
+
+		tmpl.batchUpdate(INSERT_EVENT, batch);
+	}
+
+	/**
+	 * Get the columns of the project_event table for an event. Events are
+	 * stored in a single table, with the entity name of the event class as the
+	 * discriminator.
+	 *
+	 * @param event the {@link ProjectEvent} to insert
+	 * @return the parameters for the insert statement
+	 */
+	private MapSqlParameterSource getParameters(ProjectEvent event) {
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+		parameters.addValue("dtype", event.getClass()
+				.getSimpleName());
+		parameters.addValue("createdDate", event.getCreatedDate());
+		parameters.addValue("project", event.getProject()
+				.getId());
+
+		Long sample = null;
+		Long user = null;
+		Long userGroup = null;
+		String role = null;
+		String sampleName = null;
+
+		if (event instanceof SampleAddedProjectEvent) {
+			sample = ((SampleAddedProjectEvent) event).getSample()
+					.getId();
+		} else if (event instanceof DataAddedToSampleProjectEvent) {
+			sample = ((DataAddedToSampleProjectEvent) event).getSample()
+					.getId();
+		} else if (event instanceof SampleRemovedProjectEvent) {
+			sampleName = ((SampleRemovedProjectEvent) event).getSampleName();
+		} else if (event instanceof UserRoleSetProjectEvent) {
+			UserRoleSetProjectEvent roleEvent = (UserRoleSetProjectEvent) event;
+			user = roleEvent.getUser()
+					.getId();
+			role = roleEvent.getRole()
+					.name();
+		} else if (event instanceof UserRemovedProjectEvent) {
+			user = ((UserRemovedProjectEvent) event).getUser()
+					.getId();
+		} else if (event instanceof UserGroupRoleSetProjectEvent) {
+			UserGroupRoleSetProjectEvent roleEvent = (UserGroupRoleSetProjectEvent) event;
+			userGroup = roleEvent.getUserGroup()
+					.getId();
+			role = roleEvent.getRole()
+					.name();
+		} else if (event instanceof UserGroupRemovedProjectEvent) {
+			userGroup = ((UserGroupRemovedProjectEvent) event).getUserGroup()
+					.getId();
+		} else {
+			throw new IllegalArgumentException("Cannot insert event of type " + event.getClass()
+					.getName());
+		}
+
+		parameters.addValue("sample", sample);
+		parameters.addValue("user", user);
+		parameters.addValue("userGroup", userGroup);
+		parameters.addValue("role", role);
+		parameters.addValue("sampleName", sampleName);
+
+		return parameters;
+	}
+}
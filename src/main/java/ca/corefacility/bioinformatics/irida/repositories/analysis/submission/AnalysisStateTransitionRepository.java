@@ -0,0 +1,51 @@
+package ca.corefacility.bioinformatics.irida.repositories.analysis.submission;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisStateTransition;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+
+/**
+ * A repository for the {@link AnalysisStateTransition}s of
+ * {@link AnalysisSubmission}s
+ */
+public interface AnalysisStateTransitionRepository
+		extends CrudRepository<AnalysisStateTransition, Long>, AnalysisStateTransitionRepositoryCustom {
+
+	/**
+	 * Get the most recent state transition of an {@link AnalysisSubmission}
+	 *
+	 * @param submissionId the id of the {@link AnalysisSubmission}
+	 * @return the latest {@link AnalysisStateTransition}, or null if none
+	 *         have been recorded
+	 */
+	AnalysisStateTransition findFirstBySubmissionIdOrderByIdDesc(Long submissionId);
+
+	/**
+	 * Get the first transition of an {@link AnalysisSubmission} into the given
+	 * state
+	 *
+	 * @param submissionId  the id of the {@link AnalysisSubmission}
+	 * @param analysisState the state entered
+	 * @return the first {@link AnalysisStateTransition} into the state, or
+	 *         null if none have been recorded
+	 */
+	AnalysisStateTransition findFirstBySubmissionIdAndAnalysisStateOrderByIdAsc(Long submissionId,
+			AnalysisState analysisState);
+
+	/**
+	 * Get the most recent state transition of each of a set of
+	 * {@link AnalysisSubmission}s
+	 *
+	 * @param submissionIds the ids of the {@link AnalysisSubmission}s
+	 * @return the latest {@link AnalysisStateTransition} of each submission
+	 *         that has any recorded
+	 */
+	@Query("FROM AnalysisStateTransition t WHERE t.id IN (SELECT max(l.id) FROM AnalysisStateTransition l WHERE l.submissionId IN ?1 GROUP BY l.submissionId)")
+	List<AnalysisStateTransition> getLatestTransitions(Collection<Long> submissionIds);
+}
@@ -0,0 +1,19 @@
+package ca.corefacility.bioinformatics.irida.repositories.analysis.submission;
+
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisStateTransition;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+
+/**
+ * Custom methods for storing {@link AnalysisStateTransition}s.
+ */
+public interface AnalysisStateTransitionRepositoryCustom {
+	/**
+	 * Insert a new {@link AnalysisStateTransition} with JDBC. Transitions are
+	 * recorded while the {@link AnalysisSubmission} that changed is being
+	 * flushed, when the entity manager can't save anything else. The
+	 * transition is inserted in the current transaction and its id is set.
+	 *
+	 * @param transition the {@link AnalysisStateTransition} to insert
+	 */
+	public void insertTransition(AnalysisStateTransition transition);
+}
@@ -0,0 +1,44 @@
+package ca.corefacility.bioinformatics.irida.repositories.analysis.submission;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisStateTransition;
+
+/**
+ * Impl of custom methods for {@link AnalysisStateTransitionRepository}.
+ */
+public class AnalysisStateTransitionRepositoryImpl implements AnalysisStateTransitionRepositoryCustom {
+	private static final String INSERT_TRANSITION = "INSERT INTO analysis_state_transition (analysis_submission_id, previous_state, analysis_state, transition_date) VALUES (:submission, :previousState, :analysisState, :transitionDate)";
+
+	private final DataSource dataSource;
+
+	@Autowired
+	public AnalysisStateTransitionRepositoryImpl(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void insertTransition(AnalysisStateTransition transition) {
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+		parameters.addValue("submission", transition.getSubmissionId());
+		parameters.addValue("previousState",
+				transition.getPreviousState() != null ? transition.getPreviousState().name() : null);
+		parameters.addValue("analysisState", transition.getAnalysisState().name());
+		parameters.addValue("transitionDate", transition.getTransitionDate());
+
+		KeyHolder keyHolder = new GeneratedKeyHolder();
+		tmpl.update(INSERT_TRANSITION, parameters, keyHolder, new String[] { "id" });
+		transition.setId(keyHolder.getKey().longValue());
+	}
+}
@@ -2,6 +2,7 @@ package ca.corefacility.bioinformatics.irida.repositories.analysis.submission;
 
 import java.util.*;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 
 import ca.corefacility.bioinformatics.irida.model.enums.AnalysisCleanedState;
@@ -31,6 +32,18 @@ public interface AnalysisSubmissionRepository extends IridaJpaRepository<Analysi
 	@Query("select s from AnalysisSubmission s where s.analysisState = ?1")
 	public List<AnalysisSubmission> findByAnalysisState(AnalysisState state);
 
+	/**
+	 * Loads a page of the ids of {@link AnalysisSubmission}s with the given
+	 * state, in order of id, starting after the given id.
+	 *
+	 * @param state   The state of the analyses to search for.
+	 * @param afterId Only ids greater than this are returned.
+	 * @param page    The number of ids to load.
+	 * @return A {@link List} of {@link AnalysisSubmission} ids in order.
+	 */
+	@Query("select s.id from AnalysisSubmission s where s.analysisState = ?1 and s.id > ?2 order by s.id")
+	public List<Long> findIdsByAnalysisStateAfterId(AnalysisState state, Long afterId, Pageable page);
+
 	/**
 	 * Loads up a list of {@link AnalysisSubmission}s with the given state.
 	 *
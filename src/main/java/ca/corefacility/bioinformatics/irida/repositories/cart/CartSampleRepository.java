@@ -0,0 +1,104 @@
+package ca.corefacility.bioinformatics.irida.repositories.cart;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import ca.corefacility.bioinformatics.irida.model.cart.CartSample;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+
+/**
+ * A repository for the {@link CartSample}s in {@link User}s' carts
+ */
+public interface CartSampleRepository extends CrudRepository<CartSample, Long>, CartSampleRepositoryCustom {
+
+	/**
+	 * Get the number of samples in a user's cart
+	 *
+	 * @param userId the id of the {@link User}
+	 * @return the number of samples in the cart
+	 */
+	long countByUserId(Long userId);
+
+	/**
+	 * Get a sample in a user's cart
+	 *
+	 * @param userId   the id of the {@link User}
+	 * @param sampleId the id of the sample
+	 * @return the {@link CartSample}, or null if the sample isn't in the cart
+	 */
+	CartSample findByUserIdAndSampleId(Long userId, Long sampleId);
+
+	/**
+	 * Get the samples in a user's cart that were added from a project
+	 *
+	 * @param userId    the id of the {@link User}
+	 * @param projectId the id of the project
+	 * @return the {@link CartSample}s from the project
+	 */
+	List<CartSample> findByUserIdAndProjectIdOrderBySampleName(Long userId, Long projectId);
+
+	/**
+	 * Get the ids of the projects the samples in a user's cart were added from
+	 *
+	 * @param userId the id of the {@link User}
+	 * @return the project ids
+	 */
+	@Query("select distinct c.projectId from CartSample c where c.userId = ?1")
+	List<Long> getProjectIdsInCart(Long userId);
+
+	/**
+	 * Get which of a set of samples are in a user's cart
+	 *
+	 * @param userId    the id of the {@link User}
+	 * @param sampleIds the ids of the samples to look for
+	 * @return the ids of the samples in the cart
+	 */
+	@Query("select c.sampleId from CartSample c where c.userId = ?1 and c.sampleId in ?2")
+	List<Long> getSampleIdsInCart(Long userId, Collection<Long> sampleIds);
+
+	/**
+	 * Get which of a set of sample names are used by samples in a user's cart
+	 *
+	 * @param userId      the id of the {@link User}
+	 * @param sampleNames the sample names to look for
+	 * @return the names of samples in the cart
+	 */
+	@Query("select c.sampleName from CartSample c where c.userId = ?1 and c.sampleName in ?2")
+	List<String> getSampleNamesInCart(Long userId, Collection<String> sampleNames);
+
+	/**
+	 * Remove a sample from a user's cart
+	 *
+	 * @param userId   the id of the {@link User}
+	 * @param sampleId the id of the sample
+	 * @return the number of samples removed
+	 */
+	@Modifying
+	@Query("delete from CartSample c where c.userId = ?1 and c.sampleId = ?2")
+	int removeSample(Long userId, Long sampleId);
+
+	/**
+	 * Remove the samples added from a project from a user's cart
+	 *
+	 * @param userId    the id of the {@link User}
+	 * @param projectId the id of the project
+	 * @return the number of samples removed
+	 */
+	@Modifying
+	@Query("delete from CartSample c where c.userId = ?1 and c.projectId = ?2")
+	int removeProject(Long userId, Long projectId);
+
+	/**
+	 * Remove every sample from a user's cart
+	 *
+	 * @param userId the id of the {@link User}
+	 * @return the number of samples removed
+	 */
+	@Modifying
+	@Query("delete from CartSample c where c.userId = ?1")
+	int empty(Long userId);
+}
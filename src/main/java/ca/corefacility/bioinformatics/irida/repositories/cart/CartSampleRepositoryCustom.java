@@ -0,0 +1,24 @@
+package ca.corefacility.bioinformatics.irida.repositories.cart;
+
+import java.util.Collection;
+
+import ca.corefacility.bioinformatics.irida.model.cart.CartSample;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+
+/**
+ * Custom methods for adding {@link CartSample}s to {@link User}s' carts.
+ */
+public interface CartSampleRepositoryCustom {
+	/**
+	 * Add samples from a project to a user's cart in a single statement.
+	 * Samples that aren't in the project are ignored, and samples that are
+	 * already in the cart are left as they are, so adding the same samples at
+	 * the same time from two requests doesn't fail.
+	 *
+	 * @param userId    the id of the {@link User}
+	 * @param projectId the id of the project the samples are added from
+	 * @param sampleIds the ids of the samples to add
+	 * @return the number of samples added to the cart
+	 */
+	public int addSamplesToCart(Long userId, Long projectId, Collection<Long> sampleIds);
+}
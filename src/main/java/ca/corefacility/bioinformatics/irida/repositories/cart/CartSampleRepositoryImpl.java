@@ -0,0 +1,46 @@
+package ca.corefacility.bioinformatics.irida.repositories.cart;
+
+import java.util.Collection;
+import java.util.Date;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Impl of custom methods for {@link CartSampleRepository}. Samples are added
+ * with JDBC so that adding a page of samples to the cart is a single insert
+ * instead of one per sample.
+ */
+public class CartSampleRepositoryImpl implements CartSampleRepositoryCustom {
+	private static final String ADD_SAMPLES = "INSERT INTO cart_sample (user_id, sample_id, project_id, created_date) SELECT :user, ps.sample_id, ps.project_id, :createdDate FROM project_sample ps WHERE ps.project_id = :project AND ps.sample_id IN (:samples) ON DUPLICATE KEY UPDATE cart_sample.id = cart_sample.id";
+
+	private final DataSource dataSource;
+
+	@Autowired
+	public CartSampleRepositoryImpl(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int addSamplesToCart(Long userId, Long projectId, Collection<Long> sampleIds) {
+		if (sampleIds.isEmpty()) {
+			return 0;
+		}
+
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+		parameters.addValue("user", userId);
+		parameters.addValue("project", projectId);
+		parameters.addValue("samples", sampleIds);
+		parameters.addValue("createdDate", new Date());
+
+		// rows left unchanged by the duplicate key update aren't counted
+		return tmpl.update(ADD_SAMPLES, parameters);
+	}
+}
@@ -1,7 +1,10 @@
 package ca.corefacility.bioinformatics.irida.repositories.joins.project;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
@@ -29,6 +32,42 @@ public interface ProjectSampleJoinRepository extends PagingAndSortingRepository<
 	@Query("select j from ProjectSampleJoin j where j.sample = ?1")
 	public List<Join<Project, Sample>> getProjectForSample(Sample sample);
 
+	/**
+	 * Get the ids of the {@link Project}s that each of a set of {@link Sample}s
+	 * belongs to.
+	 *
+	 * @param sampleIds
+	 *            the ids of the samples.
+	 * @return pairs of {@link Sample} id and {@link Project} id.
+	 */
+	@Query("select j.sample.id, j.project.id from ProjectSampleJoin j where j.sample.id in ?1")
+	public List<Object[]> getProjectIdsForSamples(Collection<Long> sampleIds);
+
+	/**
+	 * Get the ids of the {@link Project}s that own each of a set of
+	 * {@link Sample}s.
+	 *
+	 * @param sampleIds
+	 *            the ids of the samples.
+	 * @return pairs of {@link Sample} id and owning {@link Project} id.
+	 */
+	@Query("select j.sample.id, j.project.id from ProjectSampleJoin j where j.owner = true and j.sample.id in ?1")
+	public List<Object[]> getOwnerProjectIdsForSamples(Collection<Long> sampleIds);
+
+	/**
+	 * Get the ids and names of the {@link Sample}s in a {@link Project} from a
+	 * set of sample ids, without loading the samples.
+	 *
+	 * @param project
+	 *            the {@link Project} the samples are in.
+	 * @param sampleIds
+	 *            the ids of the samples.
+	 * @return pairs of {@link Sample} id and name for the samples in the
+	 *         project.
+	 */
+	@Query("select j.sample.id, j.sample.sampleName from ProjectSampleJoin j where j.project = ?1 and j.sample.id in ?2")
+	public List<Object[]> getSampleIdsAndNamesInProject(Project project, Collection<Long> sampleIds);
+
 	/**
 	 * Get a specific {@link ProjectSampleJoin} for a {@link Project} and
 	 * {@link Sample}
@@ -53,6 +92,22 @@ public interface ProjectSampleJoinRepository extends PagingAndSortingRepository<
 	@Query("select j from ProjectSampleJoin j where j.project = ?1")
 	public List<Join<Project, Sample>> getSamplesForProject(Project project);
 
+	/**
+	 * Get a page of the {@link Sample}s associated with a {@link Project},
+	 * ordered by {@link Sample} id. The samples are loaded in the same query as
+	 * the joins.
+	 *
+	 * @param project
+	 *            The {@link Project} to get {@link Sample}s from
+	 * @param pageable
+	 *            the page to get
+	 * @return A page of {@link ProjectSampleJoin}s describing the
+	 *         project/sample relationship
+	 */
+	@Query(value = "select j from ProjectSampleJoin j join fetch j.sample s left join fetch s.remoteStatus where j.project = ?1 order by s.id",
+			countQuery = "select count(j.id) from ProjectSampleJoin j where j.project = ?1")
+	public Page<ProjectSampleJoin> getSamplesForProject(Project project, Pageable pageable);
+
 	/**
 	 * Get {@link Sample} in a {@link Project} given a list of Sample ids.
 	 * @param project {@link Project} to get samples for.
@@ -1,6 +1,7 @@
 package ca.corefacility.bioinformatics.irida.repositories.joins.project;
 
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -81,6 +82,17 @@ public interface ProjectUserJoinRepository extends CrudRepository<ProjectUserJoi
 	@Query("select j from ProjectUserJoin j where j.user = ?1")
 	public List<Join<Project, User>> getProjectsForUser(User user);
 
+	/**
+	 * Get the ids of all {@link Project}s that a {@link User} has been added
+	 * to.
+	 *
+	 * @param username
+	 *            the name of the user to get projects for.
+	 * @return the ids of the projects that the user is in.
+	 */
+	@Query("select j.project.id from ProjectUserJoin j where j.user.username = ?1")
+	public Set<Long> getProjectIdsForUsername(String username);
+
 	/**
 	 * Get the join object between a given {@link Project} and {@link User}
 	 * 
@@ -1,6 +1,7 @@
 package ca.corefacility.bioinformatics.irida.repositories.joins.project;
 
 import java.util.Collection;
+import java.util.Set;
 
 import org.springframework.data.jpa.repository.Query;
 
@@ -55,6 +56,17 @@ public interface UserGroupProjectJoinRepository extends IridaJpaRepository<UserG
 	@Query("from UserGroupProjectJoin ugpj where ugpj.userGroup in (select group from UserGroupJoin where user = ?1)")
 	public Collection<UserGroupProjectJoin> findProjectsByUser(final User u);
 
+	/**
+	 * Find the ids of the projects where the specified user is in a group on
+	 * the project.
+	 * 
+	 * @param username
+	 *            the name of the user.
+	 * @return the ids of the projects that the user is in via a group.
+	 */
+	@Query("select ugpj.project.id from UserGroupProjectJoin ugpj where ugpj.userGroup in (select ugj.group from UserGroupJoin ugj where ugj.user.username = ?1)")
+	public Set<Long> findProjectIdsByUsername(final String username);
+
 	/**
 	 * Find the join for a user group and project.
 	 * 
@@ -1,6 +1,8 @@
 package ca.corefacility.bioinformatics.irida.repositories.joins.sample;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.data.jpa.repository.Query;
 
@@ -21,7 +23,7 @@ public interface SampleSequencingObjectJoinRepository extends IridaJpaRepository
 	 *            The sample to get the files for
 	 * @return a list of {@link SampleSequencingObjectJoin} objects
 	 */
-	@Query("select j from SampleSequencingObjectJoin j where j.sample = ?1")
+	@Query("select j from SampleSequencingObjectJoin j join fetch j.sequencingObject where j.sample = ?1")
 	public List<SampleSequencingObjectJoin> getSequencesForSample(Sample sample);
 
 	/**
@@ -47,4 +49,14 @@ public interface SampleSequencingObjectJoinRepository extends IridaJpaRepository
 	 */
 	@Query("from SampleSequencingObjectJoin j where j.sequencingObject = ?1")
 	public SampleSequencingObjectJoin getSampleForSequencingObject(SequencingObject seqObject);
+
+	/**
+	 * Get the {@link Sample}s for a collection of {@link SequencingObject}s
+	 * 
+	 * @param seqObjects
+	 *            the {@link SequencingObject}s to get samples for
+	 * @return the set of {@link Sample}s the objects belong to
+	 */
+	@Query("select distinct j.sample from SampleSequencingObjectJoin j where j.sequencingObject in ?1")
+	public Set<Sample> getSamplesForSequencingObjects(Collection<SequencingObject> seqObjects);
 }
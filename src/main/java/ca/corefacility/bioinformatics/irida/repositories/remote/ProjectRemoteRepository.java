@@ -1,5 +1,7 @@
 package ca.corefacility.bioinformatics.irida.repositories.remote;
 
+import java.util.Map;
+
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 
 /**
@@ -14,4 +16,12 @@ public interface ProjectRemoteRepository extends RemoteRepository<Project> {
      */
     public Integer readProjectHash(Project project);
 
+    /**
+     * Read the content hash of each sample in the given project
+     *
+     * @param project the {@link Project} to get the sample hashes for
+     * @return A map of sample URL to the hash of that sample
+     */
+    public Map<String, String> readSampleHashes(Project project);
+
 }
@@ -7,18 +7,20 @@ import ca.corefacility.bioinformatics.irida.model.remote.resource.ListResourceWr
 import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceWrapper;
 import ca.corefacility.bioinformatics.irida.repositories.remote.GenomeAssemblyRemoteRepository;
 import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.OAuthTokenRestTemplate;
-import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.SequenceFileMessageConverter;
+import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.RemoteFileDownloader;
 import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.*;
-import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Repository;
 
 import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.List;
+
+import javax.annotation.PostConstruct;
 
 /**
  * A repository implementaion for reading {@link GenomeAssembly} from remote locations using a {@link OAuthTokenRestTemplate}
@@ -34,11 +36,26 @@ public class GenomeAssemblyRemoteRepositoryImpl extends RemoteRepositoryImpl<Upl
 	};
 
 	private RemoteAPITokenService tokenService;
+	// downloaded on the assembly store's filesystem so that saving them is a rename
+	private Path downloadDirectory;
+	private int downloadConnections;
 
 	@Autowired
-	public GenomeAssemblyRemoteRepositoryImpl(RemoteAPITokenService tokenService) {
+	public GenomeAssemblyRemoteRepositoryImpl(RemoteAPITokenService tokenService,
+			@Qualifier("assemblyFileBaseDirectory") Path baseDirectory,
+			@Value("${remote.download.connections:" + RemoteFileDownloader.DEFAULT_CONNECTIONS + "}") int downloadConnections) {
 		super(tokenService, listTypeReference, objectTypeReference);
 		this.tokenService = tokenService;
+		this.downloadDirectory = baseDirectory.resolve(RemoteFileDownloader.DOWNLOADS_DIRECTORY);
+		this.downloadConnections = downloadConnections;
+	}
+
+	/**
+	 * Remove downloads that were interrupted by the server stopping.
+	 */
+	@PostConstruct
+	public void removeAbandonedDownloads() {
+		RemoteFileDownloader.removeAbandonedDownloads(downloadDirectory);
 	}
 
 	/**
@@ -49,20 +66,10 @@ public class GenomeAssemblyRemoteRepositoryImpl extends RemoteRepositoryImpl<Upl
 		GenomeAssembly file = read(uri, remoteAPI);
 
 		OAuthTokenRestTemplate restTemplate = new OAuthTokenRestTemplate(tokenService, remoteAPI);
+		RemoteFileDownloader downloader = new RemoteFileDownloader(restTemplate, downloadConnections);
 
-		// add the sequence file message markdownConverter
-		List<HttpMessageConverter<?>> converters = restTemplate.getMessageConverters();
-		converters.add(new SequenceFileMessageConverter(file.getFileName()));
-		restTemplate.setMessageConverters(converters);
-
-		// add the application/fastq accept header
-		HttpHeaders requestHeaders = new HttpHeaders();
-		requestHeaders.setAccept(Arrays.asList(mediaTypes));
-		HttpEntity<Path> requestEntity = new HttpEntity<>(requestHeaders);
-
-		// get the file
-		ResponseEntity<Path> exchange = restTemplate.exchange(uri, HttpMethod.GET, requestEntity, Path.class);
-		return exchange.getBody();
+		// assemblies have no checksum, the download is checked by size
+		return downloader.download(uri, file.getFileName(), downloadDirectory, null, Arrays.asList(mediaTypes));
 	}
 
 	/**
@@ -9,6 +9,7 @@ import ca.corefacility.bioinformatics.irida.repositories.remote.ProjectRemoteRep
 import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.OAuthTokenRestTemplate;
 import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
 import ca.corefacility.bioinformatics.irida.web.assembler.resource.ProjectHashResource;
+import ca.corefacility.bioinformatics.irida.web.assembler.resource.SampleHashResource;
 import ca.corefacility.bioinformatics.irida.web.controller.api.projects.RESTProjectsController;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.ParameterizedTypeReference;
@@ -18,6 +19,9 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Remote repository for retrieving {@link Project}s from {@link RemoteAPI}s
  */
@@ -33,10 +37,15 @@ public class ProjectRemoteRepositoryImpl extends RemoteRepositoryImpl<Project> i
     private static final ParameterizedTypeReference<ResourceWrapper<ProjectHashResource>> projectHashReference = new ParameterizedTypeReference<ResourceWrapper<ProjectHashResource>>() {
     };
 
+    private static final ParameterizedTypeReference<ListResourceWrapper<SampleHashResource>> sampleHashesReference = new ParameterizedTypeReference<ListResourceWrapper<SampleHashResource>>() {
+    };
+
     private RemoteAPITokenService tokenService;
 
     private static final String HASH_REL = RESTProjectsController.PROJECT_HASH_REL;
 
+    private static final String SAMPLE_HASHES_REL = RESTProjectsController.PROJECT_SAMPLE_HASHES_REL;
+
     /**
      * Create a new {@link ProjectRemoteRepositoryImpl} with the given
      * {@link RemoteAPITokenService}
@@ -70,4 +79,28 @@ public class ProjectRemoteRepositoryImpl extends RemoteRepositoryImpl<Project> i
         return projectHash;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, String> readSampleHashes(Project project) {
+        if (!project.hasLink(SAMPLE_HASHES_REL)) {
+            throw new LinkNotFoundException("No link for rel: " + SAMPLE_HASHES_REL);
+        }
+
+        RemoteAPI remoteAPI = project.getRemoteStatus().getApi();
+
+        OAuthTokenRestTemplate restTemplate = new OAuthTokenRestTemplate(tokenService, remoteAPI);
+        Link link = project.getLink(SAMPLE_HASHES_REL);
+
+        ResponseEntity<ListResourceWrapper<SampleHashResource>> exchange = restTemplate.exchange(link.getHref(), HttpMethod.GET, HttpEntity.EMPTY, sampleHashesReference);
+
+        Map<String, String> sampleHashes = new HashMap<>();
+        for (SampleHashResource resource : exchange.getBody().getResource().getResources()) {
+            sampleHashes.put(resource.getSelfHref(), resource.getSampleHash());
+        }
+
+        return sampleHashes;
+    }
+
 }
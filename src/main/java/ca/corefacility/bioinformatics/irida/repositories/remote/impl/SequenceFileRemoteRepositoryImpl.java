@@ -2,12 +2,14 @@ package ca.corefacility.bioinformatics.irida.repositories.remote.impl;
 
 import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.List;
+
+import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.*;
-import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.token.TokenService;
 import org.springframework.stereotype.Repository;
 
@@ -17,7 +19,7 @@ import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceWrappe
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.repositories.remote.SequenceFileRemoteRepository;
 import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.OAuthTokenRestTemplate;
-import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.SequenceFileMessageConverter;
+import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.RemoteFileDownloader;
 import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
 
 /**
@@ -36,17 +38,37 @@ public class SequenceFileRemoteRepositoryImpl extends RemoteRepositoryImpl<Seque
 	};
 	// OAuth2 token storage service for making requests
 	private final RemoteAPITokenService tokenService;
+	// files are downloaded into a directory in the sequence file store's
+	// directory so that saving them is a rename
+	private final Path downloadDirectory;
+	private final int downloadConnections;
 
 	/**
 	 * Create a new SequenceFileRemoteRepositoryImpl
 	 * 
 	 * @param tokenService
 	 *            The {@link TokenService} storing OAuth2 tokens
+	 * @param baseDirectory
+	 *            the directory sequence files are stored in
+	 * @param downloadConnections
+	 *            the number of connections to download each file over
 	 */
 	@Autowired
-	public SequenceFileRemoteRepositoryImpl(RemoteAPITokenService tokenService) {
+	public SequenceFileRemoteRepositoryImpl(RemoteAPITokenService tokenService,
+			@Qualifier("sequenceFileBaseDirectory") Path baseDirectory,
+			@Value("${remote.download.connections:" + RemoteFileDownloader.DEFAULT_CONNECTIONS + "}") int downloadConnections) {
 		super(tokenService, listTypeReference, objectTypeReference);
 		this.tokenService = tokenService;
+		this.downloadDirectory = baseDirectory.resolve(RemoteFileDownloader.DOWNLOADS_DIRECTORY);
+		this.downloadConnections = downloadConnections;
+	}
+
+	/**
+	 * Remove downloads that were interrupted by the server stopping.
+	 */
+	@PostConstruct
+	public void removeAbandonedDownloads() {
+		RemoteFileDownloader.removeAbandonedDownloads(downloadDirectory);
 	}
 
 	/**
@@ -57,20 +79,10 @@ public class SequenceFileRemoteRepositoryImpl extends RemoteRepositoryImpl<Seque
 		SequenceFile file = read(uri, remoteAPI);
 
 		OAuthTokenRestTemplate restTemplate = new OAuthTokenRestTemplate(tokenService, remoteAPI);
+		RemoteFileDownloader downloader = new RemoteFileDownloader(restTemplate, downloadConnections);
 
-		// add the sequence file message markdownConverter
-		List<HttpMessageConverter<?>> converters = restTemplate.getMessageConverters();
-		converters.add(new SequenceFileMessageConverter(file.getFileName()));
-		restTemplate.setMessageConverters(converters);
-
-		// add the application/fastq accept header
-		HttpHeaders requestHeaders = new HttpHeaders();
-		requestHeaders.setAccept(Arrays.asList(mediaTypes));
-		HttpEntity<Path> requestEntity = new HttpEntity<>(requestHeaders);
-
-		// get the file
-		ResponseEntity<Path> exchange = restTemplate.exchange(uri, HttpMethod.GET, requestEntity, Path.class);
-		return exchange.getBody();
+		return downloader.download(uri, file.getFileName(), downloadDirectory, file.getUploadSha256(),
+				Arrays.asList(mediaTypes));
 	}
 
 	/**
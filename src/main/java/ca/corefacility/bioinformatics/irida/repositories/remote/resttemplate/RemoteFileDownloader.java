@@ -0,0 +1,352 @@
+package ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import ca.corefacility.bioinformatics.irida.exceptions.StorageException;
+
+/**
+ * Downloads sequence files from a remote IRIDA installation. A file is
+ * requested in parts with HTTP range requests over several connections, and
+ * each part is written into place in the downloaded file as it is read. A part
+ * that fails part way through is requested again from where it stopped. If
+ * the remote server doesn't support range requests the file is read as a
+ * single stream.
+ * <p>
+ * The remote server sends the sha256 checksum of a file as its ETag while the
+ * file is still the one that was uploaded. When the ETag matches the checksum
+ * the remote server reported for the file the downloaded file is checked
+ * against it, otherwise only the size of the file is checked.
+ * <p>
+ * Failed parts are only resumed while {@link #download} is running. A
+ * download that is interrupted by the server stopping starts over the next
+ * time the file is synchronized, and the directory it was downloading into
+ * is removed by {@link #removeAbandonedDownloads} at startup.
+ */
+public class RemoteFileDownloader {
+	private static final Logger logger = LoggerFactory.getLogger(RemoteFileDownloader.class);
+
+	public static final int DEFAULT_CONNECTIONS = 4;
+	public static final long DEFAULT_PART_SIZE = 32L * 1024 * 1024;
+	public static final int DEFAULT_EXPIRY_HOURS = 24;
+	public static final String DOWNLOADS_DIRECTORY = "downloads";
+
+	private static final int MAX_ATTEMPTS = 3;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final Pattern CONTENT_RANGE = Pattern.compile("^bytes (\\d+)-(\\d+)/(\\d+)$");
+
+	private final RestTemplate restTemplate;
+	private final int connections;
+	private final long partSize;
+
+	/**
+	 * Create a new {@link RemoteFileDownloader} requesting parts of
+	 * {@link #DEFAULT_PART_SIZE} bytes.
+	 *
+	 * @param restTemplate the {@link RestTemplate} to request files with
+	 * @param connections  the number of parts to request at the same time
+	 */
+	public RemoteFileDownloader(RestTemplate restTemplate, int connections) {
+		this(restTemplate, connections, DEFAULT_PART_SIZE);
+	}
+
+	/**
+	 * Create a new {@link RemoteFileDownloader}.
+	 *
+	 * @param restTemplate the {@link RestTemplate} to request files with
+	 * @param connections  the number of parts to request at the same time
+	 * @param partSize     the number of bytes to request in each part
+	 */
+	public RemoteFileDownloader(RestTemplate restTemplate, int connections, long partSize) {
+		this.restTemplate = restTemplate;
+		this.connections = Math.max(1, connections);
+		this.partSize = partSize;
+	}
+
+	/**
+	 * Remove the directories of downloads that were interrupted by a server
+	 * stopping. Directories that other servers sharing the directory may still
+	 * be downloading into are kept.
+	 *
+	 * @param directory the directory files are downloaded under
+	 */
+	public static void removeAbandonedDownloads(Path directory) {
+		ca.corefacility.bioinformatics.irida.util.FileUtils.removeAbandonedDirectories(directory,
+				DEFAULT_EXPIRY_HOURS);
+	}
+
+	/**
+	 * Download a file into a new directory under the given directory, creating
+	 * the directory if it doesn't exist. Files should be downloaded to the
+	 * filesystem they'll be stored on so that moving them into place when
+	 * they're saved doesn't copy them again.
+	 *
+	 * @param uri            the URI of the file
+	 * @param fileName       the name to give the downloaded file
+	 * @param directory      the directory to download the file under
+	 * @param expectedSha256 the sha256 checksum the remote server reported for
+	 *                       the file, or null if it didn't report one
+	 * @param mediaTypes     the media types to accept
+	 * @return the {@link Path} of the downloaded file
+	 * @throws StorageException if the file couldn't be downloaded, or the
+	 *                          downloaded file doesn't match the remote file
+	 */
+	public Path download(String uri, String fileName, Path directory, String expectedSha256,
+			List<MediaType> mediaTypes) {
+		Path downloadDirectory = null;
+		try {
+			Files.createDirectories(directory);
+			downloadDirectory = Files.createTempDirectory(directory, "download");
+			Path target = downloadDirectory.resolve(fileName);
+
+			RemoteFile remoteFile;
+			try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE_NEW,
+					StandardOpenOption.WRITE)) {
+				Part first = new Part(0, partSize - 1);
+				remoteFile = fetch(uri, first, null, mediaTypes, channel);
+
+				if (remoteFile.ranged && remoteFile.size > first.end + 1) {
+					fetchParts(uri, remoteFile, first.end + 1, mediaTypes, channel);
+				}
+
+				if (channel.size() != remoteFile.size) {
+					throw new IOException("Downloaded [" + channel.size() + "] bytes of remote file [" + uri
+							+ "], expected [" + remoteFile.size + "]");
+				}
+			}
+
+			verify(uri, target, expectedSha256, remoteFile.etag);
+			return target;
+		} catch (IOException | RuntimeException e) {
+			if (downloadDirectory != null) {
+				FileUtils.deleteQuietly(downloadDirectory.toFile());
+			}
+			if (e instanceof StorageException) {
+				throw (StorageException) e;
+			}
+			throw new StorageException("Could not download remote file [" + uri + "]", e);
+		}
+	}
+
+	/**
+	 * Request the parts of a file after the first part, over up to
+	 * {@code connections} connections at a time.
+	 */
+	private void fetchParts(String uri, RemoteFile remoteFile, long start, List<MediaType> mediaTypes,
+			FileChannel channel) throws IOException {
+		Queue<Part> parts = new ConcurrentLinkedQueue<>();
+		for (long partStart = start; partStart < remoteFile.size; partStart += partSize) {
+			parts.add(new Part(partStart, Math.min(partStart + partSize, remoteFile.size) - 1));
+		}
+
+		int workers = Math.min(connections, parts.size());
+		logger.debug("Downloading [" + uri + "] in " + (parts.size() + 1) + " parts over " + workers
+				+ " connections");
+
+		// requests are authorized with the current user's token
+		ExecutorService executor = new DelegatingSecurityContextExecutorService(
+				Executors.newFixedThreadPool(workers));
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for (int i = 0; i < workers; i++) {
+				futures.add(executor.submit(() -> {
+					Part part;
+					while ((part = parts.poll()) != null) {
+						RemoteFile partFile = fetch(uri, part, remoteFile.etag, mediaTypes, channel);
+						if (!partFile.ranged || partFile.size != remoteFile.size) {
+							throw new IOException("Remote file [" + uri + "] changed while it was being downloaded");
+						}
+					}
+					return null;
+				}));
+			}
+
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			} else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while downloading [" + uri + "]", e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Request one part of a file, requesting the rest of the part again if the
+	 * transfer fails part way through.
+	 *
+	 * @param uri        the URI of the file
+	 * @param part       the part of the file to request
+	 * @param etag       the ETag of the file when its first part was read, or
+	 *                   null when reading the first part
+	 * @param mediaTypes the media types to accept
+	 * @param channel    the channel to write the part to
+	 * @return the size and ETag of the remote file
+	 */
+	private RemoteFile fetch(String uri, Part part, String etag, List<MediaType> mediaTypes, FileChannel channel) {
+		for (int attempt = 1;; attempt++) {
+			try {
+				return restTemplate.execute(uri, HttpMethod.GET, request -> {
+					HttpHeaders headers = request.getHeaders();
+					headers.setAccept(mediaTypes);
+					headers.setRange(
+							Collections.singletonList(HttpRange.createByteRange(part.start + part.written, part.end)));
+					if (etag != null) {
+						headers.set(HttpHeaders.IF_RANGE, etag);
+					}
+				}, response -> read(response, part, channel));
+			} catch (ResourceAccessException e) {
+				if (attempt == MAX_ATTEMPTS) {
+					throw e;
+				}
+				logger.debug("Failed to read bytes " + (part.start + part.written) + "-" + part.end + " of [" + uri
+						+ "], attempt " + attempt + " of " + MAX_ATTEMPTS, e);
+			}
+		}
+	}
+
+	/**
+	 * Write a response into the downloaded file. A partial response is written
+	 * where it belongs in the file, a full response replaces anything already
+	 * written.
+	 */
+	private RemoteFile read(ClientHttpResponse response, Part part, FileChannel channel) throws IOException {
+		HttpHeaders headers = response.getHeaders();
+
+		if (response.getStatusCode() == HttpStatus.PARTIAL_CONTENT) {
+			Matcher range = CONTENT_RANGE.matcher(String.valueOf(headers.getFirst(HttpHeaders.CONTENT_RANGE)));
+			if (!range.matches() || Long.parseLong(range.group(1)) != part.start + part.written) {
+				throw new IOException("Unexpected content range [" + headers.getFirst(HttpHeaders.CONTENT_RANGE)
+						+ "] for bytes " + (part.start + part.written) + "-" + part.end);
+			}
+			part.end = Long.parseLong(range.group(2));
+
+			copy(response.getBody(), channel, part);
+			if (part.start + part.written != part.end + 1) {
+				throw new IOException("Received " + part.written + " of " + (part.end - part.start + 1)
+						+ " bytes for part starting at " + part.start);
+			}
+
+			return new RemoteFile(Long.parseLong(range.group(3)), headers.getETag(), true);
+		}
+
+		// the server sent the whole file, which is only expected for the first
+		// part. A later part means the file changed and is checked by the caller.
+		if (part.start != 0) {
+			return new RemoteFile(headers.getContentLength(), headers.getETag(), false);
+		}
+
+		part.written = 0;
+		channel.truncate(0);
+		copy(response.getBody(), channel, part);
+
+		long expectedSize = headers.getContentLength();
+		if (expectedSize >= 0 && part.written != expectedSize) {
+			throw new IOException("Received " + part.written + " of " + expectedSize + " bytes");
+		}
+
+		return new RemoteFile(part.written, headers.getETag(), false);
+	}
+
+	/**
+	 * Check a downloaded file against the checksum the remote server reported
+	 * for it, if the remote server's ETag says the file it sent is the file the
+	 * checksum was taken from.
+	 */
+	private void verify(String uri, Path target, String expectedSha256, String etag) throws IOException {
+		if (expectedSha256 == null || etag == null || !etag.replace("\"", "").equalsIgnoreCase(expectedSha256)) {
+			logger.trace("No checksum to verify [" + uri + "] against, size checked only");
+			return;
+		}
+
+		String sha256;
+		try (InputStream is = Files.newInputStream(target)) {
+			sha256 = DigestUtils.sha256Hex(is);
+		}
+
+		if (!sha256.equalsIgnoreCase(expectedSha256)) {
+			throw new StorageException("Checksum of downloaded file [" + sha256 + "] doesn't match remote file ["
+					+ uri + "] checksum [" + expectedSha256 + "]");
+		}
+		logger.trace("Verified checksum of [" + uri + "]");
+	}
+
+	private static void copy(InputStream body, FileChannel channel, Part part) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int read;
+		while ((read = body.read(buffer)) != -1) {
+			ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+			while (bytes.hasRemaining()) {
+				part.written += channel.write(bytes, part.start + part.written);
+			}
+		}
+	}
+
+	/**
+	 * A range of bytes of the remote file and how many of them have been
+	 * written so far.
+	 */
+	private static class Part {
+		private final long start;
+		private long end;
+		private long written;
+
+		private Part(long start, long end) {
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	/**
+	 * What a response said about the remote file.
+	 */
+	private static class RemoteFile {
+		private final long size;
+		private final String etag;
+		private final boolean ranged;
+
+		private RemoteFile(long size, String etag, boolean ranged) {
+			this.size = size;
+			this.etag = etag;
+			this.ranged = ranged;
+		}
+	}
+}
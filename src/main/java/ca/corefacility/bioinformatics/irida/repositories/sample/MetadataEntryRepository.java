@@ -1,10 +1,13 @@
 package ca.corefacility.bioinformatics.irida.repositories.sample;
 
+import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.repositories.IridaJpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -20,4 +23,15 @@ public interface MetadataEntryRepository extends IridaJpaRepository<MetadataEntr
 	 */
 	@Query("FROM MetadataEntry m WHERE m.sample=?1")
 	Set<MetadataEntry> getMetadataForSample(Sample sample);
+
+	/**
+	 * Get the {@link MetadataEntry} of a set of the {@link Sample}s in a {@link Project}, with their fields, in a single
+	 * query.
+	 *
+	 * @param project   the project the samples belong to
+	 * @param sampleIds the ids of the samples to get metadata for
+	 * @return pairs of {@link Sample} id and {@link MetadataEntry}
+	 */
+	@Query("SELECT m.sample.id, m FROM MetadataEntry m JOIN FETCH m.field, ProjectSampleJoin j WHERE j.sample = m.sample AND j.project = ?1 AND m.sample.id IN ?2")
+	List<Object[]> getMetadataForSamplesInProject(Project project, Collection<Long> sampleIds);
 }
@@ -0,0 +1,40 @@
+package ca.corefacility.bioinformatics.irida.repositories.sample;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleContentHash;
+
+/**
+ * Repository for storing and retrieving {@link SampleContentHash}es
+ */
+public interface SampleContentHashRepository
+		extends CrudRepository<SampleContentHash, Long>, SampleContentHashRepositoryCustom {
+
+	/**
+	 * Get the {@link Sample}s in a {@link Project} that don't have a current
+	 * {@link SampleContentHash}
+	 * 
+	 * @param project
+	 *            the {@link Project} to get samples for
+	 * @return the samples that need a new hash
+	 */
+	@Query("select j.sample from ProjectSampleJoin j where j.project = ?1 and not exists (select h from SampleContentHash h where h.sampleId = j.sample.id and h.contentHash is not null)")
+	public List<Sample> getSamplesWithoutContentHash(Project project);
+
+	/**
+	 * Get the stored {@link SampleContentHash}es for all of the samples in a
+	 * {@link Project}, ordered by sample id. Samples that changed since their
+	 * digest was calculated have a null digest.
+	 * 
+	 * @param project
+	 *            the {@link Project} to get hashes for
+	 * @return the hashes for the samples in the project
+	 */
+	@Query("select h from SampleContentHash h where h.sampleId in (select j.sample.id from ProjectSampleJoin j where j.project = ?1) order by h.sampleId")
+	public List<SampleContentHash> getContentHashesForProject(Project project);
+}
@@ -0,0 +1,27 @@
+package ca.corefacility.bioinformatics.irida.repositories.sample;
+
+import java.util.Collection;
+
+import ca.corefacility.bioinformatics.irida.model.sample.SampleContentHash;
+
+/**
+ * Custom methods for storing {@link SampleContentHash}es.
+ */
+public interface SampleContentHashRepositoryCustom {
+	/**
+	 * Store calculated sample digests. A digest is only stored if the stored
+	 * version is still {@link SampleContentHash#getVersion()}, or if there was
+	 * no stored digest and none has been stored since.
+	 *
+	 * @param hashes the digests to store
+	 */
+	public void saveContentHashes(Collection<SampleContentHash> hashes);
+
+	/**
+	 * Clear the digests of a set of samples and increase their version, so
+	 * that a digest calculated before the change can't be stored.
+	 *
+	 * @param sampleIds the ids of the samples that changed
+	 */
+	public void invalidateContentHashes(Collection<Long> sampleIds);
+}
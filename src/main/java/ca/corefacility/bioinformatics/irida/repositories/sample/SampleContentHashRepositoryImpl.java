@@ -0,0 +1,74 @@
+package ca.corefacility.bioinformatics.irida.repositories.sample;
+
+import java.util.Collection;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import ca.corefacility.bioinformatics.irida.model.sample.SampleContentHash;
+
+/**
+ * Impl of custom methods for {@link SampleContentHashRepository}. Digests are
+ * written with JDBC so that they can be stored conditionally on their version.
+ */
+public class SampleContentHashRepositoryImpl implements SampleContentHashRepositoryCustom {
+	private static final String INSERT_HASH = "INSERT IGNORE INTO sample_content_hash (sample_id, content_hash, version, created_date) VALUES (:sample, :hash, 0, :createdDate)";
+	private static final String UPDATE_HASH = "UPDATE sample_content_hash SET content_hash = :hash, created_date = :createdDate WHERE sample_id = :sample AND version = :version";
+	private static final String INVALIDATE_HASHES = "INSERT INTO sample_content_hash (sample_id, content_hash, version, created_date) SELECT s.id, NULL, 1, NOW() FROM sample s WHERE s.id IN (:samples) ON DUPLICATE KEY UPDATE content_hash = NULL, version = version + 1";
+
+	private final DataSource dataSource;
+
+	@Autowired
+	public SampleContentHashRepositoryImpl(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void saveContentHashes(Collection<SampleContentHash> hashes) {
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+
+		MapSqlParameterSource[] inserts = hashes.stream()
+				.filter(h -> h.getVersion() == null)
+				.map(this::getParameters)
+				.toArray(MapSqlParameterSource[]::new);
+		MapSqlParameterSource[] updates = hashes.stream()
+				.filter(h -> h.getVersion() != null)
+				.map(this::getParameters)
+				.toArray(MapSqlParameterSource[]::new);
+
+		if (inserts.length > 0) {
+			tmpl.batchUpdate(INSERT_HASH, inserts);
+		}
+		if (updates.length > 0) {
+			tmpl.batchUpdate(UPDATE_HASH, updates);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void invalidateContentHashes(Collection<Long> sampleIds) {
+		if (sampleIds.isEmpty()) {
+			return;
+		}
+
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+		tmpl.update(INVALIDATE_HASHES, new MapSqlParameterSource("samples", sampleIds));
+	}
+
+	private MapSqlParameterSource getParameters(SampleContentHash hash) {
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+		parameters.addValue("sample", hash.getSampleId());
+		parameters.addValue("hash", hash.getContentHash());
+		parameters.addValue("version", hash.getVersion());
+		parameters.addValue("createdDate", hash.getCreatedDate());
+		return parameters;
+	}
+}
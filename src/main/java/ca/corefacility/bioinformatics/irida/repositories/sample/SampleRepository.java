@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.repositories.sample;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
@@ -54,6 +55,32 @@ public interface SampleRepository extends IridaJpaRepository<Sample, Long>, Samp
 	public Page<ProjectSampleJoin> findSampleByNameInProject(Project project, List<String> sampleNames,
 			Pageable pageable);
 
+	/**
+	 * Get which of a set of {@link Sample} names are used by {@link Sample}s
+	 * in a {@link Project}
+	 *
+	 * @param project
+	 *            The {@link Project} to look for the {@link Sample}s in
+	 * @param sampleNames
+	 *            The {@link Sample} names to look for
+	 * @return The names of the {@link Sample}s found in the {@link Project}
+	 */
+	@Query("select j.sample.sampleName from ProjectSampleJoin j where j.project = ?1 and j.sample.sampleName in ?2")
+	public List<String> getSampleNamesInProject(Project project, Collection<String> sampleNames);
+
+	/**
+	 * Get the {@link Sample}s in a {@link Project} with any of a set of names,
+	 * whether the project owns them or they are shared into it
+	 *
+	 * @param project
+	 *            The {@link Project} the {@link Sample}s are in
+	 * @param sampleNames
+	 *            The {@link Sample} names to look for
+	 * @return The {@link Sample}s in the {@link Project} with the names
+	 */
+	@Query("select j.sample from ProjectSampleJoin j where j.project = ?1 and j.sample.sampleName in ?2")
+	public List<Sample> getSamplesByNameInProject(Project project, Collection<String> sampleNames);
+
 	/**
 	 * Get the {@link Sample}s associated with a given
 	 * {@link AnalysisSubmission}
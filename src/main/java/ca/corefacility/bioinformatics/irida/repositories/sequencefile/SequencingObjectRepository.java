@@ -1,8 +1,11 @@
 package ca.corefacility.bioinformatics.irida.repositories.sequencefile;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
@@ -47,16 +50,32 @@ public interface SequencingObjectRepository extends IridaJpaRepository<Sequencin
 			SequencingObject.ProcessingState processingState);
 
 	/**
-	 * Get {@link SequencingObject}s with a given processing state and the given processor string
+	 * Get the ids of {@link SequencingObject}s with a given processing state and the given processor string
 	 *
 	 * @param processingState state to find
 	 * @param processor       processor string to find
-	 * @return a list of {@link SequencingObject}
+	 * @return a list of {@link SequencingObject} ids
 	 */
-	@Query("FROM SequencingObject f where f.processingState = ?1 AND f.fileProcessor = ?2")
-	public List<SequencingObject> getSequencingObjectsWithProcessingStateAndProcessor(
+	@Query("SELECT f.id FROM SequencingObject f WHERE f.processingState = ?1 AND f.fileProcessor = ?2")
+	public List<Long> getSequencingObjectIdsWithProcessingStateAndProcessor(
 			SequencingObject.ProcessingState processingState, String processor);
 
+	/**
+	 * Move a batch of {@link SequencingObject}s claimed by a file processor
+	 * from one processing state to another in a single statement.
+	 *
+	 * @param objectIds ids of the objects to update
+	 * @param processor File processor id string that claimed the objects
+	 * @param fromState the state the objects must be in
+	 * @param toState   the state to set
+	 * @return the number of objects updated
+	 */
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("UPDATE SequencingObject f SET f.processingState = ?4 WHERE f.id IN ?1 AND f.fileProcessor = ?2 AND f.processingState = ?3")
+	public int updateProcessingState(Collection<Long> objectIds, String processor,
+			SequencingObject.ProcessingState fromState, SequencingObject.ProcessingState toState);
+
 	/**
 	 * Update a sequencing object's file processing state with the given status
 	 *
@@ -68,4 +87,66 @@ public interface SequencingObjectRepository extends IridaJpaRepository<Sequencin
 	@Modifying(clearAutomatically = true)
 	@Query("UPDATE SequencingObject f SET f.processingState = ?3, f.fileProcessor = ?2 WHERE f.id = ?1 AND f.fileProcessor is NULL")
 	public void markFileProcessor(Long objectId, String processor, SequencingObject.ProcessingState processingState);
+
+	/**
+	 * Get the ids of {@link SequencingObject}s with the given processing state
+	 * which have not been claimed by a file processor, oldest first.
+	 *
+	 * @param processingState the state to get ids for
+	 * @param page            the number of ids to get
+	 * @return a list of {@link SequencingObject} ids
+	 */
+	@Query("SELECT f.id FROM SequencingObject f WHERE f.processingState = ?1 AND f.fileProcessor IS NULL ORDER BY f.id")
+	public List<Long> getUnclaimedSequencingObjectIdsWithProcessingState(
+			SequencingObject.ProcessingState processingState, Pageable page);
+
+	/**
+	 * Claim a batch of {@link SequencingObject}s for a file processor in a
+	 * single statement. Objects already claimed by another processor are left
+	 * alone.
+	 *
+	 * @param objectIds       ids of the objects to claim
+	 * @param processor       File processor id string to set
+	 * @param processingState processing state to set
+	 * @param lease           the time to start the processor's lease from
+	 * @return the number of objects that were claimed
+	 */
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("UPDATE SequencingObject f SET f.processingState = ?3, f.fileProcessor = ?2, f.processingLease = ?4 WHERE f.id IN ?1 AND f.fileProcessor IS NULL")
+	public int claimForFileProcessor(Collection<Long> objectIds, String processor,
+			SequencingObject.ProcessingState processingState, Date lease);
+
+	/**
+	 * Renew the lease on all {@link SequencingObject}s that a file processor
+	 * has claimed and not yet finished.
+	 *
+	 * @param processor        File processor id string
+	 * @param processingStates the states of objects that are still in use by the processor
+	 * @param lease            the new lease time
+	 * @return the number of objects renewed
+	 */
+	@Transactional
+	@Modifying
+	@Query("UPDATE SequencingObject f SET f.processingLease = ?3 WHERE f.fileProcessor = ?1 AND f.processingState IN ?2")
+	public int renewProcessingLease(String processor, Collection<SequencingObject.ProcessingState> processingStates,
+			Date lease);
+
+	/**
+	 * Release {@link SequencingObject}s claimed by a file processor that has
+	 * not renewed its lease since the given time so that they can be claimed
+	 * again. Objects without a lease (claimed before leases were added) are
+	 * treated as expired; a running processor gives them a lease when it
+	 * renews its leases.
+	 *
+	 * @param releasedState    the state to reset released objects to
+	 * @param processingStates the states of objects that are still in use by a processor
+	 * @param expiredBefore    leases older than this time are released
+	 * @return the number of objects released
+	 */
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("UPDATE SequencingObject f SET f.processingState = ?1, f.fileProcessor = NULL, f.processingLease = NULL WHERE f.processingState IN ?2 AND (f.processingLease IS NULL OR f.processingLease < ?3)")
+	public int releaseExpiredProcessingLeases(SequencingObject.ProcessingState releasedState,
+			Collection<SequencingObject.ProcessingState> processingStates, Date expiredBefore);
 }
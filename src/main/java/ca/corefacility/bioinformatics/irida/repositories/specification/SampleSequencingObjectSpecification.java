@@ -34,6 +34,12 @@ public class SampleSequencingObjectSpecification {
 			@Override
 			public Predicate toPredicate(Root<SampleSequencingObjectJoin> root, CriteriaQuery<?> query,
 					CriteriaBuilder cb) {
+				// read the SequencingObjects with the joins rather than one at a
+				// time, unless this is the count query for a page
+				if (Long.class != query.getResultType()) {
+					root.fetch("sequencingObject");
+				}
+
 				// Get the SequencingObjects of type
 				Root<? extends SequencingObject> subTypeRoot = query.from(type);
 
@@ -3,6 +3,7 @@ package ca.corefacility.bioinformatics.irida.ria.utilities;
 import java.io.*;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -272,32 +273,34 @@ public class FileUtilities {
 	}
 
 	/**
-	 * Read a specified number of lines from a file.
+	 * Read a specified number of lines from a file. The lines are read with a
+	 * {@link LineIndexedFile}, so only the lines near {@code start} are read
+	 * however far into the file it is.
 	 *
-	 * @param reader File reader
+	 * @param file   File to read
 	 * @param limit  Limit to the number of lines to read
 	 * @param start  Optional line number to start reading at
 	 * @param end    Optional line number to read up to
 	 * @return Lines read from file
+	 * @throws IOException if error enountered while reading file
 	 */
-	public static List<String> readLinesLimit(BufferedReader reader, Long limit, Long start, Long end) {
+	public static List<String> readLinesLimit(Path file, Long limit, Long start, Long end)
+			throws IOException {
 		Long linesLimit = (limit != null) ? limit : 100L;
 		start = (start == null) ? 0 : start;
 		if (end != null && end > start) {
 			linesLimit = end - start + 1;
 		}
-		return reader.lines()
-				.skip(start == 0 ? 1L : start)
-				.limit(linesLimit)
-				.collect(Collectors.toList());
+		return LineIndexedFile.open(file)
+				.readLines(start == 0 ? 1L : start, linesLimit);
 	}
 
 	/**
 	 * Read lines from file using a {@link RandomAccessFile}.
 	 * <p>
 	 * Use this method if preserving the {@link RandomAccessFile#getFilePointer()} for continuing reading is important.
-	 * For most use cases, {@link FileUtilities#readLinesLimit(BufferedReader, Long, Long, Long)} will perform better
-	 * due to bufffered reading.
+	 * For most use cases, {@link FileUtilities#readLinesLimit(Path, Long, Long, Long)} will perform
+	 * better since it seeks to the requested lines using an index of the file.
 	 *
 	 * @param randomAccessFile File reader
 	 * @param limit            Limit to the number of lines to read
@@ -0,0 +1,364 @@
+package ca.corefacility.bioinformatics.irida.ria.utilities;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A text file that can be read from any line without reading the lines before
+ * it. The byte offset of every {@link #DEFAULT_INTERVAL}th line is found with
+ * one pass over the file the first time lines are read from it, so reading a
+ * page of lines seeks to the nearest indexed line and reads at most
+ * {@link #DEFAULT_INTERVAL} lines before the page.
+ * <p>
+ * Indexes of files of at least {@link #PERSIST_THRESHOLD} bytes are written
+ * next to the file (with the suffix {@link #INDEX_SUFFIX}) so they're only
+ * built once. Opened files, with their size, first line and index, are kept
+ * in a bounded cache keyed on the file's path, size and modification time.
+ * <p>
+ * Lines end with {@code \n}; a {@code \r} before it is removed.
+ */
+public class LineIndexedFile {
+	private static final Logger logger = LoggerFactory.getLogger(LineIndexedFile.class);
+
+	private static final Cache<String, LineIndexedFile> cache = CacheBuilder.newBuilder().maximumSize(1000).build();
+
+	public static final int DEFAULT_INTERVAL = 1000;
+	public static final long PERSIST_THRESHOLD = 16L * 1024 * 1024;
+	public static final String INDEX_SUFFIX = ".lineindex";
+
+	private static final int INDEX_VERSION = 1;
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	private final Path file;
+	private final long size;
+	private final long modified;
+	private final int interval;
+	private final long persistThreshold;
+	private final String firstLine;
+	private final long firstLineEnd;
+
+	private volatile Index index;
+
+	/**
+	 * Open a file, reading its first line. Use {@link #open(Path)} to share
+	 * opened files and their indexes.
+	 *
+	 * @param file             the file to read
+	 * @param interval         the number of lines between entries in the index
+	 * @param persistThreshold the size in bytes from which the index is written
+	 *                         next to the file
+	 * @throws IOException if the file can't be read
+	 */
+	public LineIndexedFile(Path file, int interval, long persistThreshold) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		this.file = file;
+		this.size = attributes.size();
+		this.modified = attributes.lastModifiedTime().toMillis();
+		this.interval = interval;
+		this.persistThreshold = persistThreshold;
+
+		try (InputStream is = new BufferedInputStream(Files.newInputStream(file))) {
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			long read = readLine(is, line);
+			this.firstLine = read > 0 ? decode(line) : null;
+			this.firstLineEnd = read;
+		}
+	}
+
+	/**
+	 * Open a file, using a previously opened copy if the file hasn't changed
+	 * since.
+	 *
+	 * @param file the file to read
+	 * @return the {@link LineIndexedFile}
+	 * @throws IOException if the file can't be read
+	 */
+	public static LineIndexedFile open(Path file) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		String key = file.toAbsolutePath() + ":" + attributes.size() + ":" + attributes.lastModifiedTime()
+				.toMillis();
+		try {
+			return cache.get(key, () -> new LineIndexedFile(file, DEFAULT_INTERVAL, PERSIST_THRESHOLD));
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Could not open [" + file + "]", e.getCause());
+		}
+	}
+
+	/**
+	 * @return the size of the file in bytes
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the first line of the file, or null if the file is empty
+	 */
+	public String getFirstLine() {
+		return firstLine;
+	}
+
+	/**
+	 * @return the byte position of the start of the second line of the file
+	 */
+	public long getFirstLineEnd() {
+		return firstLineEnd;
+	}
+
+	/**
+	 * Get the number of lines in the file. Builds the index if it hasn't been
+	 * built yet.
+	 *
+	 * @return the number of lines in the file
+	 * @throws IOException if the file can't be read
+	 */
+	public long getLineCount() throws IOException {
+		return getIndex().lineCount;
+	}
+
+	/**
+	 * Read lines from the file.
+	 *
+	 * @param start the line to start reading at, where the first line is line 0
+	 * @param limit the maximum number of lines to read
+	 * @return the lines read, which is fewer than {@code limit} at the end of
+	 *         the file
+	 * @throws IOException if the file can't be read
+	 */
+	public List<String> readLines(long start, long limit) throws IOException {
+		Index index = getIndex();
+		if (start < 0 || limit <= 0 || start >= index.lineCount) {
+			return Collections.emptyList();
+		}
+
+		int entry = (int) (start / interval);
+		long line = (long) entry * interval;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			channel.position(index.offsets[entry]);
+			InputStream is = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+
+			for (; line < start; line++) {
+				readLine(is, null);
+			}
+
+			List<String> lines = new ArrayList<>();
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			while (lines.size() < limit) {
+				buffer.reset();
+				if (readLine(is, buffer) == 0) {
+					break;
+				}
+				lines.add(decode(buffer));
+			}
+			return lines;
+		}
+	}
+
+	/**
+	 * Get the index of the file, reading it from disk or building it if this
+	 * is the first time it's needed.
+	 */
+	private Index getIndex() throws IOException {
+		Index current = index;
+		if (current == null) {
+			synchronized (this) {
+				current = index;
+				if (current == null) {
+					current = loadIndex();
+					if (current == null) {
+						current = buildIndex();
+						if (size >= persistThreshold) {
+							saveIndex(current);
+						}
+					}
+					index = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Find the offsets of the indexed lines with one pass over the file.
+	 */
+	private Index buildIndex() throws IOException {
+		long[] offsets = new long[16];
+		int entries = 1;
+		long lineCount = 0;
+		long position = 0;
+		boolean lineOpen = false;
+
+		logger.trace("Indexing lines of [" + file + "]");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			while (channel.read(buffer) != -1) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					position++;
+					if (buffer.get() == '\n') {
+						lineCount++;
+						lineOpen = false;
+						if (lineCount % interval == 0) {
+							if (entries == offsets.length) {
+								offsets = Arrays.copyOf(offsets, entries * 2);
+							}
+							offsets[entries++] = position;
+						}
+					} else {
+						lineOpen = true;
+					}
+				}
+				buffer.clear();
+			}
+		}
+
+		if (lineOpen) {
+			// the last line has no line ending
+			lineCount++;
+		}
+		return new Index(Arrays.copyOf(offsets, entries), lineCount);
+	}
+
+	/**
+	 * Read the index written next to the file, if there is one and it was
+	 * built from the file as it is now.
+	 */
+	private Index loadIndex() {
+		Path indexFile = getIndexFile();
+		if (!Files.exists(indexFile)) {
+			return null;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+			if (in.readInt() != INDEX_VERSION || in.readLong() != size || in.readLong() != modified
+					|| in.readInt() != interval) {
+				logger.debug("Line index [" + indexFile + "] is out of date, rebuilding");
+				return null;
+			}
+
+			long lineCount = in.readLong();
+			long[] offsets = new long[in.readInt()];
+			for (int i = 0; i < offsets.length; i++) {
+				offsets[i] = in.readLong();
+			}
+			return new Index(offsets, lineCount);
+		} catch (IOException e) {
+			logger.debug("Could not read line index [" + indexFile + "], rebuilding", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Write the index next to the file. The index is still used from memory if
+	 * it can't be written.
+	 */
+	private void saveIndex(Index index) {
+		Path indexFile = getIndexFile();
+		Path tempFile = null;
+		try {
+			tempFile = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+				out.writeInt(INDEX_VERSION);
+				out.writeLong(size);
+				out.writeLong(modified);
+				out.writeInt(interval);
+				out.writeLong(index.lineCount);
+				out.writeInt(index.offsets.length);
+				for (long offset : index.offsets) {
+					out.writeLong(offset);
+				}
+			}
+			Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			logger.warn("Could not write line index [" + indexFile + "]", e);
+			if (tempFile != null) {
+				try {
+					Files.deleteIfExists(tempFile);
+				} catch (IOException ex) {
+					logger.trace("Could not remove temporary line index [" + tempFile + "]", ex);
+				}
+			}
+		}
+	}
+
+	private Path getIndexFile() {
+		return file.resolveSibling(file.getFileName() + INDEX_SUFFIX);
+	}
+
+	/**
+	 * Read one line from a stream.
+	 *
+	 * @param is   the stream to read
+	 * @param line where to write the line, without its line ending, or null
+	 *             to skip the line
+	 * @return the number of bytes read, including the line ending, or 0 at the
+	 *         end of the stream
+	 */
+	private static long readLine(InputStream is, ByteArrayOutputStream line) throws IOException {
+		long read = 0;
+		int b;
+		while ((b = is.read()) != -1) {
+			read++;
+			if (b == '\n') {
+				break;
+			}
+			if (line != null) {
+				line.write(b);
+			}
+		}
+		return read;
+	}
+
+	private static String decode(ByteArrayOutputStream line) {
+		byte[] bytes = line.toByteArray();
+		int length = bytes.length;
+		if (length > 0 && bytes[length - 1] == '\r') {
+			length--;
+		}
+		return new String(bytes, 0, length, Charset.defaultCharset());
+	}
+
+	/**
+	 * The offsets of every {@code interval}th line of the file, starting with
+	 * the first line.
+	 */
+	private static class Index {
+		private final long[] offsets;
+		private final long lineCount;
+
+		private Index(long[] offsets, long lineCount) {
+			this.offsets = offsets;
+			this.lineCount = lineCount;
+		}
+	}
+}
@@ -1,17 +1,42 @@
 package ca.corefacility.bioinformatics.irida.ria.utilities;
 
-import java.util.List;
-import java.util.Map;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Used to store information relating to sample metadata during upload.
+ * <p>
+ * The rows of the uploaded file are written to a temporary file, one JSON object per line, rather than kept in the
+ * session.  The file is removed when the storage is removed from the session or the session expires.
  */
-public class SampleMetadataStorage {
+public class SampleMetadataStorage implements HttpSessionBindingListener {
+	private static final Logger logger = LoggerFactory.getLogger(SampleMetadataStorage.class);
+	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final TypeReference<Map<String, String>> ROW_TYPE = new TypeReference<Map<String, String>>() {
+	};
+
 	private String sampleNameColumn;
 	private List<String> headers;
-	private List<Map<String, String>> rows;
-	private List<Map<String, String>> found;
-	private List<Map<String, String>> missing;
+	private Path rowsFile;
+	private int rowCount;
+	private Set<String> foundSamples;
 
 	public void setSampleNameColumn(String sampleColumnName) {
 		this.sampleNameColumn = sampleColumnName;
@@ -26,27 +51,83 @@ public class SampleMetadataStorage {
 	}
 
 	/**
-	 * Save the given rows
+	 * Save the given rows to a temporary file, replacing any rows saved before
+	 *
 	 * @param rows the rows to save
+	 * @throws IOException if the rows cannot be written
+	 */
+	public void saveRows(Iterator<Map<String, String>> rows) throws IOException {
+		clear();
+		Path file = Files.createTempFile("sample-metadata", ".jsonl");
+		int count = 0;
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			while (rows.hasNext()) {
+				writer.write(mapper.writeValueAsString(rows.next()));
+				writer.newLine();
+				count++;
+			}
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(file);
+			throw e;
+		}
+		this.rowsFile = file;
+		this.rowCount = count;
+	}
+
+	/**
+	 * Save the names of the samples in the rows that were found in the project
+	 *
+	 * @param foundSamples the sample names that were found
+	 */
+	public void saveFoundSamples(Set<String> foundSamples) {
+		this.foundSamples = foundSamples;
+	}
+
+	/**
+	 * Read the saved rows a batch at a time
+	 *
+	 * @param batchSize the maximum number of rows in a batch
+	 * @param consumer  called with each batch of rows
+	 * @throws IOException if the rows cannot be read
 	 */
-	public void saveRows(List<Map<String, String>> rows) {
-		this.rows = rows;
+	public void forEachBatch(int batchSize, Consumer<List<Map<String, String>>> consumer) throws IOException {
+		if (rowsFile == null) {
+			return;
+		}
+
+		try (BufferedReader reader = Files.newBufferedReader(rowsFile, StandardCharsets.UTF_8)) {
+			List<Map<String, String>> batch = new ArrayList<>(batchSize);
+			String line;
+			while ((line = reader.readLine()) != null) {
+				batch.add(mapper.readValue(line, ROW_TYPE));
+				if (batch.size() == batchSize) {
+					consumer.accept(batch);
+					batch = new ArrayList<>(batchSize);
+				}
+			}
+			if (!batch.isEmpty()) {
+				consumer.accept(batch);
+			}
+		}
 	}
 
 	/**
-	 * Save the found values
-	 * @param found the found values
+	 * Check if the sample in a row was found in the project
+	 *
+	 * @param row the row to check
+	 * @return whether the sample named in the row was found
 	 */
-	public void saveFound(List<Map<String, String>> found) {
-		this.found = found;
+	public boolean isFound(Map<String, String> row) {
+		return foundSamples != null && foundSamples.contains(row.get(sampleNameColumn));
 	}
 
 	/**
-	 * Save the missing values
-	 * @param missing the missing values
+	 * Check if the samples in the rows have been looked up
+	 *
+	 * @return whether the found and missing rows are known
 	 */
-	public void saveMissing(List<Map<String, String>> missing) {
-		this.missing = missing;
+	public boolean hasFoundSamples() {
+		return foundSamples != null;
 	}
 
 	public String getSampleNameColumn() {
@@ -57,22 +138,61 @@ public class SampleMetadataStorage {
 		return headers;
 	}
 
+	/**
+	 * Get the rows that haven't been sorted into found and missing yet.
+	 *
+	 * @return all the saved rows, or null if no rows are saved or they have been sorted
+	 */
 	public List<Map<String, String>> getRows() {
-		return rows;
+		return foundSamples == null ? readRows(row -> true) : null;
 	}
 
 	public List<Map<String, String>> getFound() {
-		return found;
+		return foundSamples != null ? readRows(this::isFound) : null;
 	}
 
 	public List<Map<String, String>> getMissing() {
-		return missing;
+		return foundSamples != null ? readRows(row -> !isFound(row)) : null;
 	}
 
 	/**
 	 * remove all rows
 	 */
-	public void removeRows() {
-		this.rows = null;
+	public void clear() {
+		foundSamples = null;
+		rowCount = 0;
+		if (rowsFile != null) {
+			try {
+				Files.deleteIfExists(rowsFile);
+			} catch (IOException e) {
+				logger.warn("Could not remove uploaded sample metadata [" + rowsFile + "]", e);
+			}
+			rowsFile = null;
+		}
+	}
+
+	@Override
+	public void valueBound(HttpSessionBindingEvent event) {
+	}
+
+	@Override
+	public void valueUnbound(HttpSessionBindingEvent event) {
+		clear();
+	}
+
+	private List<Map<String, String>> readRows(Predicate<Map<String, String>> filter) {
+		if (rowsFile == null) {
+			return null;
+		}
+
+		List<Map<String, String>> rows = new ArrayList<>(rowCount);
+		try {
+			forEachBatch(1000, batch -> batch.stream()
+					.filter(filter)
+					.forEach(rows::add));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read uploaded sample metadata", e);
+		}
+		return rows;
 	}
 }
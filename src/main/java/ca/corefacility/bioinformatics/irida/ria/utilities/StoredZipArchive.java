@@ -0,0 +1,405 @@
+package ca.corefacility.bioinformatics.irida.ria.utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.CRC32;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A zip archive of files on disk that can be streamed, in whole or in part,
+ * without compressing anything. Every entry is STORED, which means:
+ * <ul>
+ * <li>the length of the archive is known before anything is written, so
+ * downloads can report their progress,</li>
+ * <li>any byte range of the archive can be produced on its own, so failed
+ * downloads can be resumed with an HTTP Range request, and</li>
+ * <li>file contents are copied to the response with
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} instead of
+ * being deflated again (most sequence files are already gzipped).</li>
+ * </ul>
+ * <p>
+ * The CRC-32 of each file has to be written in front of the file, so it's
+ * calculated the first time a file is added to an archive and kept in a
+ * bounded cache keyed on the file's path, size and modification time. A
+ * resumed download only reads the files whose headers fall in the requested
+ * range (and all files for the central directory, if they haven't been
+ * downloaded since the server started).
+ * <p>
+ * ZIP64 records are written when the archive or any file is larger than 4GB.
+ */
+public class StoredZipArchive {
+	private static final Cache<String, Long> crcCache = CacheBuilder.newBuilder().maximumSize(100_000).build();
+
+	private static final long ZIP64_LIMIT = 0xFFFFFFFFL;
+	private static final int ZIP64_ENTRY_LIMIT = 0xFFFF;
+
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int END_SIGNATURE = 0x06054b50;
+
+	private static final int LOCAL_HEADER_LENGTH = 30;
+	private static final int CENTRAL_HEADER_LENGTH = 46;
+	private static final int ZIP64_END_LENGTH = 56;
+	private static final int ZIP64_LOCATOR_LENGTH = 20;
+	private static final int END_LENGTH = 22;
+
+	private static final short VERSION = 20;
+	private static final short VERSION_ZIP64 = 45;
+	private static final short UTF8_NAMES = 0x0800;
+	private static final short ZIP64_EXTRA_ID = 0x0001;
+
+	private final List<Entry> entries;
+	private final long centralDirectoryOffset;
+	private final long centralDirectoryLength;
+	private final boolean zip64;
+	private final long length;
+
+	/**
+	 * Lay out an archive of the given entries.
+	 *
+	 * @param entries the files to put in the archive, in order
+	 */
+	public StoredZipArchive(List<Entry> entries) {
+		this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+
+		long offset = 0;
+		long centralLength = 0;
+		for (Entry entry : this.entries) {
+			entry.offset = offset;
+			offset += entry.localHeaderLength() + entry.size;
+			centralLength += entry.centralHeaderLength();
+		}
+
+		this.centralDirectoryOffset = offset;
+		this.centralDirectoryLength = centralLength;
+		this.zip64 = this.entries.size() >= ZIP64_ENTRY_LIMIT || centralDirectoryOffset >= ZIP64_LIMIT
+				|| centralDirectoryLength >= ZIP64_LIMIT;
+		this.length = centralDirectoryOffset + centralDirectoryLength
+				+ (zip64 ? ZIP64_END_LENGTH + ZIP64_LOCATOR_LENGTH : 0) + END_LENGTH;
+	}
+
+	/**
+	 * Get the total length of the archive in bytes.
+	 *
+	 * @return the length of the archive
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	/**
+	 * Get a tag that changes whenever the contents of the archive would change,
+	 * to check that a resumed download is for the same archive.
+	 *
+	 * @return a tag for the archive
+	 */
+	public String getETag() {
+		StringBuilder layout = new StringBuilder();
+		for (Entry entry : entries) {
+			layout.append(entry.name).append('\0').append(entry.path).append('\0').append(entry.size).append('\0')
+					.append(entry.modified.toMillis()).append('\n');
+		}
+		return "\"" + DigestUtils.sha256Hex(layout.toString()) + "\"";
+	}
+
+	/**
+	 * Write the whole archive.
+	 *
+	 * @param out where to write the archive
+	 * @throws IOException if a file could not be read or the archive could not be
+	 *                     written
+	 */
+	public void write(WritableByteChannel out) throws IOException {
+		write(out, 0, length);
+	}
+
+	/**
+	 * Write part of the archive.
+	 *
+	 * @param out   where to write the archive
+	 * @param start the offset of the first byte to write
+	 * @param end   the offset after the last byte to write
+	 * @throws IOException if a file could not be read or the archive could not be
+	 *                     written
+	 */
+	public void write(WritableByteChannel out, long start, long end) throws IOException {
+		if (start < 0 || end > length || start > end) {
+			throw new IllegalArgumentException("Range " + start + "-" + end + " is outside of the archive");
+		}
+
+		for (Entry entry : entries) {
+			long dataOffset = entry.offset + entry.localHeaderLength();
+			if (overlaps(entry.offset, dataOffset, start, end)) {
+				writeSlice(out, entry.localHeader(), entry.offset, start, end);
+			}
+			if (overlaps(dataOffset, dataOffset + entry.size, start, end)) {
+				transferSlice(out, entry.path, entry.size, dataOffset, start, end);
+			}
+		}
+
+		if (end > centralDirectoryOffset) {
+			writeSlice(out, centralDirectory(), centralDirectoryOffset, start, end);
+		}
+	}
+
+	private static boolean overlaps(long segmentStart, long segmentEnd, long start, long end) {
+		return segmentStart < end && segmentEnd > start;
+	}
+
+	/**
+	 * Write the part of an in-memory segment of the archive that's in the
+	 * range.
+	 */
+	private static void writeSlice(WritableByteChannel out, byte[] segment, long segmentOffset, long start,
+			long end) throws IOException {
+		int from = (int) Math.max(0, start - segmentOffset);
+		int to = (int) Math.min(segment.length, end - segmentOffset);
+		ByteBuffer buffer = ByteBuffer.wrap(segment, from, to - from);
+		while (buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+	}
+
+	/**
+	 * Copy the part of a file that's in the range straight from the file to the
+	 * output.
+	 */
+	private static void transferSlice(WritableByteChannel out, Path path, long size, long dataOffset, long start,
+			long end) throws IOException {
+		long position = Math.max(0, start - dataOffset);
+		long remaining = Math.min(size, end - dataOffset) - position;
+
+		try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+			while (remaining > 0) {
+				long transferred = file.transferTo(position, remaining, out);
+				if (transferred <= 0) {
+					throw new IOException("File [" + path + "] is shorter than when the download started");
+				}
+				position += transferred;
+				remaining -= transferred;
+			}
+		}
+	}
+
+	/**
+	 * Build the central directory and end records, which need the CRC of every
+	 * file.
+	 */
+	private byte[] centralDirectory() throws IOException {
+		int endLength = (zip64 ? ZIP64_END_LENGTH + ZIP64_LOCATOR_LENGTH : 0) + END_LENGTH;
+		ByteBuffer buffer = ByteBuffer.allocate((int) centralDirectoryLength + endLength)
+				.order(ByteOrder.LITTLE_ENDIAN);
+
+		for (Entry entry : entries) {
+			entry.writeCentralHeader(buffer);
+		}
+
+		if (zip64) {
+			long zip64EndOffset = centralDirectoryOffset + centralDirectoryLength;
+			buffer.putInt(ZIP64_END_SIGNATURE);
+			buffer.putLong(ZIP64_END_LENGTH - 12);
+			buffer.putShort(VERSION_ZIP64);
+			buffer.putShort(VERSION_ZIP64);
+			buffer.putInt(0);
+			buffer.putInt(0);
+			buffer.putLong(entries.size());
+			buffer.putLong(entries.size());
+			buffer.putLong(centralDirectoryLength);
+			buffer.putLong(centralDirectoryOffset);
+
+			buffer.putInt(ZIP64_LOCATOR_SIGNATURE);
+			buffer.putInt(0);
+			buffer.putLong(zip64EndOffset);
+			buffer.putInt(1);
+		}
+
+		buffer.putInt(END_SIGNATURE);
+		buffer.putShort((short) 0);
+		buffer.putShort((short) 0);
+		buffer.putShort((short) Math.min(entries.size(), ZIP64_ENTRY_LIMIT));
+		buffer.putShort((short) Math.min(entries.size(), ZIP64_ENTRY_LIMIT));
+		buffer.putInt((int) Math.min(centralDirectoryLength, ZIP64_LIMIT));
+		buffer.putInt((int) Math.min(centralDirectoryOffset, ZIP64_LIMIT));
+		buffer.putShort((short) 0);
+
+		return buffer.array();
+	}
+
+	/**
+	 * Get the CRC-32 of a file, reading the file only if it hasn't been read
+	 * since it was last modified.
+	 */
+	private static long crc(Path path, long size, FileTime modified) throws IOException {
+		String key = path + "\0" + size + "\0" + modified.toMillis();
+		try {
+			return crcCache.get(key, () -> {
+				CRC32 crc = new CRC32();
+				byte[] buffer = new byte[64 * 1024];
+				try (InputStream in = Files.newInputStream(path)) {
+					int read;
+					while ((read = in.read(buffer)) > 0) {
+						crc.update(buffer, 0, read);
+					}
+				}
+				return crc.getValue();
+			});
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Could not compute CRC for [" + path + "]", e.getCause());
+		}
+	}
+
+	/**
+	 * Convert a time to the MS-DOS date and time format used by zip files.
+	 */
+	private static int dosTime(FileTime time) {
+		LocalDateTime dateTime = LocalDateTime.ofInstant(time.toInstant(), ZoneId.systemDefault());
+		if (dateTime.getYear() < 1980) {
+			return (1 << 21) | (1 << 16);
+		}
+		return (dateTime.getYear() - 1980) << 25 | dateTime.getMonthValue() << 21 | dateTime.getDayOfMonth() << 16
+				| dateTime.getHour() << 11 | dateTime.getMinute() << 5 | dateTime.getSecond() >> 1;
+	}
+
+	/**
+	 * A file in a {@link StoredZipArchive}.
+	 */
+	public static class Entry {
+		private final String name;
+		private final byte[] encodedName;
+		private final Path path;
+		private final long size;
+		private final FileTime modified;
+		private long offset;
+
+		/**
+		 * Create an entry for a file, using its current size and last modified time.
+		 *
+		 * @param name the name of the entry in the archive
+		 * @param path the file to add
+		 * @throws IOException if the file's attributes could not be read
+		 */
+		public Entry(String name, Path path) throws IOException {
+			this(name, path, Files.readAttributes(path, BasicFileAttributes.class));
+		}
+
+		private Entry(String name, Path path, BasicFileAttributes attributes) {
+			this(name, path, attributes.size(), attributes.lastModifiedTime());
+		}
+
+		/**
+		 * Create an entry for a file.
+		 *
+		 * @param name     the name of the entry in the archive
+		 * @param path     the file to add
+		 * @param size     the size of the file
+		 * @param modified the time to record for the entry
+		 */
+		public Entry(String name, Path path, long size, FileTime modified) {
+			this.name = name;
+			this.encodedName = name.getBytes(StandardCharsets.UTF_8);
+			this.path = path;
+			this.size = size;
+			this.modified = modified;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		private boolean isZip64() {
+			return size >= ZIP64_LIMIT || offset >= ZIP64_LIMIT;
+		}
+
+		private int localHeaderLength() {
+			return LOCAL_HEADER_LENGTH + encodedName.length + (size >= ZIP64_LIMIT ? 20 : 0);
+		}
+
+		private int centralHeaderLength() {
+			int extra = (size >= ZIP64_LIMIT ? 16 : 0) + (offset >= ZIP64_LIMIT ? 8 : 0);
+			return CENTRAL_HEADER_LENGTH + encodedName.length + (extra > 0 ? 4 + extra : 0);
+		}
+
+		private byte[] localHeader() throws IOException {
+			boolean largeFile = size >= ZIP64_LIMIT;
+			ByteBuffer buffer = ByteBuffer.allocate(localHeaderLength()).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(LOCAL_HEADER_SIGNATURE);
+			buffer.putShort(largeFile ? VERSION_ZIP64 : VERSION);
+			buffer.putShort(UTF8_NAMES);
+			buffer.putShort((short) 0);
+			buffer.putInt(dosTime(modified));
+			buffer.putInt((int) crc(path, size, modified));
+			buffer.putInt((int) Math.min(size, ZIP64_LIMIT));
+			buffer.putInt((int) Math.min(size, ZIP64_LIMIT));
+			buffer.putShort((short) encodedName.length);
+			buffer.putShort((short) (largeFile ? 20 : 0));
+			buffer.put(encodedName);
+			if (largeFile) {
+				buffer.putShort(ZIP64_EXTRA_ID);
+				buffer.putShort((short) 16);
+				buffer.putLong(size);
+				buffer.putLong(size);
+			}
+			return buffer.array();
+		}
+
+		private void writeCentralHeader(ByteBuffer buffer) throws IOException {
+			boolean largeFile = size >= ZIP64_LIMIT;
+			boolean largeOffset = offset >= ZIP64_LIMIT;
+			int extra = (largeFile ? 16 : 0) + (largeOffset ? 8 : 0);
+
+			buffer.putInt(CENTRAL_HEADER_SIGNATURE);
+			buffer.putShort(VERSION_ZIP64);
+			buffer.putShort(isZip64() ? VERSION_ZIP64 : VERSION);
+			buffer.putShort(UTF8_NAMES);
+			buffer.putShort((short) 0);
+			buffer.putInt(dosTime(modified));
+			buffer.putInt((int) crc(path, size, modified));
+			buffer.putInt((int) Math.min(size, ZIP64_LIMIT));
+			buffer.putInt((int) Math.min(size, ZIP64_LIMIT));
+			buffer.putShort((short) encodedName.length);
+			buffer.putShort((short) (extra > 0 ? 4 + extra : 0));
+			buffer.putShort((short) 0);
+			buffer.putShort((short) 0);
+			buffer.putShort((short) 0);
+			buffer.putInt(0);
+			buffer.putInt((int) Math.min(offset, ZIP64_LIMIT));
+			buffer.put(encodedName);
+			if (extra > 0) {
+				buffer.putShort(ZIP64_EXTRA_ID);
+				buffer.putShort((short) extra);
+				if (largeFile) {
+					buffer.putLong(size);
+					buffer.putLong(size);
+				}
+				if (largeOffset) {
+					buffer.putLong(offset);
+				}
+			}
+		}
+	}
+}
@@ -11,8 +11,12 @@ public class CartSampleModel {
 	private final String label;
 
 	public CartSampleModel(Sample sample) {
-		this.id = sample.getId();
-		this.label = sample.getLabel();
+		this(sample.getId(), sample.getLabel());
+	}
+
+	public CartSampleModel(Long id, String label) {
+		this.id = id;
+		this.label = label;
 	}
 
 	public Long getId() {
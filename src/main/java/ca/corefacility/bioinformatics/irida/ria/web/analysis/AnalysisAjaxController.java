@@ -1,7 +1,6 @@
 package ca.corefacility.bioinformatics.irida.ria.web.analysis;
 
 import java.io.*;
-import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.security.Principal;
@@ -20,6 +19,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import ca.corefacility.bioinformatics.irida.config.analysis.ExecutionManagerConfig;
 import ca.corefacility.bioinformatics.irida.exceptions.*;
@@ -44,6 +44,7 @@ import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSu
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.ProjectAnalysisSubmissionJoin;
 import ca.corefacility.bioinformatics.irida.pipeline.results.AnalysisSubmissionSampleProcessor;
 import ca.corefacility.bioinformatics.irida.ria.utilities.FileUtilities;
+import ca.corefacility.bioinformatics.irida.ria.utilities.LineIndexedFile;
 import ca.corefacility.bioinformatics.irida.ria.web.ajax.dto.UpdatedAnalysisProgress;
 import ca.corefacility.bioinformatics.irida.ria.web.analysis.auditing.AnalysisAudit;
 import ca.corefacility.bioinformatics.irida.ria.web.analysis.dto.*;
@@ -59,9 +60,7 @@ import ca.corefacility.bioinformatics.irida.service.user.UserService;
 import ca.corefacility.bioinformatics.irida.service.workflow.IridaWorkflowsService;
 
 import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.jsonldjava.shaded.com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -94,6 +93,8 @@ public class AnalysisAjaxController {
 	private AnalysisAudit analysisAudit;
 	private AnalysisTypesService analysisTypesService;
 	private EmailController emailController;
+	private AnalysisProgressPublisher analysisProgressPublisher;
+	private AnalysisOutputCache analysisOutputCache;
 
 	@Autowired
 	public AnalysisAjaxController(AnalysisSubmissionService analysisSubmissionService,
@@ -102,7 +103,8 @@ public class AnalysisAjaxController {
 			MetadataTemplateService metadataTemplateService, SequencingObjectService sequencingObjectService,
 			AnalysisSubmissionSampleProcessor analysisSubmissionSampleProcessor,
 			AnalysisOutputFileDownloadManager analysisOutputFileDownloadManager, MessageSource messageSource,
-			ExecutionManagerConfig configFile, AnalysisAudit analysisAudit, AnalysisTypesService analysisTypesService, EmailController emailController) {
+			ExecutionManagerConfig configFile, AnalysisAudit analysisAudit, AnalysisTypesService analysisTypesService, EmailController emailController,
+			AnalysisProgressPublisher analysisProgressPublisher, AnalysisOutputCache analysisOutputCache) {
 
 		this.analysisSubmissionService = analysisSubmissionService;
 		this.workflowsService = iridaWorkflowsService;
@@ -119,6 +121,8 @@ public class AnalysisAjaxController {
 		this.analysisAudit = analysisAudit;
 		this.analysisTypesService = analysisTypesService;
 		this.emailController = emailController;
+		this.analysisProgressPublisher = analysisProgressPublisher;
+		this.analysisOutputCache = analysisOutputCache;
 	}
 
 	/**
@@ -460,24 +464,15 @@ public class AnalysisAjaxController {
 	 * @param aof  {@link AnalysisOutputFile} to read from
 	 */
 	private void addFirstLine(AnalysisOutputFileInfo info, AnalysisOutputFile aof) {
-		RandomAccessFile reader = null;
 		final Path aofFile = aof.getFile();
 		try {
-			reader = new RandomAccessFile(aofFile.toFile(), "r");
-			info.setFirstLine(reader.readLine());
-			info.setFilePointer(reader.getFilePointer());
-		} catch (FileNotFoundException e) {
+			final LineIndexedFile file = LineIndexedFile.open(aofFile);
+			info.setFirstLine(file.getFirstLine());
+			info.setFilePointer(file.getFirstLineEnd());
+		} catch (FileNotFoundException | NoSuchFileException e) {
 			logger.error("Could not find file '" + aofFile + "' " + e);
 		} catch (IOException e) {
 			logger.error("Could not read file '" + aofFile + "' " + e);
-		} finally {
-			try {
-				if (reader != null) {
-					reader.close();
-				}
-			} catch (IOException e) {
-				logger.error("Could not close file handle for '" + aofFile + "' " + e);
-			}
 		}
 	}
 
@@ -525,36 +520,29 @@ public class AnalysisAjaxController {
 			contents.setToolName(tool.getToolName());
 			contents.setToolVersion(tool.getToolVersion());
 			try {
-				final File file = aofFile.toFile();
-				final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
-				randomAccessFile.seek(seek);
-				if (seek == 0) {
-					if (chunk != null && chunk > 0) {
-						contents.setText(FileUtilities.readChunk(randomAccessFile, seek, chunk));
-						contents.setChunk(chunk);
-						contents.setStartSeek(seek);
-					} else {
-						final BufferedReader reader = new BufferedReader(new FileReader(randomAccessFile.getFD()));
-						final List<String> lines = FileUtilities.readLinesLimit(reader, limit, start, end);
-						contents.setLines(lines);
-						contents.setLimit((long) lines.size());
-						contents.setStart(start);
-						contents.setEnd(start + lines.size());
-					}
+				if (seek == 0 && (chunk == null || chunk <= 0)) {
+					final List<String> lines = FileUtilities.readLinesLimit(aofFile, limit, start, end);
+					contents.setLines(lines);
+					contents.setLimit((long) lines.size());
+					contents.setStart(start);
+					contents.setEnd(start + lines.size());
 				} else {
-					if (chunk != null && chunk > 0) {
-						contents.setText(FileUtilities.readChunk(randomAccessFile, seek, chunk));
-						contents.setChunk(chunk);
-						contents.setStartSeek(seek);
-					} else {
-						final List<String> lines = FileUtilities.readLinesFromFilePointer(randomAccessFile, limit);
-						contents.setLines(lines);
-						contents.setStartSeek(seek);
-						contents.setStart(start);
-						contents.setLimit((long) lines.size());
+					try (final RandomAccessFile randomAccessFile = new RandomAccessFile(aofFile.toFile(), "r")) {
+						randomAccessFile.seek(seek);
+						if (chunk != null && chunk > 0) {
+							contents.setText(FileUtilities.readChunk(randomAccessFile, seek, chunk));
+							contents.setChunk(chunk);
+							contents.setStartSeek(seek);
+						} else {
+							final List<String> lines = FileUtilities.readLinesFromFilePointer(randomAccessFile, limit);
+							contents.setLines(lines);
+							contents.setStartSeek(seek);
+							contents.setStart(start);
+							contents.setLimit((long) lines.size());
+						}
+						contents.setFilePointer(randomAccessFile.getFilePointer());
 					}
 				}
-				contents.setFilePointer(randomAccessFile.getFilePointer());
 			} catch (IOException e) {
 				logger.error("Could not read output file '" + aof.getId() + "' " + e);
 				response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -737,7 +725,6 @@ public class AnalysisAjaxController {
 	 * @param id ID of the analysis submission
 	 * @return dto with SISTR analysis results
 	 */
-	@SuppressWarnings("resource")
 	@RequestMapping("/sistr/{id}")
 	@ResponseBody
 	public AnalysisSistrResults getSistrAnalysis(@PathVariable Long id) {
@@ -765,13 +752,9 @@ public class AnalysisAjaxController {
 				path = analysis.getAnalysisOutputFile(sistrFileKey).getFile();
 
 				try {
-					String json = new Scanner(new BufferedReader(new FileReader(path.toFile()))).useDelimiter("\\Z")
-							.next();
-
 					// verify file is proper json file and map to a SistrResult list
-					ObjectMapper mapper = new ObjectMapper();
-					List<SistrResult> sistrResults = mapper.readValue(json, new TypeReference<List<SistrResult>>() {
-					});
+					List<SistrResult> sistrResults = analysisOutputCache.getSistrResults(
+							analysis.getAnalysisOutputFile(sistrFileKey));
 
 					if (sistrResults.size() > 0) {
 						// should only ever be one sample for these results
@@ -914,8 +897,12 @@ public class AnalysisAjaxController {
 		if (treeFileForSubmission.isPresent()) {
 
 			AnalysisOutputFile file = treeFileForSubmission.get();
-			List<String> lines = Files.readAllLines(file.getFile());
-			return ImmutableMap.of("newick", lines.get(0));
+			String newick = analysisOutputCache.getTree(file)
+					.getNewick();
+			if (newick == null) {
+				throw new IOException("Newick file for this submission is empty");
+			}
+			return ImmutableMap.of("newick", newick);
 		} else {
 			throw new IOException("Newick file could not be found for this submission");
 		}
@@ -1089,12 +1076,12 @@ public class AnalysisAjaxController {
 			AnalysisOutputFile file = treeOptional.get();
 
 			try {
-				List<String> lines = Files.readAllLines(file.getFile());
+				AnalysisOutputCache.NewickTree newickTree = analysisOutputCache.getTree(file);
 
-				if (lines.size() > 0) {
-					tree = lines.get(0);
+				if (newickTree.getNewick() != null) {
+					tree = newickTree.getNewick();
 
-					if (lines.size() > 1) {
+					if (newickTree.hasMultipleTrees()) {
 						logger.warn("Multiple lines in tree file, will only display first tree. For analysis: "
 								+ submission);
 						message = messageSource.getMessage("AnalysisPhylogeneticTree.multipleTrees", new Object[] {},
@@ -1199,9 +1186,35 @@ public class AnalysisAjaxController {
 		logger.trace("reading analysis submission " + submissionId);
 		AnalysisSubmission submission = analysisSubmissionService.read(submissionId);
 
+		return ResponseEntity.ok(getProgress(submission));
+	}
+
+	/**
+	 * Stream the state and duration of an analysis as server-sent events. The
+	 * current progress is sent immediately, then again each time the state of
+	 * the analysis changes until it has completed or errored.
+	 *
+	 * @param submissionId The analysis submission id
+	 * @return the event stream of {@link UpdatedAnalysisProgress}
+	 */
+	@RequestMapping(value = "/{submissionId}/progress-events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter getProgressEvents(@PathVariable Long submissionId) {
+		logger.trace("watching analysis submission " + submissionId);
+		AnalysisSubmission submission = analysisSubmissionService.read(submissionId);
+
+		return analysisProgressPublisher.watch(submission, getProgress(submission));
+	}
+
+	/**
+	 * Get the current state and duration of an analysis
+	 *
+	 * @param submission the {@link AnalysisSubmission}
+	 * @return dto which contains the analysis state and duration
+	 */
+	private UpdatedAnalysisProgress getProgress(AnalysisSubmission submission) {
 		AnalysisState prevStateBeforeError = null;
 		if (submission.getAnalysisState() == AnalysisState.ERROR) {
-			prevStateBeforeError = analysisAudit.getPreviousStateBeforeError(submissionId);
+			prevStateBeforeError = analysisAudit.getPreviousStateBeforeError(submission.getId());
 		}
 
 		// Get the run time of the analysis runtime using the analysis
@@ -1213,8 +1226,7 @@ public class AnalysisAjaxController {
 			duration = analysisAudit.getAnalysisRunningTime(submission);
 		}
 
-		return ResponseEntity.ok(new UpdatedAnalysisProgress(submission.getAnalysisState(), prevStateBeforeError, duration));
-
+		return new UpdatedAnalysisProgress(submission.getAnalysisState(), prevStateBeforeError, duration);
 	}
 
 	/**
@@ -0,0 +1,171 @@
+package ca.corefacility.bioinformatics.irida.ria.web.analysis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisOutputFile;
+import ca.corefacility.bioinformatics.irida.ria.web.analysis.dto.SistrResult;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps the parsed contents of the {@link AnalysisOutputFile}s that are
+ * visualized on the analysis pages, so viewing the same tree or SISTR results
+ * again doesn't read and parse the file again.
+ * <p>
+ * Parsed outputs are keyed on the output file's id and revision, and the least
+ * recently used are evicted once their estimated size exceeds
+ * {@code irida.analysis.output.cache.size} megabytes.
+ */
+@Component
+public class AnalysisOutputCache {
+	private static final Logger logger = LoggerFactory.getLogger(AnalysisOutputCache.class);
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	// rough size in bytes of a cache entry apart from its contents
+	private static final int ENTRY_OVERHEAD = 128;
+
+	private final Cache<String, Object> cache;
+
+	@Autowired
+	public AnalysisOutputCache(@Value("${irida.analysis.output.cache.size:64}") long cacheSize) {
+		cache = CacheBuilder.newBuilder()
+				.maximumWeight(cacheSize * 1024 * 1024)
+				.weigher((String key, Object value) -> weigh(value))
+				.build();
+	}
+
+	/**
+	 * Get the tree in a newick tree output. Only the first line of the file is
+	 * read as the tree.
+	 *
+	 * @param file the tree {@link AnalysisOutputFile}
+	 * @return the tree in the file
+	 * @throws IOException if the file can't be read
+	 */
+	public NewickTree getTree(AnalysisOutputFile file) throws IOException {
+		return get(file, "tree", () -> {
+			try (BufferedReader reader = Files.newBufferedReader(file.getFile())) {
+				String tree = reader.readLine();
+				boolean multipleTrees = tree != null && reader.readLine() != null;
+				return new NewickTree(tree, multipleTrees);
+			}
+		});
+	}
+
+	/**
+	 * Get the results in a SISTR predictions output.
+	 *
+	 * @param file the SISTR predictions {@link AnalysisOutputFile}
+	 * @return the parsed {@link SistrResult}s
+	 * @throws IOException if the file can't be read or isn't a list of SISTR
+	 *                     results
+	 */
+	public List<SistrResult> getSistrResults(AnalysisOutputFile file) throws IOException {
+		return get(file, "sistr", () -> {
+			try (InputStream is = Files.newInputStream(file.getFile())) {
+				List<SistrResult> results = mapper.readValue(is, new TypeReference<List<SistrResult>>() {
+				});
+				return new ParsedOutput<>(Collections.unmodifiableList(results), Files.size(file.getFile()));
+			}
+		}).contents;
+	}
+
+	/**
+	 * Remove every parsed output from the cache
+	 */
+	public void clear() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * @return the number of parsed outputs in the cache
+	 */
+	public long size() {
+		return cache.size();
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T get(AnalysisOutputFile file, String type, Callable<T> parser) throws IOException {
+		String key = type + ":" + file.getId() + ":" + file.getFileRevisionNumber();
+		try {
+			return (T) cache.get(key, () -> {
+				logger.trace("Parsing " + type + " output [" + file.getFile() + "]");
+				return parser.call();
+			});
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Could not parse output file [" + file.getFile() + "]", e.getCause());
+		}
+	}
+
+	private static int weigh(Object value) {
+		long weight = ENTRY_OVERHEAD;
+		if (value instanceof NewickTree) {
+			NewickTree tree = (NewickTree) value;
+			weight += tree.newick != null ? 2L * tree.newick.length() : 0;
+		} else if (value instanceof ParsedOutput) {
+			weight += ((ParsedOutput<?>) value).size;
+		}
+		return (int) Math.min(Integer.MAX_VALUE, weight);
+	}
+
+	/**
+	 * The tree read from a newick output file.
+	 */
+	public static class NewickTree {
+		private final String newick;
+		private final boolean multipleTrees;
+
+		public NewickTree(String newick, boolean multipleTrees) {
+			this.newick = newick;
+			this.multipleTrees = multipleTrees;
+		}
+
+		/**
+		 * @return the first tree in the file, or null if the file is empty
+		 */
+		public String getNewick() {
+			return newick;
+		}
+
+		/**
+		 * @return whether the file has more lines after the first tree
+		 */
+		public boolean hasMultipleTrees() {
+			return multipleTrees;
+		}
+	}
+
+	/**
+	 * Parsed contents of an output file, with the size of the file they were
+	 * parsed from as an estimate of their size in memory.
+	 */
+	private static class ParsedOutput<T> {
+		private final T contents;
+		private final long size;
+
+		private ParsedOutput(T contents, long size) {
+			this.contents = contents;
+			this.size = size;
+		}
+	}
+}
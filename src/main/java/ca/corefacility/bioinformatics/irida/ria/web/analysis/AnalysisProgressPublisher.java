@@ -0,0 +1,212 @@
+package ca.corefacility.bioinformatics.irida.ria.web.analysis;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisStateTransition;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.ria.web.ajax.dto.UpdatedAnalysisProgress;
+import ca.corefacility.bioinformatics.irida.ria.web.utilities.DateUtilities;
+import ca.corefacility.bioinformatics.irida.service.analysis.AnalysisStateTransitionService;
+
+/**
+ * Pushes the progress of {@link AnalysisSubmission}s to the browsers watching
+ * them with server-sent events, instead of each browser polling for it.
+ * <p>
+ * Transitions recorded on this server are pushed as soon as they are
+ * committed. Analyses are run by the analysis server, which may not be the
+ * server a browser is connected to, so the latest transitions of every watched
+ * submission are also checked with one query every
+ * {@code irida.analysis.progress.interval} seconds.
+ */
+@Component
+public class AnalysisProgressPublisher {
+	private static final Logger logger = LoggerFactory.getLogger(AnalysisProgressPublisher.class);
+
+	private static final String PROGRESS_EVENT = "progress";
+	// browsers reconnect when an event stream times out
+	private static final long EMITTER_TIMEOUT = TimeUnit.MINUTES.toMillis(30);
+
+	private final AnalysisStateTransitionService transitionService;
+	private final Consumer<AnalysisStateTransition> subscriber = this::transitionRecorded;
+	private final Map<Long, WatchedSubmission> watched = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService scheduler;
+
+	@Autowired
+	public AnalysisProgressPublisher(AnalysisStateTransitionService transitionService,
+			@Value("${irida.analysis.progress.interval:10}") long interval) {
+		this.transitionService = transitionService;
+
+		transitionService.subscribe(subscriber);
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "analysis-progress");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::checkTransitions, interval, interval, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Start sending the progress of a submission to a browser. The current
+	 * progress is sent immediately, and the stream is closed once the analysis
+	 * has completed or errored.
+	 *
+	 * @param submission the {@link AnalysisSubmission} to watch
+	 * @param progress   the current progress of the submission
+	 * @return the {@link SseEmitter} to send progress to the browser with
+	 */
+	public SseEmitter watch(AnalysisSubmission submission, UpdatedAnalysisProgress progress) {
+		SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT);
+
+		if (!send(emitter, progress) || isFinished(progress.getAnalysisState())) {
+			emitter.complete();
+			return emitter;
+		}
+
+		// a newly watched submission is sent its latest transition on the next
+		// check, in case it was recorded after the current progress was read
+		watched.computeIfAbsent(submission.getId(), id -> new WatchedSubmission(submission.getCreatedDate()))
+				.emitters.add(emitter);
+
+		Runnable remove = () -> stopWatching(submission.getId(), emitter);
+		emitter.onCompletion(remove);
+		emitter.onTimeout(remove);
+		emitter.onError(e -> remove.run());
+
+		return emitter;
+	}
+
+	/**
+	 * Get the number of browsers watching a submission
+	 *
+	 * @param submissionId the id of the {@link AnalysisSubmission}
+	 * @return the number of open event streams for the submission
+	 */
+	public int getWatcherCount(Long submissionId) {
+		WatchedSubmission watchedSubmission = watched.get(submissionId);
+		return watchedSubmission != null ? watchedSubmission.emitters.size() : 0;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		transitionService.unsubscribe(subscriber);
+		scheduler.shutdownNow();
+		watched.values().forEach(w -> w.emitters.forEach(SseEmitter::complete));
+		watched.clear();
+	}
+
+	/**
+	 * Push a transition recorded on this server to the browsers watching its
+	 * submission
+	 *
+	 * @param transition the recorded {@link AnalysisStateTransition}
+	 */
+	public void transitionRecorded(AnalysisStateTransition transition) {
+		WatchedSubmission watchedSubmission = watched.get(transition.getSubmissionId());
+		if (watchedSubmission != null) {
+			publish(watchedSubmission, transition);
+		}
+	}
+
+	/**
+	 * Check for transitions made by other servers to the watched submissions
+	 */
+	public void checkTransitions() {
+		if (watched.isEmpty()) {
+			return;
+		}
+
+		try {
+			for (AnalysisStateTransition transition : transitionService.getLatestTransitions(watched.keySet())) {
+				WatchedSubmission watchedSubmission = watched.get(transition.getSubmissionId());
+				if (watchedSubmission != null) {
+					publish(watchedSubmission, transition);
+				}
+			}
+		} catch (RuntimeException e) {
+			logger.warn("Could not check for analysis state transitions", e);
+		}
+	}
+
+	/**
+	 * Send a transition to the browsers watching a submission, if it hasn't
+	 * been sent already
+	 */
+	private void publish(WatchedSubmission watchedSubmission, AnalysisStateTransition transition) {
+		synchronized (watchedSubmission) {
+			if (watchedSubmission.lastTransitionId != null
+					&& transition.getId() <= watchedSubmission.lastTransitionId) {
+				return;
+			}
+			watchedSubmission.lastTransitionId = transition.getId();
+		}
+
+		AnalysisState state = transition.getAnalysisState();
+		boolean finished = isFinished(state);
+		AnalysisState previousState = state == AnalysisState.ERROR ? transition.getPreviousState() : null;
+		Long duration = DateUtilities.getDurationInMilliseconds(watchedSubmission.createdDate,
+				finished ? transition.getTransitionDate() : new Date());
+		UpdatedAnalysisProgress progress = new UpdatedAnalysisProgress(state, previousState, duration);
+
+		for (SseEmitter emitter : watchedSubmission.emitters) {
+			if (!send(emitter, progress) || finished) {
+				emitter.complete();
+				stopWatching(transition.getSubmissionId(), emitter);
+			}
+		}
+	}
+
+	private boolean send(SseEmitter emitter, UpdatedAnalysisProgress progress) {
+		try {
+			emitter.send(SseEmitter.event().name(PROGRESS_EVENT).data(progress, MediaType.APPLICATION_JSON));
+			return true;
+		} catch (IOException | IllegalStateException e) {
+			logger.trace("Could not send analysis progress, the browser has likely disconnected", e);
+			return false;
+		}
+	}
+
+	private void stopWatching(Long submissionId, SseEmitter emitter) {
+		watched.computeIfPresent(submissionId, (id, w) -> {
+			w.emitters.remove(emitter);
+			return w.emitters.isEmpty() ? null : w;
+		});
+	}
+
+	private static boolean isFinished(AnalysisState state) {
+		return state == AnalysisState.COMPLETED || state == AnalysisState.ERROR;
+	}
+
+	/**
+	 * A submission being watched by one or more browsers
+	 */
+	private static class WatchedSubmission {
+		private final Date createdDate;
+		private final Set<SseEmitter> emitters = new CopyOnWriteArraySet<>();
+		private Long lastTransitionId;
+
+		private WatchedSubmission(Date createdDate) {
+			this.createdDate = createdDate;
+		}
+	}
+}
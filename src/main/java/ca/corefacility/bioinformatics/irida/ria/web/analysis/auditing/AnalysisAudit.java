@@ -10,22 +10,30 @@ import org.springframework.data.history.Revisions;
 import org.springframework.stereotype.Component;
 
 import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisStateTransition;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
 import ca.corefacility.bioinformatics.irida.ria.web.utilities.DateUtilities;
+import ca.corefacility.bioinformatics.irida.service.analysis.AnalysisStateTransitionService;
 
 
 /**
  * This class component is used for auditing {@link AnalysisSubmission}.
+ * Submissions have their state transitions recorded by the
+ * {@link AnalysisStateTransitionService}, which are read first. Submissions
+ * from before transitions were recorded fall back to their audited revisions.
  */
 @Component
 public class AnalysisAudit {
 
 	private AnalysisSubmissionRepository analysisSubmissionRepository;
+	private AnalysisStateTransitionService transitionService;
 
 	@Autowired
-	public AnalysisAudit(AnalysisSubmissionRepository analysisSubmissionRepository) {
+	public AnalysisAudit(AnalysisSubmissionRepository analysisSubmissionRepository,
+			AnalysisStateTransitionService transitionService) {
 		this.analysisSubmissionRepository = analysisSubmissionRepository;
+		this.transitionService = transitionService;
 	}
 
 	/**
@@ -35,6 +43,15 @@ public class AnalysisAudit {
 	 * @return {@link Long} Running time of the analysis
 	 */
 	public Long getAnalysisRunningTime(AnalysisSubmission submission) {
+		// the run time is up to when the analysis first entered its current
+		// state
+		AnalysisStateTransition transition = transitionService.getTransitionInto(submission.getId(),
+				submission.getAnalysisState());
+		if (transition != null) {
+			return DateUtilities.getDurationInMilliseconds(submission.getCreatedDate(),
+					transition.getTransitionDate());
+		}
+
 		ArrayList<AnalysisSubmission> uniqueAuditedSubmissions = new ArrayList<>();
 
 		// Gets a list of the analysis submission revisions for the submission
@@ -79,6 +96,11 @@ public class AnalysisAudit {
 	 * @return {@link String} State of analysis prior to error
 	 */
 	public AnalysisState getPreviousStateBeforeError(Long submissionId) {
+		AnalysisStateTransition transition = transitionService.getTransitionInto(submissionId, AnalysisState.ERROR);
+		if (transition != null) {
+			return transition.getPreviousState();
+		}
+
 		AnalysisSubmission previousRevision = null;
 
 		// Get revisions from the analysis submission audit table for the submission
@@ -31,7 +31,7 @@ public class AddToCartRequest {
 		return projectId;
 	}
 
-	public Iterable<Long> getSampleIds() {
+	public List<Long> getSampleIds() {
 		return sampleIds;
 	}
 
@@ -1,14 +1,20 @@
 package ca.corefacility.bioinformatics.irida.ria.web.linelist;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.ConstraintViolationException;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Sets;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
@@ -45,6 +51,10 @@ import com.google.common.base.Strings;
 @Controller
 @RequestMapping("/linelist")
 public class LineListController {
+	public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
 	private ProjectService projectService;
 	private SampleService sampleService;
 	private MetadataTemplateService metadataTemplateService;
@@ -65,27 +75,75 @@ public class LineListController {
 	}
 
 	/**
-	 * Get a {@link List} of {@link Map} containing information from {@link MetadataEntry} for all
-	 * {@link  Sample}s in a {@link Project}
+	 * Get the metadata of the {@link Sample}s in a {@link Project} as a JSON array of {@link UISampleMetadata}.
+	 * <p>
+	 * Samples are read a page at a time with one query for the samples, one query for all of their
+	 * {@link MetadataEntry}s and one permission check for the page, and each row is written to the response as it's
+	 * built. Without a {@code page} every sample in the project is written. The total number of samples in the project
+	 * is sent in the {@code X-Total-Count} header.
 	 *
 	 * @param projectId {@link Long} identifier for a {@link Project}
-	 * @return {@link List} of {@link UISampleMetadata}s of all {@link Sample} metadata in a {@link Project}
+	 * @param page      Optional page of samples to get
+	 * @param size      Number of samples in a page
+	 * @param response  {@link HttpServletResponse} to write the {@link UISampleMetadata}s to
+	 * @throws IOException if the response cannot be written
 	 */
 	@RequestMapping(value = "/entries", method = RequestMethod.GET)
-	@ResponseBody
-	public List<UISampleMetadata> getProjectSamplesMetadataEntries(@RequestParam long projectId) {
+	public void getProjectSamplesMetadataEntries(@RequestParam long projectId,
+			@RequestParam(required = false) Integer page, @RequestParam(defaultValue = "1000") int size,
+			HttpServletResponse response) throws IOException {
 		Authentication authentication = SecurityContextHolder.getContext()
 				.getAuthentication();
 		Project project = projectService.read(projectId);
+		size = Math.max(1, size);
+
+		int current = page != null ? page : 0;
+		Page<ProjectSampleJoin> samples = sampleService.getSamplesForProject(project, current, size);
+
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setHeader(TOTAL_COUNT_HEADER, String.valueOf(samples.getTotalElements()));
+
+		try (JsonGenerator generator = objectMapper.getFactory()
+				.createGenerator(response.getOutputStream())) {
+			generator.writeStartArray();
+			writeSampleMetadata(generator, authentication, project, samples.getContent());
+
+			while (page == null && samples.hasNext()) {
+				samples = sampleService.getSamplesForProject(project, ++current, size);
+				writeSampleMetadata(generator, authentication, project, samples.getContent());
+			}
+			generator.writeEndArray();
+		}
+	}
 
-		List<Join<Project, Sample>> projectSamples = sampleService.getSamplesForProject(project);
-		return projectSamples.stream()
-				.map(join -> {
-					ProjectSampleJoin psj = (ProjectSampleJoin)join;
-					Set<MetadataEntry> metadata = sampleService.getMetadataForSample(psj.getObject());
-					return new UISampleMetadata(psj, updateSamplePermission.isAllowed(authentication, psj.getObject()), metadata);
-				})
+	/**
+	 * Write the {@link UISampleMetadata} of a page of {@link Sample}s
+	 *
+	 * @param generator      {@link JsonGenerator} to write to
+	 * @param authentication {@link Authentication} of the current user
+	 * @param project        {@link Project} the samples are in
+	 * @param joins          {@link ProjectSampleJoin}s for the page of samples
+	 * @throws IOException if the rows cannot be written
+	 */
+	private void writeSampleMetadata(JsonGenerator generator, Authentication authentication, Project project,
+			List<ProjectSampleJoin> joins) throws IOException {
+		List<Sample> samples = joins.stream()
+				.map(ProjectSampleJoin::getObject)
 				.collect(Collectors.toList());
+		Map<Long, Set<MetadataEntry>> metadata = sampleService.getMetadataForSamplesInProject(project,
+				samples.stream()
+						.map(Sample::getId)
+						.collect(Collectors.toList()));
+		Set<Object> updatable = Collections.newSetFromMap(new IdentityHashMap<>());
+		updatable.addAll(updateSamplePermission.filterAllowed(authentication, samples));
+
+		for (ProjectSampleJoin join : joins) {
+			Sample sample = join.getObject();
+			generator.writeObject(new UISampleMetadata(join, updatable.contains(sample),
+					metadata.getOrDefault(sample.getId(), Collections.emptySet())));
+		}
+		generator.flush();
 	}
 
 	/**
@@ -1,14 +1,13 @@
 package ca.corefacility.bioinformatics.irida.ria.web.projects;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.channels.Channels;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.security.Principal;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -40,6 +39,7 @@ import ca.corefacility.bioinformatics.irida.model.sample.QCEntry;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.ria.utilities.StoredZipArchive;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportToFile;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportTypes;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesParams;
@@ -77,6 +77,7 @@ public class ProjectSamplesController {
 	private static final String PROJECT_TEMPLATE_DIR = PROJECTS_DIR + "templates/";
 	private static final String PROJECT_SAMPLES_PAGE = PROJECTS_DIR + "project_samples";
 	private static final Logger logger = LoggerFactory.getLogger(ProjectsController.class);
+	private static final Pattern BYTE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
 
 	// Services
 	private final ProjectService projectService;
@@ -702,60 +703,86 @@ public class ProjectSamplesController {
 	}
 
 	/**
-	 * Download a set of sequence files from selected samples within a project
+	 * Download a set of sequence files from selected samples within a project.
+	 * The files are sent as an uncompressed zip archive so that the length of the
+	 * download is known up front and an interrupted download can be resumed with
+	 * a {@code Range} request.
 	 *
 	 * @param projectId Id for a {@link Project}
 	 * @param ids       List of ids ofr {@link Sample} within the project
+	 * @param request   {@link HttpServletRequest}
 	 * @param response  {@link HttpServletResponse}
 	 * @throws IOException if we fail to read a file from the filesystem.
 	 */
 	@RequestMapping(value = "/projects/{projectId}/download/files")
 	public void downloadSamples(@PathVariable Long projectId, @RequestParam(value = "ids[]") List<Long> ids,
-			HttpServletResponse response)
-			throws IOException {
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
 		Project project = projectService.read(projectId);
 		List<Sample> samples = (List<Sample>) sampleService.readMultiple(ids);
 
-		// Add the appropriate headers
-		response.setContentType("application/zip");
-		response.setHeader("Content-Disposition", "attachment; filename=\"" + project.getName() + ".zip\"");
-		response.setHeader("Transfer-Encoding", "chunked");
-
 		// storing used file names to ensure we don't have a conflict
 		Set<String> usedFileNames = new HashSet<>();
+		List<StoredZipArchive.Entry> entries = new ArrayList<>();
 
-		try (ZipOutputStream outputStream = new ZipOutputStream(response.getOutputStream())) {
-			for (Sample sample : samples) {
-				Collection<SampleSequencingObjectJoin> sequencingObjectsForSample = sequencingObjectService
-						.getSequencingObjectsForSample(sample);
+		for (Sample sample : samples) {
+			Collection<SampleSequencingObjectJoin> sequencingObjectsForSample = sequencingObjectService
+					.getSequencingObjectsForSample(sample);
 
-				for (SampleSequencingObjectJoin join : sequencingObjectsForSample) {
-					for (SequenceFile file : join.getObject().getFiles()) {
-						Path path = file.getFile();
+			for (SampleSequencingObjectJoin join : sequencingObjectsForSample) {
+				for (SequenceFile file : join.getObject().getFiles()) {
+					Path path = file.getFile();
 
-						String fileName = project.getName() + "/" + sample.getSampleName() + "/" + path.getFileName()
-								.toString();
-						if (usedFileNames.contains(fileName)) {
-							fileName = handleDuplicate(fileName, usedFileNames);
-						}
-						final ZipEntry entry = new ZipEntry(fileName);
-						// set the file creation time on the zip entry to be
-						// whatever the creation time is on the filesystem
-						final BasicFileAttributes attr = Files.readAttributes(path, BasicFileAttributes.class);
-						entry.setCreationTime(attr.creationTime());
-						entry.setLastModifiedTime(attr.creationTime());
-
-						outputStream.putNextEntry(entry);
+					String fileName = project.getName() + "/" + sample.getSampleName() + "/" + path.getFileName()
+							.toString();
+					if (usedFileNames.contains(fileName)) {
+						fileName = handleDuplicate(fileName, usedFileNames);
+					}
+					usedFileNames.add(fileName);
 
-						usedFileNames.add(fileName);
+					// the entry carries the file modification time from the
+					// filesystem
+					entries.add(new StoredZipArchive.Entry(fileName, path));
+				}
+			}
+		}
 
-						Files.copy(path, outputStream);
+		StoredZipArchive archive = new StoredZipArchive(entries);
+		long length = archive.getLength();
+		String eTag = archive.getETag();
 
-						outputStream.closeEntry();
-					}
-				}
+		// Add the appropriate headers
+		response.setContentType("application/zip");
+		response.setHeader("Content-Disposition", "attachment; filename=\"" + project.getName() + ".zip\"");
+		response.setHeader("Accept-Ranges", "bytes");
+		response.setHeader("ETag", eTag);
+
+		long start = 0;
+		long end = length;
+
+		String range = request.getHeader("Range");
+		String ifRange = request.getHeader("If-Range");
+		// a range for an older version of the archive means the whole thing
+		// has to be sent again
+		long[] bounds = null;
+		if (range != null && (ifRange == null || ifRange.equals(eTag))) {
+			bounds = parseRange(range, length);
+		}
+		// a range we don't understand is ignored and the whole archive is sent
+		if (bounds != null) {
+			if (bounds[0] >= length) {
+				response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				response.setHeader("Content-Range", "bytes */" + length);
+				return;
 			}
-			outputStream.finish();
+			start = bounds[0];
+			end = bounds[1];
+			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			response.setHeader("Content-Range", "bytes " + start + "-" + (end - 1) + "/" + length);
+		}
+		response.setContentLengthLong(end - start);
+
+		try {
+			archive.write(Channels.newChannel(response.getOutputStream()), start, end);
 		} catch (IOException e) {
 			// this generally means that the user has cancelled the download
 			// from their web browser; we can safely ignore this
@@ -770,6 +797,46 @@ public class ProjectSamplesController {
 		}
 	}
 
+	/**
+	 * Parse a single byte range from a {@code Range} header. Multiple ranges
+	 * aren't supported, download managers only ask for one to resume.
+	 *
+	 * @param range  the value of the {@code Range} header
+	 * @param length the length of the resource
+	 * @return the start (inclusive) and end (exclusive) of the range, or null if
+	 * the header is malformed or asks for more than one range and should be
+	 * ignored. The range can't be satisfied if the start is not before
+	 * {@code length}.
+	 */
+	private static long[] parseRange(String range, long length) {
+		Matcher matcher = BYTE_RANGE.matcher(range.trim());
+		if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+			return null;
+		}
+
+		long start;
+		long end;
+		try {
+			if (matcher.group(1).isEmpty()) {
+				// suffix range, the last n bytes
+				start = Math.max(0, length - Long.parseLong(matcher.group(2)));
+				end = length;
+			} else {
+				start = Long.parseLong(matcher.group(1));
+				end = matcher.group(2).isEmpty() ? length : Math.min(length, Long.parseLong(matcher.group(2)) + 1);
+			}
+		} catch (NumberFormatException e) {
+			return null;
+		}
+
+		// a last byte before the first byte is malformed, not unsatisfiable
+		if (!matcher.group(1).isEmpty() && !matcher.group(2).isEmpty()
+				&& Long.parseLong(matcher.group(2)) < start) {
+			return null;
+		}
+		return new long[] { start, end };
+	}
+
 	/**
 	 * Rename a filename {@code original} and ensure it doesn't exist in {@code usedNames}. Uses the windows style of
 	 * renaming file.ext to file (1).ext
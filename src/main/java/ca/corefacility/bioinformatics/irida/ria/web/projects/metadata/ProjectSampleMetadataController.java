@@ -1,18 +1,22 @@
 package ca.corefacility.bioinformatics.irida.ria.web.projects.metadata;
 
-import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.*;
-import java.util.Map.Entry;
+import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpSession;
 
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.commons.io.input.BOMInputStream;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,7 +26,6 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 import ca.corefacility.bioinformatics.irida.exceptions.MetadataImportFileTypeNotSupportedError;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
@@ -37,7 +40,9 @@ import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
 import com.google.common.io.Files;
+import com.monitorjbl.xlsx.StreamingReader;
 
 /**
  * This class is designed to be used for bulk actions on {@link MetadataEntry}
@@ -47,6 +52,10 @@ import com.google.common.io.Files;
 @RequestMapping("/projects/{projectId}/sample-metadata")
 public class ProjectSampleMetadataController {
 	private static final Logger logger = LoggerFactory.getLogger(ProjectSampleMetadataController.class);
+	private static final List<String> DEFAULT_HEADERS = ImmutableList.of("Sample Id", "ID", "Modified Date",
+			"Modified On", "Created Date", "Created On", "Coverage", "Project ID");
+	// Number of uploaded rows to look up or save at once
+	private static final int BATCH_SIZE = 500;
 	private final MessageSource messageSource;
 	private final ProjectService projectService;
 	private final SampleService sampleService;
@@ -80,13 +89,14 @@ public class ProjectSampleMetadataController {
 	}
 
 	/**
-	 * Upload Excel file containing sample metadata and extract the headers.  The file is stored in the session until
-	 * the column that corresponds to a {@link Sample} identifier has been sent.
+	 * Upload an Excel or CSV file containing sample metadata and extract the headers.  The rows of the file are read one
+	 * at a time and stored in a temporary file until the column that corresponds to a {@link Sample} identifier has
+	 * been sent.
 	 *
 	 * @param session   {@link HttpSession}
 	 * @param projectId {@link Long} identifier for the current {@link Project}
-	 * @param file      {@link MultipartFile} The excel file containing the metadata.
-	 * @return {@link Map} of headers and rows from the excel file for the user to select the header corresponding the
+	 * @param file      {@link MultipartFile} The excel or csv file containing the metadata.
+	 * @return {@link Map} of headers and rows from the file for the user to select the header corresponding the
 	 * {@link Sample} identifier.
 	 */
 	@RequestMapping(value = "/upload/file", method = RequestMethod.POST)
@@ -95,80 +105,142 @@ public class ProjectSampleMetadataController {
 			@RequestParam("file") MultipartFile file) {
 		// We want to return a list of the table headers back to the UI.
 		SampleMetadataStorage storage = new SampleMetadataStorage();
-		try {
-			// Need an input stream
-			String filename = file.getOriginalFilename();
-			byte[] byteArr = file.getBytes();
-			InputStream fis = new ByteArrayInputStream(byteArr);
+		String filename = file.getOriginalFilename();
+		String extension = Files.getFileExtension(filename);
 
-			Workbook workbook;
-			String extension = Files.getFileExtension(filename);
-
-			// Check the type of workbook
+		try (InputStream fis = file.getInputStream()) {
+			// Check the type of file
 			switch (extension) {
 			case "xlsx":
-				workbook = new XSSFWorkbook(fis);
+				// Only the rows being read are kept in memory
+				try (Workbook workbook = StreamingReader.builder()
+						.rowCacheSize(100)
+						.bufferSize(4096)
+						.open(fis)) {
+					saveWorkbookRows(workbook, storage);
+				}
 				break;
 			case "xls":
-				workbook = new HSSFWorkbook(fis);
+				try (Workbook workbook = new HSSFWorkbook(fis)) {
+					saveWorkbookRows(workbook, storage);
+				}
+				break;
+			case "csv":
+				saveCsvRows(fis, storage);
 				break;
 			default:
-				// Should never reach here as the uploader limits to .xlsx and .xlx files.
+				// Should never reach here as the uploader limits to .xlsx, .xls and .csv files.
 				throw new MetadataImportFileTypeNotSupportedError(extension);
 			}
+		} catch (FileNotFoundException e) {
+			logger.debug("No file found for uploading an excel file of metadata.");
+		} catch (IOException e) {
+			logger.error("Error opening file" + file.getOriginalFilename());
+		}
+
+		session.setAttribute("pm-" + projectId, storage);
+		return storage;
+	}
+
+	/**
+	 * Store the headers and rows of the first sheet of an excel file.
+	 *
+	 * @param workbook {@link Workbook} containing the metadata.
+	 * @param storage  {@link SampleMetadataStorage} to store the rows in.
+	 * @throws IOException if the rows cannot be stored.
+	 */
+	private void saveWorkbookRows(Workbook workbook, SampleMetadataStorage storage) throws IOException {
+		// Only look at the first sheet in the workbook as this should be the file we want.
+		Sheet sheet = workbook.getSheetAt(0);
+		Iterator<Row> rowIterator = sheet.iterator();
+
+		List<String> headers = getWorkbookHeaders(rowIterator.next());
+		storage.saveHeaders(headers);
+
+		/*
+		Number cells keep their formatting from their excel files.  E.g. 2.222222 with formatting
+		for 2 decimal places will be saved as 2.22.
+		 */
+		DataFormatter formatter = new DataFormatter();
+		Iterator<Map<String, String>> rows = Iterators.transform(rowIterator, row -> {
+			Map<String, String> rowMap = new HashMap<>();
+			Iterator<Cell> cellIterator = row.cellIterator();
+			while (cellIterator.hasNext()) {
+				Cell cell = cellIterator.next();
+
+				int columnIndex = cell.getColumnIndex();
+				// Need to ignore empty headers.
+				if (columnIndex < headers.size() && !Strings.isNullOrEmpty(headers.get(columnIndex))) {
+					rowMap.put(headers.get(columnIndex), getCellValue(cell, formatter));
+				}
+			}
+			return rowMap;
+		});
+		storage.saveRows(Iterators.filter(rows, row -> !row.isEmpty()));
+	}
 
-			// Only look at the first sheet in the workbook as this should be the file we want.
-			Sheet sheet = workbook.getSheetAt(0);
-			Iterator<Row> rowIterator = sheet.iterator();
+	/**
+	 * Store the headers and rows of a csv file.
+	 *
+	 * @param is      {@link InputStream} of the csv file.
+	 * @param storage {@link SampleMetadataStorage} to store the rows in.
+	 * @throws IOException if the file cannot be read or the rows cannot be stored.
+	 */
+	private void saveCsvRows(InputStream is, SampleMetadataStorage storage) throws IOException {
+		try (CSVParser parser = CSVFormat.DEFAULT.parse(
+				new InputStreamReader(new BOMInputStream(is), StandardCharsets.UTF_8))) {
+			Iterator<CSVRecord> recordIterator = parser.iterator();
+			if (!recordIterator.hasNext()) {
+				storage.saveHeaders(new ArrayList<>());
+				return;
+			}
 
-			List<String> headers = getWorkbookHeaders(rowIterator.next());
+			List<String> headers = new ArrayList<>();
+			recordIterator.next()
+					.forEach(header -> headers.add(header.trim()));
 			storage.saveHeaders(headers);
 
-			// Get the metadata out of the table.
-			List<Map<String, String>> rows = new ArrayList<>();
-			while (rowIterator.hasNext()) {
+			Iterator<Map<String, String>> rows = Iterators.transform(recordIterator, record -> {
 				Map<String, String> rowMap = new HashMap<>();
-				Row row = rowIterator.next();
-				Iterator<Cell> cellIterator = row.cellIterator();
-				while (cellIterator.hasNext()) {
-					Cell cell = cellIterator.next();
-
-					int columnIndex = cell.getColumnIndex();
-					if (columnIndex < headers.size()) {
-						String header = headers.get(columnIndex);
-
-						if (!Strings.isNullOrEmpty(header)) {
-							// Need to ignore empty headers.
-							if(cell.getCellTypeEnum().equals(CellType.NUMERIC)) {
-								/*
-								This is a special handler for number cells.  It was requested that numbers
-								keep their formatting from their excel files.  E.g. 2.222222 with formatting
-								for 2 decimal places will be saved as 2.22.
-								 */
-								DataFormatter formatter = new DataFormatter();
-								String value = formatter.formatCellValue(cell);
-								rowMap.put(header, value);
-							}
-							else {
-								cell.setCellType(CellType.STRING);
-								rowMap.put(header, cell.getStringCellValue());
-							}
-						}
+				for (int i = 0; i < record.size() && i < headers.size(); i++) {
+					// Need to ignore empty headers and cells.
+					if (!Strings.isNullOrEmpty(headers.get(i)) && !record.get(i)
+							.isEmpty()) {
+						rowMap.put(headers.get(i), record.get(i));
 					}
 				}
-				rows.add(rowMap);
-			}
-			storage.saveRows(rows);
+				return rowMap;
+			});
+			storage.saveRows(Iterators.filter(rows, row -> !row.isEmpty()));
+		}
+	}
 
-			fis.close();
-		} catch (FileNotFoundException e) {
-			logger.debug("No file found for uploading an excel file of metadata.");
-		} catch (IOException e) {
-			logger.error("Error opening file" + file.getOriginalFilename());
+	/**
+	 * Get the value of an excel cell as a string.
+	 *
+	 * @param cell      {@link Cell} to get the value of.
+	 * @param formatter {@link DataFormatter} to format numbers with.
+	 * @return {@link String} value of the cell.
+	 */
+	private String getCellValue(Cell cell, DataFormatter formatter) {
+		CellType cellType = cell.getCellTypeEnum();
+		if (cellType.equals(CellType.FORMULA)) {
+			cellType = cell.getCachedFormulaResultTypeEnum();
+		} else if (cellType.equals(CellType.NUMERIC)) {
+			return formatter.formatCellValue(cell);
 		}
 
-		session.setAttribute("pm-" + projectId, storage);
-		return storage;
+		switch (cellType) {
+		case NUMERIC:
+			return String.valueOf(cell.getNumericCellValue());
+		case BOOLEAN:
+			return String.valueOf(cell.getBooleanCellValue());
+		case BLANK:
+		case ERROR:
+			return "";
+		default:
+			return cell.getStringCellValue();
+		}
 	}
 
 	/**
@@ -203,7 +275,8 @@ public class ProjectSampleMetadataController {
 	}
 
 	/**
-	 * Add the metadata to specific {@link Sample} based on the selected column to correspond to the {@link Sample} id.
+	 * Sort the uploaded rows into those with a {@link Sample} in the project and those without, based on the selected
+	 * column to correspond to the {@link Sample} id.  Sample names are looked up a batch of rows at a time.
 	 *
 	 * @param session          {@link HttpSession}.
 	 * @param projectId        {@link Long} identifier for the current {@link Project}.
@@ -220,33 +293,30 @@ public class ProjectSampleMetadataController {
 		if (stored != null) {
 			stored.setSampleNameColumn(sampleNameColumn);
 			Project project = projectService.read(projectId);
-			List<Map<String, String>> rows = stored.getRows();
-
-			// Remove 'rows' since they are now going to be sorted into found and not found.
-			stored.removeRows();
-			List<Map<String, String>> found = new ArrayList<>();
-			List<Map<String, String>> missing = new ArrayList<>();
-
-			// Get the metadata out of the table.
-			for (Map<String, String> row : rows) {
-				try {
-					// If this throws an error than the sample does not exist.
-					sampleService.getSampleBySampleName(project, row.get(sampleNameColumn));
-					found.add(row);
-				} catch (EntityNotFoundException e) {
-					missing.add(row);
-				}
+			Set<String> found = new HashSet<>();
+
+			try {
+				stored.forEachBatch(BATCH_SIZE, rows -> {
+					Set<String> names = rows.stream()
+							.map(row -> row.get(sampleNameColumn))
+							.filter(Objects::nonNull)
+							.collect(Collectors.toSet());
+					found.addAll(sampleService.getSampleNamesInProject(project, names));
+				});
+			} catch (IOException e) {
+				logger.error("Error reading uploaded metadata for project " + projectId, e);
+				return ImmutableMap.of("result", "error");
 			}
 
-			stored.saveFound(found);
-			stored.saveMissing(missing);
+			stored.saveFoundSamples(found);
 		}
 
 		return ImmutableMap.of("result", "complete");
 	}
 
 	/**
-	 * Save uploaded metadata to the
+	 * Save uploaded metadata to the samples in the project.  The metadata fields for all columns are read or created
+	 * at once, and the rows are saved a batch at a time.
 	 *
 	 * @param locale    {@link Locale} of the current user.
 	 * @param session   {@link HttpSession}
@@ -257,59 +327,71 @@ public class ProjectSampleMetadataController {
 	@ResponseBody
 	public Map<String, Object> saveProjectSampleMetadata(Locale locale, HttpSession session,
 			@PathVariable long projectId) {
-		List<String> DEFAULT_HEADERS = ImmutableList.of("Sample Id", "ID", "Modified Date", "Modified On",
-				"Created Date", "Created On", "Coverage", "Project ID");
 		Map<String, Object> errors = new HashMap<>();
 		Project project = projectService.read(projectId);
 
 		SampleMetadataStorage stored = (SampleMetadataStorage) session.getAttribute("pm-" + projectId);
 		if (stored == null) {
 			errors.put("stored-error", true);
+			return errors;
 		}
 
-		List<Sample> samplesToUpdate = new ArrayList<>();
-
-		List<Map<String, String>> found = stored.getFound();
-		if (found != null) {
-			// Lets try to get a sample
+		int saved = 0;
+		if (stored.hasFoundSamples()) {
 			String sampleNameColumn = stored.getSampleNameColumn();
 			List<String> errorList = new ArrayList<>();
-			try {
-				for (Map<String, String> row : found) {
-
-					String name = row.get(sampleNameColumn);
-					Sample sample = sampleService.getSampleBySampleName(project, name);
-					row.remove(sampleNameColumn);
-
-					Map<MetadataTemplateField, MetadataEntry> newData = new HashMap<>();
-
-					Set<MetadataEntry> metadataEntrySet = new HashSet<>();
 
-					// Need to overwrite duplicate keys
-					for (Entry<String, String> entry : row.entrySet()) {
-						// Make sure we are not saving non-metadata items.
-						if (!DEFAULT_HEADERS.contains(entry.getKey())) {
-							MetadataTemplateField key = metadataTemplateService.readMetadataFieldByLabel(
-									entry.getKey());
+			// Make sure we are not saving non-metadata items.
+			Set<String> labels = stored.getHeaders()
+					.stream()
+					.filter(header -> !Strings.isNullOrEmpty(header) && !header.equals(sampleNameColumn)
+							&& !DEFAULT_HEADERS.contains(header))
+					.collect(Collectors.toSet());
+			Map<String, MetadataTemplateField> fields = metadataTemplateService.readOrCreateMetadataFieldsByLabel(
+					labels);
 
-							if (key == null) {
-								key = metadataTemplateService.saveMetadataField(
-										new MetadataTemplateField(entry.getKey(), "text"));
-							}
-
-							metadataEntrySet.add(new MetadataEntry(entry.getValue(), "text", key));
+			int[] savedRows = { 0 };
+			try {
+				stored.forEachBatch(BATCH_SIZE, rows -> {
+					// Later rows for the same sample overwrite duplicate keys
+					Map<String, Map<String, String>> sampleRows = new LinkedHashMap<>();
+					int found = 0;
+					for (Map<String, String> row : rows) {
+						if (stored.isFound(row)) {
+							sampleRows.computeIfAbsent(row.get(sampleNameColumn), name -> new HashMap<>())
+									.putAll(row);
+							found++;
 						}
 					}
 
-					// Save metadata back to the sample
-					sampleService.mergeSampleMetadata(sample,metadataEntrySet);
-				}
+					// only the samples the user can update are returned
+					Map<Sample, Set<MetadataEntry>> metadata = new HashMap<>();
+					Set<String> updated = new HashSet<>();
+					for (Sample sample : sampleService.getUpdatableSamplesByName(project, sampleRows.keySet())) {
+						metadata.put(sample, sampleRows.get(sample.getSampleName())
+								.entrySet()
+								.stream()
+								.filter(entry -> fields.containsKey(entry.getKey()))
+								.map(entry -> new MetadataEntry(entry.getValue(), "text", fields.get(entry.getKey())))
+								.collect(Collectors.toSet()));
+						updated.add(sample.getSampleName());
+					}
 
-			} catch (EntityNotFoundException e) {
-				// This really should not happen, but hey, you never know!
-				errorList.add(messageSource.getMessage("metadata.results.save.sample-not-found",
-						new Object[] { e.getMessage() }, locale));
+					// Save metadata back to the samples
+					sampleService.mergeSampleMetadata(project, metadata);
+					for (String name : sampleRows.keySet()) {
+						if (!updated.contains(name)) {
+							errorList.add(messageSource.getMessage("metadata.results.save.sample-not-found",
+									new Object[] { name }, locale));
+						}
+					}
+					savedRows[0] += found;
+				});
+			} catch (IOException e) {
+				logger.error("Error reading uploaded metadata for project " + projectId, e);
+				errors.put("stored-error", true);
 			}
+			saved = savedRows[0];
 
 			if (errorList.size() > 0) {
 				errors.put("save-errors", errorList);
@@ -320,7 +402,7 @@ public class ProjectSampleMetadataController {
 		}
 		if (errors.size() == 0) {
 			return ImmutableMap.of("success",
-					messageSource.getMessage("metadata.results.save.success", new Object[] { found.size() }, locale));
+					messageSource.getMessage("metadata.results.save.success", new Object[] { saved }, locale));
 		}
 		return errors;
 	}
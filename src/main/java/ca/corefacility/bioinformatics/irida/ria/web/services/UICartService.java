@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Component;
 
+import ca.corefacility.bioinformatics.irida.model.cart.CartSample;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.ria.web.ajax.dto.CartSampleModel;
@@ -17,7 +18,7 @@ import ca.corefacility.bioinformatics.irida.ria.web.components.ant.notification.
 import ca.corefacility.bioinformatics.irida.ria.web.components.ant.notification.Notification;
 import ca.corefacility.bioinformatics.irida.ria.web.components.ant.notification.SuccessNotification;
 import ca.corefacility.bioinformatics.irida.ria.web.components.ant.notification.WarnNotification;
-import ca.corefacility.bioinformatics.irida.ria.web.sessionAttrs.Cart;
+import ca.corefacility.bioinformatics.irida.service.CartService;
 import ca.corefacility.bioinformatics.irida.service.ProjectService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 
@@ -26,22 +27,22 @@ import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
  */
 @Component
 public class UICartService {
-	private final Cart cart;
+	private final CartService cartService;
 	private final ProjectService projectService;
 	private final SampleService sampleService;
 	private final MessageSource messageSource;
 
 	@Autowired
-	public UICartService(Cart cart, ProjectService projectService, SampleService sampleService,
+	public UICartService(CartService cartService, ProjectService projectService, SampleService sampleService,
 			MessageSource messageSource) {
-		this.cart = cart;
+		this.cartService = cartService;
 		this.projectService = projectService;
 		this.sampleService = sampleService;
 		this.messageSource = messageSource;
 	}
 
 	/**
-	 * Add samples from a project to the cart.
+	 * Add samples from a project to the cart.  Only the identifiers and names of the samples are read.
 	 *
 	 * @param request Information about the project and samples to add to the cart
 	 * @param locale  Current users locale
@@ -49,37 +50,40 @@ public class UICartService {
 	 */
 	public CartUpdateResponse addSamplesToCart(AddToCartRequest request, Locale locale) {
 		Project project = projectService.read(request.getProjectId());
-		List<Sample> samples = (List<Sample>) sampleService.readMultiple(request.getSampleIds());
-		Set<String> existingSampleNames = cart.getSampleNamesInCart();
+		Map<Long, String> samples = sampleService.getSampleNamesById(project, request.getSampleIds());
+		Set<Long> sampleIdsInCart = cartService.getSampleIdsInCart(samples.keySet());
+		Set<String> existingSampleNames = cartService.getSampleNamesInCart(samples.values());
 
 		// Modify the cart here so we can properly return the UI.
 
-		List<Sample> duplicateNames = new ArrayList<>();
-		List<Sample> existsInCart = new ArrayList<>();
-		List<Sample> newToCart = new ArrayList<>();
-		for (Sample sample : samples) {
+		List<String> duplicateNames = new ArrayList<>();
+		List<String> existsInCart = new ArrayList<>();
+		List<String> newToCart = new ArrayList<>();
+		List<Long> newSampleIds = new ArrayList<>();
+		for (Map.Entry<Long, String> sample : samples.entrySet()) {
 			// Check to see if sample is already in the cart
-			if (cart.containsKey(sample.getId())) {
-				existsInCart.add(sample);
-			} else if (existingSampleNames.contains(sample.getLabel())) {
-				duplicateNames.add(sample);
+			if (sampleIdsInCart.contains(sample.getKey())) {
+				existsInCart.add(sample.getValue());
+			} else if (!existingSampleNames.add(sample.getValue())) {
+				duplicateNames.add(sample.getValue());
 			} else {
-				newToCart.add(sample);
+				newToCart.add(sample.getValue());
+				newSampleIds.add(sample.getKey());
 			}
 		}
 
 		// Update the cart
-		if (newToCart.size() > 0) {
-			newToCart.forEach(sample -> cart.addSample(sample, project.getId()));
+		if (newSampleIds.size() > 0) {
+			cartService.addSamplesToCart(project, newSampleIds);
 		}
 
 		CartUpdateResponse response = new CartUpdateResponse();
-		response.setCount(cart.size());
+		response.setCount(getNumberOfSamplesInCart());
 
 		// Set UI messages
 		if (newToCart.size() == 1) {
 			Notification notification = new SuccessNotification(messageSource.getMessage("server.cart.one-sample-added",
-					new Object[] { newToCart.get(0).getLabel() }, locale));
+					new Object[] { newToCart.get(0) }, locale));
 			response.addNotification(notification);
 		} else if (newToCart.size() > 1) {
 			Notification notification = new SuccessNotification(
@@ -89,9 +93,7 @@ public class UICartService {
 		}
 
 		if (duplicateNames.size() > 0) {
-			String duplicates = duplicateNames.stream()
-					.map(Sample::getLabel)
-					.collect(Collectors.joining(", "));
+			String duplicates = String.join(", ", duplicateNames);
 			Notification notification = new ErrorNotification(
 					messageSource.getMessage("server.cart.excluded", new Object[] { duplicates }, locale));
 			response.addNotification(notification);
@@ -99,7 +101,7 @@ public class UICartService {
 
 		if (existsInCart.size() == 1) {
 			Notification notification = new WarnNotification(
-					messageSource.getMessage("server.cart.in-cart", new Object[] { existsInCart.get(0).getLabel() },
+					messageSource.getMessage("server.cart.in-cart", new Object[] { existsInCart.get(0) },
 							locale));
 			response.addNotification(notification);
 		} else if (existsInCart.size() > 1) {
@@ -118,14 +120,14 @@ public class UICartService {
 	 * @return number of total samples in the cart
 	 */
 	public int getNumberOfSamplesInCart() {
-		return cart.size();
+		return (int) cartService.countSamplesInCart();
 	}
 
 	/**
 	 * Remove all samples from the cart
 	 */
 	public void emptyCart() {
-		cart.empty();
+		cartService.emptyCart();
 	}
 
 	/**
@@ -138,8 +140,7 @@ public class UICartService {
 	public CartUpdateResponse removeSample(Long sampleId, Locale locale) {
 		CartUpdateResponse response = new CartUpdateResponse();
 		Sample sample = sampleService.read(sampleId);
-		if (cart.containsKey(sampleId)) {
-			cart.removeSample(sampleId);
+		if (cartService.removeSampleFromCart(sampleId)) {
 			response.addNotification(new SuccessNotification(
 					messageSource.getMessage("server.cart.remove-sample", new Object[] { sample.getSampleName() },
 							locale)));
@@ -148,7 +149,7 @@ public class UICartService {
 					messageSource.getMessage("server.cart.remove-sample.exception",
 							new Object[] { sample.getSampleName() }, locale)));
 		}
-		response.setCount(cart.size());
+		response.setCount(getNumberOfSamplesInCart());
 		return response;
 	}
 
@@ -160,12 +161,12 @@ public class UICartService {
 	 * @return number of total samples in the cart
 	 */
 	public CartUpdateResponse removeProject(Long id, Locale locale) {
-		int count = cart.removeProject(id);
+		cartService.removeProjectFromCart(id);
 		Project project = projectService.read(id);
 		Notification notification = new SuccessNotification(
 				messageSource.getMessage("server.cart.remove-project", new Object[] {project.getLabel()}, locale));
 		CartUpdateResponse response = new CartUpdateResponse();
-		response.setCount(count);
+		response.setCount(getNumberOfSamplesInCart());
 		response.addNotification(notification);
 		return response;
 	}
@@ -176,7 +177,7 @@ public class UICartService {
 	 * @return {@link Set} of {@link Project} identifiers
 	 */
 	public Set<Long> getProjectIdsInCart() {
-		return cart.getProjectsIdsInCart();
+		return cartService.getProjectIdsInCart();
 	}
 
 	/**
@@ -191,17 +192,10 @@ public class UICartService {
 
 		for (Project project : projects) {
 			CartProjectModel cartProjectModel = new CartProjectModel(project.getId(), project.getLabel());
-			List<Long> sampleIds = cart.entrySet()
+			List<CartSampleModel> samples = cartService.getSamplesInCartForProject(project.getId())
 					.stream()
-					.filter(entry -> project.getId().equals(entry.getValue()))
-					.map(Map.Entry::getKey)
+					.map(cartSample -> new CartSampleModel(cartSample.getSampleId(), cartSample.getSampleName()))
 					.collect(Collectors.toList());
-
-			List<CartSampleModel> samples = new ArrayList<>();
-			for (Sample sample : sampleService.readMultiple(sampleIds)) {
-				CartSampleModel cartSampleModel = new CartSampleModel(sample);
-				samples.add(cartSampleModel);
-			}
 			cartProjectModel.setSamples(samples);
 			models.add(cartProjectModel);
 		}
@@ -216,18 +210,14 @@ public class UICartService {
 	public Map<Project, List<Sample>> getFullCart() {
 		Map<Project, List<Sample>> response = new HashMap<>();
 
-		// Get unique project ids;
-		cart.values().stream().distinct().forEach(projectId -> {
+		for (Long projectId : cartService.getProjectIdsInCart()) {
 			Project project = projectService.read(projectId);
-			List<Long> sampleIds = new ArrayList<>();
-			cart.forEach((key, value) -> {
-				if (value.equals(projectId)) {
-					sampleIds.add(key);
-				}
-			});
+			List<Long> sampleIds = cartService.getSamplesInCartForProject(projectId)
+					.stream()
+					.map(CartSample::getSampleId)
+					.collect(Collectors.toList());
 			response.put(project, (List<Sample>) sampleService.readMultiple(sampleIds));
-		});
-
+		}
 
 		return response;
 	}
@@ -239,6 +229,6 @@ public class UICartService {
 	 * @return the project identifier if the sample is in the cart
 	 */
 	public Long isSampleInCart(Long sampleId) {
-		return cart.isSampleInCart(sampleId);
+		return cartService.getProjectIdForSampleInCart(sampleId);
 	}
 }
@@ -80,15 +80,23 @@ public class UISampleService {
 			project = projectService.read(projectId);
 		}
 
-		Collection<SampleSequencingObjectJoin> filePairJoins = sequencingObjectService.getSequencesForSampleOfType(
-				sample, SequenceFilePair.class);
-		Collection<SampleSequencingObjectJoin> singleFileJoins = sequencingObjectService.getSequencesForSampleOfType(
-				sample, SingleEndSequenceFile.class);
-		Collection<SampleSequencingObjectJoin> fast5FileJoins = sequencingObjectService.getSequencesForSampleOfType(
-				sample, Fast5Object.class);
-		List<SequencingObject> fast5 = fast5FileJoins.stream()
-				.map(SampleSequencingObjectJoin::getObject)
-				.collect(Collectors.toList());
+		// read all the files for the sample at once and sort them by type
+		List<SequencingObject> filePairs = new ArrayList<>();
+		List<SequencingObject> singles = new ArrayList<>();
+		List<SequencingObject> fast5 = new ArrayList<>();
+		for (SampleSequencingObjectJoin join : sequencingObjectService.getSequencingObjectsForSample(sample)) {
+			SequencingObject obj = join.getObject();
+			if (obj instanceof SequenceFilePair) {
+				// add project to qc entries and filter any unavailable entries
+				enhanceQcEntries(obj, project);
+				filePairs.add(obj);
+			} else if (obj instanceof SingleEndSequenceFile) {
+				enhanceQcEntries(obj, project);
+				singles.add(obj);
+			} else if (obj instanceof Fast5Object) {
+				fast5.add(obj);
+			}
+		}
 
 		Collection<SampleGenomeAssemblyJoin> genomeAssemblyJoins = genomeAssemblyService.getAssembliesForSample(sample);
 
@@ -96,21 +104,6 @@ public class UISampleService {
 				.map(SampleGenomeAssemblyJoin::getObject)
 				.collect(Collectors.toList());
 
-		// add project to qc entries and filter any unavailable entries
-		List<SequencingObject> filePairs = new ArrayList<>();
-		for (SampleSequencingObjectJoin join : filePairJoins) {
-			SequencingObject obj = join.getObject();
-			enhanceQcEntries(obj, project);
-			filePairs.add(obj);
-		}
-
-		List<SequencingObject> singles = new ArrayList<>();
-		for (SampleSequencingObjectJoin join : singleFileJoins) {
-			SequencingObject obj = join.getObject();
-			enhanceQcEntries(obj, project);
-			singles.add(obj);
-		}
-
 		return new SampleFiles(singles, filePairs, fast5, genomeAssemblies);
 	}
 
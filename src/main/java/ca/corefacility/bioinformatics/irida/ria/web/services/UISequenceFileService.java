@@ -10,6 +10,7 @@ import org.springframework.stereotype.Component;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.processing.impl.FastQCChartRenderer;
 import ca.corefacility.bioinformatics.irida.ria.web.files.dto.FastQCDetailsResponse;
 import ca.corefacility.bioinformatics.irida.ria.web.files.dto.FastQCImagesResponse;
 import ca.corefacility.bioinformatics.irida.service.AnalysisService;
@@ -24,6 +25,7 @@ public class UISequenceFileService {
 	private static final Logger logger = LoggerFactory.getLogger(UISequenceFileService.class);
 	private AnalysisService analysisService;
 	private SequencingObjectService sequencingObjectService;
+	private FastQCChartRenderer chartRenderer;
 
 	public static final String IMG_PERBASE = "perbase";
 	public static final String IMG_PERSEQUENCE = "persequence";
@@ -31,9 +33,11 @@ public class UISequenceFileService {
 	public static final String[] qcFileTypes = { "perbase", "persequence", "duplicationlevel" };
 
 	@Autowired
-	public UISequenceFileService(AnalysisService analysisService, SequencingObjectService sequencingObjectService) {
+	public UISequenceFileService(AnalysisService analysisService, SequencingObjectService sequencingObjectService,
+			FastQCChartRenderer chartRenderer) {
 		this.analysisService = analysisService;
 		this.sequencingObjectService = sequencingObjectService;
+		this.chartRenderer = chartRenderer;
 	}
 
 	/**
@@ -72,11 +76,11 @@ public class UISequenceFileService {
 
 		for (String type : qcFileTypes) {
 			if (type.equals(IMG_PERBASE)) {
-				perBaseChart = fastQC.getPerBaseQualityScoreChart();
+				perBaseChart = chartRenderer.renderPerBaseQualityScoreChart(fastQC);
 			} else if (type.equals(IMG_PERSEQUENCE)) {
-				perSequenceChart = fastQC.getPerSequenceQualityScoreChart();
+				perSequenceChart = chartRenderer.renderPerSequenceQualityScoreChart(fastQC);
 			} else if (type.equals(IMG_DUPLICATION_LEVEL)) {
-				duplicationLevelChart = fastQC.getDuplicationLevelChart();
+				duplicationLevelChart = chartRenderer.renderDuplicationLevelChart(fastQC);
 			} else {
 				throw new IOException("Image not found");
 			}
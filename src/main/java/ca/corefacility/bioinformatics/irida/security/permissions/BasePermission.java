@@ -1,7 +1,13 @@
 package ca.corefacility.bioinformatics.irida.security.permissions;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,6 +16,7 @@ import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
 
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
+import ca.corefacility.bioinformatics.irida.model.IridaThing;
 import ca.corefacility.bioinformatics.irida.model.user.Role;
 
 /**
@@ -44,6 +51,31 @@ public abstract class BasePermission<DomainObjectType, IdentifierType extends Se
 	protected abstract boolean customPermissionAllowed(Authentication authentication,
 			DomainObjectType targetDomainObject);
 
+	/**
+	 * Evaluate the custom permission for a collection of objects at once. The
+	 * default implementation calls
+	 * {@link #customPermissionAllowed(Authentication, Object)} for each object;
+	 * permissions that need to go to the database for every object should
+	 * override this to look up the whole collection with set-based queries.
+	 *
+	 * @param authentication
+	 *            the authenticated user.
+	 * @param targetDomainObjects
+	 *            the objects that the user is attempting to access.
+	 * @return the objects from the collection that the user is allowed to
+	 *         access.
+	 */
+	protected Set<DomainObjectType> customPermissionAllowedCollection(Authentication authentication,
+			Collection<DomainObjectType> targetDomainObjects) {
+		Set<DomainObjectType> allowed = new HashSet<>();
+		for (DomainObjectType domainObject : targetDomainObjects) {
+			if (customPermissionAllowed(authentication, domainObject)) {
+				allowed.add(domainObject);
+			}
+		}
+		return allowed;
+	}
+
 	/**
 	 * The type of object to be loaded from the database.
 	 */
@@ -117,24 +149,93 @@ public abstract class BasePermission<DomainObjectType, IdentifierType extends Se
 	}
 
 	/**
-	 * Tests permission for a collection of objects.
+	 * Find the objects in a collection that the authenticated user is allowed
+	 * to act on. Identifiers are loaded with a single query and the permission
+	 * is evaluated for the whole collection with
+	 * {@link #customPermissionAllowedCollection(Authentication, Collection)}.
 	 * 
 	 * @param authentication
 	 *            The Authentication object.
 	 * @param targetDomainObjects
-	 *            The collection of domain objects to check for permission.
-	 * @return True if permission is allowed for every object in the collection,
-	 *         false otherwise.
+	 *            The collection of domain objects (or identifiers) to check for
+	 *            permission.
+	 * @return the elements of the collection that are allowed, in their
+	 *         original order.
 	 * @throws EntityNotFoundException
 	 *             If one of the objects in the collection does not exist.
 	 */
-	private boolean customPermissionAllowedCollection(Authentication authentication, Collection<?> targetDomainObjects) {
-		boolean permitted = true;
-		for (Object domainObjectInCollection : targetDomainObjects) {
-			permitted &= customPermissionAllowedSingleObject(authentication, domainObjectInCollection);
+	public List<Object> filterAllowed(Authentication authentication, Collection<?> targetDomainObjects) {
+		List<Object> allowed = new ArrayList<>();
+		if (authentication instanceof AnonymousAuthenticationToken || targetDomainObjects.isEmpty()) {
+			return allowed;
+		}
+
+		Map<Object, DomainObjectType> domainObjects = loadDomainObjects(targetDomainObjects);
+
+		boolean admin = authentication.getAuthorities().stream().anyMatch(g -> g.getAuthority().equals(ADMIN_AUTHORITY));
+		Set<DomainObjectType> toEvaluate = new HashSet<>();
+		for (DomainObjectType domainObject : domainObjects.values()) {
+			if (!(admin && adminAccessAllowed(authentication, domainObject))) {
+				toEvaluate.add(domainObject);
+			}
+		}
+
+		Set<DomainObjectType> permitted = toEvaluate.isEmpty() ?
+				toEvaluate :
+				customPermissionAllowedCollection(authentication, toEvaluate);
+
+		for (Object target : targetDomainObjects) {
+			DomainObjectType domainObject = domainObjects.get(target);
+			if (!toEvaluate.contains(domainObject) || permitted.contains(domainObject)) {
+				allowed.add(target);
+			}
+		}
+
+		return allowed;
+	}
+
+	/**
+	 * Resolve a collection of identifiers or domain objects to domain objects,
+	 * loading all of the identifiers with one query.
+	 * 
+	 * @param targetDomainObjects
+	 *            the identifiers or domain objects.
+	 * @return the domain object for each element of the collection.
+	 * @throws EntityNotFoundException
+	 *             If one of the identifiers does not exist.
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<Object, DomainObjectType> loadDomainObjects(Collection<?> targetDomainObjects) {
+		Map<Object, DomainObjectType> domainObjects = new HashMap<>();
+		Set<IdentifierType> ids = new HashSet<>();
+
+		for (Object target : targetDomainObjects) {
+			if (identifierType.isAssignableFrom(target.getClass())) {
+				ids.add((IdentifierType) target);
+			} else if (domainObjectType.isAssignableFrom(target.getClass())) {
+				domainObjects.put(target, (DomainObjectType) target);
+			} else {
+				throw new IllegalArgumentException("Parameter to " + getClass().getName()
+						+ " must be of type Long or " + domainObjectType.getName() + ".");
+			}
+		}
+
+		if (!ids.isEmpty() && IridaThing.class.isAssignableFrom(domainObjectType)) {
+			logger.trace("Trying to find domain objects by ids " + ids);
+			for (DomainObjectType domainObject : repository.findAllById(ids)) {
+				domainObjects.put(((IridaThing) domainObject).getId(), domainObject);
+			}
+		}
+
+		for (IdentifierType id : ids) {
+			if (!domainObjects.containsKey(id)) {
+				logger.trace("Trying to find domain object by id [" + id + "]");
+				domainObjects.put(id, repository.findById(id)
+						.orElseThrow(() -> new EntityNotFoundException("Could not find entity with id [" + id + "]")));
+			}
 		}
 
-		return permitted;
+		return domainObjects;
 	}
 
 	/**
@@ -155,7 +256,9 @@ public abstract class BasePermission<DomainObjectType, IdentifierType extends Se
 		}
 
 		if (targetDomainObject instanceof Collection<?>) {
-			return customPermissionAllowedCollection(authentication, (Collection<?>) targetDomainObject);
+			// permission is allowed if every object in the collection is allowed
+			Collection<?> targetDomainObjects = (Collection<?>) targetDomainObject;
+			return filterAllowed(authentication, targetDomainObjects).size() == targetDomainObjects.size();
 		} else {
 			return customPermissionAllowedSingleObject(authentication, targetDomainObject);
 		}
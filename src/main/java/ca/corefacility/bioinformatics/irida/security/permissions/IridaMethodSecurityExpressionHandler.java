@@ -0,0 +1,70 @@
+package ca.corefacility.bioinformatics.irida.security.permissions;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Method security expression handler that evaluates
+ * {@code @PostFilter("hasPermission(filterObject, 'permission')")} for the
+ * whole returned collection at once with
+ * {@link IridaPermissionEvaluator#filterAllowed(Authentication, Collection, Object)},
+ * instead of evaluating the expression (and querying the database) once for
+ * every element. Any other filter expression is handled by
+ * {@link DefaultMethodSecurityExpressionHandler}.
+ */
+public class IridaMethodSecurityExpressionHandler extends DefaultMethodSecurityExpressionHandler {
+
+	private static final Logger logger = LoggerFactory.getLogger(IridaMethodSecurityExpressionHandler.class);
+
+	private static final Pattern HAS_PERMISSION_FILTER = Pattern
+			.compile("\\s*hasPermission\\(\\s*filterObject\\s*,\\s*'(\\w+)'\\s*\\)\\s*");
+
+	private final IridaPermissionEvaluator permissionEvaluator;
+
+	/**
+	 * Create a new {@link IridaMethodSecurityExpressionHandler}.
+	 * 
+	 * @param permissionEvaluator
+	 *            the permission evaluator used for all expressions.
+	 */
+	public IridaMethodSecurityExpressionHandler(IridaPermissionEvaluator permissionEvaluator) {
+		this.permissionEvaluator = permissionEvaluator;
+		setPermissionEvaluator(permissionEvaluator);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Object filter(Object filterTarget, Expression filterExpression, EvaluationContext ctx) {
+		Matcher matcher = HAS_PERMISSION_FILTER.matcher(filterExpression.getExpressionString());
+		if (!(filterTarget instanceof Collection) || !matcher.matches()) {
+			return super.filter(filterTarget, filterExpression, ctx);
+		}
+
+		Authentication authentication = ((MethodSecurityExpressionOperations) ctx.getRootObject().getValue())
+				.getAuthentication();
+		Collection<Object> collection = (Collection<Object>) filterTarget;
+
+		logger.debug("Filtering collection with " + collection.size() + " elements for permission ["
+				+ matcher.group(1) + "]");
+		List<Object> retained = permissionEvaluator.filterAllowed(authentication, collection, matcher.group(1));
+
+		// same as the default handler, the collection is filtered in place
+		collection.clear();
+		collection.addAll(retained);
+
+		return filterTarget;
+	}
+}
@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.annotation.PostConstruct;
@@ -69,6 +70,37 @@ public class IridaPermissionEvaluator implements PermissionEvaluator {
 		return allowed;
 	}
 
+	/**
+	 * Find the objects in a collection that the authenticated user has a
+	 * permission on. Unlike calling
+	 * {@link #hasPermission(Authentication, Object, Object)} for each object,
+	 * the permission is evaluated for the whole collection at once.
+	 * 
+	 * @param authentication
+	 *            the authenticated user.
+	 * @param targetDomainObjects
+	 *            the objects to check.
+	 * @param permission
+	 *            the name of the permission to check.
+	 * @return the objects from the collection that the user has the permission
+	 *         on, in their original order.
+	 */
+	public List<Object> filterAllowed(Authentication authentication, Collection<?> targetDomainObjects,
+			Object permission) {
+		if (!namedPermissionMap.containsKey(permission.toString())) {
+			throw new UndefinedPermissionException("The permission [" + permission.toString()
+					+ "] is not registered with " + getClass().getName() + ".");
+		}
+
+		BasePermission<?,?> permissionEvaluator = namedPermissionMap.get(permission.toString());
+		List<Object> allowed = permissionEvaluator.filterAllowed(authentication, targetDomainObjects);
+
+		logger.trace("Permission request for access to " + targetDomainObjects.size() + " objects with permission ["
+				+ permission + "] by [" + authentication + "]. Granted for [" + allowed.size() + "]");
+
+		return allowed;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -122,15 +122,16 @@ public class ReadAnalysisSubmissionPermission extends BasePermission<AnalysisSub
 			AnalysisSubmission a = o.getAutomatedAssembly();
 			AnalysisSubmission s = o.getSistrTyping();
 
-			// check auto assembly
+			// check auto assembly. the analyses are lazy loaded, so compare
+			// by id rather than loading them.
 			boolean allowed = false;
 			if (a != null) {
-				allowed = a.equals(analysisSubmission);
+				allowed = a.getId().equals(analysisSubmission.getId());
 			}
 
 			// if not check sistr
 			if (!allowed && s != null) {
-				allowed = s.equals(analysisSubmission);
+				allowed = s.getId().equals(analysisSubmission.getId());
 			}
 
 			return allowed;
@@ -0,0 +1,213 @@
+package ca.corefacility.bioinformatics.irida.security.permissions.project;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupJoin;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Caches the ids of the projects a user is a member of, either directly or
+ * through a user group, so that permission checks don't have to reload project
+ * membership from the database for every check.
+ * <p>
+ * Membership is always cached for the length of a web request. It can also be
+ * kept across requests for {@code security.permission.membership.cache_expiry}
+ * seconds. Changes to {@link ProjectUserJoin}, {@link UserGroupJoin} and
+ * {@link UserGroupProjectJoin} on this server clear the affected entries
+ * through {@link ProjectMembershipChangeListener} once they commit; the expiry
+ * bounds how long changes made by other servers can go unnoticed.
+ */
+@Component
+public class ProjectMembershipCache {
+	private static final Logger logger = LoggerFactory.getLogger(ProjectMembershipCache.class);
+
+	private static final String REQUEST_ATTRIBUTE = ProjectMembershipCache.class.getName();
+	private static final long LOG_INTERVAL = 10_000;
+
+	private final ProjectUserJoinRepository pujRepository;
+	private final UserGroupProjectJoinRepository ugpjRepository;
+	private final Cache<String, Set<Long>> sharedCache;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Counts calls to {@link #invalidate(String)} and {@link #invalidateAll()},
+	 * so membership loaded while it was being changed isn't kept.
+	 */
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * Construct an instance of {@link ProjectMembershipCache}.
+	 *
+	 * @param pujRepository  the project user join repository.
+	 * @param ugpjRepository the user group/project join repository
+	 * @param expiry         how long (in seconds) to keep membership across
+	 *                       requests, 0 to only cache within a request
+	 * @param size           the maximum number of users to keep membership for
+	 *                       across requests
+	 */
+	@Autowired
+	public ProjectMembershipCache(final ProjectUserJoinRepository pujRepository,
+			final UserGroupProjectJoinRepository ugpjRepository,
+			@Value("${security.permission.membership.cache_expiry:0}") final long expiry,
+			@Value("${security.permission.membership.cache_size:10000}") final long size) {
+		this.pujRepository = pujRepository;
+		this.ugpjRepository = ugpjRepository;
+
+		if (expiry > 0) {
+			this.sharedCache = CacheBuilder.newBuilder()
+					.expireAfterWrite(expiry, TimeUnit.SECONDS)
+					.maximumSize(size)
+					.build();
+		} else {
+			this.sharedCache = null;
+		}
+	}
+
+	/**
+	 * Get the ids of the projects that a user is a member of, directly or
+	 * through a user group.
+	 *
+	 * @param username the name of the user
+	 * @return the ids of the user's projects
+	 */
+	public Set<Long> getProjectIds(final String username) {
+		Map<String, Set<Long>> requestCache = getRequestCache();
+
+		Set<Long> projectIds = requestCache != null ? requestCache.get(username) : null;
+		if (projectIds == null && sharedCache != null) {
+			projectIds = sharedCache.getIfPresent(username);
+		}
+
+		if (projectIds != null) {
+			record(hits);
+		} else {
+			record(misses);
+			long loadedGeneration = generation.get();
+			projectIds = loadProjectIds(username);
+			if (sharedCache != null) {
+				synchronized (generation) {
+					if (generation.get() == loadedGeneration) {
+						sharedCache.put(username, projectIds);
+					}
+				}
+			}
+		}
+
+		if (requestCache != null) {
+			requestCache.put(username, projectIds);
+		}
+
+		return projectIds;
+	}
+
+	/**
+	 * Forget the cached membership of a user.
+	 *
+	 * @param username the name of the user
+	 */
+	public void invalidate(final String username) {
+		logger.trace("Clearing cached project membership for [" + username + "]");
+		if (sharedCache != null) {
+			synchronized (generation) {
+				generation.incrementAndGet();
+				sharedCache.invalidate(username);
+			}
+		}
+		Map<String, Set<Long>> requestCache = getRequestCache();
+		if (requestCache != null) {
+			requestCache.remove(username);
+		}
+	}
+
+	/**
+	 * Forget the cached membership of every user.
+	 */
+	public void invalidateAll() {
+		logger.trace("Clearing all cached project membership");
+		if (sharedCache != null) {
+			synchronized (generation) {
+				generation.incrementAndGet();
+				sharedCache.invalidateAll();
+			}
+		}
+		Map<String, Set<Long>> requestCache = getRequestCache();
+		if (requestCache != null) {
+			requestCache.clear();
+		}
+	}
+
+	/**
+	 * Get the number of lookups answered from the cache.
+	 *
+	 * @return the number of cache hits
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * Get the number of lookups that had to go to the database.
+	 *
+	 * @return the number of cache misses
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	private Set<Long> loadProjectIds(final String username) {
+		Set<Long> projectIds = new HashSet<>(pujRepository.getProjectIdsForUsername(username));
+		projectIds.addAll(ugpjRepository.findProjectIdsByUsername(username));
+		return Collections.unmodifiableSet(projectIds);
+	}
+
+	private void record(final AtomicLong counter) {
+		counter.incrementAndGet();
+		if ((hits.get() + misses.get()) % LOG_INTERVAL == 0) {
+			logger.debug("Project membership cache: " + hits.get() + " hits, " + misses.get() + " misses");
+		}
+	}
+
+	/**
+	 * Get the membership cached for the current web request.
+	 *
+	 * @return the cache for the current request, or null when not running in
+	 *         a request
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<String, Set<Long>> getRequestCache() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) {
+			return null;
+		}
+
+		Map<String, Set<Long>> requestCache = (Map<String, Set<Long>>) attributes.getAttribute(REQUEST_ATTRIBUTE,
+				RequestAttributes.SCOPE_REQUEST);
+		if (requestCache == null) {
+			requestCache = new ConcurrentHashMap<>();
+			attributes.setAttribute(REQUEST_ATTRIBUTE, requestCache, RequestAttributes.SCOPE_REQUEST);
+		}
+		return requestCache;
+	}
+}
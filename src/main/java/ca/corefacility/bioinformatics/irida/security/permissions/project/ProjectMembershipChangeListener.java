@@ -0,0 +1,151 @@
+package ca.corefacility.bioinformatics.irida.security.permissions.project;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroup;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupJoin;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
+
+/**
+ * A Hibernate event listener to clear cached membership when users are added
+ * to or removed from projects and groups, or groups are added to or removed
+ * from projects.
+ * <p>
+ * Changes are collected while the transaction runs and the
+ * {@link ProjectMembershipCache} is only cleared after it commits, so a
+ * permission check can't cache membership that is about to change, and a
+ * rolled back change doesn't clear anything. Deleting a {@link Project},
+ * {@link UserGroup} or {@link User} also clears membership, so joins removed
+ * along with them are covered even if they aren't deleted one at a time.
+ */
+public class ProjectMembershipChangeListener
+		implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient ProjectMembershipCache membershipCache;
+
+	/**
+	 * Construct an instance of {@link ProjectMembershipChangeListener}.
+	 *
+	 * @param membershipCache the cache to clear
+	 */
+	public ProjectMembershipChangeListener(final ProjectMembershipCache membershipCache) {
+		this.membershipCache = membershipCache;
+	}
+
+	@Override
+	public void onPostInsert(final PostInsertEvent event) {
+		membershipChanged(event.getEntity(), false);
+	}
+
+	@Override
+	public void onPostUpdate(final PostUpdateEvent event) {
+		membershipChanged(event.getEntity(), false);
+	}
+
+	@Override
+	public void onPostDelete(final PostDeleteEvent event) {
+		membershipChanged(event.getEntity(), true);
+	}
+
+	@Override
+	public boolean requiresPostCommitHanding(final EntityPersister persister) {
+		return false;
+	}
+
+	/**
+	 * Clear the membership affected by a changed entity once the current
+	 * transaction commits.
+	 *
+	 * @param entity  the entity that was created, updated or removed
+	 * @param deleted whether the entity was removed
+	 */
+	private void membershipChanged(final Object entity, final boolean deleted) {
+		if (entity instanceof ProjectUserJoin) {
+			changed(((ProjectUserJoin) entity).getObject().getUsername());
+		} else if (entity instanceof UserGroupJoin) {
+			changed(((UserGroupJoin) entity).getSubject().getUsername());
+		} else if (entity instanceof UserGroupProjectJoin) {
+			// a group changed on a project, every member of the group is
+			// affected
+			changed(null);
+		} else if (deleted && entity instanceof User) {
+			changed(((User) entity).getUsername());
+		} else if (deleted && (entity instanceof Project || entity instanceof UserGroup)) {
+			changed(null);
+		}
+	}
+
+	/**
+	 * Record that a user's membership changed.
+	 *
+	 * @param username the name of the user, or null if every user is affected
+	 */
+	private void changed(final String username) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			invalidate(username);
+			return;
+		}
+
+		PendingInvalidation pending = (PendingInvalidation) TransactionSynchronizationManager.getResource(this);
+		if (pending == null) {
+			pending = new PendingInvalidation();
+			TransactionSynchronizationManager.bindResource(this, pending);
+			TransactionSynchronizationManager.registerSynchronization(pending);
+		}
+		pending.add(username);
+	}
+
+	private void invalidate(final String username) {
+		if (username == null) {
+			membershipCache.invalidateAll();
+		} else {
+			membershipCache.invalidate(username);
+		}
+	}
+
+	/**
+	 * The membership changed in a transaction, cleared once it commits.
+	 */
+	private class PendingInvalidation extends TransactionSynchronizationAdapter {
+		private final Set<String> usernames = new HashSet<>();
+		private boolean all = false;
+
+		void add(final String username) {
+			if (username == null) {
+				all = true;
+			} else {
+				usernames.add(username);
+			}
+		}
+
+		@Override
+		public void afterCommit() {
+			if (all) {
+				invalidate(null);
+			} else {
+				usernames.forEach(ProjectMembershipChangeListener.this::invalidate);
+			}
+		}
+
+		@Override
+		public void afterCompletion(final int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(ProjectMembershipChangeListener.this);
+		}
+	}
+}
@@ -1,7 +1,9 @@
 package ca.corefacility.bioinformatics.irida.security.permissions.project;
 
 import java.util.Collection;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,17 +11,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
-import ca.corefacility.bioinformatics.irida.model.joins.Join;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.user.Role;
-import ca.corefacility.bioinformatics.irida.model.user.User;
-import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupJoin;
-import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
 import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
-import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository;
-import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository;
-import ca.corefacility.bioinformatics.irida.repositories.user.UserGroupJoinRepository;
-import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
 import ca.corefacility.bioinformatics.irida.security.permissions.BasePermission;
 
 /**
@@ -32,30 +26,21 @@ public class ReadProjectPermission extends BasePermission<Project, Long> {
 	public static final String PERMISSION_PROVIDED = "canReadProject";
 
 	private static final String ROLE_SEQUENCER = Role.ROLE_SEQUENCER.getAuthority();
+	private static final String ROLE_ADMIN = Role.ROLE_ADMIN.getAuthority();
 
-	private final UserRepository userRepository;
-	private final ProjectUserJoinRepository pujRepository;
-	private final UserGroupProjectJoinRepository ugpjRepository;
-	private final UserGroupJoinRepository ugRepository;
+	private final ProjectMembershipCache membershipCache;
 
 	/**
 	 * Construct an instance of {@link ReadProjectPermission}.
 	 *
 	 * @param projectRepository the project repository.
-	 * @param userRepository    the user repository.
-	 * @param pujRepository     the project user join repository.
-	 * @param ugpjRepository    the user group/project join repository
-	 * @param ugRepository      The user group repository
+	 * @param membershipCache   the cache of users' project membership.
 	 */
 	@Autowired
-	public ReadProjectPermission(final ProjectRepository projectRepository, final UserRepository userRepository,
-			final ProjectUserJoinRepository pujRepository, final UserGroupProjectJoinRepository ugpjRepository,
-			final UserGroupJoinRepository ugRepository) {
+	public ReadProjectPermission(final ProjectRepository projectRepository,
+			final ProjectMembershipCache membershipCache) {
 		super(Project.class, Long.class, projectRepository);
-		this.userRepository = userRepository;
-		this.pujRepository = pujRepository;
-		this.ugpjRepository = ugpjRepository;
-		this.ugRepository = ugRepository;
+		this.membershipCache = membershipCache;
 	}
 
 	/**
@@ -71,36 +56,56 @@ public class ReadProjectPermission extends BasePermission<Project, Long> {
 		}
 
 		// if not an administrator, then we need to figure out if the
-		// authenticated user is participating in the project.
-		final User u = userRepository.loadUserByUsername(authentication.getName());
-		final List<Join<Project, User>> projectUsers = pujRepository.getUsersForProject(p);
-
-		for (final Join<Project, User> projectUser : projectUsers) {
-			if (projectUser.getObject().equals(u)) {
-				logger.trace("Permission GRANTED for [" + authentication + "] on project [" + p + "]");
-				// this user is participating in the project.
-				return true;
-			}
-		}
-
-		// if we've made it this far, then that means that the user isn't
-		// directly added to the project, so check if the user is in any groups
-		// added to the project.
-		final Collection<UserGroupProjectJoin> groups = ugpjRepository.findGroupsByProject(p);
-		for (final UserGroupProjectJoin group : groups) {
-			final Collection<UserGroupJoin> groupMembers = ugRepository.findUsersInGroup(group.getObject());
-			final boolean inGroup = groupMembers.stream().anyMatch(j -> j.getSubject().equals(u));
-			if (inGroup) {
-				logger.trace("Permission GRANTED for [" + authentication + "] on project [" + p
-						+ "] by group membership in [" + group.getLabel() + "]");
-				return true;
-			}
+		// authenticated user is participating in the project, either directly
+		// or through a group added to the project.
+		if (membershipCache.getProjectIds(authentication.getName()).contains(p.getId())) {
+			logger.trace("Permission GRANTED for [" + authentication + "] on project [" + p + "]");
+			return true;
 		}
 
 		logger.trace("Permission DENIED for [" + authentication + "] on project [" + p + "]");
 		return false;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Set<Project> customPermissionAllowedCollection(final Authentication authentication,
+			final Collection<Project> projects) {
+		Set<Long> readable = getReadableProjectIds(authentication,
+				projects.stream().map(Project::getId).collect(Collectors.toSet()));
+		return projects.stream().filter(p -> readable.contains(p.getId())).collect(Collectors.toSet());
+	}
+
+	/**
+	 * Find the projects in a set of project ids that the authenticated user is
+	 * allowed to read, looking up the user's membership once instead of
+	 * checking each project.
+	 *
+	 * @param authentication the authenticated user.
+	 * @param projectIds     the ids of the projects to check.
+	 * @return the ids of the projects that the user can read.
+	 */
+	public Set<Long> getReadableProjectIds(final Authentication authentication, final Collection<Long> projectIds) {
+		if (projectIds.isEmpty()) {
+			return new HashSet<>();
+		}
+
+		if (authentication.getAuthorities()
+				.stream()
+				.anyMatch(g -> g.getAuthority().equals(ROLE_SEQUENCER) || g.getAuthority().equals(ROLE_ADMIN))) {
+			logger.trace("Fast pass for sequencer or admin role.");
+			return new HashSet<>(projectIds);
+		}
+
+		final Set<Long> readable = new HashSet<>(projectIds);
+		readable.retainAll(membershipCache.getProjectIds(authentication.getName()));
+
+		logger.trace("Permission GRANTED for [" + authentication + "] on projects " + readable);
+		return readable;
+	}
+
 	@Override
 	public String getPermissionProvided() {
 		return PERMISSION_PROVIDED;
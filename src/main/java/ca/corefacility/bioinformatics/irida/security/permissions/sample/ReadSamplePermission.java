@@ -1,6 +1,10 @@
 package ca.corefacility.bioinformatics.irida.security.permissions.sample;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -60,6 +64,29 @@ public class ReadSamplePermission extends BasePermission<Sample, Long> {
 		return projectForSample.stream().anyMatch(j -> readProjectPermission.isAllowed(authentication, j.getSubject()));
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Set<Sample> customPermissionAllowedCollection(Authentication authentication,
+			Collection<Sample> samples) {
+		// look up the projects for every sample at once, then check which of
+		// those projects the user can read
+		List<Object[]> sampleProjects = psjRepository.getProjectIdsForSamples(
+				samples.stream().map(Sample::getId).collect(Collectors.toSet()));
+		Set<Long> readableProjects = readProjectPermission.getReadableProjectIds(authentication,
+				sampleProjects.stream().map(p -> (Long) p[1]).collect(Collectors.toSet()));
+
+		Set<Long> readableSamples = new HashSet<>();
+		for (Object[] sampleProject : sampleProjects) {
+			if (readableProjects.contains((Long) sampleProject[1])) {
+				readableSamples.add((Long) sampleProject[0]);
+			}
+		}
+
+		return samples.stream().filter(s -> readableSamples.contains(s.getId())).collect(Collectors.toSet());
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
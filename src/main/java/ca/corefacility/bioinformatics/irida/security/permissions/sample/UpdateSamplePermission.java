@@ -1,6 +1,10 @@
 package ca.corefacility.bioinformatics.irida.security.permissions.sample;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -81,4 +85,32 @@ public class UpdateSamplePermission extends BasePermission<Sample, Long> {
 			return projectOwnerPermission.isAllowed(authentication, j.getSubject()) && j.isOwner();
 		});
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Set<Sample> customPermissionAllowedCollection(final Authentication authentication,
+			final Collection<Sample> samples) {
+		boolean sequencer = authentication.getAuthorities().stream()
+				.anyMatch(g -> g.getAuthority().equals(Role.ROLE_SEQUENCER.getAuthority()));
+
+		// look up the owning projects of every sample at once, then check which
+		// of those projects the user manages
+		List<Object[]> sampleOwners = projectSampleJoinRepository.getOwnerProjectIdsForSamples(
+				samples.stream().map(Sample::getId).collect(Collectors.toSet()));
+		Set<Object> managedProjects = new HashSet<>(projectOwnerPermission.filterAllowed(authentication,
+				sampleOwners.stream().map(o -> (Long) o[1]).collect(Collectors.toSet())));
+
+		Set<Long> updatableSamples = new HashSet<>();
+		for (Object[] sampleOwner : sampleOwners) {
+			if (managedProjects.contains(sampleOwner[1])) {
+				updatableSamples.add((Long) sampleOwner[0]);
+			}
+		}
+
+		return samples.stream()
+				.filter(s -> (sequencer && !s.isRemote()) || updatableSamples.contains(s.getId()))
+				.collect(Collectors.toSet());
+	}
 }
@@ -0,0 +1,98 @@
+package ca.corefacility.bioinformatics.irida.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import ca.corefacility.bioinformatics.irida.model.cart.CartSample;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+
+/**
+ * Service for the cart of the currently logged in {@link User}. The cart is
+ * stored in the database, so it's kept between sessions and shared by every
+ * server.
+ */
+public interface CartService {
+
+	/**
+	 * Add samples from a {@link Project} to the cart. The samples aren't read,
+	 * samples that aren't in the project are ignored, and samples already in
+	 * the cart are left as they are.
+	 *
+	 * @param project   the {@link Project} the samples are added from
+	 * @param sampleIds the ids of the {@link Sample}s to add
+	 * @return the number of samples added
+	 */
+	public int addSamplesToCart(Project project, Collection<Long> sampleIds);
+
+	/**
+	 * Get which of a set of samples are already in the cart
+	 *
+	 * @param sampleIds the ids of the {@link Sample}s to look for
+	 * @return the ids of the samples in the cart
+	 */
+	public Set<Long> getSampleIdsInCart(Collection<Long> sampleIds);
+
+	/**
+	 * Get which of a set of sample names are used by samples in the cart
+	 *
+	 * @param sampleNames the names to look for
+	 * @return the names used by samples in the cart
+	 */
+	public Set<String> getSampleNamesInCart(Collection<String> sampleNames);
+
+	/**
+	 * Get the samples in the cart that were added from a {@link Project}
+	 *
+	 * @param projectId the id of the {@link Project}
+	 * @return the {@link CartSample}s from the project
+	 */
+	public List<CartSample> getSamplesInCartForProject(Long projectId);
+
+	/**
+	 * Get the ids of the {@link Project}s the samples in the cart were added
+	 * from
+	 *
+	 * @return the {@link Project} ids
+	 */
+	public Set<Long> getProjectIdsInCart();
+
+	/**
+	 * Find the {@link Project} a sample was added to the cart from
+	 *
+	 * @param sampleId the id of the {@link Sample}
+	 * @return the id of the {@link Project}, or null if the sample isn't in
+	 *         the cart
+	 */
+	public Long getProjectIdForSampleInCart(Long sampleId);
+
+	/**
+	 * Get the number of samples in the cart
+	 *
+	 * @return the number of samples in the cart
+	 */
+	public long countSamplesInCart();
+
+	/**
+	 * Remove a sample from the cart
+	 *
+	 * @param sampleId the id of the {@link Sample}
+	 * @return whether the sample was in the cart
+	 */
+	public boolean removeSampleFromCart(Long sampleId);
+
+	/**
+	 * Remove the samples added from a {@link Project} from the cart
+	 *
+	 * @param projectId the id of the {@link Project}
+	 * @return the number of samples removed
+	 */
+	public int removeProjectFromCart(Long projectId);
+
+	/**
+	 * Remove every sample from the cart
+	 */
+	public void emptyCart();
+}
@@ -2,6 +2,7 @@ package ca.corefacility.bioinformatics.irida.service;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -51,4 +52,16 @@ public interface ProjectEventService extends CRUDService<Long, ProjectEvent> {
 	 */
 	public List<ProjectEvent> getEventsForUserAfterDate(User user, Date beginning);
 
+	/**
+	 * Get the events that occurred after the given date on each {@link User}'s
+	 * email subscriptions. The events for every user are read at once rather
+	 * than with a query per user.
+	 * 
+	 * @param beginning
+	 *            Get events after this date
+	 * @return the {@link ProjectEvent}s on the projects each {@link User} is
+	 *         subscribed to. Users without new events aren't included.
+	 */
+	public Map<User, List<ProjectEvent>> getSubscribedEventsAfterDate(Date beginning);
+
 }
@@ -0,0 +1,82 @@
+package ca.corefacility.bioinformatics.irida.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFileUpload;
+
+/**
+ * Service for uploading {@link SequenceFile}s to a {@link Sample} in parts.
+ * Parts are written straight into the file in the sequence file directory, so
+ * saving the completed file is a rename rather than another copy.
+ */
+public interface SequenceFileUploadService {
+
+	/**
+	 * Start uploading a file to a {@link Sample}
+	 *
+	 * @param sample         the {@link Sample} the file will be added to
+	 * @param fileName       the name of the file
+	 * @param size           the size of the file in bytes
+	 * @param partSize       the size of each part in bytes, or null to use the
+	 *                       default part size
+	 * @param expectedSha256 the sha256 checksum the file must have, or null to
+	 *                       not check the file
+	 * @return the new {@link SequenceFileUpload}
+	 */
+	public SequenceFileUpload createUpload(Sample sample, String fileName, long size, Long partSize,
+			String expectedSha256);
+
+	/**
+	 * Read an upload started by the current user for a {@link Sample}
+	 *
+	 * @param sampleId the id of the {@link Sample}
+	 * @param uploadId the id of the upload
+	 * @return the {@link SequenceFileUpload} with the parts received so far
+	 * @throws EntityNotFoundException if the current user hasn't started the
+	 *                                 upload for the sample
+	 */
+	public SequenceFileUpload readUpload(Long sampleId, String uploadId) throws EntityNotFoundException;
+
+	/**
+	 * Write a part of an upload. A part that's already been received is
+	 * replaced. The part is only marked as received once all of its bytes have
+	 * been written.
+	 *
+	 * @param upload     the {@link SequenceFileUpload}
+	 * @param partNumber the part, starting at 1
+	 * @param body       the content of the part
+	 * @return the sha256 checksum of the part
+	 * @throws IOException              if the part couldn't be read or written
+	 * @throws IllegalArgumentException if the upload doesn't have the part, or
+	 *                                  the part isn't the expected length
+	 */
+	public String writePart(SequenceFileUpload upload, int partNumber, InputStream body) throws IOException;
+
+	/**
+	 * Finish an upload once every part has been received. The checksum of the
+	 * file is set on the upload.
+	 *
+	 * @param upload the {@link SequenceFileUpload}
+	 * @return the uploaded file, ready to be saved as a {@link SequenceFile}
+	 * @throws IllegalArgumentException if parts are missing or the file doesn't
+	 *                                  match the expected checksum
+	 */
+	public Path completeUpload(SequenceFileUpload upload);
+
+	/**
+	 * Remove an upload and anything that's been uploaded for it
+	 *
+	 * @param upload the {@link SequenceFileUpload}
+	 */
+	public void removeUpload(SequenceFileUpload upload);
+
+	/**
+	 * Remove uploads that were started longer ago than the upload expiry
+	 */
+	public void removeExpiredUploads();
+}
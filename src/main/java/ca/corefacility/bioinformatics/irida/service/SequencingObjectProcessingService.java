@@ -4,19 +4,23 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessingChain;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
 import ca.corefacility.bioinformatics.irida.service.impl.processor.SequenceFileProcessorLauncher;
+import com.google.common.collect.ImmutableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Scope;
 import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.lang.management.ManagementFactory;
-import java.util.Iterator;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Service used to run a {@link FileProcessingChain} on incoming {@link SequencingObject}s.
@@ -26,6 +30,9 @@ import java.util.List;
 public class SequencingObjectProcessingService {
 	private static final Logger logger = LoggerFactory.getLogger(SequencingObjectProcessingService.class);
 
+	private static final Set<SequencingObject.ProcessingState> IN_PROGRESS_STATES = ImmutableSet.of(
+			SequencingObject.ProcessingState.QUEUED, SequencingObject.ProcessingState.PROCESSING);
+
 	private SequencingObjectRepository sequencingObjectRepository;
 
 	private FileProcessingChain fileProcessingChain;
@@ -33,6 +40,9 @@ public class SequencingObjectProcessingService {
 
 	private final String machineString;
 
+	@Value("${file.processing.lease.timeout:600}")
+	private long leaseTimeout = 600;
+
 	@Autowired
 	public SequencingObjectProcessingService(SequencingObjectRepository sequencingObjectRepository,
 			@Qualifier("fileProcessingChainExecutor") ThreadPoolTaskExecutor executor,
@@ -45,12 +55,45 @@ public class SequencingObjectProcessingService {
 	}
 
 	/**
-	 * Process new {@link SequencingObject}s uploaded and find new sequences to process next time around
+	 * Set how long (in seconds) a file processor can go without renewing its
+	 * lease on the {@link SequencingObject}s it has claimed before they are
+	 * released to be claimed by another processor.
+	 *
+	 * @param leaseTimeout the lease timeout in seconds
+	 */
+	public void setLeaseTimeout(long leaseTimeout) {
+		this.leaseTimeout = leaseTimeout;
+	}
+
+	/**
+	 * Renew this processor's leases, release leases from processors that have gone away, claim new
+	 * {@link SequencingObject}s and process them.
 	 */
 	public synchronized void runProcessingJob() {
-		processFiles();
+		renewLeases();
 
 		findFilesToProcess();
+
+		processFiles();
+	}
+
+	/**
+	 * Renew the lease on the {@link SequencingObject}s this processor is working on and release any
+	 * {@link SequencingObject}s whose processor hasn't renewed its lease within the lease timeout.
+	 */
+	public synchronized void renewLeases() {
+		Date now = new Date();
+
+		sequencingObjectRepository.renewProcessingLease(machineString, IN_PROGRESS_STATES, now);
+
+		Date expiredBefore = new Date(now.getTime() - leaseTimeout * 1000);
+		int released = sequencingObjectRepository.releaseExpiredProcessingLeases(
+				SequencingObject.ProcessingState.UNPROCESSED, IN_PROGRESS_STATES, expiredBefore);
+
+		if (released > 0) {
+			logger.warn("Released " + released + " sequencing objects whose file processor lease expired before "
+					+ expiredBefore);
+		}
 	}
 
 	/**
@@ -62,27 +105,28 @@ public class SequencingObjectProcessingService {
 
 		logger.trace("Processor " + machineString + " + has queuespace: " + queueSpace);
 
-		//check for any unprocessed files
-		List<SequencingObject> toProcess = sequencingObjectRepository
-				.getSequencingObjectsWithProcessingState(SequencingObject.ProcessingState.UNPROCESSED);
-
-		// individually loop through and mark the ones we're going to process.  Looping individually so 2 processes are less likely to write at the same time.
-		Iterator<SequencingObject> iterator = toProcess.iterator();
+		if (queueSpace <= 0) {
+			return;
+		}
 
-		while (queueSpace > 0 && iterator.hasNext()) {
-			SequencingObject sequencingObject = iterator.next();
+		//check for any unprocessed files, only loading as many ids as we have room for
+		List<Long> toProcess = sequencingObjectRepository.getUnclaimedSequencingObjectIdsWithProcessingState(
+				SequencingObject.ProcessingState.UNPROCESSED, PageRequest.of(0, queueSpace));
 
-			logger.trace("File processor " + machineString + " is processing file " + sequencingObject.getId());
+		if (toProcess.isEmpty()) {
+			return;
+		}
 
-			try {
-				sequencingObjectRepository.markFileProcessor(sequencingObject.getId(), machineString,
-						SequencingObject.ProcessingState.QUEUED);
+		// claim the whole batch in one statement.  Anything another processor claimed first is skipped by the update.
+		try {
+			int claimed = sequencingObjectRepository.claimForFileProcessor(toProcess, machineString,
+					SequencingObject.ProcessingState.QUEUED, new Date());
 
-				queueSpace--;
-			} catch (CannotAcquireLockException ex) {
-				//If we can't get the lock, another processor is trying to pick up this file.  Let them have it.
-				logger.debug("Couldn't get transaction lock to mark file " + sequencingObject.getId());
-			}
+			logger.trace("File processor " + machineString + " claimed " + claimed + " of " + toProcess.size()
+					+ " sequencing objects");
+		} catch (CannotAcquireLockException ex) {
+			//If we can't get the lock, another processor is trying to pick up these files.  Let them have them.
+			logger.debug("Couldn't get transaction lock to claim files " + toProcess);
 		}
 	}
 
@@ -90,19 +134,22 @@ public class SequencingObjectProcessingService {
 	 * Process {@link SequencingObject}s that have been locked for processing
 	 */
 	public synchronized void processFiles() {
-		//get sequences previously locked
-		List<SequencingObject> toProcess = sequencingObjectRepository
-				.getSequencingObjectsWithProcessingStateAndProcessor(SequencingObject.ProcessingState.QUEUED,
-						machineString);
+		//get the ids of sequences previously locked.  The processors read the objects themselves.
+		List<Long> toProcess = sequencingObjectRepository.getSequencingObjectIdsWithProcessingStateAndProcessor(
+				SequencingObject.ProcessingState.QUEUED, machineString);
+
+		if (toProcess.isEmpty()) {
+			return;
+		}
 
-		//set their state to PROCESSING and update
-		toProcess.stream().forEach(s -> s.setProcessingState(SequencingObject.ProcessingState.PROCESSING));
-		sequencingObjectRepository.saveAll(toProcess);
+		//set their state to PROCESSING in one update
+		sequencingObjectRepository.updateProcessingState(toProcess, machineString,
+				SequencingObject.ProcessingState.QUEUED, SequencingObject.ProcessingState.PROCESSING);
 
 		//launch the file processing chain
-		for (SequencingObject sequencingObject : toProcess) {
+		for (Long sequencingObjectId : toProcess) {
 			fileProcessingChainExecutor.execute(
-					new SequenceFileProcessorLauncher(fileProcessingChain, sequencingObject.getId(),
+					new SequenceFileProcessorLauncher(fileProcessingChain, sequencingObjectId,
 							SecurityContextHolder.getContext()));
 		}
 	}
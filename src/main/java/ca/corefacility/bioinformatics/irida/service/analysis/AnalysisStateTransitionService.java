@@ -0,0 +1,246 @@
+package ca.corefacility.bioinformatics.irida.service.analysis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisStateTransition;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisStateTransitionRepository;
+
+/**
+ * Records each change of the {@link AnalysisState} of an
+ * {@link AnalysisSubmission} and notifies subscribers of them.
+ * <p>
+ * {@link StateChangeListener} notices state changes wherever a submission is
+ * saved, and stores the transition in the same transaction as the change, so a
+ * transition is recorded if and only if the change commits. Subscribers are
+ * told about the transitions once the transaction has committed. Subscribers
+ * are only told about changes made on this server; changes made by another
+ * server sharing the database can be found with
+ * {@link #getLatestTransitions(Collection)}.
+ */
+@Component
+public class AnalysisStateTransitionService {
+	private static final Logger logger = LoggerFactory.getLogger(AnalysisStateTransitionService.class);
+
+	private final AnalysisStateTransitionRepository transitionRepository;
+	private final Set<Consumer<AnalysisStateTransition>> subscribers = new CopyOnWriteArraySet<>();
+
+	@Autowired
+	public AnalysisStateTransitionService(AnalysisStateTransitionRepository transitionRepository) {
+		this.transitionRepository = transitionRepository;
+	}
+
+	/**
+	 * Get the most recent state transition of an {@link AnalysisSubmission}
+	 *
+	 * @param submissionId the id of the {@link AnalysisSubmission}
+	 * @return the latest {@link AnalysisStateTransition}, or null if the
+	 *         submission has none recorded
+	 */
+	public AnalysisStateTransition getLatestTransition(Long submissionId) {
+		return transitionRepository.findFirstBySubmissionIdOrderByIdDesc(submissionId);
+	}
+
+	/**
+	 * Get the first transition of an {@link AnalysisSubmission} into a state
+	 *
+	 * @param submissionId  the id of the {@link AnalysisSubmission}
+	 * @param analysisState the state entered
+	 * @return the {@link AnalysisStateTransition} into the state, or null if
+	 *         none is recorded
+	 */
+	public AnalysisStateTransition getTransitionInto(Long submissionId, AnalysisState analysisState) {
+		return transitionRepository.findFirstBySubmissionIdAndAnalysisStateOrderByIdAsc(submissionId, analysisState);
+	}
+
+	/**
+	 * Get the most recent state transition of each of a set of
+	 * {@link AnalysisSubmission}s in a single query
+	 *
+	 * @param submissionIds the ids of the {@link AnalysisSubmission}s
+	 * @return the latest {@link AnalysisStateTransition} of each submission
+	 *         that has any recorded
+	 */
+	public List<AnalysisStateTransition> getLatestTransitions(Collection<Long> submissionIds) {
+		if (submissionIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return transitionRepository.getLatestTransitions(submissionIds);
+	}
+
+	/**
+	 * Be notified of the state transitions recorded by this server
+	 *
+	 * @param subscriber called with each recorded {@link AnalysisStateTransition}
+	 */
+	public void subscribe(Consumer<AnalysisStateTransition> subscriber) {
+		subscribers.add(subscriber);
+	}
+
+	/**
+	 * Stop notifying a subscriber of state transitions
+	 *
+	 * @param subscriber the subscriber to remove
+	 */
+	public void unsubscribe(Consumer<AnalysisStateTransition> subscriber) {
+		subscribers.remove(subscriber);
+	}
+
+	/**
+	 * Store a transition in the current transaction, and notify the
+	 * subscribers of it once the transaction commits
+	 *
+	 * @param transition the transition to record
+	 */
+	private void record(AnalysisStateTransition transition) {
+		transitionRepository.insertTransition(transition);
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			notifySubscribers(Collections.singletonList(transition));
+			return;
+		}
+
+		PendingTransitions pending = (PendingTransitions) TransactionSynchronizationManager.getResource(this);
+		if (pending == null) {
+			pending = new PendingTransitions();
+			TransactionSynchronizationManager.bindResource(this, pending);
+			TransactionSynchronizationManager.registerSynchronization(pending);
+		}
+		pending.transitions.add(transition);
+	}
+
+	/**
+	 * Notify the subscribers of a set of recorded transitions
+	 *
+	 * @param transitions the recorded transitions
+	 */
+	private void notifySubscribers(List<AnalysisStateTransition> transitions) {
+		for (AnalysisStateTransition transition : transitions) {
+			logger.trace("Analysis submission " + transition.getSubmissionId() + " changed from "
+					+ transition.getPreviousState() + " to " + transition.getAnalysisState());
+			for (Consumer<AnalysisStateTransition> subscriber : subscribers) {
+				try {
+					subscriber.accept(transition);
+				} catch (RuntimeException e) {
+					logger.warn("Failed to notify subscriber of analysis state transition", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The state transitions recorded in the current transaction
+	 */
+	private class PendingTransitions extends TransactionSynchronizationAdapter {
+		private final List<AnalysisStateTransition> transitions = new ArrayList<>();
+
+		@Override
+		public void afterCommit() {
+			notifySubscribers(transitions);
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(AnalysisStateTransitionService.this);
+		}
+	}
+
+	/**
+	 * A Hibernate event listener to notice when the state of an
+	 * {@link AnalysisSubmission} changes. The state a submission was loaded
+	 * with is kept on the submission so the state it changed from is known
+	 * when it's saved. The listener is registered with Hibernate by the
+	 * services configuration rather than on the entity.
+	 */
+	public static class StateChangeListener
+			implements PostLoadEventListener, PostInsertEventListener, PostUpdateEventListener {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient AnalysisStateTransitionService service;
+
+		/**
+		 * Create a listener recording transitions with a service
+		 *
+		 * @param service the service to record transitions with
+		 */
+		public StateChangeListener(AnalysisStateTransitionService service) {
+			this.service = service;
+		}
+
+		@Override
+		public void onPostLoad(PostLoadEvent event) {
+			if (event.getEntity() instanceof AnalysisSubmission) {
+				submissionLoaded((AnalysisSubmission) event.getEntity());
+			}
+		}
+
+		@Override
+		public void onPostInsert(PostInsertEvent event) {
+			if (event.getEntity() instanceof AnalysisSubmission) {
+				submissionSaved((AnalysisSubmission) event.getEntity());
+			}
+		}
+
+		@Override
+		public void onPostUpdate(PostUpdateEvent event) {
+			if (event.getEntity() instanceof AnalysisSubmission) {
+				submissionSaved((AnalysisSubmission) event.getEntity());
+			}
+		}
+
+		@Override
+		public boolean requiresPostCommitHanding(EntityPersister persister) {
+			return false;
+		}
+
+		/**
+		 * Remember the state a submission was loaded with
+		 *
+		 * @param submission the loaded {@link AnalysisSubmission}
+		 */
+		public void submissionLoaded(AnalysisSubmission submission) {
+			submission.setLoadedAnalysisState(submission.getAnalysisState());
+		}
+
+		/**
+		 * Record a transition if a saved submission's state changed
+		 *
+		 * @param submission the created or updated {@link AnalysisSubmission}
+		 */
+		public void submissionSaved(AnalysisSubmission submission) {
+			AnalysisState previousState = submission.getLoadedAnalysisState();
+			AnalysisState analysisState = submission.getAnalysisState();
+			if (analysisState == null || analysisState == previousState) {
+				return;
+			}
+			submission.setLoadedAnalysisState(analysisState);
+
+			Date transitionDate = submission.getModifiedDate() != null ? submission.getModifiedDate() : new Date();
+			service.record(new AnalysisStateTransition(submission.getId(), previousState, analysisState,
+					transitionDate));
+		}
+	}
+}
@@ -20,6 +20,8 @@ import com.google.common.collect.ImmutableSet;
 import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPClient;
 import org.apache.commons.net.ftp.FTPFile;
+import org.apache.commons.net.io.CopyStreamEvent;
+import org.apache.commons.net.io.CopyStreamListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,9 +47,14 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.ConnectException;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -92,6 +99,9 @@ public class ExportUploadService {
 	@Value("${ncbi.upload.ftp.passive}")
 	private boolean passiveMode;
 
+	@Value("${ncbi.upload.connections:4}")
+	private int uploadConnections = DEFAULT_UPLOAD_CONNECTIONS;
+
 	@Value("${irida.administrative.notifications.email}")
 	private String notificationAdminEmail;
 
@@ -99,6 +109,18 @@ public class ExportUploadService {
 
 	private static final long WAIT_BETWEEN_RETRIES = 5000L;
 
+	private static final int DEFAULT_UPLOAD_CONNECTIONS = 4;
+
+	// only one submission is uploaded at a time, scheduled runs that find an
+	// upload in progress return straight away rather than waiting
+	private final ReentrantLock uploadLock = new ReentrantLock();
+
+	// submissions left in UPLOADING by a restart are resumed on the first run
+	private boolean resumeInterruptedUploads = true;
+
+	// byte progress of the submissions currently being uploaded
+	private final Map<Long, UploadProgress> uploadProgress = new ConcurrentHashMap<>();
+
 	// set of statuses that should be watched and update
 	private static Set<ExportUploadState> updateableStates = ImmutableSet.of(ExportUploadState.UPLOADED,
 			ExportUploadState.SUBMITTED, ExportUploadState.CREATED, ExportUploadState.QUEUED,
@@ -138,16 +160,60 @@ public class ExportUploadService {
 		this.baseDirectory = baseDirectory;
 	}
 
+	/**
+	 * Set the number of FTP connections to upload a submission's files with
+	 *
+	 * @param uploadConnections
+	 *            the number of files to upload at once
+	 */
+	public void setUploadConnections(int uploadConnections) {
+		this.uploadConnections = uploadConnections;
+	}
+
+	/**
+	 * Get the progress of a submission that's currently being uploaded
+	 *
+	 * @param submissionId
+	 *            the id of the {@link NcbiExportSubmission}
+	 * @return the {@link UploadProgress} for the submission, or null if it's
+	 *         not being uploaded
+	 */
+	public UploadProgress getUploadProgress(Long submissionId) {
+		return uploadProgress.get(submissionId);
+	}
+
 	/**
 	 * Check for new {@link NcbiExportSubmission}s to be uploaded and begin
-	 * their upload
+	 * their upload. If an upload is already running this returns without
+	 * doing anything so scheduler threads don't queue up behind it.
 	 */
-	public synchronized void launchUpload() {
+	public void launchUpload() {
+		if (!uploadLock.tryLock()) {
+			logger.trace("Upload already in progress, skipping");
+			return;
+		}
+
+		try {
+			launchUploads();
+		} finally {
+			uploadLock.unlock();
+		}
+	}
 
+	/**
+	 * Upload all the {@link NcbiExportSubmission}s waiting to be uploaded
+	 */
+	private void launchUploads() {
 		logger.trace("Getting new exports");
 
-		List<NcbiExportSubmission> submissionsWithState = exportSubmissionService
-				.getSubmissionsWithState(ExportUploadState.NEW);
+		List<NcbiExportSubmission> submissionsWithState;
+		if (resumeInterruptedUploads) {
+			submissionsWithState = exportSubmissionService
+					.getSubmissionsWithState(ImmutableSet.of(ExportUploadState.NEW, ExportUploadState.UPLOADING));
+			resumeInterruptedUploads = false;
+		} else {
+			submissionsWithState = exportSubmissionService.getSubmissionsWithState(ExportUploadState.NEW);
+		}
 
 		for (NcbiExportSubmission submission : submissionsWithState) {
 
@@ -247,7 +313,9 @@ public class ExportUploadService {
 
 	/**
 	 * Upload an {@link NcbiExportSubmission}'s files and submission xml to the
-	 * configured ftp site
+	 * configured ftp site. Files are uploaded over several connections at
+	 * once. If the submission already has a directory from an earlier attempt,
+	 * files that were partly uploaded are resumed rather than sent again.
 	 *
 	 * @param submission
 	 *            The {@link NcbiExportSubmission} to upload
@@ -263,78 +331,52 @@ public class ExportUploadService {
 		try {
 			client = getFtpClient();
 
-			// create submission directory name
-			String directoryName = submission.getId().toString() + "-" + new Date().getTime();
+			String directoryPath = submission.getDirectoryPath();
+			boolean resuming = directoryPath != null;
+
+			if (resuming) {
+				logger.debug("Resuming upload of submission " + submission.getId() + " into " + directoryPath);
+			} else {
+				// create submission directory name
+				String directoryName = submission.getId().toString() + "-" + new Date().getTime();
+
+				// cd to submission base directory
+				if (!client.changeWorkingDirectory(baseDirectory)) {
+					throw new UploadException("Couldn't change to base directory " + baseDirectory + " : "
+							+ client.getReplyString());
+				}
 
-			// cd to submission base directory
-			if (!client.changeWorkingDirectory(baseDirectory)) {
-				throw new UploadException("Couldn't change to base directory " + baseDirectory + " : "
-						+ client.getReplyString());
-			}
+				// create new submission directory
+				if (!client.makeDirectory(directoryName)) {
+					throw new UploadException("Couldn't create new upload directory " + directoryName + " : "
+							+ client.getReplyString());
+				}
 
-			// create new submission directory
-			if (!client.makeDirectory(directoryName)) {
-				throw new UploadException("Couldn't create new upload directory " + directoryName + " : "
-						+ client.getReplyString());
+				// save the directory so the upload can be resumed into it if
+				// this server restarts part way through
+				directoryPath = baseDirectory + "/" + directoryName;
+				submission.setDirectoryPath(directoryPath);
+				submission = exportSubmissionService.update(submission);
 			}
 
 			// cd to submission directory
-			if (!client.changeWorkingDirectory(directoryName)) {
-				throw new UploadException("Couldn't change to upload directory " + directoryName + " : "
+			if (!client.changeWorkingDirectory(directoryPath)) {
+				throw new UploadException("Couldn't change to upload directory " + directoryPath + " : "
 						+ client.getReplyString());
 			}
 
-			// set the directory saved
-			String directoryPath = baseDirectory + "/" + directoryName;
-			submission.setDirectoryPath(directoryPath);
-
 			// upload submission.xml file
 			uploadString(client, "submission.xml", xml);
 
-			// upload biosample files
-			for (NcbiBioSampleFiles bsFile : submission.getBioSampleFiles()) {
-
-				// upload single end files
-				for (SingleEndSequenceFile file : bsFile.getFiles()) {
-					// Just using file IDs as the basename for uploaded files to
-					// avoid accidentally sending sensitive sample names to NCBI
-					String filename;
-					if (file.getSequenceFile().getFile().toString().endsWith(".gz")) {
-						filename = file.getSequenceFile().getId() + ".fastq.gz";
-					} else {
-						filename = file.getSequenceFile().getId() + ".fastq";
-					}
-
-					uploadPath(client, filename, file.getSequenceFile().getFile());
-				}
-
-				// upload paired end files
-				for (SequenceFilePair pair : bsFile.getPairs()) {
-					// upload forward
-					SequenceFile file = pair.getForwardSequenceFile();
-					// Just using file IDs as the basename for uploaded files to
-					// avoid accidentally sending sensitive sample names to NCBI
-					String filename;
-					if (file.getFile().toString().endsWith(".gz")) {
-						filename = file.getId() + ".fastq.gz";
-					} else {
-						filename = file.getId() + ".fastq";
-					}
-					uploadPath(client, filename, file.getFile());
-
-					// upload reverse
-					file = pair.getReverseSequenceFile();
-					if (file.getFile().toString().endsWith(".gz")) {
-						filename = file.getId() + ".fastq.gz";
-					} else {
-						filename = file.getId() + ".fastq";
-					}
-					uploadPath(client, filename, file.getFile());
-				}
+			// the file uploads use their own connections and may take a long
+			// time, don't leave this one idle
+			disconnectFtpCient(client);
 
-			}
+			// upload biosample files
+			uploadFiles(submission, getUploadFiles(submission), resuming);
 
 			// create submit.ready file
+			client = getFtpClient(directoryPath);
 			uploadString(client, "submit.ready", "");
 
 		} catch (IOException e) {
@@ -348,6 +390,175 @@ public class ExportUploadService {
 
 	}
 
+	/**
+	 * Get the files to upload for a submission, keyed by the name to give
+	 * them on the ftp site
+	 *
+	 * @param submission
+	 *            the {@link NcbiExportSubmission} to get files for
+	 * @return the files to upload
+	 */
+	private Map<String, Path> getUploadFiles(NcbiExportSubmission submission) {
+		Map<String, Path> files = new LinkedHashMap<>();
+		for (NcbiBioSampleFiles bsFile : submission.getBioSampleFiles()) {
+
+			// single end files
+			for (SingleEndSequenceFile file : bsFile.getFiles()) {
+				files.put(getUploadFilename(file.getSequenceFile()), file.getSequenceFile().getFile());
+			}
+
+			// paired end files
+			for (SequenceFilePair pair : bsFile.getPairs()) {
+				files.put(getUploadFilename(pair.getForwardSequenceFile()), pair.getForwardSequenceFile().getFile());
+				files.put(getUploadFilename(pair.getReverseSequenceFile()), pair.getReverseSequenceFile().getFile());
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Get the name to upload a {@link SequenceFile} as. Just using file IDs as
+	 * the basename for uploaded files to avoid accidentally sending sensitive
+	 * sample names to NCBI
+	 *
+	 * @param file
+	 *            the {@link SequenceFile} to upload
+	 * @return the name of the file on the ftp site
+	 */
+	private String getUploadFilename(SequenceFile file) {
+		if (file.getFile().toString().endsWith(".gz")) {
+			return file.getId() + ".fastq.gz";
+		} else {
+			return file.getId() + ".fastq";
+		}
+	}
+
+	/**
+	 * Upload a submission's sequence files using up to
+	 * {@code ncbi.upload.connections} connections at once
+	 *
+	 * @param submission
+	 *            the {@link NcbiExportSubmission} being uploaded
+	 * @param files
+	 *            the files to upload keyed by their name on the ftp site
+	 * @param resuming
+	 *            whether files may have been partly uploaded already
+	 * @throws UploadException
+	 *             if any file could not be uploaded
+	 * @throws IOException
+	 *             if the size of a file could not be read
+	 */
+	private void uploadFiles(NcbiExportSubmission submission, Map<String, Path> files, boolean resuming)
+			throws UploadException, IOException {
+		UploadProgress progress = new UploadProgress();
+		for (Path path : files.values()) {
+			progress.totalBytes += Files.size(path);
+		}
+		uploadProgress.put(submission.getId(), progress);
+
+		Queue<Map.Entry<String, Path>> pending = new ConcurrentLinkedQueue<>(files.entrySet());
+		AtomicBoolean failed = new AtomicBoolean(false);
+
+		int workers = Math.max(1, Math.min(uploadConnections, files.size()));
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			List<Future<Void>> results = new ArrayList<>();
+			for (int i = 0; i < workers; i++) {
+				results.add(executor.submit(() -> {
+					uploadPending(submission.getDirectoryPath(), pending, failed, resuming, progress);
+					return null;
+				}));
+			}
+
+			UploadException failure = null;
+			for (Future<Void> result : results) {
+				try {
+					result.get();
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause() instanceof UploadException ? (UploadException) e.getCause()
+								: new UploadException("Could not upload files", e.getCause());
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new UploadException("Interrupted while uploading files", e);
+				}
+			}
+
+			if (failure != null) {
+				throw failure;
+			}
+
+			logger.debug("Uploaded " + files.size() + " files (" + progress.getTotalBytes()
+					+ " bytes) for submission " + submission.getId());
+		} finally {
+			executor.shutdownNow();
+			uploadProgress.remove(submission.getId());
+		}
+	}
+
+	/**
+	 * Upload files from a queue over a single connection until the queue is
+	 * empty or another connection has failed. Failed files are retried on a
+	 * fresh connection from where the last attempt left off.
+	 *
+	 * @param directoryPath
+	 *            the submission directory on the ftp site
+	 * @param pending
+	 *            the files still to upload
+	 * @param failed
+	 *            set when any file can't be uploaded
+	 * @param resuming
+	 *            whether files may have been partly uploaded already
+	 * @param progress
+	 *            the {@link UploadProgress} of the submission
+	 * @throws UploadException
+	 *             if a file could not be uploaded
+	 */
+	private void uploadPending(String directoryPath, Queue<Map.Entry<String, Path>> pending, AtomicBoolean failed,
+			boolean resuming, UploadProgress progress) throws UploadException {
+		FTPClient client = null;
+		try {
+			Map.Entry<String, Path> file;
+			while (!failed.get() && (file = pending.poll()) != null) {
+				int tries = 0;
+				boolean done = false;
+
+				do {
+					tries++;
+					try {
+						if (client == null) {
+							client = getFtpClient(directoryPath);
+						}
+
+						uploadPath(client, file.getKey(), file.getValue(), resuming || tries > 1, progress);
+
+						done = true;
+					} catch (IOException | UploadException e) {
+						String reply = client != null ? client.getReplyString() : null;
+						disconnectFtpCient(client);
+						client = null;
+
+						if (tries >= MAX_RETRIES) {
+							failed.set(true);
+							throw new UploadException("Could not upload file " + file.getKey() + " : " + reply, e);
+						}
+						logger.error("Error uploading file: " + reply, e);
+
+						try {
+							Thread.sleep(WAIT_BETWEEN_RETRIES * tries);
+						} catch (InterruptedException e1) {
+							failed.set(true);
+							throw new UploadException("Sleep failed", e1);
+						}
+					}
+				} while (!done);
+			}
+		} finally {
+			disconnectFtpCient(client);
+		}
+	}
+
 	/**
 	 * Get the latest result.#.xml file for the given submission
 	 *
@@ -559,6 +770,27 @@ public class ExportUploadService {
 		return client;
 	}
 
+	/**
+	 * Connect an {@link FTPClient} and change to a submission directory
+	 *
+	 * @param directoryPath
+	 *            the directory to change to
+	 * @return a connected {@link FTPClient}
+	 * @throws IOException
+	 *             if a connection error occurred
+	 * @throws UploadException
+	 *             if the directory couldn't be changed to
+	 */
+	private FTPClient getFtpClient(String directoryPath) throws IOException, UploadException {
+		FTPClient client = getFtpClient();
+		if (!client.changeWorkingDirectory(directoryPath)) {
+			String reply = client.getReplyString();
+			disconnectFtpCient(client);
+			throw new UploadException("Couldn't change to upload directory " + directoryPath + " : " + reply);
+		}
+		return client;
+	}
+
 	/**
 	 * Disconnect an {@link FTPClient} if it's connected. Just doing this to
 	 * avoid the old try-catch-in-finally mess.
@@ -622,44 +854,87 @@ public class ExportUploadService {
 	}
 
 	/**
-	 * Upload a file {@link Path} to a remote ftp client
+	 * Upload a file {@link Path} to a remote ftp client. When resuming, the
+	 * size of the file already on the server is checked and only the rest of
+	 * the file is sent.
 	 *
 	 * @param client   {@link FTPClient} to upload with
 	 * @param filename name of file to create
 	 * @param path     {@link Path} to upload
-	 * @throws UploadException if file could not be uploaded
+	 * @param resuming whether the file may have been partly uploaded already
+	 * @param progress the {@link UploadProgress} to record transferred bytes in
+	 * @throws UploadException if the server refused the file
+	 * @throws IOException     if the file could not be transferred
 	 */
-	private void uploadPath(FTPClient client, String filename, Path path) throws UploadException, IOException {
-		int tries = 0;
-		boolean done = false;
-
+	private void uploadPath(FTPClient client, String filename, Path path, boolean resuming, UploadProgress progress)
+			throws UploadException, IOException {
 		client.setFileType(FTP.BINARY_FILE_TYPE);
 
-		do {
-			tries++;
+		long size = Files.size(path);
+		long offset = resuming ? getRemoteSize(client, filename) : 0;
+		if (offset > size) {
+			offset = 0;
+		}
 
-			try (InputStream stream = Files.newInputStream(path)) {
-				logger.trace("Uploading path [" + path + "], filename [" + filename + "], data_connection_mode ["
-						+ client.getDataConnectionMode() + "]");
-				client.storeFile(filename, stream);
-				logger.trace("Finished uploading path [" + path + "], filename [" + filename + "], response ["
-						+ client.getReplyString() + "]");
+		progress.setTransferred(filename, offset);
+		if (offset == size && resuming) {
+			logger.trace("File [" + filename + "] already uploaded");
+			return;
+		}
 
-				done = true;
-			} catch (Exception e) {
-				String reply = client.getReplyString();
-				if (tries >= MAX_RETRIES) {
-					throw new UploadException("Could not upload file " + filename + " : " + reply, e);
-				}
-				logger.error("Error uploading file: " + reply, e);
+		final long start = offset;
+		client.setCopyStreamListener(new CopyStreamListener() {
+			@Override
+			public void bytesTransferred(CopyStreamEvent event) {
+				bytesTransferred(event.getTotalBytesTransferred(), event.getBytesTransferred(), event.getStreamSize());
+			}
 
-				try {
-					Thread.sleep(WAIT_BETWEEN_RETRIES);
-				} catch (InterruptedException e1) {
-					throw new UploadException("Sleep failed", e1);
-				}
+			@Override
+			public void bytesTransferred(long totalBytesTransferred, int bytesTransferred, long streamSize) {
+				progress.setTransferred(filename, start + totalBytesTransferred);
 			}
-		} while (!done);
+		});
+
+		try (SeekableByteChannel channel = Files.newByteChannel(path);
+				InputStream stream = Channels.newInputStream(channel.position(offset))) {
+			logger.trace("Uploading path [" + path + "], filename [" + filename + "], offset [" + offset
+					+ "], data_connection_mode [" + client.getDataConnectionMode() + "]");
+
+			boolean stored;
+			if (offset > 0) {
+				stored = client.appendFile(filename, stream);
+			} else {
+				stored = client.storeFile(filename, stream);
+			}
+
+			if (!stored) {
+				throw new UploadException("Server refused file " + filename + " : " + client.getReplyString());
+			}
+
+			logger.trace("Finished uploading path [" + path + "], filename [" + filename + "], response ["
+					+ client.getReplyString() + "]");
+		} finally {
+			client.setCopyStreamListener(null);
+		}
+
+		progress.setTransferred(filename, size);
+		logger.debug("Uploaded " + progress.getUploadedBytes() + " of " + progress.getTotalBytes() + " bytes");
+	}
+
+	/**
+	 * Get the size of a file on the ftp site
+	 *
+	 * @param client   the connected {@link FTPClient}
+	 * @param filename the name of the file
+	 * @return the size of the file, or 0 if it doesn't exist
+	 * @throws IOException if the file listing failed
+	 */
+	private long getRemoteSize(FTPClient client, String filename) throws IOException {
+		FTPFile[] files = client.listFiles(filename);
+		if (files.length == 1 && files[0].isFile() && files[0].getSize() > 0) {
+			return files[0].getSize();
+		}
+		return 0;
 	}
 
 	/**
@@ -704,4 +979,30 @@ public class ExportUploadService {
 			}
 		}
 	}
+
+	/**
+	 * The number of bytes uploaded for a submission
+	 */
+	public static class UploadProgress {
+		private long totalBytes;
+		private final Map<String, Long> transferred = new ConcurrentHashMap<>();
+
+		private void setTransferred(String filename, long bytes) {
+			transferred.put(filename, bytes);
+		}
+
+		/**
+		 * @return the total size of the files being uploaded
+		 */
+		public long getTotalBytes() {
+			return totalBytes;
+		}
+
+		/**
+		 * @return the number of bytes that have been uploaded so far
+		 */
+		public long getUploadedBytes() {
+			return transferred.values().stream().mapToLong(Long::longValue).sum();
+		}
+	}
 }
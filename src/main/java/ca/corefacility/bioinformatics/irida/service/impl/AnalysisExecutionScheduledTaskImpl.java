@@ -1,14 +1,24 @@
 package ca.corefacility.bioinformatics.irida.service.impl;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.AsyncResult;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
 
 import ca.corefacility.bioinformatics.irida.exceptions.ExecutionManagerException;
 import ca.corefacility.bioinformatics.irida.exceptions.IridaWorkflowException;
@@ -17,6 +27,7 @@ import ca.corefacility.bioinformatics.irida.model.enums.AnalysisCleanedState;
 import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.Analysis;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.JobError;
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowState;
 import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowStatus;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyJobErrorsService;
@@ -29,11 +40,16 @@ import ca.corefacility.bioinformatics.irida.service.analysis.execution.AnalysisE
 import ca.corefacility.bioinformatics.irida.service.EmailController;
 
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * Implementation of analysis execution tasks. This will scan for
  * {@link AnalysisSubmission}s and execute the {@link Analysis} defined by the
  * submissions.
+ * <p>
+ * Running submissions are checked in Galaxy concurrently on a bounded
+ * executor. A submission whose progress hasn't changed since it was last
+ * checked is checked less often, up to a maximum delay.
  */
 public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionScheduledTask {
 
@@ -54,10 +70,22 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 	private final EmailController emailController;
 	private AnalysisWorkspaceService analysisWorkspaceService;
 
+	private final Executor monitorExecutor;
+	private final int monitorPageSize;
+	private final Duration monitorInitialBackoff;
+	private final Duration monitorMaxBackoff;
+
+	// when each running submission is next due to be checked, by id
+	private final Map<Long, MonitorBackoff> monitorBackoff = new ConcurrentHashMap<>();
+
+	private volatile long lastMonitorSweepMillis;
+	private volatile int lastMonitorSweepChecked;
+	private volatile int lastMonitorSweepSkipped;
+
 
 	/**
 	 * Builds a new AnalysisExecutionScheduledTaskImpl with the given service
-	 * classes.
+	 * classes. Running submissions are checked one at a time on every sweep.
 	 *
 	 * @param analysisSubmissionRepository   A repository for {@link AnalysisSubmission}s.
 	 * @param analysisExecutionServiceGalaxy A service for executing {@link AnalysisSubmission}s.
@@ -68,12 +96,41 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 	 * @param emailController                {@link EmailController} for sending completion/error emails for {@link AnalysisSubmission}s
 	 * @param analysisWorkspaceService 	     {@link AnalysisWorkspaceService}
 	 */
-	@Autowired
 	public AnalysisExecutionScheduledTaskImpl(AnalysisSubmissionRepository analysisSubmissionRepository,
 			AnalysisExecutionService analysisExecutionServiceGalaxy,
 			CleanupAnalysisSubmissionCondition cleanupCondition, GalaxyJobErrorsService galaxyJobErrorsService,
 			JobErrorRepository jobErrorRepository, EmailController emailController,
 		    AnalysisWorkspaceService analysisWorkspaceService) {
+		this(analysisSubmissionRepository, analysisExecutionServiceGalaxy, cleanupCondition, galaxyJobErrorsService,
+				jobErrorRepository, emailController, analysisWorkspaceService, MoreExecutors.directExecutor(), 100,
+				Duration.ZERO, Duration.ZERO);
+	}
+
+	/**
+	 * Builds a new AnalysisExecutionScheduledTaskImpl which checks running
+	 * submissions concurrently.
+	 *
+	 * @param analysisSubmissionRepository   A repository for {@link AnalysisSubmission}s.
+	 * @param analysisExecutionServiceGalaxy A service for executing {@link AnalysisSubmission}s.
+	 * @param cleanupCondition               The condition defining when an {@link AnalysisSubmission}
+	 *                                       should be cleaned up.
+	 * @param galaxyJobErrorsService         {@link GalaxyJobErrorsService} for getting {@link JobError} objects
+	 * @param jobErrorRepository             {@link JobErrorRepository} for {@link JobError} objects
+	 * @param emailController                {@link EmailController} for sending completion/error emails for {@link AnalysisSubmission}s
+	 * @param analysisWorkspaceService       {@link AnalysisWorkspaceService}
+	 * @param monitorExecutor                {@link Executor} to check running submissions in Galaxy on
+	 * @param monitorPageSize                The number of running submissions to load at a time
+	 * @param monitorInitialBackoff          The delay before checking a submission again once its
+	 *                                       progress stops changing
+	 * @param monitorMaxBackoff              The longest delay between checks of a submission
+	 */
+	@Autowired
+	public AnalysisExecutionScheduledTaskImpl(AnalysisSubmissionRepository analysisSubmissionRepository,
+			AnalysisExecutionService analysisExecutionServiceGalaxy,
+			CleanupAnalysisSubmissionCondition cleanupCondition, GalaxyJobErrorsService galaxyJobErrorsService,
+			JobErrorRepository jobErrorRepository, EmailController emailController,
+			AnalysisWorkspaceService analysisWorkspaceService, Executor monitorExecutor, int monitorPageSize,
+			Duration monitorInitialBackoff, Duration monitorMaxBackoff) {
 		this.analysisSubmissionRepository = analysisSubmissionRepository;
 		this.analysisExecutionService = analysisExecutionServiceGalaxy;
 		this.cleanupCondition = cleanupCondition;
@@ -81,6 +138,11 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 		this.jobErrorRepository = jobErrorRepository;
 		this.emailController = emailController;
 		this.analysisWorkspaceService = analysisWorkspaceService;
+		// checks run with the security context of the scheduled task
+		this.monitorExecutor = new DelegatingSecurityContextExecutor(monitorExecutor);
+		this.monitorPageSize = monitorPageSize;
+		this.monitorInitialBackoff = monitorInitialBackoff;
+		this.monitorMaxBackoff = monitorMaxBackoff;
 	}
 
 	/**
@@ -164,33 +226,157 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 	public Set<Future<AnalysisSubmission>> monitorRunningAnalyses() {
 		synchronized (monitorRunningAnalysesLock) {
 			logger.trace("Running monitorRunningAnalyses");
+			long sweepStart = System.currentTimeMillis();
+
+			List<CompletableFuture<Future<AnalysisSubmission>>> checks = new ArrayList<>();
+			Set<Long> runningIds = new HashSet<>();
+			int skipped = 0;
+
+			// page through the running submissions in order of id, only loading the ones due to be checked
+			Long afterId = 0L;
+			while (true) {
+				List<Long> ids = analysisSubmissionRepository.findIdsByAnalysisStateAfterId(AnalysisState.RUNNING,
+						afterId, PageRequest.of(0, monitorPageSize));
+				if (ids.isEmpty()) {
+					break;
+				}
 
-			List<AnalysisSubmission> analysisSubmissions = analysisSubmissionRepository.findByAnalysisState(
-					AnalysisState.RUNNING);
-
-			Set<Future<AnalysisSubmission>> submissions = Sets.newHashSet();
+				runningIds.addAll(ids);
+				afterId = ids.get(ids.size() - 1);
 
-			for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
-				logger.trace("Checking state of " + analysisSubmission);
+				long now = System.currentTimeMillis();
+				List<Long> dueIds = ids.stream()
+						.filter(id -> isDueForCheck(id, now))
+						.collect(Collectors.toList());
+				skipped += ids.size() - dueIds.size();
 
-				try {
-					GalaxyWorkflowStatus workflowStatus = analysisExecutionService.getWorkflowStatus(
-							analysisSubmission);
-					submissions.add(handleWorkflowStatus(workflowStatus, analysisSubmission));
-				} catch (ExecutionManagerException | RuntimeException | IridaWorkflowNotFoundException e) {
-					logger.error("Error checking state for " + analysisSubmission, e);
-					analysisSubmission.setAnalysisState(AnalysisState.ERROR);
-					submissions.add(new AsyncResult<>(analysisSubmissionRepository.save(analysisSubmission)));
-					if (analysisSubmission.getEmailPipelineResultError()) {
-						emailController.sendPipelineStatusEmail(analysisSubmission);
+				if (!dueIds.isEmpty()) {
+					for (AnalysisSubmission analysisSubmission : analysisSubmissionRepository.findAllById(dueIds)) {
+						checks.add(CompletableFuture.supplyAsync(() -> checkRunningAnalysis(analysisSubmission),
+								monitorExecutor));
 					}
 				}
+
+				if (ids.size() < monitorPageSize) {
+					break;
+				}
 			}
 
+			// forget submissions that aren't running anymore
+			monitorBackoff.keySet()
+					.retainAll(runningIds);
+
+			// wait for every check so that sweeps don't overlap
+			Set<Future<AnalysisSubmission>> submissions = checks.stream()
+					.map(CompletableFuture::join)
+					.collect(Collectors.toSet());
+
+			lastMonitorSweepMillis = System.currentTimeMillis() - sweepStart;
+			lastMonitorSweepChecked = checks.size();
+			lastMonitorSweepSkipped = skipped;
+			logger.debug("Checked " + checks.size() + " running analyses in " + lastMonitorSweepMillis + "ms, "
+					+ skipped + " not due to be checked");
+
 			return submissions;
 		}
 	}
 
+	/**
+	 * Check the state of a running {@link AnalysisSubmission} in the execution
+	 * manager and decide when it should next be checked.
+	 *
+	 * @param analysisSubmission the running {@link AnalysisSubmission}
+	 * @return A {@link Future} with the {@link AnalysisSubmission}
+	 */
+	private Future<AnalysisSubmission> checkRunningAnalysis(AnalysisSubmission analysisSubmission) {
+		logger.trace("Checking state of " + analysisSubmission);
+
+		try {
+			GalaxyWorkflowStatus workflowStatus = analysisExecutionService.getWorkflowStatus(analysisSubmission);
+			Future<AnalysisSubmission> submission = handleWorkflowStatus(workflowStatus, analysisSubmission);
+			updateBackoff(analysisSubmission, workflowStatus);
+			return submission;
+		} catch (ExecutionManagerException | RuntimeException | IridaWorkflowNotFoundException e) {
+			logger.error("Error checking state for " + analysisSubmission, e);
+			analysisSubmission.setAnalysisState(AnalysisState.ERROR);
+			Future<AnalysisSubmission> submission = new AsyncResult<>(
+					analysisSubmissionRepository.save(analysisSubmission));
+			if (analysisSubmission.getEmailPipelineResultError()) {
+				emailController.sendPipelineStatusEmail(analysisSubmission);
+			}
+			return submission;
+		}
+	}
+
+	/**
+	 * Check whether a running {@link AnalysisSubmission} is due to be checked
+	 *
+	 * @param analysisSubmissionId the id of the {@link AnalysisSubmission}
+	 * @param now                  the current time in milliseconds
+	 * @return true if the submission should be checked
+	 */
+	private boolean isDueForCheck(Long analysisSubmissionId, long now) {
+		MonitorBackoff backoff = monitorBackoff.get(analysisSubmissionId);
+		return backoff == null || backoff.nextCheck <= now;
+	}
+
+	/**
+	 * Decide when to next check an {@link AnalysisSubmission}. A submission
+	 * whose progress has changed is checked again on the next sweep. Each time
+	 * it's found unchanged the delay doubles, up to the maximum delay.
+	 *
+	 * @param analysisSubmission the checked {@link AnalysisSubmission}
+	 * @param workflowStatus     the status of the submission's workflow
+	 */
+	private void updateBackoff(AnalysisSubmission analysisSubmission, GalaxyWorkflowStatus workflowStatus) {
+		Long id = analysisSubmission.getId();
+
+		if (!AnalysisState.RUNNING.equals(analysisSubmission.getAnalysisState())) {
+			monitorBackoff.remove(id);
+			return;
+		}
+
+		MonitorBackoff previous = monitorBackoff.get(id);
+		Duration delay = Duration.ZERO;
+		if (previous != null && previous.state == workflowStatus.getState()
+				&& Float.compare(previous.proportionComplete, workflowStatus.getProportionComplete()) == 0) {
+			delay = previous.delay.isZero() ? monitorInitialBackoff : previous.delay.multipliedBy(2);
+			if (delay.compareTo(monitorMaxBackoff) > 0) {
+				delay = monitorMaxBackoff;
+			}
+		}
+
+		monitorBackoff.put(id, new MonitorBackoff(workflowStatus, delay));
+	}
+
+	/**
+	 * Get how long the last check of running analyses took
+	 *
+	 * @return the duration of the last sweep in milliseconds
+	 */
+	public long getLastMonitorSweepMillis() {
+		return lastMonitorSweepMillis;
+	}
+
+	/**
+	 * Get the number of running analyses checked in the last sweep
+	 *
+	 * @return the number of analyses checked
+	 */
+	public int getLastMonitorSweepChecked() {
+		return lastMonitorSweepChecked;
+	}
+
+	/**
+	 * Get the number of running analyses skipped in the last sweep because
+	 * they weren't due to be checked
+	 *
+	 * @return the number of analyses skipped
+	 */
+	public int getLastMonitorSweepSkipped() {
+		return lastMonitorSweepSkipped;
+	}
+
 	/**
 	 * Handle async saving of {@link JobError} objects for a {@link AnalysisSubmission}
 	 * to database through {@link JobErrorRepository} if there are any
@@ -348,4 +534,22 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 			return cleanedSubmissions;
 		}
 	}
+
+	/**
+	 * The last status seen for a running {@link AnalysisSubmission} and when
+	 * to check it next.
+	 */
+	private static final class MonitorBackoff {
+		private final GalaxyWorkflowState state;
+		private final float proportionComplete;
+		private final Duration delay;
+		private final long nextCheck;
+
+		MonitorBackoff(GalaxyWorkflowStatus workflowStatus, Duration delay) {
+			this.state = workflowStatus.getState();
+			this.proportionComplete = workflowStatus.getProportionComplete();
+			this.delay = delay;
+			this.nextCheck = System.currentTimeMillis() + delay.toMillis();
+		}
+	}
 }
@@ -0,0 +1,159 @@
+package ca.corefacility.bioinformatics.irida.service.impl;
+
+import java.util.*;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import ca.corefacility.bioinformatics.irida.model.cart.CartSample;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.repositories.cart.CartSampleRepository;
+import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+import ca.corefacility.bioinformatics.irida.service.CartService;
+
+/**
+ * Service for the cart of the currently logged in {@link User}, stored in the
+ * database as {@link CartSample}s.
+ */
+@Service
+public class CartServiceImpl implements CartService {
+	private final CartSampleRepository cartSampleRepository;
+	private final UserRepository userRepository;
+
+	@Autowired
+	public CartServiceImpl(CartSampleRepository cartSampleRepository, UserRepository userRepository) {
+		this.cartSampleRepository = cartSampleRepository;
+		this.userRepository = userRepository;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#project, 'canReadProject')")
+	public int addSamplesToCart(Project project, Collection<Long> sampleIds) {
+		if (sampleIds.isEmpty()) {
+			return 0;
+		}
+		return cartSampleRepository.addSamplesToCart(getCurrentUserId(), project.getId(), sampleIds);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasRole('ROLE_USER')")
+	public Set<Long> getSampleIdsInCart(Collection<Long> sampleIds) {
+		if (sampleIds.isEmpty()) {
+			return new HashSet<>();
+		}
+		return new HashSet<>(cartSampleRepository.getSampleIdsInCart(getCurrentUserId(), sampleIds));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasRole('ROLE_USER')")
+	public Set<String> getSampleNamesInCart(Collection<String> sampleNames) {
+		if (sampleNames.isEmpty()) {
+			return new HashSet<>();
+		}
+		return new HashSet<>(cartSampleRepository.getSampleNamesInCart(getCurrentUserId(), sampleNames));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasRole('ROLE_USER')")
+	public List<CartSample> getSamplesInCartForProject(Long projectId) {
+		return cartSampleRepository.findByUserIdAndProjectIdOrderBySampleName(getCurrentUserId(), projectId);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasRole('ROLE_USER')")
+	public Set<Long> getProjectIdsInCart() {
+		return new HashSet<>(cartSampleRepository.getProjectIdsInCart(getCurrentUserId()));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasRole('ROLE_USER')")
+	public Long getProjectIdForSampleInCart(Long sampleId) {
+		CartSample cartSample = cartSampleRepository.findByUserIdAndSampleId(getCurrentUserId(), sampleId);
+		return cartSample != null ? cartSample.getProjectId() : null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasRole('ROLE_USER')")
+	public long countSamplesInCart() {
+		return cartSampleRepository.countByUserId(getCurrentUserId());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	@PreAuthorize("hasRole('ROLE_USER')")
+	public boolean removeSampleFromCart(Long sampleId) {
+		return cartSampleRepository.removeSample(getCurrentUserId(), sampleId) > 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	@PreAuthorize("hasRole('ROLE_USER')")
+	public int removeProjectFromCart(Long projectId) {
+		return cartSampleRepository.removeProject(getCurrentUserId(), projectId);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	@PreAuthorize("hasRole('ROLE_USER')")
+	public void emptyCart() {
+		cartSampleRepository.empty(getCurrentUserId());
+	}
+
+	/**
+	 * Get the id of the logged in {@link User}. The user is only read from the
+	 * database if the authentication doesn't already hold it.
+	 *
+	 * @return the id of the logged in user
+	 */
+	private Long getCurrentUserId() {
+		Authentication authentication = SecurityContextHolder.getContext()
+				.getAuthentication();
+		if (authentication.getPrincipal() instanceof User) {
+			return ((User) authentication.getPrincipal()).getId();
+		}
+		return userRepository.loadUserByUsername(authentication.getName())
+				.getId();
+	}
+}
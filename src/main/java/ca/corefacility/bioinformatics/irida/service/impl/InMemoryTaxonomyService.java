@@ -3,14 +3,15 @@ package ca.corefacility.bioinformatics.irida.service.impl;
 import ca.corefacility.bioinformatics.irida.service.TaxonomyService;
 import ca.corefacility.bioinformatics.irida.util.TreeNode;
 import com.google.common.base.Strings;
-import org.apache.jena.atlas.lib.StrUtils;
-import org.apache.jena.query.*;
 import org.apache.jena.rdf.model.Model;
-import org.apache.jena.rdf.model.NodeIterator;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.ResIterator;
 import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.vocabulary.RDFS;
-import org.apache.lucene.queryparser.classic.QueryParser;
 
 import java.nio.file.Path;
 import java.util.*;
@@ -18,27 +19,71 @@ import java.util.Map.Entry;
 
 
 /**
- * A {@link TaxonomyService} leveraging Apache Jena's in memory storage service
- * and Apache Lucene's text searching abilities.
+ * A {@link TaxonomyService} that keeps an index of the taxonomy in memory. The
+ * taxonomy file is read with Apache Jena when the service is created, then
+ * reduced to the label and parent of each term, and an index of the three
+ * character sequences in each label. The Jena model isn't kept, and searches
+ * only look at the terms that contain every sequence in the search term.
  */
 public class InMemoryTaxonomyService implements TaxonomyService {
-	private Model model;
-	private Dataset dataset;
-
-	// query to select all resources that are a subclass of the specified
-	// parent that have the given word in their label
-	private final static String LABEL_SEARCH_QUERY = StrUtils.strjoinNL(
-			"PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>", "SELECT * ",
-			"WHERE { ?s rdfs:subClassOf* ?parent;", "rdfs:label ?label.", "FILTER regex(?label, ?term, 'i')", "}");
+	private static final int NGRAM_LENGTH = 3;
 
 	private final String ROOT_IRI = "http://purl.obolibrary.org/obo/NCBITaxon_2";
 
-	public InMemoryTaxonomyService(Path taxonomyFileLocation) {
-		dataset = DatasetFactory.create();
+	// the label of each term, and the same label in lower case for matching
+	private final String[] labels;
+	private final String[] lowerCaseLabels;
+
+	// the index of the parent of each term, or -1 for a term without a parent
+	private final int[] parents;
+
+	// the terms under the root term, in order
+	private final int[] searchableTerms;
 
-		model = dataset.getDefaultModel();
+	// the terms under the root term that contain each sequence, in order
+	private final Map<String, int[]> ngramIndex;
+
+	public InMemoryTaxonomyService(Path taxonomyFileLocation) {
+		Model model = ModelFactory.createDefaultModel();
 		RDFDataMgr.read(model, taxonomyFileLocation.toString());
 
+		// number every labelled term
+		Map<Resource, Integer> termIds = new HashMap<>();
+		List<String> termLabels = new ArrayList<>();
+		ResIterator labelled = model.listSubjectsWithProperty(RDFS.label);
+		while (labelled.hasNext()) {
+			Resource resource = labelled.next();
+			if (resource.isURIResource()) {
+				termIds.put(resource, termLabels.size());
+				termLabels.add(resource.getProperty(RDFS.label)
+						.getObject()
+						.asLiteral()
+						.getString());
+			}
+		}
+
+		labels = termLabels.toArray(new String[0]);
+		lowerCaseLabels = new String[labels.length];
+		parents = new int[labels.length];
+		Arrays.fill(parents, -1);
+
+		for (Entry<Resource, Integer> term : termIds.entrySet()) {
+			int id = term.getValue();
+			lowerCaseLabels[id] = labels[id].toLowerCase();
+
+			StmtIterator subClassOf = model.listStatements(term.getKey(), RDFS.subClassOf, (RDFNode) null);
+			while (subClassOf.hasNext() && parents[id] == -1) {
+				Statement statement = subClassOf.next();
+				if (statement.getObject()
+						.isURIResource()) {
+					parents[id] = termIds.getOrDefault(statement.getResource(), -1);
+				}
+			}
+		}
+
+		Integer root = termIds.get(model.createResource(ROOT_IRI));
+		searchableTerms = root == null ? new int[0] : getDescendants(root);
+		ngramIndex = buildNgramIndex(searchableTerms);
 	}
 
 	/**
@@ -46,28 +91,21 @@ public class InMemoryTaxonomyService implements TaxonomyService {
 	 */
 	@Override
 	public Collection<TreeNode<String>> search(String searchTerm) {
-		HashMap<String, TreeNode<String>> visited = new HashMap<>();
+		HashMap<Integer, TreeNode<String>> visited = new HashMap<>();
 
 		Set<TreeNode<String>> visitedRoots = new HashSet<>();
 
 		if (!Strings.isNullOrEmpty(searchTerm)) {
-			ParameterizedSparqlString query = new ParameterizedSparqlString(LABEL_SEARCH_QUERY);
-
-			query.setLiteral("term", QueryParser.escape(searchTerm));
-			query.setIri("parent", ROOT_IRI);
-			Query q = query.asQuery();
-			QueryExecution qexec = QueryExecutionFactory.create(q, dataset);
-			ResultSet result = qexec.execSelect();
+			String term = searchTerm.toLowerCase();
 
-			while (result.hasNext()) {
-				QuerySolution next = result.next();
-
-				buildTrimmedResultTree(next.getResource("s"), searchTerm, visited);
+			for (int candidate : getCandidates(term)) {
+				if (lowerCaseLabels[candidate].contains(term)) {
+					buildTrimmedResultTree(candidate, term, visited);
+				}
 			}
 
 			// get all the roots
-			for (Entry<String, TreeNode<String>> entry : visited.entrySet()) {
-				TreeNode<String> current = entry.getValue();
+			for (TreeNode<String> current : visited.values()) {
 				while (current.getParent() != null) {
 					current = current.getParent();
 				}
@@ -82,31 +120,56 @@ public class InMemoryTaxonomyService implements TaxonomyService {
 	}
 
 	/**
-	 * Build a result tree from a searched resource. This search will look
-	 * upwards in the tree until there are no more parent nodes.
+	 * Get the terms that might contain a search term. For search terms at
+	 * least as long as the indexed sequences, these are the terms that have
+	 * every sequence in the search term. Shorter search terms have to check
+	 * every term.
+	 *
+	 * @param term
+	 *            the lower case search term
+	 * @return the terms to check for the search term
+	 */
+	private int[] getCandidates(String term) {
+		if (term.length() < NGRAM_LENGTH) {
+			return searchableTerms;
+		}
+
+		int[] candidates = null;
+		for (String ngram : getNgrams(term)) {
+			int[] terms = ngramIndex.get(ngram);
+			if (terms == null) {
+				return new int[0];
+			}
+
+			candidates = candidates == null ? terms : intersect(candidates, terms);
+		}
+
+		return candidates;
+	}
+
+	/**
+	 * Build a result tree from a searched term. This search will look upwards
+	 * in the tree until there are no more parent nodes.
 	 *
-	 * @param resource
-	 *            The resource to start from
+	 * @param term
+	 *            The term to start from
 	 * @param searchTerm
-	 *            The search term that must be included
+	 *            The lower case search term that must be included
 	 * @param visited
 	 *            A map of previously visited nodes.
-	 * @return
+	 * @return the {@link TreeNode} for the term
 	 */
-	private TreeNode<String> buildTrimmedResultTree(Resource resource, String searchTerm,
-			Map<String, TreeNode<String>> visited) {
+	private TreeNode<String> buildTrimmedResultTree(int term, String searchTerm, Map<Integer, TreeNode<String>> visited) {
 		TreeNode<String> treeNode;
-		String resourceURI = resource.getURI();
 
-		if (visited.containsKey(resourceURI)) {
-			treeNode = visited.get(resourceURI);
+		if (visited.containsKey(term)) {
+			treeNode = visited.get(term);
 		} else {
-			String elementName = resource.getProperty(RDFS.label).getObject().asLiteral().getString();
-			treeNode = new TreeNode<>(elementName);
-			visited.put(resourceURI, treeNode);
+			treeNode = new TreeNode<>(labels[term]);
+			visited.put(term, treeNode);
 
-			Resource matchingParent = getMatchingParent(resource, searchTerm);
-			if (matchingParent != null) {
+			int matchingParent = getMatchingParent(term, searchTerm);
+			if (matchingParent != -1) {
 				TreeNode<String> parent = buildTrimmedResultTree(matchingParent, searchTerm, visited);
 				parent.addChild(treeNode);
 				treeNode.setParent(parent);
@@ -117,30 +180,129 @@ public class InMemoryTaxonomyService implements TaxonomyService {
 	}
 
 	/**
-	 * Get a parent node with the matching search term
+	 * Get a parent term with the matching search term
 	 *
-	 * @param resource
-	 *            The resource to start walking up from
+	 * @param term
+	 *            The term to start walking up from
 	 * @param searchTerm
-	 *            The search term required
-	 * @return A parent of the given node with the given search term in the
-	 *         label.
+	 *            The lower case search term required
+	 * @return A parent of the given term with the given search term in the
+	 *         label, or -1 if there isn't one.
 	 */
-	private Resource getMatchingParent(Resource resource, String searchTerm) {
-		NodeIterator subClasses = model.listObjectsOfProperty(resource, RDFS.subClassOf);
+	private int getMatchingParent(int term, String searchTerm) {
+		int parent = parents[term];
+		while (parent != -1 && !lowerCaseLabels[parent].contains(searchTerm)) {
+			parent = parents[parent];
+		}
 
-		if (subClasses.hasNext()) {
-			Resource parentNode = subClasses.next().asResource();
-			String elementName = parentNode.getProperty(RDFS.label).getObject().asLiteral().getString();
+		return parent;
+	}
 
-			if (elementName.toLowerCase().contains(searchTerm.toLowerCase())) {
-				return parentNode;
-			} else {
-				return getMatchingParent(parentNode, searchTerm);
+	/**
+	 * Get a term and every term below it
+	 *
+	 * @param root
+	 *            the term to start from
+	 * @return the term and its descendants, in order
+	 */
+	private int[] getDescendants(int root) {
+		List<List<Integer>> children = new ArrayList<>(labels.length);
+		for (int i = 0; i < labels.length; i++) {
+			children.add(new ArrayList<>());
+		}
+		for (int i = 0; i < labels.length; i++) {
+			if (parents[i] != -1) {
+				children.get(parents[i])
+						.add(i);
+			}
+		}
+
+		BitSet descendants = new BitSet(labels.length);
+		Deque<Integer> toVisit = new ArrayDeque<>();
+		toVisit.push(root);
+		while (!toVisit.isEmpty()) {
+			int term = toVisit.pop();
+			if (!descendants.get(term)) {
+				descendants.set(term);
+				children.get(term)
+						.forEach(toVisit::push);
+			}
+		}
+
+		return descendants.stream()
+				.toArray();
+	}
+
+	/**
+	 * Index the terms by each of the sequences in their labels
+	 *
+	 * @param terms
+	 *            the terms to index, in order
+	 * @return the terms containing each sequence, in order
+	 */
+	private Map<String, int[]> buildNgramIndex(int[] terms) {
+		Map<String, List<Integer>> index = new HashMap<>();
+		for (int term : terms) {
+			for (String ngram : getNgrams(lowerCaseLabels[term])) {
+				index.computeIfAbsent(ngram, k -> new ArrayList<>())
+						.add(term);
 			}
 		}
 
-		return null;
+		Map<String, int[]> ngramIndex = new HashMap<>(index.size());
+		for (Entry<String, List<Integer>> entry : index.entrySet()) {
+			ngramIndex.put(entry.getKey(), entry.getValue()
+					.stream()
+					.mapToInt(Integer::intValue)
+					.toArray());
+		}
+
+		return ngramIndex;
+	}
+
+	/**
+	 * Get the distinct sequences of {@link #NGRAM_LENGTH} characters in a
+	 * string
+	 *
+	 * @param value
+	 *            the string
+	 * @return the sequences in the string
+	 */
+	private static Set<String> getNgrams(String value) {
+		Set<String> ngrams = new HashSet<>();
+		for (int i = 0; i + NGRAM_LENGTH <= value.length(); i++) {
+			ngrams.add(value.substring(i, i + NGRAM_LENGTH));
+		}
+
+		return ngrams;
+	}
+
+	/**
+	 * Get the terms in both of two ordered lists of terms
+	 *
+	 * @param a
+	 *            the first terms, in order
+	 * @param b
+	 *            the second terms, in order
+	 * @return the terms in both lists, in order
+	 */
+	private static int[] intersect(int[] a, int[] b) {
+		int[] both = new int[Math.min(a.length, b.length)];
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < a.length && j < b.length) {
+			if (a[i] < b[j]) {
+				i++;
+			} else if (a[i] > b[j]) {
+				j++;
+			} else {
+				both[count++] = a[i];
+				i++;
+				j++;
+			}
+		}
 
+		return Arrays.copyOf(both, count);
 	}
 }
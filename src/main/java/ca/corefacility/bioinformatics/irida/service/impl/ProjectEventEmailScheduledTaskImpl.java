@@ -3,54 +3,60 @@ package ca.corefacility.bioinformatics.irida.service.impl;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
 import org.springframework.scheduling.support.CronSequenceGenerator;
 import org.springframework.stereotype.Component;
 
 import ca.corefacility.bioinformatics.irida.model.event.ProjectEvent;
-import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
-import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.service.EmailController;
 import ca.corefacility.bioinformatics.irida.service.ProjectEventEmailScheduledTask;
 import ca.corefacility.bioinformatics.irida.service.ProjectEventService;
-import ca.corefacility.bioinformatics.irida.service.ProjectService;
-import ca.corefacility.bioinformatics.irida.service.user.UserService;
 
 /**
  * Implementation of {@link ProjectEventEmailScheduledTask} which sends emails
- * to users when they have new events
+ * to users when they have new events. The events for all users are read in a
+ * single query, and the emails are sent in parallel on a bounded executor.
  */
 @Component
 public class ProjectEventEmailScheduledTaskImpl implements ProjectEventEmailScheduledTask {
 
 	private static final Logger logger = LoggerFactory.getLogger(ProjectEventEmailScheduledTaskImpl.class);
 
-	UserService userService;
-
 	ProjectEventService eventService;
 
 	EmailController emailController;
 
-	ProjectService projectService;
+	private final Executor emailExecutor;
+
+	private final int sendAttempts;
+
+	private final long retryDelaySeconds;
 
 	@Value("${irida.scheduled.subscription.cron}")
 	private String scheduledCronString = "0 0 0 * * *";
 
 	@Autowired
-	public ProjectEventEmailScheduledTaskImpl(UserService userService, ProjectEventService eventService,
-			ProjectService projectService, EmailController emailController) {
+	public ProjectEventEmailScheduledTaskImpl(ProjectEventService eventService, EmailController emailController,
+			@Qualifier("subscriptionEmailExecutor") Executor emailExecutor,
+			@Value("${irida.scheduled.subscription.send.attempts:3}") int sendAttempts,
+			@Value("${irida.scheduled.subscription.retry.delay:30}") long retryDelaySeconds) {
 		super();
-		this.userService = userService;
 		this.eventService = eventService;
-		this.projectService = projectService;
 		this.emailController = emailController;
+		this.emailExecutor = emailExecutor;
+		this.sendAttempts = sendAttempts;
+		this.retryDelaySeconds = retryDelaySeconds;
 	}
 
 	/**
@@ -59,31 +65,56 @@ public class ProjectEventEmailScheduledTaskImpl implements ProjectEventEmailSche
 	@Override
 	public void emailUserTasks() {
 		if (emailController.isMailConfigured()) {
-			logger.trace("Checking for users with subscriptions");
-			List<User> usersWithEmailSubscriptions = userService.getUsersWithEmailSubscriptions();
-
 			Date lastTime = getPriorDateFromCronString(scheduledCronString);
 
-			logger.trace("Getting events after " + lastTime);
+			logger.trace("Getting subscribed events after " + lastTime);
+			Map<User, List<ProjectEvent>> subscribedEvents = eventService.getSubscribedEventsAfterDate(lastTime);
 
-			for (User user : usersWithEmailSubscriptions) {
-				logger.trace("Checking for events for user " + user.getUsername());
-				List<ProjectEvent> eventsToEmailToUser = eventService.getEventsForUserAfterDate(user, lastTime);
+			logger.debug("Sending subscription emails to " + subscribedEvents.size() + " users");
 
-				// Get the set of projects the user is subscribed to
-				Set<Project> projectsWithSubscription = projectService.getProjectsForUser(user).stream().filter(j -> {
-					ProjectUserJoin puj = (ProjectUserJoin) j;
-					return puj.isEmailSubscription();
-				}).map(j -> j.getSubject()).collect(Collectors.toSet());
+			// emails are rendered and sent on the email executor. wait for
+			// them all so runs of this task don't overlap.
+			CompletableFuture<?>[] sends = subscribedEvents.entrySet()
+					.stream()
+					.map(e -> CompletableFuture.runAsync(() -> sendSubscriptionEmail(e.getKey(), e.getValue()),
+							emailExecutor))
+					.toArray(CompletableFuture[]::new);
 
-				// filter the events to ensure the user is subscribed
-				eventsToEmailToUser = eventsToEmailToUser.stream()
-						.filter(e -> projectsWithSubscription.contains(e.getProject())).collect(Collectors.toList());
+			CompletableFuture.allOf(sends)
+					.join();
+		}
+	}
+
+	/**
+	 * Send a subscription email to a {@link User}, retrying if the mail server
+	 * couldn't be reached. A failure is logged rather than thrown so that one
+	 * user's email doesn't stop the others from being sent.
+	 *
+	 * @param user   the {@link User} to email
+	 * @param events the {@link ProjectEvent}s to send to the user
+	 */
+	private void sendSubscriptionEmail(User user, List<ProjectEvent> events) {
+		for (int attempt = 1; attempt <= sendAttempts; attempt++) {
+			try {
+				logger.trace("Sending subscription email to " + user.getUsername() + " with " + events.size()
+						+ " events");
+				emailController.sendSubscriptionUpdateEmail(user, events);
+				return;
+			} catch (MailException e) {
+				if (attempt == sendAttempts) {
+					logger.error("Failed to send subscription email to " + user.getUsername() + " after " + attempt
+							+ " attempts", e);
+					return;
+				}
 
-				if (!eventsToEmailToUser.isEmpty()) {
-					logger.trace("Sending subscription email to " + user.getUsername() + " with "
-							+ eventsToEmailToUser.size() + " events");
-					emailController.sendSubscriptionUpdateEmail(user, eventsToEmailToUser);
+				logger.warn("Failed to send subscription email to " + user.getUsername() + ", retrying in "
+						+ retryDelaySeconds * attempt + " seconds", e);
+				try {
+					TimeUnit.SECONDS.sleep(retryDelaySeconds * attempt);
+				} catch (InterruptedException ie) {
+					Thread.currentThread()
+							.interrupt();
+					return;
 				}
 			}
 		}
@@ -1,7 +1,10 @@
 package ca.corefacility.bioinformatics.irida.service.impl;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.transaction.Transactional;
 import javax.validation.Validator;
@@ -73,4 +76,19 @@ public class ProjectEventServiceImpl extends CRUDServiceImpl<Long, ProjectEvent>
 		return eventsForUserAfterDate;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@PreAuthorize("hasRole('ROLE_ADMIN')")
+	@Transactional
+	public Map<User, List<ProjectEvent>> getSubscribedEventsAfterDate(Date beginning) {
+		Map<User, List<ProjectEvent>> subscribedEvents = new LinkedHashMap<>();
+		for (Object[] row : repository.getSubscribedEventsAfterDate(beginning)) {
+			subscribedEvents.computeIfAbsent((User) row[0], u -> new ArrayList<>())
+					.add((ProjectEvent) row[1]);
+		}
+
+		return subscribedEvents;
+	}
+
 }
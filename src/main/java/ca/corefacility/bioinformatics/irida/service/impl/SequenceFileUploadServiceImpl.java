@@ -0,0 +1,573 @@
+package ca.corefacility.bioinformatics.irida.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
+import ca.corefacility.bioinformatics.irida.exceptions.StorageException;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFileUpload;
+import ca.corefacility.bioinformatics.irida.service.SequenceFileUploadService;
+
+/**
+ * Keeps uploads in an {@code uploads} directory under the sequence file
+ * directory. Each upload has a directory holding the file being uploaded, a
+ * description of the upload, and a marker for each part that has been
+ * received. Keeping everything on disk lets any server sharing the sequence
+ * file directory receive the parts of an upload.
+ * <p>
+ * The sha256 checksum of the file is kept up to date as parts arrive. A part
+ * that arrives in order is added to the checksum while it's being written, so
+ * a client sending parts one after another has its file read only once. Parts
+ * that arrive out of order, or that were received by another server, are read
+ * back from the file once the parts before them have arrived.
+ * <p>
+ * The running checksum is only kept in memory by the server receiving the
+ * parts, so the checksum of each part is kept in its marker. When an upload
+ * is completed the parts in the running checksum are compared to the markers,
+ * and if a part was sent again to another server the checksum is calculated
+ * again from the file.
+ */
+@Service
+public class SequenceFileUploadServiceImpl implements SequenceFileUploadService {
+	private static final Logger logger = LoggerFactory.getLogger(SequenceFileUploadServiceImpl.class);
+
+	public static final long DEFAULT_PART_SIZE = 64L * 1024 * 1024;
+	public static final int DEFAULT_EXPIRY_HOURS = 24;
+	public static final int MAX_PARTS = 10000;
+
+	private static final String UPLOADS_DIRECTORY = "uploads";
+	private static final String DESCRIPTION_FILE = "upload.properties";
+	private static final String PARTS_DIRECTORY = "parts";
+	private static final String FILE_DIRECTORY = "file";
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Path uploadsDirectory;
+	private final long defaultPartSize;
+	private final int expiryHours;
+
+	// running checksums of the uploads this server has received parts for
+	private final Map<String, UploadDigest> digests = new ConcurrentHashMap<>();
+
+	@Autowired
+	public SequenceFileUploadServiceImpl(@Qualifier("sequenceFileBaseDirectory") Path baseDirectory,
+			@Value("${file.upload.part.size:" + DEFAULT_PART_SIZE + "}") long defaultPartSize,
+			@Value("${file.upload.expiry:" + DEFAULT_EXPIRY_HOURS + "}") int expiryHours) {
+		this.uploadsDirectory = baseDirectory.resolve(UPLOADS_DIRECTORY);
+		this.defaultPartSize = defaultPartSize;
+		this.expiryHours = expiryHours;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@PreAuthorize("hasPermission(#sample, 'canUpdateSample')")
+	public SequenceFileUpload createUpload(Sample sample, String fileName, long size, Long partSize,
+			String expectedSha256) {
+		if (fileName == null || fileName.isEmpty() || fileName.contains("/") || fileName.contains("\\")
+				|| fileName.equals(".") || fileName.equals("..")) {
+			throw new IllegalArgumentException("[" + fileName + "] is not a valid file name.");
+		}
+		if (size < 0) {
+			throw new IllegalArgumentException("The size of the file must not be negative.");
+		}
+		long uploadPartSize = partSize != null ? partSize : defaultPartSize;
+		if (uploadPartSize <= 0) {
+			throw new IllegalArgumentException("The part size must be greater than 0.");
+		}
+
+		SequenceFileUpload upload = new SequenceFileUpload(UUID.randomUUID()
+				.toString(), sample.getId(), getCurrentUsername(), fileName, size, uploadPartSize, expectedSha256);
+		if (upload.getPartCount() > MAX_PARTS) {
+			throw new IllegalArgumentException(
+					"A file can be uploaded in at most " + MAX_PARTS + " parts, use a larger part size.");
+		}
+
+		Path directory = uploadsDirectory.resolve(upload.getUploadId());
+		try {
+			Files.createDirectories(directory.resolve(PARTS_DIRECTORY));
+			Files.createDirectory(directory.resolve(FILE_DIRECTORY));
+			Files.createFile(getFile(upload));
+			writeDescription(directory, upload);
+		} catch (IOException e) {
+			FileUtils.deleteQuietly(directory.toFile());
+			throw new StorageException("Could not create upload directory", e);
+		}
+
+		logger.debug("Started upload [" + upload.getUploadId() + "] of [" + fileName + "] (" + size
+				+ " bytes) to sample " + sample.getId() + " in " + upload.getPartCount() + " parts");
+		return upload;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@PreAuthorize("hasRole('ROLE_USER')")
+	public SequenceFileUpload readUpload(Long sampleId, String uploadId) throws EntityNotFoundException {
+		Path directory = getUploadDirectory(uploadId);
+		SequenceFileUpload upload;
+		try {
+			upload = readDescription(directory);
+			upload.setCompletedParts(readCompletedParts(directory));
+		} catch (NoSuchFileException e) {
+			throw new EntityNotFoundException("Upload [" + uploadId + "] does not exist.");
+		} catch (IOException e) {
+			throw new StorageException("Could not read upload [" + uploadId + "]", e);
+		}
+
+		// uploads are only visible to the user that started them
+		if (!upload.getSampleId()
+				.equals(sampleId) || !upload.getUsername()
+				.equals(getCurrentUsername())) {
+			throw new EntityNotFoundException("Upload [" + uploadId + "] does not exist.");
+		}
+
+		return upload;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@PreAuthorize("hasRole('ROLE_USER')")
+	public String writePart(SequenceFileUpload upload, int partNumber, InputStream body) throws IOException {
+		if (!upload.hasPart(partNumber)) {
+			throw new IllegalArgumentException(
+					"Part " + partNumber + " is not one of the " + upload.getPartCount() + " parts of the upload.");
+		}
+
+		Path directory = getUploadDirectory(upload.getUploadId());
+		Path partMarker = directory.resolve(PARTS_DIRECTORY)
+				.resolve(String.valueOf(partNumber));
+		long offset = upload.getPartOffset(partNumber);
+		long length = upload.getPartLength(partNumber);
+
+		UploadDigest uploadDigest = digests.computeIfAbsent(upload.getUploadId(), id -> new UploadDigest());
+		// a part sent again may not have the same content, so it's taken out of
+		// the checksum
+		if (Files.deleteIfExists(partMarker)) {
+			uploadDigest.replacePart(partNumber);
+		}
+
+		MessageDigest partDigest = newDigest();
+		UploadDigest.InOrderPart inOrderPart = uploadDigest.startPart(partNumber);
+
+		long written = 0;
+		try (FileChannel channel = FileChannel.open(getFile(upload), StandardOpenOption.WRITE)) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			while ((read = body.read(buffer)) != -1) {
+				if (written + read > length) {
+					throw new IllegalArgumentException(
+							"Part " + partNumber + " is longer than the expected " + length + " bytes.");
+				}
+
+				ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+				while (bytes.hasRemaining()) {
+					channel.write(bytes, offset + written + bytes.position());
+				}
+				written += read;
+
+				partDigest.update(buffer, 0, read);
+				if (inOrderPart != null) {
+					inOrderPart.digest.update(buffer, 0, read);
+				}
+			}
+		}
+
+		if (written != length) {
+			throw new IllegalArgumentException(
+					"Received " + written + " of the expected " + length + " bytes for part " + partNumber + ".");
+		}
+
+		String partSha256 = Hex.encodeHexString(partDigest.digest());
+
+		// write the marker somewhere else first so that it only appears once
+		// it's complete
+		Path tempMarker = Files.createTempFile(directory, PARTS_DIRECTORY, null);
+		Files.write(tempMarker, partSha256.getBytes(StandardCharsets.UTF_8));
+		Files.move(tempMarker, partMarker, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		upload.getCompletedParts()
+				.add(partNumber);
+
+		uploadDigest.finishPart(partNumber, inOrderPart, partSha256);
+		uploadDigest.tryCatchUp(upload, directory);
+
+		logger.trace("Received part " + partNumber + " of upload [" + upload.getUploadId() + "]");
+		return partSha256;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@PreAuthorize("hasRole('ROLE_USER')")
+	public Path completeUpload(SequenceFileUpload upload) {
+		Path directory = getUploadDirectory(upload.getUploadId());
+		try {
+			SortedSet<Integer> completedParts = readCompletedParts(directory);
+			upload.setCompletedParts(completedParts);
+			if (!upload.isComplete()) {
+				throw new IllegalArgumentException("Received " + completedParts.size() + " of the "
+						+ upload.getPartCount() + " parts of the upload, the upload can't be completed.");
+			}
+
+			Path file = getFile(upload);
+			if (Files.size(file) != upload.getSize()) {
+				throw new StorageException(
+						"Upload [" + upload.getUploadId() + "] is " + Files.size(file) + " bytes, expected "
+								+ upload.getSize());
+			}
+
+			String sha256 = digests.computeIfAbsent(upload.getUploadId(), id -> new UploadDigest())
+					.complete(upload, directory);
+			digests.remove(upload.getUploadId());
+			if (sha256 == null) {
+				// parts this server added to the checksum were sent again to
+				// another server, so read the whole file back
+				logger.debug("Parts of upload [" + upload.getUploadId()
+						+ "] were replaced on another server, calculating checksum from the file");
+				sha256 = new UploadDigest().complete(upload, directory);
+				if (sha256 == null) {
+					throw new StorageException(
+							"Parts of upload [" + upload.getUploadId() + "] changed while it was being completed");
+				}
+			}
+
+			if (upload.getExpectedSha256() != null && !upload.getExpectedSha256()
+					.equalsIgnoreCase(sha256)) {
+				throw new IllegalArgumentException("The checksum of the uploaded file [" + sha256
+						+ "] doesn't match the expected checksum [" + upload.getExpectedSha256() + "].");
+			}
+
+			upload.setSha256(sha256);
+			logger.debug("Completed upload [" + upload.getUploadId() + "] with checksum " + sha256);
+			return file;
+		} catch (IOException e) {
+			throw new StorageException("Could not complete upload [" + upload.getUploadId() + "]", e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@PreAuthorize("hasRole('ROLE_USER')")
+	public void removeUpload(SequenceFileUpload upload) {
+		digests.remove(upload.getUploadId());
+		FileUtils.deleteQuietly(getUploadDirectory(upload.getUploadId()).toFile());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void removeExpiredUploads() {
+		if (!Files.isDirectory(uploadsDirectory)) {
+			return;
+		}
+
+		FileTime expiry = FileTime.from(Instant.now()
+				.minus(expiryHours, ChronoUnit.HOURS));
+		try (Stream<Path> uploads = Files.list(uploadsDirectory)) {
+			uploads.forEach(directory -> {
+				try {
+					// uploads that are still receiving parts keep their
+					// directory's modified time current
+					if (Files.getLastModifiedTime(directory.resolve(PARTS_DIRECTORY))
+							.compareTo(expiry) < 0) {
+						logger.debug("Removing expired upload [" + directory + "]");
+						digests.remove(directory.getFileName()
+								.toString());
+						FileUtils.deleteQuietly(directory.toFile());
+					}
+				} catch (NoSuchFileException e) {
+					FileUtils.deleteQuietly(directory.toFile());
+				} catch (IOException e) {
+					logger.warn("Could not check upload [" + directory + "] for expiry", e);
+				}
+			});
+		} catch (IOException e) {
+			logger.error("Could not list uploads in [" + uploadsDirectory + "]", e);
+		}
+	}
+
+	/**
+	 * Get the directory of an upload, making sure the upload id can't be used
+	 * to reach anything outside of the uploads directory.
+	 *
+	 * @param uploadId the id of the upload
+	 * @return the upload's directory
+	 */
+	private Path getUploadDirectory(String uploadId) {
+		try {
+			if (UUID.fromString(uploadId)
+					.toString()
+					.equals(uploadId)) {
+				return uploadsDirectory.resolve(uploadId);
+			}
+		} catch (IllegalArgumentException e) {
+			logger.trace("Upload id [" + uploadId + "] is not a UUID");
+		}
+		throw new EntityNotFoundException("Upload [" + uploadId + "] does not exist.");
+	}
+
+	private Path getFile(SequenceFileUpload upload) {
+		return uploadsDirectory.resolve(upload.getUploadId())
+				.resolve(FILE_DIRECTORY)
+				.resolve(upload.getFileName());
+	}
+
+	private static SortedSet<Integer> readCompletedParts(Path directory) throws IOException {
+		SortedSet<Integer> parts = new TreeSet<>();
+		try (DirectoryStream<Path> markers = Files.newDirectoryStream(directory.resolve(PARTS_DIRECTORY))) {
+			for (Path marker : markers) {
+				parts.add(Integer.valueOf(marker.getFileName()
+						.toString()));
+			}
+		}
+		return parts;
+	}
+
+	private static void writeDescription(Path directory, SequenceFileUpload upload) throws IOException {
+		Properties description = new Properties();
+		description.setProperty("sampleId", upload.getSampleId()
+				.toString());
+		description.setProperty("username", upload.getUsername());
+		description.setProperty("fileName", upload.getFileName());
+		description.setProperty("size", String.valueOf(upload.getSize()));
+		description.setProperty("partSize", String.valueOf(upload.getPartSize()));
+		description.setProperty("createdDate", String.valueOf(upload.getCreatedDate()
+				.getTime()));
+		if (upload.getExpectedSha256() != null) {
+			description.setProperty("expectedSha256", upload.getExpectedSha256());
+		}
+
+		try (OutputStream out = Files.newOutputStream(directory.resolve(DESCRIPTION_FILE))) {
+			description.store(out, null);
+		}
+	}
+
+	private static SequenceFileUpload readDescription(Path directory) throws IOException {
+		Properties description = new Properties();
+		try (Reader reader = Files.newBufferedReader(directory.resolve(DESCRIPTION_FILE), StandardCharsets.ISO_8859_1)) {
+			description.load(reader);
+		}
+
+		SequenceFileUpload upload = new SequenceFileUpload(directory.getFileName()
+				.toString(), Long.valueOf(description.getProperty("sampleId")), description.getProperty("username"),
+				description.getProperty("fileName"), Long.parseLong(description.getProperty("size")),
+				Long.parseLong(description.getProperty("partSize")), description.getProperty("expectedSha256"));
+		upload.setCreatedDate(new Date(Long.parseLong(description.getProperty("createdDate"))));
+		return upload;
+	}
+
+	private static String getCurrentUsername() {
+		return SecurityContextHolder.getContext()
+				.getAuthentication()
+				.getName();
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	private static MessageDigest copyDigest(MessageDigest digest) {
+		try {
+			return (MessageDigest) digest.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException("SHA-256 digest can't be copied", e);
+		}
+	}
+
+	/**
+	 * The checksum of the parts at the start of an upload that have all been
+	 * received.
+	 */
+	private static class UploadDigest {
+		private MessageDigest digest = newDigest();
+		// the first part that isn't in the checksum yet
+		private int nextPart = 1;
+		// the checksum of each part as it was added to the checksum
+		private final Map<Integer, String> partSha256s = new HashMap<>();
+		// incremented whenever a part already in the checksum is sent again
+		private int generation = 0;
+
+		// only one thread reads parts back at a time
+		private final ReentrantLock catchUpLock = new ReentrantLock();
+
+		/**
+		 * A copy of the checksum a part that arrived in order is being added
+		 * to while it's written.
+		 */
+		private static class InOrderPart {
+			private final MessageDigest digest;
+			private final int generation;
+
+			private InOrderPart(MessageDigest digest, int generation) {
+				this.digest = digest;
+				this.generation = generation;
+			}
+		}
+
+		/**
+		 * Start writing a part.
+		 *
+		 * @return a copy of the checksum to add the part to as it's written if
+		 *         it's the next part of the checksum, otherwise null
+		 */
+		private synchronized InOrderPart startPart(int partNumber) {
+			if (partNumber == nextPart) {
+				return new InOrderPart(copyDigest(digest), generation);
+			}
+			return null;
+		}
+
+		private synchronized void finishPart(int partNumber, InOrderPart inOrderPart, String partSha256) {
+			if (inOrderPart != null && inOrderPart.generation == generation && partNumber == nextPart) {
+				digest = inOrderPart.digest;
+				partSha256s.put(partNumber, partSha256);
+				nextPart++;
+			}
+		}
+
+		private synchronized void replacePart(int partNumber) {
+			if (partNumber < nextPart) {
+				digest = newDigest();
+				partSha256s.clear();
+				nextPart = 1;
+			}
+			generation++;
+		}
+
+		/**
+		 * Add any parts that have been received after the checksum to it,
+		 * unless another thread is already doing so.
+		 */
+		private void tryCatchUp(SequenceFileUpload upload, Path directory) throws IOException {
+			if (catchUpLock.tryLock()) {
+				try {
+					catchUp(upload, directory);
+				} finally {
+					catchUpLock.unlock();
+				}
+			}
+		}
+
+		/**
+		 * Add the remaining parts to the checksum once they've all been
+		 * received.
+		 *
+		 * @return the checksum of the file, or null if a part in the checksum
+		 *         doesn't match the part that was received last
+		 */
+		private String complete(SequenceFileUpload upload, Path directory) throws IOException {
+			catchUpLock.lock();
+			try {
+				catchUp(upload, directory);
+				synchronized (this) {
+					if (nextPart <= upload.getPartCount()) {
+						throw new StorageException("Parts of upload [" + upload.getUploadId()
+								+ "] changed while it was being completed");
+					}
+					if (!matchesParts(upload, directory)) {
+						return null;
+					}
+					return Hex.encodeHexString(digest.digest());
+				}
+			} finally {
+				catchUpLock.unlock();
+			}
+		}
+
+		/**
+		 * Check that the parts in the checksum are the parts that were
+		 * received last, which may have been received by another server.
+		 */
+		private boolean matchesParts(SequenceFileUpload upload, Path directory) throws IOException {
+			Path parts = directory.resolve(PARTS_DIRECTORY);
+			for (int partNumber = 1; partNumber <= upload.getPartCount(); partNumber++) {
+				String partSha256;
+				try {
+					partSha256 = new String(Files.readAllBytes(parts.resolve(String.valueOf(partNumber))),
+							StandardCharsets.UTF_8);
+				} catch (NoSuchFileException e) {
+					return false;
+				}
+				if (!partSha256.equals(partSha256s.get(partNumber))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void catchUp(SequenceFileUpload upload, Path directory) throws IOException {
+			Path file = directory.resolve(FILE_DIRECTORY)
+					.resolve(upload.getFileName());
+			Path parts = directory.resolve(PARTS_DIRECTORY);
+
+			while (true) {
+				int partNumber;
+				InOrderPart part;
+				synchronized (this) {
+					partNumber = nextPart;
+					if (partNumber > upload.getPartCount() || !Files.exists(parts.resolve(String.valueOf(partNumber)))) {
+						return;
+					}
+					part = new InOrderPart(copyDigest(digest), generation);
+				}
+
+				// read the part back outside of the lock so other parts can
+				// keep arriving
+				MessageDigest partDigest = newDigest();
+				try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+						InputStream in = new BoundedInputStream(
+								Channels.newInputStream(channel.position(upload.getPartOffset(partNumber))),
+								upload.getPartLength(partNumber))) {
+					byte[] buffer = new byte[BUFFER_SIZE];
+					int read;
+					while ((read = in.read(buffer)) != -1) {
+						part.digest.update(buffer, 0, read);
+						partDigest.update(buffer, 0, read);
+					}
+				}
+
+				finishPart(partNumber, part, Hex.encodeHexString(partDigest.digest()));
+			}
+		}
+	}
+}
@@ -134,6 +134,30 @@ public class MetadataTemplateServiceImpl extends CRUDServiceImpl<Long, MetadataT
 		return fieldRepository.save(field);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	@PreAuthorize("permitAll()")
+	public Map<String, MetadataTemplateField> readOrCreateMetadataFieldsByLabel(Collection<String> labels) {
+		Map<String, MetadataTemplateField> fields = new HashMap<>();
+		if (labels.isEmpty()) {
+			return fields;
+		}
+
+		for (MetadataTemplateField field : fieldRepository.findMetadataFieldsByLabels(labels)) {
+			fields.put(field.getLabel(), field);
+		}
+
+		for (String label : labels) {
+			if (!fields.containsKey(label)) {
+				fields.put(label, saveMetadataField(new MetadataTemplateField(label, "text")));
+			}
+		}
+		return fields;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -197,6 +197,25 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 		return metadataEntryRepository.getMetadataForSample(sample);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#project, 'canReadProject')")
+	@Transactional(readOnly = true)
+	@Override
+	public Map<Long, Set<MetadataEntry>> getMetadataForSamplesInProject(Project project, Collection<Long> sampleIds) {
+		Map<Long, Set<MetadataEntry>> metadata = new HashMap<>();
+		if (sampleIds.isEmpty()) {
+			return metadata;
+		}
+
+		for (Object[] sampleEntry : metadataEntryRepository.getMetadataForSamplesInProject(project, sampleIds)) {
+			metadata.computeIfAbsent((Long) sampleEntry[0], id -> new HashSet<>())
+					.add((MetadataEntry) sampleEntry[1]);
+		}
+		return metadata;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -226,6 +245,98 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 	public Sample mergeSampleMetadata(Sample s, Set<MetadataEntry> metadataToAdd) {
 		Set<MetadataEntry> currentMetadata = getMetadataForSample(s);
 
+		metadataEntryRepository.deleteAll(mergeMetadata(s, currentMetadata, metadataToAdd));
+		metadataEntryRepository.saveAll(currentMetadata);
+
+		return read(s.getId());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#project, 'canReadProject')")
+	@PostFilter("hasPermission(filterObject, 'canUpdateSample')")
+	@Transactional(readOnly = true)
+	@Override
+	public List<Sample> getUpdatableSamplesByName(Project project, Collection<String> sampleNames) {
+		if (sampleNames.isEmpty()) {
+			return new ArrayList<>();
+		}
+		return sampleRepository.getSamplesByNameInProject(project, sampleNames);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@PreAuthorize("hasPermission(#metadata.keySet(), 'canUpdateSample')")
+	@Transactional
+	@Override
+	public void mergeSampleMetadata(Project project, Map<Sample, Set<MetadataEntry>> metadata) {
+		if (metadata.isEmpty()) {
+			return;
+		}
+
+		Map<Long, Set<MetadataEntry>> currentMetadata = getMetadataForSamplesInProject(project, metadata.keySet()
+				.stream()
+				.map(Sample::getId)
+				.collect(Collectors.toList()));
+
+		List<MetadataEntry> toDelete = new ArrayList<>();
+		List<MetadataEntry> toSave = new ArrayList<>();
+		metadata.forEach((sample, metadataToAdd) -> {
+			Set<MetadataEntry> sampleMetadata = currentMetadata.getOrDefault(sample.getId(), new HashSet<>());
+			toDelete.addAll(mergeMetadata(sample, sampleMetadata, metadataToAdd));
+			toSave.addAll(sampleMetadata);
+		});
+
+		metadataEntryRepository.deleteAll(toDelete);
+		metadataEntryRepository.saveAll(toSave);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#project, 'canReadProject')")
+	@Transactional(readOnly = true)
+	@Override
+	public Set<String> getSampleNamesInProject(Project project, Collection<String> sampleNames) {
+		if (sampleNames.isEmpty()) {
+			return new HashSet<>();
+		}
+		return new HashSet<>(sampleRepository.getSampleNamesInProject(project, sampleNames));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#project, 'canReadProject')")
+	@Transactional(readOnly = true)
+	@Override
+	public Map<Long, String> getSampleNamesById(Project project, Collection<Long> sampleIds) {
+		Map<Long, String> names = new LinkedHashMap<>();
+		if (sampleIds.isEmpty()) {
+			return names;
+		}
+
+		for (Object[] sample : psjRepository.getSampleIdsAndNamesInProject(project, sampleIds)) {
+			names.put((Long) sample[0], (String) sample[1]);
+		}
+		return names;
+	}
+
+	/**
+	 * Merge new metadata into the current metadata of a {@link Sample}.  New entries for a field the sample already
+	 * has are merged into the existing entry, or replace it if they are a different type of entry.
+	 *
+	 * @param s               the sample being updated
+	 * @param currentMetadata the sample's current metadata, which the new metadata is merged into
+	 * @param metadataToAdd   the new metadata
+	 * @return the replaced entries, which must be deleted
+	 */
+	private List<MetadataEntry> mergeMetadata(Sample s, Set<MetadataEntry> currentMetadata,
+			Set<MetadataEntry> metadataToAdd) {
+		List<MetadataEntry> replaced = new ArrayList<>();
+
 		// loop through entry set and see if it already exists
 		for (MetadataEntry newMetadataEntry : metadataToAdd) {
 			MetadataTemplateField field = newMetadataEntry.getField();
@@ -246,7 +357,7 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 				} else {
 					// if they are different types, I need to replace the metadata entry instead of merging
 					currentMetadata.remove(originalMetadataEntry);
-					metadataEntryRepository.delete(originalMetadataEntry);
+					replaced.add(originalMetadataEntry);
 
 					currentMetadata.add(newMetadataEntry);
 				}
@@ -255,9 +366,7 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 			}
 		}
 
-		metadataEntryRepository.saveAll(currentMetadata);
-
-		return read(s.getId());
+		return replaced;
 	}
 
 	/**
@@ -330,6 +439,16 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 		return psjRepository.getSamplesForProject(project);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#project, 'canReadProject')")
+	public Page<ProjectSampleJoin> getSamplesForProject(Project project, int page, int size) {
+		return psjRepository.getSamplesForProject(project, PageRequest.of(page, size));
+	}
+
 	@Transactional(readOnly = true)
 	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#project, 'canReadProject')")
 	@Override
@@ -544,13 +663,15 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 	public Collection<Sample> getSamplesForAnalysisSubmission(AnalysisSubmission submission) {
 		Set<SequencingObject> objectsForAnalysisSubmission = sequencingObjectRepository
 				.findSequencingObjectsForAnalysisSubmission(submission);
-		Set<Sample> samples = null;
-		try {
-			samples = objectsForAnalysisSubmission.stream()
-					.map(s -> ssoRepository.getSampleForSequencingObject(s)
-							.getSubject())
-					.collect(Collectors.toSet());
-		} catch (NullPointerException e) {
+		if (objectsForAnalysisSubmission.isEmpty()) {
+			logger.warn("No samples were found for submission " + submission.getId());
+			return new HashSet<>();
+		}
+
+		// load the samples for every object at once, the permission to read
+		// them is checked for the whole set by the post filter
+		Set<Sample> samples = ssoRepository.getSamplesForSequencingObjects(objectsForAnalysisSubmission);
+		if (samples.isEmpty()) {
 			logger.warn("No samples were found for submission " + submission.getId());
 		}
 		return samples;
@@ -1,43 +1,86 @@
 package ca.corefacility.bioinformatics.irida.service.remote;
 
-import ca.corefacility.bioinformatics.irida.model.joins.Join;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.SampleGenomeAssemblyJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.project.ProjectContentHash;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleContentHash;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.repositories.ProjectContentHashRepository;
+import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sample.SampleContentHashRepository;
 import ca.corefacility.bioinformatics.irida.service.GenomeAssemblyService;
-import ca.corefacility.bioinformatics.irida.service.ProjectService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 
-import org.apache.commons.lang3.builder.HashCodeBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Collection;
-import java.util.List;
-import java.util.Set;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Component used to compute a deep hashcode of a full project.  Looks at all project details, samples, metadata, and
  * sequencing data within the project to generate a full hashcode.
+ * <p>
+ * Each sample gets its own digest which is stored in the database, and the project hash is rolled up from the project
+ * itself and the digests of its samples.  When a sample, its metadata, sequencing objects or assemblies change, {@link
+ * ContentChangeListener} clears the digest for that sample and the hash of every project containing it after the
+ * transaction commits.  Requesting the hash of an unchanged project is then a single lookup, and only the samples that
+ * changed are read again when it has to be recalculated.
+ * <p>
+ * Clearing a stored hash also increases its version.  The version is read before the contents are, and a calculated
+ * hash is only stored if the version hasn't changed, so a hash of contents that changed while it was being calculated
+ * is returned to that caller but never stored.
  */
 @Component
 public class ProjectHashingService {
-	private ProjectService projectService;
+	private static final Logger logger = LoggerFactory.getLogger(ProjectHashingService.class);
+
+	private ProjectRepository projectRepository;
 	private SampleService sampleService;
 	private SequencingObjectService sequencingObjectService;
 	private GenomeAssemblyService assemblyService;
+	private SampleContentHashRepository sampleHashRepository;
+	private ProjectContentHashRepository projectHashRepository;
+	private TransactionTemplate invalidationTransaction;
 
 	@Autowired
-	public ProjectHashingService(ProjectService projectService, SampleService sampleService,
-			SequencingObjectService sequencingObjectService, GenomeAssemblyService assemblyService) {
-		this.projectService = projectService;
+	public ProjectHashingService(ProjectRepository projectRepository, SampleService sampleService,
+			SequencingObjectService sequencingObjectService, GenomeAssemblyService assemblyService,
+			SampleContentHashRepository sampleHashRepository, ProjectContentHashRepository projectHashRepository,
+			PlatformTransactionManager transactionManager) {
+		this.projectRepository = projectRepository;
 		this.sampleService = sampleService;
 		this.sequencingObjectService = sequencingObjectService;
 		this.assemblyService = assemblyService;
+		this.sampleHashRepository = sampleHashRepository;
+		this.projectHashRepository = projectHashRepository;
+
+		this.invalidationTransaction = new TransactionTemplate(transactionManager);
+		this.invalidationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
 	}
 
 	/**
@@ -47,52 +90,275 @@ public class ProjectHashingService {
 	 * @return the computed hashsum
 	 */
 	@PreAuthorize("hasPermission(#project, 'canReadProject')")
+	@Transactional
 	public Integer getProjectHash(Project project) {
+		Optional<ProjectContentHash> stored = projectHashRepository.findById(project.getId());
+		if (stored.isPresent() && stored.get().getProjectHash() != null) {
+			return stored.get().getProjectHash();
+		}
+		Long version = stored.map(ProjectContentHash::getVersion).orElse(null);
 
-		HashCodeBuilder builder = new HashCodeBuilder();
+		// read the project again after its version, the one passed in may have been read before a change
+		Project current = projectRepository.findById(project.getId()).orElse(project);
 
-		builder.append(project);
+		Hasher hasher = Hashing.sha256().newHasher();
+		putValue(hasher, current.getName());
+		putValue(hasher, current.getProjectDescription());
+		putValue(hasher, current.getOrganism());
+		putValue(hasher, current.getCreatedDate());
+		putValue(hasher, current.getModifiedDate());
 
-		List<Join<Project, Sample>> samplesForProject = sampleService.getSamplesForProject(project);
+		for (SampleContentHash sampleHash : getSampleContentHashes(project)) {
+			hasher.putLong(sampleHash.getSampleId());
+			hasher.putString(sampleHash.getContentHash(), StandardCharsets.UTF_8);
+		}
 
-		for (Join<Project, Sample> projectSampleJoin : samplesForProject) {
-			Sample sample = projectSampleJoin.getObject();
+		Integer projectHash = hasher.hash().asInt();
+		projectHashRepository.saveContentHash(new ProjectContentHash(project.getId(), projectHash, version));
 
-			getSampleHash(sample, builder);
-		}
+		return projectHash;
+	}
+
+	/**
+	 * Get the digest of every sample in a project.  A sample's digest changes when the sample, its metadata,
+	 * sequencing objects or assemblies change, so comparing digests shows which samples need to be synchronized.
+	 *
+	 * @param project the {@link Project} to get sample digests for
+	 * @return a map of sample id to the digest of that sample
+	 */
+	@PreAuthorize("hasPermission(#project, 'canReadProject')")
+	@Transactional
+	public Map<Long, String> getSampleHashes(Project project) {
+		return getSampleContentHashes(project).stream()
+				.collect(Collectors.toMap(SampleContentHash::getSampleId, SampleContentHash::getContentHash));
+	}
+
+	/**
+	 * Get the stored digests for the samples in a project, calculating any that are missing
+	 *
+	 * @param project the {@link Project} to get digests for
+	 * @return the sample digests ordered by sample id
+	 */
+	private List<SampleContentHash> getSampleContentHashes(Project project) {
+		// read the stored digests and their versions before the samples
+		List<SampleContentHash> stored = sampleHashRepository.getContentHashesForProject(project);
+		Map<Long, Long> versions = stored.stream()
+				.collect(Collectors.toMap(SampleContentHash::getSampleId, SampleContentHash::getVersion));
+
+		List<SampleContentHash> hashes = stored.stream()
+				.filter(h -> h.getContentHash() != null)
+				.collect(Collectors.toList());
+
+		List<Sample> changedSamples = sampleHashRepository.getSamplesWithoutContentHash(project);
+		if (!changedSamples.isEmpty()) {
+			logger.trace("Calculating content hashes for " + changedSamples.size() + " samples in project "
+					+ project.getId());
+			List<SampleContentHash> calculated = changedSamples.stream()
+					.map(s -> new SampleContentHash(s.getId(), getSampleHash(s), versions.get(s.getId())))
+					.collect(Collectors.toList());
+			sampleHashRepository.saveContentHashes(calculated);
 
-		return builder.toHashCode();
+			hashes.addAll(calculated);
+			hashes.sort(Comparator.comparing(SampleContentHash::getSampleId));
+		}
 
+		return hashes;
 	}
 
 	/**
-	 * Add the hash elements for the given sample to the HashCodeBuilder
+	 * Compute the digest of a single sample.  Sequencing objects and assemblies are included by identifier so that
+	 * processing the files of an existing object doesn't change the digest.
 	 *
-	 * @param sample  The {@link Sample} to compute
-	 * @param builder a {@link HashCodeBuilder} to add all the included objects
+	 * @param sample The {@link Sample} to compute
+	 * @return the hex-encoded SHA-256 digest of the sample
 	 */
-	private void getSampleHash(Sample sample, HashCodeBuilder builder) {
+	private String getSampleHash(Sample sample) {
+		Hasher hasher = Hashing.sha256().newHasher();
+
 		//add the sample itself
-		builder.append(sample);
+		putValue(hasher, sample.getId());
+		putValue(hasher, sample.getSampleName());
+		putValue(hasher, sample.getDescription());
+		putValue(hasher, sample.getOrganism());
+		putValue(hasher, sample.getIsolate());
+		putValue(hasher, sample.getStrain());
+		putValue(hasher, sample.getCollectedBy());
+		putValue(hasher, sample.getCollectionDate());
+		putValue(hasher, sample.getGeographicLocationName());
+		putValue(hasher, sample.getIsolationSource());
+		putValue(hasher, sample.getLatitude());
+		putValue(hasher, sample.getLongitude());
+		putValue(hasher, sample.getCreatedDate());
+		putValue(hasher, sample.getModifiedDate());
 
-		//add all the metadata entries
+		//add all the metadata entries, ordered by field
 		Set<MetadataEntry> metadataForSample = sampleService.getMetadataForSample(sample);
-		for (MetadataEntry entry : metadataForSample) {
-			builder.append(entry);
-		}
+		hasher.putInt(metadataForSample.size());
+		metadataForSample.stream()
+				.sorted(Comparator.comparing((MetadataEntry e) -> e.getField().getLabel(),
+						Comparator.nullsFirst(Comparator.naturalOrder()))
+						.thenComparing(MetadataEntry::getValue, Comparator.nullsFirst(Comparator.naturalOrder())))
+				.forEach(e -> {
+					putValue(hasher, e.getField().getLabel());
+					putValue(hasher, e.getType());
+					putValue(hasher, e.getValue());
+				});
 
 		//add all the sequence files
 		Collection<SampleSequencingObjectJoin> sequencingObjectsForSample = sequencingObjectService.getSequencingObjectsForSample(
 				sample);
-		for (SampleSequencingObjectJoin join : sequencingObjectsForSample) {
-			builder.append(join.getObject());
-		}
+		sequencingObjectsForSample.stream().mapToLong(j -> j.getObject().getId()).sorted().forEach(hasher::putLong);
 
 		//add all assemblies
 		Collection<SampleGenomeAssemblyJoin> assembliesForSample = assemblyService.getAssembliesForSample(sample);
-		for (SampleGenomeAssemblyJoin join : assembliesForSample) {
-			builder.append(join.getObject());
+		hasher.putChar('|');
+		assembliesForSample.stream().mapToLong(j -> j.getObject().getId()).sorted().forEach(hasher::putLong);
+
+		return hasher.hash().toString();
+	}
+
+	/**
+	 * Add a field value to a hash.  Values are length-prefixed so that adjacent fields can't run together, and null
+	 * is distinct from an empty value.
+	 *
+	 * @param hasher the {@link Hasher} to add the value to
+	 * @param value  the value to add
+	 */
+	private static void putValue(Hasher hasher, Object value) {
+		if (value == null) {
+			hasher.putInt(-1);
+		} else if (value instanceof Date) {
+			hasher.putLong(((Date) value).getTime());
+		} else {
+			String string = value.toString();
+			hasher.putInt(string.length());
+			hasher.putString(string, StandardCharsets.UTF_8);
 		}
 	}
 
+	/**
+	 * Clear the stored hashes affected by a set of changes
+	 *
+	 * @param sampleIds  the ids of the samples that changed
+	 * @param projectIds the ids of the projects that changed
+	 */
+	private void invalidate(Set<Long> sampleIds, Set<Long> projectIds) {
+		invalidationTransaction.execute(status -> {
+			projectHashRepository.invalidateContentHashes(projectIds);
+			projectHashRepository.invalidateContentHashesForSamples(sampleIds);
+			sampleHashRepository.invalidateContentHashes(sampleIds);
+			return null;
+		});
+	}
+
+	/**
+	 * A Hibernate event listener to clear the stored hashes for samples and projects when they or anything they
+	 * contain change.  Hashes are cleared once the transaction making the change has committed, and the version check
+	 * in {@link #getProjectHash(Project)} keeps a hash calculated concurrently from being stored for the old contents.
+	 * The listener is registered with Hibernate by the services configuration rather than on the entities.
+	 */
+	public static class ContentChangeListener
+			implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient ProjectHashingService service;
+
+		/**
+		 * Create a listener clearing the hashes stored by a service
+		 *
+		 * @param service the service whose hashes are cleared
+		 */
+		public ContentChangeListener(ProjectHashingService service) {
+			this.service = service;
+		}
+
+		@Override
+		public void onPostInsert(PostInsertEvent event) {
+			contentChanged(event.getEntity());
+		}
+
+		@Override
+		public void onPostUpdate(PostUpdateEvent event) {
+			contentChanged(event.getEntity());
+		}
+
+		@Override
+		public void onPostDelete(PostDeleteEvent event) {
+			contentChanged(event.getEntity());
+		}
+
+		@Override
+		public boolean requiresPostCommitHanding(EntityPersister persister) {
+			return false;
+		}
+
+		/**
+		 * Record the sample or project affected by a changed entity
+		 *
+		 * @param entity the entity that was created, updated or removed
+		 */
+		public void contentChanged(Object entity) {
+			Long sampleId = null;
+			Long projectId = null;
+
+			if (entity instanceof Sample) {
+				sampleId = ((Sample) entity).getId();
+			} else if (entity instanceof MetadataEntry) {
+				Sample sample = ((MetadataEntry) entity).getSample();
+				sampleId = sample != null ? sample.getId() : null;
+			} else if (entity instanceof SampleSequencingObjectJoin) {
+				sampleId = ((SampleSequencingObjectJoin) entity).getSubject().getId();
+			} else if (entity instanceof SampleGenomeAssemblyJoin) {
+				sampleId = ((SampleGenomeAssemblyJoin) entity).getSubject().getId();
+			} else if (entity instanceof ProjectSampleJoin) {
+				projectId = ((ProjectSampleJoin) entity).getSubject().getId();
+			} else if (entity instanceof Project) {
+				projectId = ((Project) entity).getId();
+			}
+
+			if (sampleId == null && projectId == null) {
+				return;
+			}
+
+			if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+				Set<Long> sampleIds = sampleId != null ? Collections.singleton(sampleId) : Collections.emptySet();
+				Set<Long> projectIds = projectId != null ? Collections.singleton(projectId) : Collections.emptySet();
+				service.invalidate(sampleIds, projectIds);
+				return;
+			}
+
+			PendingChanges changes = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+			if (changes == null) {
+				changes = new PendingChanges();
+				TransactionSynchronizationManager.bindResource(this, changes);
+				TransactionSynchronizationManager.registerSynchronization(changes);
+			}
+
+			if (sampleId != null) {
+				changes.sampleIds.add(sampleId);
+			}
+			if (projectId != null) {
+				changes.projectIds.add(projectId);
+			}
+		}
+
+		/**
+		 * The samples and projects changed in the current transaction
+		 */
+		private class PendingChanges extends TransactionSynchronizationAdapter {
+			private final Set<Long> sampleIds = new HashSet<>();
+			private final Set<Long> projectIds = new HashSet<>();
+
+			@Override
+			public void afterCommit() {
+				service.invalidate(sampleIds, projectIds);
+			}
+
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(ContentChangeListener.this);
+			}
+		}
+	}
 }
@@ -1,6 +1,7 @@
 package ca.corefacility.bioinformatics.irida.service.remote;
 
 import java.util.List;
+import java.util.Map;
 
 import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
@@ -25,4 +26,12 @@ public interface ProjectRemoteService extends RemoteService<Project> {
      * @return A deep hashcode for all objects in the project
      */
     public Integer getProjectHash(Project project);
+
+    /**
+     * Read the content hash of each sample in the given project
+     *
+     * @param project the {@link Project} to get the sample hashes for
+     * @return A map of sample URL to the hash of that sample
+     */
+    public Map<String, String> getSampleHashes(Project project);
 }
@@ -27,11 +27,17 @@ import org.apache.commons.lang3.time.DateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
@@ -59,6 +65,7 @@ public class ProjectSynchronizationService {
 	private Fast5ObjectRemoteService fast5ObjectRemoteService;
 	private RemoteAPITokenService tokenService;
 	private EmailController emailController;
+	private int syncThreads;
 
 	@Autowired
 	public ProjectSynchronizationService(ProjectService projectService, SampleService sampleService,
@@ -66,7 +73,8 @@ public class ProjectSynchronizationService {
 			GenomeAssemblyService assemblyService, ProjectRemoteService projectRemoteService,
 			SampleRemoteService sampleRemoteService, SingleEndSequenceFileRemoteService singleEndRemoteService,
 			SequenceFilePairRemoteService pairRemoteService, GenomeAssemblyRemoteService assemblyRemoteService,
-			Fast5ObjectRemoteService fast5ObjectRemoteService, RemoteAPITokenService tokenService, EmailController emailController) {
+			Fast5ObjectRemoteService fast5ObjectRemoteService, RemoteAPITokenService tokenService, EmailController emailController,
+			@Value("${project.sync.threads:4}") int syncThreads) {
 
 		this.projectService = projectService;
 		this.sampleService = sampleService;
@@ -81,6 +89,7 @@ public class ProjectSynchronizationService {
 		this.fast5ObjectRemoteService = fast5ObjectRemoteService;
 		this.tokenService = tokenService;
 		this.emailController = emailController;
+		this.syncThreads = syncThreads;
 	}
 
 	/**
@@ -242,14 +251,56 @@ public class ProjectSynchronizationService {
 				}
 			});
 
-			//read the remote samples from the remote API
-			List<Sample> readSamplesForProject = sampleRemoteService.getSamplesForProject(readProject);
+			//get the hash of each remote sample so only the samples that changed are read.  a forced sync reads everything
+			Map<String, String> remoteSampleHashes = null;
+			if (!syncType.equals(SyncStatus.FORCE)) {
+				try {
+					remoteSampleHashes = projectRemoteService.getSampleHashes(readProject);
+				} catch (LinkNotFoundException e) {
+					logger.warn("The project on the referenced IRIDA doesn't support sample hashing: " + projectURL);
+				}
+			}
+
+			Set<String> remoteUrls;
+			List<Callable<List<ProjectSynchronizationException>>> sampleTasks = new ArrayList<>();
+			// tasks run in parallel, so each reads its own copy of the project rather than sharing this detached one
+			final Long projectId = project.getId();
+
+			if (remoteSampleHashes != null) {
+				remoteUrls = remoteSampleHashes.keySet();
+
+				RemoteAPI api = readProject.getRemoteStatus().getApi();
+				for (Map.Entry<String, String> remoteSample : remoteSampleHashes.entrySet()) {
+					String url = remoteSample.getKey();
+					String hash = remoteSample.getValue();
+
+					Sample localSample = samplesByUrl.get(url);
+					if (localSample == null || !hash.equals(localSample.getRemoteStatus().getRemoteContentHash())) {
+						sampleTasks.add(() -> {
+							Sample s = sampleRemoteService.read(url, api);
+							s.setId(null);
+							return syncSample(s, projectService.read(projectId), samplesByUrl, hash);
+						});
+					}
+				}
 
-			//get a list of all remote URLs in the project
-			Set<String> remoteUrls = readSamplesForProject.stream()
-					.map(sample -> sample.getRemoteStatus()
-							.getURL())
-					.collect(Collectors.toSet());
+				logger.debug(sampleTasks.size() + " of " + remoteUrls.size() + " samples changed in project "
+						+ readProject.getSelfHref());
+			} else {
+				//read the remote samples from the remote API
+				List<Sample> readSamplesForProject = sampleRemoteService.getSamplesForProject(readProject);
+
+				//get a list of all remote URLs in the project
+				remoteUrls = readSamplesForProject.stream()
+						.map(sample -> sample.getRemoteStatus()
+								.getURL())
+						.collect(Collectors.toSet());
+
+				for (Sample s : readSamplesForProject) {
+					s.setId(null);
+					sampleTasks.add(() -> syncSample(s, projectService.read(projectId), samplesByUrl));
+				}
+			}
 
 			// Check for local samples which no longer exist by URL
 			Set<String> localUrls = new HashSet<>(samplesByUrl.keySet());
@@ -266,12 +317,7 @@ public class ProjectSynchronizationService {
 				samplesByUrl.remove(localUrl);
 			}
 
-			for (Sample s : readSamplesForProject) {
-				s.setId(null);
-				List<ProjectSynchronizationException> syncExceptionsSample = syncSample(s, project, samplesByUrl);
-
-				syncExceptions.addAll(syncExceptionsSample);
-			}
+			syncExceptions.addAll(syncSamples(sampleTasks));
 
 		}
 		else{
@@ -295,6 +341,42 @@ public class ProjectSynchronizationService {
 
 	}
 
+	/**
+	 * Run sample synchronization tasks on up to {@code project.sync.threads} threads at once.  Each thread runs as the
+	 * user synchronizing the project.
+	 *
+	 * @param sampleTasks the tasks synchronizing each sample
+	 * @return A list of {@link ProjectSynchronizationException}s from all the samples, empty if no errors.
+	 */
+	private List<ProjectSynchronizationException> syncSamples(
+			List<Callable<List<ProjectSynchronizationException>>> sampleTasks) {
+		List<ProjectSynchronizationException> syncErrors = new ArrayList<>();
+		if (sampleTasks.isEmpty()) {
+			return syncErrors;
+		}
+
+		int threads = Math.max(1, Math.min(syncThreads, sampleTasks.size()));
+		ExecutorService executor = new DelegatingSecurityContextExecutorService(Executors.newFixedThreadPool(threads),
+				SecurityContextHolder.getContext());
+		try {
+			for (Future<List<ProjectSynchronizationException>> result : executor.invokeAll(sampleTasks)) {
+				try {
+					syncErrors.addAll(result.get());
+				} catch (ExecutionException e) {
+					logger.error("Error synchronizing sample", e.getCause());
+					syncErrors.add(new ProjectSynchronizationException("Could not synchronize sample", e.getCause()));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ProjectSynchronizationException("Interrupted while synchronizing samples", e);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return syncErrors;
+	}
+
 	/**
 	 * Synchronize a given {@link Sample} to the local installation.
 	 *
@@ -305,6 +387,22 @@ public class ProjectSynchronizationService {
 	 * @return A list of {@link ProjectSynchronizationException}s, empty if no errors.
 	 */
 	public List<ProjectSynchronizationException> syncSample(Sample sample, Project project, Map<String, Sample> existingSamples) {
+		return syncSample(sample, project, existingSamples, null);
+	}
+
+	/**
+	 * Synchronize a given {@link Sample} whose content hash has changed on the remote api to the local installation.
+	 *
+	 * @param sample          the {@link Sample} to synchronize. This should have been read
+	 *                        from a remote api.
+	 * @param project         The {@link Project} the {@link Sample} belongs in.
+	 * @param existingSamples A map of samples that have already been synchronized.  These will be checked to see if they've been updated
+	 * @param contentHash     the remote hash of the sample's contents, stored once the sample is synchronized.  null if
+	 *                        the remote api doesn't provide sample hashes.
+	 * @return A list of {@link ProjectSynchronizationException}s, empty if no errors.
+	 */
+	public List<ProjectSynchronizationException> syncSample(Sample sample, Project project,
+			Map<String, Sample> existingSamples, String contentHash) {
 		Sample localSample;
 
 		if (existingSamples.containsKey(sample.getRemoteStatus().getURL())) {
@@ -321,6 +419,10 @@ public class ProjectSynchronizationService {
 
 				localSample = sampleService.update(sample);
 
+				syncSampleMetadata(sample, localSample);
+			} else if (contentHash != null) {
+				// the sample's own fields are unchanged, but its content hash changed on the remote.  the hash covers
+				// the sample's metadata as well as its files, so synchronize the metadata again.
 				syncSampleMetadata(sample, localSample);
 			}
 
@@ -454,6 +556,11 @@ public class ProjectSynchronizationService {
 		//if we have no errors, report that the sample is sync'd
 		if (syncErrors.isEmpty()) {
 			localSample.getRemoteStatus().setSyncStatus(SyncStatus.SYNCHRONIZED);
+
+			// remember what was synchronized so the sample is skipped until it changes again
+			if (contentHash != null) {
+				localSample.getRemoteStatus().setRemoteContentHash(contentHash);
+			}
 		} else {
 			//otherwise set it as an error and log
 			localSample.getRemoteStatus().setSyncStatus(SyncStatus.ERROR);
@@ -543,7 +650,9 @@ public class ProjectSynchronizationService {
 			assembly.getRemoteStatus()
 					.setSyncStatus(SyncStatus.SYNCHRONIZED);
 
+			Path downloadDirectory = assembly.getFile() != null ? assembly.getFile().getParent() : null;
 			assemblyService.createAssemblyInSample(sample, assembly);
+			removeDownloadDirectories(Collections.singleton(downloadDirectory));
 		} catch (Exception e) {
 			logger.error("Error transferring assembly: " + assembly.getRemoteStatus()
 					.getURL(), e);
@@ -630,15 +739,43 @@ public class ProjectSynchronizationService {
 		sequencingObject.setProcessingState(SequencingObject.ProcessingState.UNPROCESSED);
 		sequencingObject.setFileProcessor(null);
 
+		Set<Path> downloadDirectories = new HashSet<>();
 		sequencingObject.getFiles().forEach(s -> {
 			s.setId(null);
+			// the remote's checksum is of the file as it was uploaded there,
+			// which may not be the file we stored. clear it so the checksum
+			// processor calculates it from the local file.
+			s.setUploadSha256(null);
+			if (s.getFile() != null) {
+				downloadDirectories.add(s.getFile().getParent());
+			}
 			sequencingObjectStatus.setSyncStatus(SyncStatus.SYNCHRONIZED);
 		});
 
 		objectService.createSequencingObjectInSample(sequencingObject, sample);
+		removeDownloadDirectories(downloadDirectories);
 
 		sequencingObjectStatus.setSyncStatus(SyncStatus.SYNCHRONIZED);
 
 		objectService.updateRemoteStatus(sequencingObject.getId(), sequencingObjectStatus);
 	}
+
+	/**
+	 * Remove the directories remote files were downloaded to. The files are
+	 * moved out of them when they're saved, leaving them empty.
+	 *
+	 * @param downloadDirectories the directories to remove
+	 */
+	private void removeDownloadDirectories(Collection<Path> downloadDirectories) {
+		for (Path directory : downloadDirectories) {
+			if (directory == null) {
+				continue;
+			}
+			try {
+				Files.deleteIfExists(directory);
+			} catch (IOException e) {
+				logger.warn("Could not remove download directory [" + directory + "]", e);
+			}
+		}
+	}
 }
@@ -1,6 +1,7 @@
 package ca.corefacility.bioinformatics.irida.service.remote.impl;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -56,4 +57,12 @@ public class ProjectRemoteServiceImpl extends RemoteServiceImpl<Project> impleme
 	public Integer getProjectHash(Project project) {
 		return repository.readProjectHash(project);
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, String> getSampleHashes(Project project) {
+		return repository.readSampleHashes(project);
+	}
 }
@@ -8,6 +8,7 @@ import ca.corefacility.bioinformatics.irida.model.sample.StaticMetadataTemplateF
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.service.CRUDService;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -100,6 +101,18 @@ public interface MetadataTemplateService extends CRUDService<Long, MetadataTempl
 	 */
 	public MetadataTemplateField saveMetadataField(MetadataTemplateField field);
 
+	/**
+	 * Get the {@link MetadataTemplateField}s for a set of labels, creating a
+	 * new text field for each label that doesn't have one yet.
+	 *
+	 * @param labels
+	 *            the {@link String} labels of the fields
+	 *
+	 * @return {@link Map} of label to the {@link MetadataTemplateField} for
+	 *         the label
+	 */
+	public Map<String, MetadataTemplateField> readOrCreateMetadataFieldsByLabel(Collection<String> labels);
+
 	/**
 	 * Get a list of all {@link MetadataTemplateField}s that contain the query
 	 *
@@ -3,6 +3,7 @@ package ca.corefacility.bioinformatics.irida.service.sample;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
@@ -69,6 +70,43 @@ public interface SampleService extends CRUDService<Long, Sample> {
 	 */
 	public Sample mergeSampleMetadata(Sample sample, Set<MetadataEntry> metadataToAdd);
 
+	/**
+	 * Get the {@link Sample}s in a {@link Project} with any of a set of names that the current user can update.  The
+	 * samples are read with one query and the permission is checked for all of them at once.
+	 *
+	 * @param project     the {@link Project} the samples are in
+	 * @param sampleNames the names of the samples to get
+	 * @return the samples with the names that the current user can update
+	 */
+	public List<Sample> getUpdatableSamplesByName(Project project, Collection<String> sampleNames);
+
+	/**
+	 * Merge metadata into many {@link Sample}s in a {@link Project}.  The current metadata of the samples is read with
+	 * one query, and the merged metadata is saved together.
+	 *
+	 * @param project  the {@link Project} the samples are in
+	 * @param metadata the metadata to add to each sample
+	 */
+	public void mergeSampleMetadata(Project project, Map<Sample, Set<MetadataEntry>> metadata);
+
+	/**
+	 * Get which of a set of sample names belong to {@link Sample}s in a {@link Project}
+	 *
+	 * @param project     the {@link Project} to look for the samples in
+	 * @param sampleNames the sample names to look for
+	 * @return the names of the samples found in the project
+	 */
+	public Set<String> getSampleNamesInProject(Project project, Collection<String> sampleNames);
+
+	/**
+	 * Get the names of a set of {@link Sample}s in a {@link Project} without loading the samples
+	 *
+	 * @param project   the {@link Project} the samples are in
+	 * @param sampleIds the ids of the samples
+	 * @return the name of each sample in the project, keyed by sample id
+	 */
+	public Map<Long, String> getSampleNamesById(Project project, Collection<Long> sampleIds);
+
 	/**
 	 * Get the {@link MetadataEntry} set associated with the given {@link Sample}
 	 *
@@ -76,6 +114,15 @@ public interface SampleService extends CRUDService<Long, Sample> {
 	 * @return the metadata associated with the given sample
 	 */
 	public Set<MetadataEntry> getMetadataForSample(Sample sample);
+
+	/**
+	 * Get the {@link MetadataEntry} sets of a group of {@link Sample}s in a {@link Project} with a single query.
+	 *
+	 * @param project   the {@link Project} the samples belong to
+	 * @param sampleIds the ids of the {@link Sample}s to get metadata for
+	 * @return the {@link MetadataEntry} set of each sample that has metadata, keyed by {@link Sample} id
+	 */
+	public Map<Long, Set<MetadataEntry>> getMetadataForSamplesInProject(Project project, Collection<Long> sampleIds);
 	
 	/**
 	 * Find a {@link Sample} assocaited with a {@link SequencingObject}
@@ -96,6 +143,19 @@ public interface SampleService extends CRUDService<Long, Sample> {
 	 */
 	public List<Join<Project, Sample>> getSamplesForProject(Project project);
 
+	/**
+	 * Get a page of the {@link Sample}s that belong to a specific project, ordered by {@link Sample} id.
+	 *
+	 * @param project
+	 *            the {@link Project} to get samples for.
+	 * @param page
+	 *            the page number
+	 * @param size
+	 *            the size of the page
+	 * @return A {@link Page} of {@link ProjectSampleJoin}s for the {@link Project}
+	 */
+	public Page<ProjectSampleJoin> getSamplesForProject(Project project, int page, int size);
+
 	/**
 	 * Get a shallow listing of the {@link Sample}s in a {@link Project}.  Note: This method will not return any
 	 * metadata or associated objects.
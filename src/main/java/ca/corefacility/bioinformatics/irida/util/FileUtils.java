@@ -5,12 +5,20 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * A class containing a number of utilities for dealing with files.
  */
 public class FileUtils {
+	private static final Logger logger = LoggerFactory.getLogger(FileUtils.class);
 
 	/**
 	 * Determines if a file is compressed. Adapted from stackoverflow answer:
@@ -31,4 +39,62 @@ public class FileUtils {
 					&& (bytes[1] == (byte) (GZIPInputStream.GZIP_MAGIC >> 8)));
 		}
 	}
+
+	/**
+	 * Remove the directories in a working directory that haven't been written
+	 * to for some time. Servers sharing the working directory may still be
+	 * writing to some of them, so only directories where neither the directory
+	 * nor the files in it have been modified for {@code expiryHours} are
+	 * removed.
+	 *
+	 * @param directory   the working directory
+	 * @param expiryHours the number of hours after which a directory is
+	 *                    abandoned
+	 */
+	public static void removeAbandonedDirectories(Path directory, int expiryHours) {
+		if (!Files.isDirectory(directory)) {
+			return;
+		}
+
+		FileTime expiry = FileTime.from(Instant.now()
+				.minus(expiryHours, ChronoUnit.HOURS));
+		try (Stream<Path> directories = Files.list(directory)) {
+			directories.forEach(d -> {
+				try {
+					if (getLastModifiedTime(d).compareTo(expiry) < 0) {
+						logger.debug("Removing abandoned directory [" + d + "]");
+						org.apache.commons.io.FileUtils.deleteQuietly(d.toFile());
+					}
+				} catch (IOException e) {
+					logger.warn("Could not check directory [" + d + "] for expiry", e);
+				}
+			});
+		} catch (IOException e) {
+			logger.error("Could not list directories in [" + directory + "]", e);
+		}
+	}
+
+	/**
+	 * Get the latest modified time of a directory and the files in it. A file
+	 * that is still being written keeps its own modified time current, but not
+	 * its directory's.
+	 *
+	 * @param directory the directory
+	 * @return the latest modified time
+	 * @throws IOException if the modified times couldn't be read
+	 */
+	private static FileTime getLastModifiedTime(Path directory) throws IOException {
+		FileTime modified = Files.getLastModifiedTime(directory);
+		if (Files.isDirectory(directory)) {
+			try (Stream<Path> files = Files.list(directory)) {
+				for (Path file : (Iterable<Path>) files::iterator) {
+					FileTime fileModified = Files.getLastModifiedTime(file);
+					if (fileModified.compareTo(modified) > 0) {
+						modified = fileModified;
+					}
+				}
+			}
+		}
+		return modified;
+	}
 }
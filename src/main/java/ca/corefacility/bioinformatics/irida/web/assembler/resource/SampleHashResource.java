@@ -0,0 +1,22 @@
+package ca.corefacility.bioinformatics.irida.web.assembler.resource;
+
+import ca.corefacility.bioinformatics.irida.model.IridaResourceSupport;
+
+/**
+ * Resource class for storing the content hash of a single sample for the REST API.  The self link of the resource is
+ * the link to the sample.
+ */
+public class SampleHashResource extends IridaResourceSupport {
+    private String sampleHash;
+
+    public SampleHashResource() {
+    }
+
+    public SampleHashResource(String sampleHash) {
+        this.sampleHash = sampleHash;
+    }
+
+    public String getSampleHash() {
+        return sampleHash;
+    }
+}
@@ -0,0 +1,53 @@
+package ca.corefacility.bioinformatics.irida.web.assembler.resource.sequencefile;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFileUpload;
+
+/**
+ * Request body for adding two completed {@link SequenceFileUpload}s to a sample
+ * as a {@link SequenceFilePair}, with the parameters for each file.
+ */
+public class SequenceFilePairUploadResource {
+
+	private String upload1;
+	private SequenceFileResource parameters1;
+	private String upload2;
+	private SequenceFileResource parameters2;
+
+	public SequenceFilePairUploadResource() {
+		parameters1 = new SequenceFileResource();
+		parameters2 = new SequenceFileResource();
+	}
+
+	public String getUpload1() {
+		return upload1;
+	}
+
+	public void setUpload1(String upload1) {
+		this.upload1 = upload1;
+	}
+
+	public SequenceFileResource getParameters1() {
+		return parameters1;
+	}
+
+	public void setParameters1(SequenceFileResource parameters1) {
+		this.parameters1 = parameters1;
+	}
+
+	public String getUpload2() {
+		return upload2;
+	}
+
+	public void setUpload2(String upload2) {
+		this.upload2 = upload2;
+	}
+
+	public SequenceFileResource getParameters2() {
+		return parameters2;
+	}
+
+	public void setParameters2(SequenceFileResource parameters2) {
+		this.parameters2 = parameters2;
+	}
+}
@@ -0,0 +1,50 @@
+package ca.corefacility.bioinformatics.irida.web.assembler.resource.sequencefile;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFileUpload;
+
+/**
+ * Request body for starting a {@link SequenceFileUpload}. The part size and
+ * checksum are optional.
+ */
+public class SequenceFileUploadResource {
+
+	private String fileName;
+	private long size;
+	private Long partSize;
+	private String sha256;
+
+	public SequenceFileUploadResource() {
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public void setFileName(String fileName) {
+		this.fileName = fileName;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public void setSize(long size) {
+		this.size = size;
+	}
+
+	public Long getPartSize() {
+		return partSize;
+	}
+
+	public void setPartSize(Long partSize) {
+		this.partSize = partSize;
+	}
+
+	public String getSha256() {
+		return sha256;
+	}
+
+	public void setSha256(String sha256) {
+		this.sha256 = sha256;
+	}
+}
@@ -5,9 +5,12 @@ import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Map;
 
 import ca.corefacility.bioinformatics.irida.service.remote.ProjectHashingService;
 import ca.corefacility.bioinformatics.irida.web.assembler.resource.ProjectHashResource;
+import ca.corefacility.bioinformatics.irida.web.assembler.resource.ResourceCollection;
+import ca.corefacility.bioinformatics.irida.web.assembler.resource.SampleHashResource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -57,6 +60,11 @@ public class RESTProjectsController extends RESTGenericController<Project> {
 	 */
 	public static final String PROJECT_HASH_REL = "project/hash";
 
+	/**
+	 * rel used for the content hashes of the samples in a project
+	 */
+	public static final String PROJECT_SAMPLE_HASHES_REL = "project/hash/samples";
+
 	/**
 	 * Default constructor. Should not be used.
 	 */
@@ -99,6 +107,36 @@ public class RESTProjectsController extends RESTGenericController<Project> {
 		return model;
 	}
 
+	/**
+	 * Get the content hash of each sample in the requested project.  A sample's hash changes when the sample, its
+	 * metadata, sequencing objects or assemblies change, so a synchronizing IRIDA can tell which samples it needs to
+	 * read again.
+	 *
+	 * @param projectId the ID of the project to read the sample hashes for
+	 * @return a modelmap containing a resource for each sample, linking to the sample
+	 */
+	@RequestMapping(value = "/{projectId}/hash/samples", method = RequestMethod.GET)
+	public ModelMap getProjectSampleHashes(@PathVariable Long projectId) {
+		Project project = projectService.read(projectId);
+
+		Map<Long, String> sampleHashes = projectHashingService.getSampleHashes(project);
+
+		ResourceCollection<SampleHashResource> resources = new ResourceCollection<>(sampleHashes.size());
+		sampleHashes.forEach((sampleId, hash) -> {
+			SampleHashResource resource = new SampleHashResource(hash);
+			resource.add(linkTo(methodOn(RESTProjectSamplesController.class).getSample(sampleId)).withSelfRel());
+			resources.add(resource);
+		});
+
+		resources.add(linkTo(methodOn(RESTProjectsController.class).getProjectSampleHashes(projectId)).withSelfRel());
+		resources.add(linkTo(methodOn(RESTProjectsController.class).getResource(projectId)).withRel(REL_PROJECT));
+
+		ModelMap model = new ModelMap();
+		model.addAttribute(RESOURCE_NAME, resources);
+
+		return model;
+	}
+
 	/**
 	 * The {@link RESTProjectsController} should tell the client how to find the
 	 * users for a specific {@link Project}.
@@ -122,6 +160,8 @@ public class RESTProjectsController extends RESTGenericController<Project> {
 		links.add(linkTo(methodOn(RESTProjectAnalysisController.class).getProjectAnalyses(projectId))
 				.withRel(PROJECT_ANALYSES_REL));
 		links.add(linkTo(methodOn(RESTProjectsController.class).getProjectHash(projectId)).withRel(PROJECT_HASH_REL));
+		links.add(linkTo(methodOn(RESTProjectsController.class).getProjectSampleHashes(projectId)).withRel(
+				PROJECT_SAMPLE_HASHES_REL));
 		return links;
 	}
 }
@@ -6,6 +6,7 @@ import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Optional;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
@@ -17,6 +18,7 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestPart;
@@ -31,12 +33,15 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.*;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
 import ca.corefacility.bioinformatics.irida.service.AnalysisService;
+import ca.corefacility.bioinformatics.irida.service.SequenceFileUploadService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import ca.corefacility.bioinformatics.irida.service.SequencingRunService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 import ca.corefacility.bioinformatics.irida.web.assembler.resource.ResourceCollection;
 import ca.corefacility.bioinformatics.irida.web.assembler.resource.RootResource;
+import ca.corefacility.bioinformatics.irida.web.assembler.resource.sequencefile.SequenceFilePairUploadResource;
 import ca.corefacility.bioinformatics.irida.web.assembler.resource.sequencefile.SequenceFileResource;
+import ca.corefacility.bioinformatics.irida.web.assembler.resource.sequencefile.SequenceFileUploadResource;
 import ca.corefacility.bioinformatics.irida.web.controller.api.RESTAnalysisSubmissionController;
 import ca.corefacility.bioinformatics.irida.web.controller.api.RESTGenericController;
 import ca.corefacility.bioinformatics.irida.web.controller.api.projects.RESTProjectSamplesController;
@@ -132,17 +137,20 @@ public class RESTSampleSequenceFilesController {
 
 	private SequencingObjectService sequencingObjectService;
 	private AnalysisService analysisService;
+	private SequenceFileUploadService uploadService;
 
 	protected RESTSampleSequenceFilesController() {
 	}
 
 	@Autowired
 	public RESTSampleSequenceFilesController(SampleService sampleService, SequencingRunService miseqRunService,
-			SequencingObjectService sequencingObjectService, AnalysisService analysisService) {
+			SequencingObjectService sequencingObjectService, AnalysisService analysisService,
+			SequenceFileUploadService uploadService) {
 		this.sampleService = sampleService;
 		this.sequencingRunService = miseqRunService;
 		this.sequencingObjectService = sequencingObjectService;
 		this.analysisService = analysisService;
+		this.uploadService = uploadService;
 	}
 
 	/**
@@ -401,70 +409,7 @@ public class RESTSampleSequenceFilesController {
 			file.transferTo(target.toFile());
 			logger.trace("Wrote temp file to " + target);
 
-			SequenceFile sf;
-			SequencingRun miseqRun = null;
-			if (fileResource != null) {
-				sf = fileResource.getResource();
-
-				Long miseqRunId = fileResource.getMiseqRunId();
-				if (miseqRunId != null) {
-					miseqRun = sequencingRunService.read(miseqRunId);
-					logger.trace("Read miseq run " + miseqRunId);
-				}
-			} else {
-				sf = new SequenceFile();
-			}
-
-			sf.setFile(target);
-
-			SingleEndSequenceFile singleEndSequenceFile = new SingleEndSequenceFile(sf);
-			if (miseqRun != null) {
-				if (miseqRun.getUploadStatus() != SequencingRunUploadStatus.UPLOADING) {
-					throw new IllegalArgumentException("The sequencing run must be in the UPLOADING state to upload data.");
-				}
-				singleEndSequenceFile.setSequencingRun(miseqRun);
-				logger.trace("Added seqfile to miseqrun");
-			}
-
-			// save the seqobject and sample
-			SampleSequencingObjectJoin createSequencingObjectInSample = sequencingObjectService.createSequencingObjectInSample(
-					singleEndSequenceFile, sample);
-
-			singleEndSequenceFile = (SingleEndSequenceFile) createSequencingObjectInSample.getObject();
-			logger.trace("Created seqfile in sample " + createSequencingObjectInSample.getObject()
-					.getId());
-
-			// prepare a link to the sequence file itself (on the sequence file
-			// controller)
-			String objectType = objectLabels.get(SingleEndSequenceFile.class);
-			Long sequenceFileId = singleEndSequenceFile.getSequenceFile()
-					.getId();
-			Link selfRel = linkTo(
-					methodOn(RESTSampleSequenceFilesController.class).readSequenceFileForSequencingObject(sampleId,
-							objectType, singleEndSequenceFile.getId(), sequenceFileId)).withSelfRel();
-
-			// Changed, because sfr.setResource(sf)
-			// and sfr.setResource(sampleSequenceFileRelationship.getObject())
-			// both will not pass a GET-POST comparison integration test.
-			singleEndSequenceFile = (SingleEndSequenceFile) sequencingObjectService.read(singleEndSequenceFile.getId());
-			SequenceFile sequenceFile = singleEndSequenceFile.getFileWithId(sequenceFileId);
-
-			// add links to the resource
-			sequenceFile.add(
-					linkTo(methodOn(RESTSampleSequenceFilesController.class).getSampleSequenceFiles(sampleId)).withRel(
-							REL_SAMPLE_SEQUENCE_FILES));
-			sequenceFile.add(selfRel);
-			sequenceFile.add(
-					linkTo(methodOn(RESTProjectSamplesController.class).getSample(sampleId)).withRel(REL_SAMPLE));
-			sequenceFile.add(
-					linkTo(methodOn(RESTSampleSequenceFilesController.class).readSequencingObject(sampleId, objectType,
-							singleEndSequenceFile.getId())).withRel(REL_SEQ_OBJECT));
-
-			modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, sequenceFile);
-			// add a location header.
-			response.addHeader(HttpHeaders.LOCATION, selfRel.getHref());
-			// set the response status.
-			response.setStatus(HttpStatus.CREATED.value());
+			addSingleEndSequenceFile(modelMap, sampleId, sample, target, null, fileResource, response);
 
 		} catch (IllegalArgumentException e) {
 			logger.debug("Error 400 - Bad Request: " + e.getMessage());
@@ -512,70 +457,7 @@ public class RESTSampleSequenceFilesController {
 			file.transferTo(target.toFile());
 			logger.trace("Wrote temp file to " + target);
 
-			SequenceFile sf;
-			SequencingRun sequencingRun = null;
-			if (fileResource != null) {
-				sf = fileResource.getResource();
-
-				Long sequencingRunId = fileResource.getMiseqRunId();
-				if (sequencingRunId != null) {
-					sequencingRun = sequencingRunService.read(sequencingRunId);
-					logger.trace("Read miseq run " + sequencingRunId);
-				}
-			} else {
-				sf = new SequenceFile();
-			}
-
-			sf.setFile(target);
-
-			Fast5Object fast5Object = new Fast5Object(sf);
-			if (sequencingRun != null) {
-				if (sequencingRun.getUploadStatus() != SequencingRunUploadStatus.UPLOADING) {
-					throw new IllegalArgumentException("The sequencing run must be in the UPLOADING state to upload data.");
-				}
-				fast5Object.setSequencingRun(sequencingRun);
-				logger.trace("Added seqfile to miseqrun");
-			}
-
-			// save the seqobject and sample
-			SampleSequencingObjectJoin createSequencingObjectInSample = sequencingObjectService.createSequencingObjectInSample(
-					fast5Object, sample);
-
-			fast5Object = (Fast5Object) createSequencingObjectInSample.getObject();
-			logger.trace("Created seqfile in sample " + createSequencingObjectInSample.getObject()
-					.getId());
-
-			// prepare a link to the sequence file itself (on the sequence file
-			// controller)
-			String objectType = objectLabels.get(Fast5Object.class);
-			Long sequenceFileId = fast5Object.getFile()
-					.getId();
-			Link selfRel = linkTo(
-					methodOn(RESTSampleSequenceFilesController.class).readSequenceFileForSequencingObject(sampleId,
-							objectType, fast5Object.getId(), sequenceFileId)).withSelfRel();
-
-			// Changed, because sfr.setResource(sf)
-			// and sfr.setResource(sampleSequenceFileRelationship.getObject())
-			// both will not pass a GET-POST comparison integration test.
-			fast5Object = (Fast5Object) sequencingObjectService.read(fast5Object.getId());
-			SequenceFile sequenceFile = fast5Object.getFileWithId(sequenceFileId);
-
-			// add links to the resource
-			sequenceFile.add(
-					linkTo(methodOn(RESTSampleSequenceFilesController.class).getSampleSequenceFiles(sampleId)).withRel(
-							REL_SAMPLE_SEQUENCE_FILES));
-			sequenceFile.add(selfRel);
-			sequenceFile.add(
-					linkTo(methodOn(RESTProjectSamplesController.class).getSample(sampleId)).withRel(REL_SAMPLE));
-			sequenceFile.add(
-					linkTo(methodOn(RESTSampleSequenceFilesController.class).readSequencingObject(sampleId, objectType,
-							fast5Object.getId())).withRel(REL_SEQ_OBJECT));
-
-			modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, sequenceFile);
-			// add a location header.
-			response.addHeader(HttpHeaders.LOCATION, selfRel.getHref());
-			// set the response status.
-			response.setStatus(HttpStatus.CREATED.value());
+			addFast5File(modelMap, sampleId, sample, target, null, fileResource, response);
 
 		} catch (IllegalArgumentException e) {
 			logger.debug("Error 400 - Bad Request: " + e.getMessage());
@@ -636,50 +518,9 @@ public class RESTSampleSequenceFilesController {
 			// transfer the files to temp directories
 			file1.transferTo(target1.toFile());
 			file2.transferTo(target2.toFile());
-			// create the model objects
-			SequenceFile sf1 = fileResource1.getResource();
-			SequenceFile sf2 = fileResource2.getResource();
-			sf1.setFile(target1);
-			sf2.setFile(target2);
-			// get the sequencing run
-			SequencingRun sequencingRun = null;
-
-			if (!Objects.equal(fileResource1.getMiseqRunId(), fileResource2.getMiseqRunId())) {
-				throw new IllegalArgumentException("Cannot upload a pair of files from different sequencing runs.");
-			}
-
-			Long runId = fileResource1.getMiseqRunId();
-
-			SequenceFilePair sequenceFilePair = new SequenceFilePair(sf1, sf2);
-
-			if (runId != null) {
-				sequencingRun = sequencingRunService.read(runId);
-				if (sequencingRun.getUploadStatus() != SequencingRunUploadStatus.UPLOADING) {
-					throw new IllegalArgumentException("The sequencing run must be in the UPLOADING state to upload data.");
-				}
-				sequenceFilePair.setSequencingRun(sequencingRun);
-				logger.trace("Added sequencing run to files" + runId);
-			}
-
-			// add the files and join
-			SampleSequencingObjectJoin createSequencingObjectInSample = sequencingObjectService.createSequencingObjectInSample(
-					sequenceFilePair, sample);
-
-			SequencingObject sequencingObject = createSequencingObjectInSample.getObject();
 
-			sequencingObject = addSequencingObjectLinks(sequencingObject, sampleId);
-
-			sequencingObject.add(
-					linkTo(methodOn(RESTSampleSequenceFilesController.class).getSampleSequenceFiles(sampleId)).withRel(
-							REL_SAMPLE_SEQUENCE_FILES));
-
-			// add location header
-			response.addHeader(HttpHeaders.LOCATION, sequencingObject.getLink("self")
-					.getHref());
-
-			// set the response status.
-			response.setStatus(HttpStatus.CREATED.value());
-			modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, sequencingObject);
+			addSequenceFilePair(modelMap, sampleId, sample, target1, null, fileResource1, target2, null,
+					fileResource2, response);
 		} catch (IllegalArgumentException e) {
 			logger.debug("Error 400 - Bad Request: " + e.getMessage());
 			throw e;
@@ -696,6 +537,210 @@ public class RESTSampleSequenceFilesController {
 		return modelMap;
 	}
 
+	/**
+	 * Start uploading a file to a {@link Sample} in parts. Once every part has
+	 * been sent the upload can be added to the sample as a single-end file, a
+	 * FAST5 file, or one of the files of a pair.
+	 *
+	 * @param sampleId       the identifier for the {@link Sample}
+	 * @param uploadResource the name and size of the file, and optionally the
+	 *                       size of each part and the checksum of the file
+	 * @param response       the servlet response
+	 * @return the new {@link SequenceFileUpload}
+	 */
+	@RequestMapping(value = "/api/samples/{sampleId}/uploads", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ModelMap createSequenceFileUpload(@PathVariable Long sampleId,
+			@RequestBody SequenceFileUploadResource uploadResource, HttpServletResponse response) {
+		ModelMap modelMap = new ModelMap();
+
+		Sample sample = sampleService.read(sampleId);
+		SequenceFileUpload upload = uploadService.createUpload(sample, uploadResource.getFileName(),
+				uploadResource.getSize(), uploadResource.getPartSize(), uploadResource.getSha256());
+		addUploadLinks(upload, sampleId);
+
+		response.addHeader(HttpHeaders.LOCATION, upload.getLink("self")
+				.getHref());
+		response.setStatus(HttpStatus.CREATED.value());
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, upload);
+
+		return modelMap;
+	}
+
+	/**
+	 * Read an upload, including the parts that have been received so far. An
+	 * interrupted upload is resumed by sending the parts that are missing.
+	 *
+	 * @param sampleId the identifier for the {@link Sample}
+	 * @param uploadId the identifier for the upload
+	 * @return the {@link SequenceFileUpload}
+	 */
+	@RequestMapping(value = "/api/samples/{sampleId}/uploads/{uploadId}", method = RequestMethod.GET)
+	public ModelMap readSequenceFileUpload(@PathVariable Long sampleId, @PathVariable String uploadId) {
+		ModelMap modelMap = new ModelMap();
+
+		SequenceFileUpload upload = uploadService.readUpload(sampleId, uploadId);
+		addUploadLinks(upload, sampleId);
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, upload);
+
+		return modelMap;
+	}
+
+	/**
+	 * Send one part of an upload. The body of the request is the content of
+	 * the part, and is written straight into the file. Parts can be sent in any
+	 * order and at the same time, and a part that fails can be sent again. The
+	 * sha256 checksum of the part is sent back as the ETag of the response.
+	 *
+	 * @param sampleId   the identifier for the {@link Sample}
+	 * @param uploadId   the identifier for the upload
+	 * @param partNumber the part being sent, starting at 1
+	 * @param request    the request holding the content of the part
+	 * @param response   the servlet response
+	 * @return the {@link SequenceFileUpload}
+	 * @throws IOException if the part can't be written
+	 */
+	@RequestMapping(value = "/api/samples/{sampleId}/uploads/{uploadId}/parts/{partNumber}", method = RequestMethod.PUT)
+	public ModelMap writeSequenceFileUploadPart(@PathVariable Long sampleId, @PathVariable String uploadId,
+			@PathVariable int partNumber, HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		ModelMap modelMap = new ModelMap();
+
+		SequenceFileUpload upload = uploadService.readUpload(sampleId, uploadId);
+		String partSha256 = uploadService.writePart(upload, partNumber, request.getInputStream());
+		addUploadLinks(upload, sampleId);
+
+		response.addHeader(HttpHeaders.ETAG, "\"" + partSha256 + "\"");
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, upload);
+
+		return modelMap;
+	}
+
+	/**
+	 * Stop an upload and remove the parts that have been sent.
+	 *
+	 * @param sampleId the identifier for the {@link Sample}
+	 * @param uploadId the identifier for the upload
+	 * @return a link back to the {@link Sample}
+	 */
+	@RequestMapping(value = "/api/samples/{sampleId}/uploads/{uploadId}", method = RequestMethod.DELETE)
+	public ModelMap removeSequenceFileUpload(@PathVariable Long sampleId, @PathVariable String uploadId) {
+		ModelMap modelMap = new ModelMap();
+
+		SequenceFileUpload upload = uploadService.readUpload(sampleId, uploadId);
+		uploadService.removeUpload(upload);
+
+		RootResource resource = new RootResource();
+		resource.add(linkTo(methodOn(RESTProjectSamplesController.class).getSample(sampleId)).withRel(REL_SAMPLE));
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, resource);
+
+		return modelMap;
+	}
+
+	/**
+	 * Add a completed upload to a {@link Sample} as a new
+	 * {@link SingleEndSequenceFile}.
+	 *
+	 * @param sampleId     the identifier for the {@link Sample}
+	 * @param uploadId     the identifier for the upload
+	 * @param fileResource the parameters for the file
+	 * @param response     the servlet response
+	 * @return the new {@link SequenceFile}
+	 */
+	@RequestMapping(value = "/api/samples/{sampleId}/sequenceFiles/uploads/{uploadId}", method = RequestMethod.POST)
+	public ModelMap addUploadedSequenceFileToSample(@PathVariable Long sampleId, @PathVariable String uploadId,
+			@RequestBody(required = false) SequenceFileResource fileResource, HttpServletResponse response) {
+		ModelMap modelMap = new ModelMap();
+
+		logger.debug("Adding uploaded sequence file to sample " + sampleId);
+		SequenceFileUpload upload = uploadService.readUpload(sampleId, uploadId);
+		Sample sample = sampleService.read(sampleId);
+		Path file = uploadService.completeUpload(upload);
+
+		try {
+			addSingleEndSequenceFile(modelMap, sampleId, sample, file, upload.getSha256(), fileResource, response);
+		} catch (IllegalArgumentException e) {
+			logger.debug("Error 400 - Bad Request: " + e.getMessage());
+			throw e;
+		}
+
+		// the file has been moved into the sequence file directory
+		uploadService.removeUpload(upload);
+
+		return modelMap;
+	}
+
+	/**
+	 * Add a completed upload to a {@link Sample} as a new {@link Fast5Object}.
+	 *
+	 * @param sampleId     the identifier for the {@link Sample}
+	 * @param uploadId     the identifier for the upload
+	 * @param fileResource the parameters for the file
+	 * @param response     the servlet response
+	 * @return the new {@link SequenceFile}
+	 */
+	@RequestMapping(value = "/api/samples/{sampleId}/fast5/uploads/{uploadId}", method = RequestMethod.POST)
+	public ModelMap addUploadedFast5FileToSample(@PathVariable Long sampleId, @PathVariable String uploadId,
+			@RequestBody(required = false) SequenceFileResource fileResource, HttpServletResponse response) {
+		ModelMap modelMap = new ModelMap();
+
+		logger.debug("Adding uploaded fast5 file to sample " + sampleId);
+		SequenceFileUpload upload = uploadService.readUpload(sampleId, uploadId);
+		Sample sample = sampleService.read(sampleId);
+		Path file = uploadService.completeUpload(upload);
+
+		try {
+			addFast5File(modelMap, sampleId, sample, file, upload.getSha256(), fileResource, response);
+		} catch (IllegalArgumentException e) {
+			logger.debug("Error 400 - Bad Request: " + e.getMessage());
+			throw e;
+		}
+
+		uploadService.removeUpload(upload);
+
+		return modelMap;
+	}
+
+	/**
+	 * Add two completed uploads to a {@link Sample} as a new
+	 * {@link SequenceFilePair}.
+	 *
+	 * @param sampleId       the identifier for the {@link Sample}
+	 * @param pairResource   the identifiers of the uploads and the parameters
+	 *                       for each file
+	 * @param response       the servlet response
+	 * @return the new {@link SequenceFilePair}
+	 */
+	@RequestMapping(value = "/api/samples/{sampleId}/pairs/uploads", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ModelMap addUploadedSequenceFilePairToSample(@PathVariable Long sampleId,
+			@RequestBody SequenceFilePairUploadResource pairResource, HttpServletResponse response) {
+		ModelMap modelMap = new ModelMap();
+
+		logger.debug("Adding uploaded pair of sequence files to sample " + sampleId);
+		SequenceFileUpload upload1 = uploadService.readUpload(sampleId, pairResource.getUpload1());
+		SequenceFileUpload upload2 = uploadService.readUpload(sampleId, pairResource.getUpload2());
+		if (upload1.getUploadId()
+				.equals(upload2.getUploadId())) {
+			throw new IllegalArgumentException("The files of a pair must be different uploads.");
+		}
+		Sample sample = sampleService.read(sampleId);
+		Path file1 = uploadService.completeUpload(upload1);
+		Path file2 = uploadService.completeUpload(upload2);
+
+		try {
+			addSequenceFilePair(modelMap, sampleId, sample, file1, upload1.getSha256(),
+					pairResource.getParameters1(), file2, upload2.getSha256(), pairResource.getParameters2(),
+					response);
+		} catch (IllegalArgumentException e) {
+			logger.debug("Error 400 - Bad Request: " + e.getMessage());
+			throw e;
+		}
+
+		uploadService.removeUpload(upload1);
+		uploadService.removeUpload(upload2);
+
+		return modelMap;
+	}
+
 	/**
 	 * Remove a {@link SequencingObject} from a {@link Sample}.
 	 *
@@ -728,6 +773,254 @@ public class RESTSampleSequenceFilesController {
 		return modelMap;
 	}
 
+	/**
+	 * Save a file as a {@link SingleEndSequenceFile} in a {@link Sample} and
+	 * add the new {@link SequenceFile} to the response.
+	 *
+	 * @param modelMap     the response model
+	 * @param sampleId     the identifier for the {@link Sample}
+	 * @param sample       the {@link Sample}
+	 * @param file         the file to save
+	 * @param checksum     the sha256 checksum of the file if it's already known
+	 * @param fileResource the parameters for the file
+	 * @param response     the servlet response
+	 */
+	private void addSingleEndSequenceFile(ModelMap modelMap, Long sampleId, Sample sample, Path file,
+			String checksum, SequenceFileResource fileResource, HttpServletResponse response) {
+		SequenceFile sf;
+		SequencingRun miseqRun = null;
+		if (fileResource != null) {
+			sf = fileResource.getResource();
+
+			Long miseqRunId = fileResource.getMiseqRunId();
+			if (miseqRunId != null) {
+				miseqRun = sequencingRunService.read(miseqRunId);
+				logger.trace("Read miseq run " + miseqRunId);
+			}
+		} else {
+			sf = new SequenceFile();
+		}
+
+		sf.setFile(file);
+		// only keep a checksum the server calculated, files without one are
+		// checksummed when they're processed
+		sf.setUploadSha256(checksum);
+
+		SingleEndSequenceFile singleEndSequenceFile = new SingleEndSequenceFile(sf);
+		if (miseqRun != null) {
+			if (miseqRun.getUploadStatus() != SequencingRunUploadStatus.UPLOADING) {
+				throw new IllegalArgumentException("The sequencing run must be in the UPLOADING state to upload data.");
+			}
+			singleEndSequenceFile.setSequencingRun(miseqRun);
+			logger.trace("Added seqfile to miseqrun");
+		}
+
+		// save the seqobject and sample
+		SampleSequencingObjectJoin createSequencingObjectInSample = sequencingObjectService.createSequencingObjectInSample(
+				singleEndSequenceFile, sample);
+
+		singleEndSequenceFile = (SingleEndSequenceFile) createSequencingObjectInSample.getObject();
+		logger.trace("Created seqfile in sample " + createSequencingObjectInSample.getObject()
+				.getId());
+
+		// prepare a link to the sequence file itself (on the sequence file
+		// controller)
+		String objectType = objectLabels.get(SingleEndSequenceFile.class);
+		Long sequenceFileId = singleEndSequenceFile.getSequenceFile()
+				.getId();
+		Link selfRel = linkTo(
+				methodOn(RESTSampleSequenceFilesController.class).readSequenceFileForSequencingObject(sampleId,
+						objectType, singleEndSequenceFile.getId(), sequenceFileId)).withSelfRel();
+
+		// Changed, because sfr.setResource(sf)
+		// and sfr.setResource(sampleSequenceFileRelationship.getObject())
+		// both will not pass a GET-POST comparison integration test.
+		singleEndSequenceFile = (SingleEndSequenceFile) sequencingObjectService.read(singleEndSequenceFile.getId());
+		SequenceFile sequenceFile = singleEndSequenceFile.getFileWithId(sequenceFileId);
+
+		// add links to the resource
+		sequenceFile.add(
+				linkTo(methodOn(RESTSampleSequenceFilesController.class).getSampleSequenceFiles(sampleId)).withRel(
+						REL_SAMPLE_SEQUENCE_FILES));
+		sequenceFile.add(selfRel);
+		sequenceFile.add(
+				linkTo(methodOn(RESTProjectSamplesController.class).getSample(sampleId)).withRel(REL_SAMPLE));
+		sequenceFile.add(
+				linkTo(methodOn(RESTSampleSequenceFilesController.class).readSequencingObject(sampleId, objectType,
+						singleEndSequenceFile.getId())).withRel(REL_SEQ_OBJECT));
+
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, sequenceFile);
+		// add a location header.
+		response.addHeader(HttpHeaders.LOCATION, selfRel.getHref());
+		// set the response status.
+		response.setStatus(HttpStatus.CREATED.value());
+	}
+
+	/**
+	 * Save a file as a {@link Fast5Object} in a {@link Sample} and add the new
+	 * {@link SequenceFile} to the response.
+	 *
+	 * @param modelMap     the response model
+	 * @param sampleId     the identifier for the {@link Sample}
+	 * @param sample       the {@link Sample}
+	 * @param file         the file to save
+	 * @param checksum     the sha256 checksum of the file if it's already known
+	 * @param fileResource the parameters for the file
+	 * @param response     the servlet response
+	 */
+	private void addFast5File(ModelMap modelMap, Long sampleId, Sample sample, Path file, String checksum,
+			SequenceFileResource fileResource, HttpServletResponse response) {
+		SequenceFile sf;
+		SequencingRun sequencingRun = null;
+		if (fileResource != null) {
+			sf = fileResource.getResource();
+
+			Long sequencingRunId = fileResource.getMiseqRunId();
+			if (sequencingRunId != null) {
+				sequencingRun = sequencingRunService.read(sequencingRunId);
+				logger.trace("Read miseq run " + sequencingRunId);
+			}
+		} else {
+			sf = new SequenceFile();
+		}
+
+		sf.setFile(file);
+		// only keep a checksum the server calculated, files without one are
+		// checksummed when they're processed
+		sf.setUploadSha256(checksum);
+
+		Fast5Object fast5Object = new Fast5Object(sf);
+		if (sequencingRun != null) {
+			if (sequencingRun.getUploadStatus() != SequencingRunUploadStatus.UPLOADING) {
+				throw new IllegalArgumentException("The sequencing run must be in the UPLOADING state to upload data.");
+			}
+			fast5Object.setSequencingRun(sequencingRun);
+			logger.trace("Added seqfile to miseqrun");
+		}
+
+		// save the seqobject and sample
+		SampleSequencingObjectJoin createSequencingObjectInSample = sequencingObjectService.createSequencingObjectInSample(
+				fast5Object, sample);
+
+		fast5Object = (Fast5Object) createSequencingObjectInSample.getObject();
+		logger.trace("Created seqfile in sample " + createSequencingObjectInSample.getObject()
+				.getId());
+
+		// prepare a link to the sequence file itself (on the sequence file
+		// controller)
+		String objectType = objectLabels.get(Fast5Object.class);
+		Long sequenceFileId = fast5Object.getFile()
+				.getId();
+		Link selfRel = linkTo(
+				methodOn(RESTSampleSequenceFilesController.class).readSequenceFileForSequencingObject(sampleId,
+						objectType, fast5Object.getId(), sequenceFileId)).withSelfRel();
+
+		// Changed, because sfr.setResource(sf)
+		// and sfr.setResource(sampleSequenceFileRelationship.getObject())
+		// both will not pass a GET-POST comparison integration test.
+		fast5Object = (Fast5Object) sequencingObjectService.read(fast5Object.getId());
+		SequenceFile sequenceFile = fast5Object.getFileWithId(sequenceFileId);
+
+		// add links to the resource
+		sequenceFile.add(
+				linkTo(methodOn(RESTSampleSequenceFilesController.class).getSampleSequenceFiles(sampleId)).withRel(
+						REL_SAMPLE_SEQUENCE_FILES));
+		sequenceFile.add(selfRel);
+		sequenceFile.add(
+				linkTo(methodOn(RESTProjectSamplesController.class).getSample(sampleId)).withRel(REL_SAMPLE));
+		sequenceFile.add(
+				linkTo(methodOn(RESTSampleSequenceFilesController.class).readSequencingObject(sampleId, objectType,
+						fast5Object.getId())).withRel(REL_SEQ_OBJECT));
+
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, sequenceFile);
+		// add a location header.
+		response.addHeader(HttpHeaders.LOCATION, selfRel.getHref());
+		// set the response status.
+		response.setStatus(HttpStatus.CREATED.value());
+	}
+
+	/**
+	 * Save two files as a {@link SequenceFilePair} in a {@link Sample} and add
+	 * the new pair to the response.
+	 *
+	 * @param modelMap       the response model
+	 * @param sampleId       the identifier for the {@link Sample}
+	 * @param sample         the {@link Sample}
+	 * @param file1          the first file
+	 * @param checksum1      the sha256 checksum of the first file if known
+	 * @param fileResource1  the parameters for the first file
+	 * @param file2          the second file
+	 * @param checksum2      the sha256 checksum of the second file if known
+	 * @param fileResource2  the parameters for the second file
+	 * @param response       the servlet response
+	 */
+	private void addSequenceFilePair(ModelMap modelMap, Long sampleId, Sample sample, Path file1,
+			String checksum1, SequenceFileResource fileResource1, Path file2, String checksum2,
+			SequenceFileResource fileResource2, HttpServletResponse response) {
+		// create the model objects
+		SequenceFile sf1 = fileResource1.getResource();
+		SequenceFile sf2 = fileResource2.getResource();
+		sf1.setFile(file1);
+		sf2.setFile(file2);
+		if (checksum1 != null) {
+			sf1.setUploadSha256(checksum1);
+		}
+		if (checksum2 != null) {
+			sf2.setUploadSha256(checksum2);
+		}
+		// get the sequencing run
+		SequencingRun sequencingRun = null;
+
+		if (!Objects.equal(fileResource1.getMiseqRunId(), fileResource2.getMiseqRunId())) {
+			throw new IllegalArgumentException("Cannot upload a pair of files from different sequencing runs.");
+		}
+
+		Long runId = fileResource1.getMiseqRunId();
+
+		SequenceFilePair sequenceFilePair = new SequenceFilePair(sf1, sf2);
+
+		if (runId != null) {
+			sequencingRun = sequencingRunService.read(runId);
+			if (sequencingRun.getUploadStatus() != SequencingRunUploadStatus.UPLOADING) {
+				throw new IllegalArgumentException("The sequencing run must be in the UPLOADING state to upload data.");
+			}
+			sequenceFilePair.setSequencingRun(sequencingRun);
+			logger.trace("Added sequencing run to files" + runId);
+		}
+
+		// add the files and join
+		SampleSequencingObjectJoin createSequencingObjectInSample = sequencingObjectService.createSequencingObjectInSample(
+				sequenceFilePair, sample);
+
+		SequencingObject sequencingObject = createSequencingObjectInSample.getObject();
+
+		sequencingObject = addSequencingObjectLinks(sequencingObject, sampleId);
+
+		sequencingObject.add(
+				linkTo(methodOn(RESTSampleSequenceFilesController.class).getSampleSequenceFiles(sampleId)).withRel(
+						REL_SAMPLE_SEQUENCE_FILES));
+
+		// add location header
+		response.addHeader(HttpHeaders.LOCATION, sequencingObject.getLink("self")
+				.getHref());
+
+		// set the response status.
+		response.setStatus(HttpStatus.CREATED.value());
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, sequencingObject);
+	}
+
+	/**
+	 * Add the self link and a link to its sample to an upload
+	 *
+	 * @param upload   the {@link SequenceFileUpload} to enhance
+	 * @param sampleId the id of the {@link Sample} the file is uploaded to
+	 */
+	private static void addUploadLinks(SequenceFileUpload upload, Long sampleId) {
+		upload.add(linkTo(methodOn(RESTSampleSequenceFilesController.class).readSequenceFileUpload(sampleId,
+				upload.getUploadId())).withSelfRel());
+		upload.add(linkTo(methodOn(RESTProjectSamplesController.class).getSample(sampleId)).withRel(REL_SAMPLE));
+	}
+
 	/**
 	 * add the forward and reverse file links and a link to the pair's sample
 	 * 
@@ -5,12 +5,9 @@ import ca.corefacility.bioinformatics.irida.web.controller.api.RESTGenericContro
 import com.google.common.net.HttpHeaders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.web.servlet.view.AbstractView;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.OutputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
 
@@ -18,7 +15,7 @@ import java.util.Map;
  * Write out FASTA formatted sequence files to the client.
  *
  */
-public class FastaView extends AbstractView {
+public class FastaView extends RangedFileView {
 
     public static final String DEFAULT_CONTENT_TYPE = "application/fasta";
     private static final Logger logger = LoggerFactory.getLogger(FastaView.class);
@@ -41,10 +38,6 @@ public class FastaView extends AbstractView {
         logger.trace("Sending file to client [" + filename + "]");
         response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
         response.setHeader(HttpHeaders.CONTENT_TYPE, DEFAULT_CONTENT_TYPE);
-        response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(Files.size(fileContent)));
-        OutputStream os = response.getOutputStream();
-        Files.copy(fileContent, os);
-        os.flush();
-        os.close();
+        writeFile(fileContent, null, request, response);
     }
 }
@@ -1,7 +1,5 @@
 package ca.corefacility.bioinformatics.irida.web.spring.view;
 
-import java.io.OutputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
 
@@ -10,7 +8,6 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.web.servlet.view.AbstractView;
 
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.web.controller.api.RESTGenericController;
@@ -18,10 +15,12 @@ import ca.corefacility.bioinformatics.irida.web.controller.api.RESTGenericContro
 import com.google.common.net.HttpHeaders;
 
 /**
- * Write out FASTQ formatted sequence files to the client.
+ * Write out FASTQ formatted sequence files to the client. While a file is
+ * still the file that was uploaded its upload checksum is sent as its ETag, so
+ * that clients can verify what they download.
  *
  */
-public class FastqView extends AbstractView {
+public class FastqView extends RangedFileView {
     public static final String DEFAULT_CONTENT_TYPE = "application/fastq";
     private static final Logger logger = LoggerFactory.getLogger(FastqView.class);
 
@@ -43,10 +42,22 @@ public class FastqView extends AbstractView {
         logger.trace("Sending file to client [" + filename + "]");
         response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
         response.setHeader(HttpHeaders.CONTENT_TYPE, DEFAULT_CONTENT_TYPE);
-        response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(Files.size(fileContent)));
-        OutputStream os = response.getOutputStream();
-        Files.copy(fileContent, os);
-        os.flush();
-        os.close();
+        writeFile(fileContent, getETag(sfr), request, response);
+    }
+
+    /**
+     * Get the ETag for a file. Files are only given an ETag while they're the
+     * first revision of the file, ie. the file the upload checksum was taken
+     * from.
+     *
+     * @param sequenceFile the {@link SequenceFile} being sent
+     * @return the quoted upload checksum, or null if the file has changed
+     *         since it was uploaded
+     */
+    private static String getETag(SequenceFile sequenceFile) {
+        if (sequenceFile.getUploadSha256() == null || !Long.valueOf(1).equals(sequenceFile.getFileRevisionNumber())) {
+            return null;
+        }
+        return "\"" + sequenceFile.getUploadSha256() + "\"";
     }
 }
@@ -0,0 +1,97 @@
+package ca.corefacility.bioinformatics.irida.web.spring.view;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.view.AbstractView;
+
+import com.google.common.net.HttpHeaders;
+
+/**
+ * Base class for views that write a file to the client. A single byte range
+ * can be requested with a {@code Range} header so that clients can download a
+ * file in parts, or resume a download that was interrupted.
+ */
+public abstract class RangedFileView extends AbstractView {
+	private static final Pattern BYTE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+	/**
+	 * Write a file to the client, or the part of it asked for in the request's
+	 * {@code Range} header.
+	 *
+	 * @param file     the file to write
+	 * @param etag     a quoted strong ETag for the file, or null if there isn't
+	 *                 one. A range is only sent when the request's
+	 *                 {@code If-Range} header, if it has one, matches the ETag.
+	 * @param request  the request
+	 * @param response the response to write the file to
+	 * @throws IOException if the file could not be written
+	 */
+	protected void writeFile(Path file, String etag, HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long start = 0;
+			long end = size - 1;
+
+			response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+			if (etag != null) {
+				response.setHeader(HttpHeaders.ETAG, etag);
+			}
+
+			String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+			Matcher range = BYTE_RANGE.matcher(String.valueOf(request.getHeader(HttpHeaders.RANGE)).trim());
+			if (size > 0 && range.matches() && (ifRange == null || ifRange.equals(etag))
+					&& !(range.group(1).isEmpty() && range.group(2).isEmpty())) {
+				try {
+					if (range.group(1).isEmpty()) {
+						// a suffix range, the last n bytes of the file
+						start = Math.max(0, size - Long.parseLong(range.group(2)));
+					} else {
+						start = Long.parseLong(range.group(1));
+						if (!range.group(2).isEmpty()) {
+							end = Math.min(end, Long.parseLong(range.group(2)));
+						}
+					}
+				} catch (NumberFormatException e) {
+					start = 0;
+					end = size - 1;
+				}
+
+				if (start >= size || start > end) {
+					response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+					response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+					return;
+				}
+
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+			}
+
+			response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(end - start + 1));
+
+			OutputStream os = response.getOutputStream();
+			WritableByteChannel out = Channels.newChannel(os);
+			long position = start;
+			while (position <= end) {
+				long transferred = channel.transferTo(position, end - position + 1, out);
+				if (transferred == 0) {
+					throw new IOException("File [" + file + "] ended before byte " + position);
+				}
+				position += transferred;
+			}
+			os.flush();
+			os.close();
+		}
+	}
+}
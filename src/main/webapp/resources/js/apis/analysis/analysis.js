@@ -213,6 +213,17 @@ export async function getUpdatedDetails(submissionId) {
   }
 }
 
+/**
+ * Listen for the progress of an analysis. The server sends a `progress` event
+ * with the state and duration of the analysis each time its state changes, and
+ * closes the stream once the analysis has completed or errored.
+ * @param {number} submissionId Submission ID
+ * @return {EventSource} the source of the `progress` events
+ */
+export function listenForProgress(submissionId) {
+  return new EventSource(`${ANALYSIS_URL}/${submissionId}/progress-events`);
+}
+
 /**
  * Get the data from the output file for with the supplied chunk size
  * @param {object} contains the output file data
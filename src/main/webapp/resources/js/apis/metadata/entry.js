@@ -7,15 +7,19 @@ import { setBaseUrl } from "../../utilities/url-utilities";
 const URL = setBaseUrl(`linelist/entries`);
 
 /**
- * Get all metadata belonging to samples in the current project.
- * These will be the table content
+ * Get metadata belonging to samples in the current project.
+ * These will be the table content.  The total number of samples in the
+ * project is returned in the `x-total-count` header.
  * @param {number} projectId
+ * @param {number} page - page of samples to get, all samples if not given
+ * @param {number} size - number of samples in a page
  * @returns {Promise}
  */
-export function fetchMetadataEntries(projectId) {
+export function fetchMetadataEntries(projectId, page, size) {
   return axios({
     method: "get",
-    url: `${URL}?projectId=${projectId}`
+    url: URL,
+    params: { projectId, page, size }
   });
 }
 
@@ -5,12 +5,10 @@
 import React, { useEffect, useState } from "react";
 import { showNotification } from "../modules/notifications";
 
-import { useInterval } from "../hooks";
-
 // Functions required by context
 import {
   getAnalysisInfo,
-  getUpdatedDetails,
+  listenForProgress,
   updateAnalysis
 } from "../apis/analysis/analysis";
 
@@ -49,8 +47,6 @@ const initialContext = {
   treeDefault: false
 };
 
-const UPDATE_ANALYSIS_DELAY=60000;
-
 const AnalysisContext = React.createContext(initialContext);
 
 function AnalysisProvider(props) {
@@ -76,24 +72,29 @@ function AnalysisProvider(props) {
   }, []);
 
   /* Update the analysis details that are required
-   * to display the progression using polling
+   * to display the progression as the server sends them
    */
-  const intervalId = useInterval(() => {
-    getUpdatedDetails(analysisIdentifier).then(res => {
+  useEffect(() => {
+    if (!analysisIdentifier) {
+      return;
+    }
+
+    const source = listenForProgress(analysisIdentifier);
+    source.addEventListener("progress", event => {
+      const res = JSON.parse(event.data);
       updateAnalysisState(res.analysisState, res.previousState);
       updateAnalysisDuration(res.duration);
       /*
-       * If the analysis has completed or errored we want to clear the interval
-       * so we do not keep retrieving the analysis progress
+       * If the analysis has completed or errored we want to close the stream
+       * so the browser does not reconnect to it
        */
       if(res.analysisState === "COMPLETED" || res.analysisState.includes("ERROR")) {
-        clearInterval(intervalId);
+        source.close();
       }
-    }).catch((message) => {
-      notification.error({ message });
-      clearInterval(intervalId);
     });
-  }, UPDATE_ANALYSIS_DELAY);
+
+    return () => source.close();
+  }, [analysisIdentifier]);
 
   /* This function is used to update the AnalysisContext
    * analysis duration if it has changed from the original
@@ -8,15 +8,36 @@ import { actions, types } from "../reducers/entries";
 import { FIELDS } from "../constants";
 
 /**
- * Fetch all the metadata entries required to initialize the table.
+ * Number of samples to fetch the metadata for in each request.
+ * @type {number}
+ */
+const PAGE_SIZE = 5000;
+
+/**
+ * Fetch all the metadata entries required to initialize the table.  Entries
+ * are fetched a page at a time and added to the table as each page arrives.
  * @returns {IterableIterator<*>}
  */
 export function* entriesLoadingSaga() {
   try {
     const { payload } = yield take(appTypes.INIT_APP);
     yield put(actions.load());
-    const { data: entries } = yield call(fetchMetadataEntries, payload.id);
-    yield put(actions.success(entries));
+
+    let entries = [];
+    let page = 0;
+    let total;
+    do {
+      const { data, headers } = yield call(
+        fetchMetadataEntries,
+        payload.id,
+        page++,
+        PAGE_SIZE
+      );
+      entries = entries.concat(data);
+      total = Number(headers["x-total-count"]);
+      yield put(actions.success(entries));
+      if (data.length < PAGE_SIZE) break;
+    } while (entries.length < total);
   } catch (error) {
     yield put(actions.error(error));
   }
@@ -1,13 +1,17 @@
 package ca.corefacility.bioinformatics.irida.events;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -19,6 +23,7 @@ import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
 import ca.corefacility.bioinformatics.irida.model.event.DataAddedToSampleProjectEvent;
 import ca.corefacility.bioinformatics.irida.model.event.ProjectEvent;
 import ca.corefacility.bioinformatics.irida.model.event.SampleAddedProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.SampleRemovedProjectEvent;
 import ca.corefacility.bioinformatics.irida.model.event.UserRemovedProjectEvent;
 import ca.corefacility.bioinformatics.irida.model.event.UserRoleSetProjectEvent;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
@@ -62,18 +67,63 @@ public class ProjectEventHandlerTest {
 		Object[] args = { project, sample };
 		MethodEvent methodEvent = new MethodEvent(clazz, returnValue, args);
 
-		when(eventRepository.save(any(ProjectEvent.class))).thenReturn(new SampleAddedProjectEvent(returnValue));
 
 		handler.delegate(methodEvent);
 
-		ArgumentCaptor<ProjectEvent> captor = ArgumentCaptor.forClass(ProjectEvent.class);
-		verify(eventRepository).save(captor.capture());
-		ProjectEvent event = captor.getValue();
+		ProjectEvent event = getInsertedEvent();
 		assertTrue(event instanceof SampleAddedProjectEvent);
 
 		verify(projectRepository).save(any(Project.class));
 	}
 
+	@Test
+	public void testDelegateMultipleSamplesAdded() {
+		Class<? extends ProjectEvent> clazz = SampleAddedProjectEvent.class;
+		Project project = new Project("p1");
+		project.setId(1L);
+		List<ProjectSampleJoin> returnValue = new ArrayList<>();
+		for (long i = 1; i <= 3; i++) {
+			Sample sample = new Sample("s" + i);
+			sample.setId(i);
+			// each join may load its own copy of the project
+			Project joinProject = new Project("p1");
+			joinProject.setId(1L);
+			returnValue.add(new ProjectSampleJoin(i == 1 ? project : joinProject, sample, true));
+		}
+		MethodEvent methodEvent = new MethodEvent(clazz, returnValue, new Object[] {});
+
+		handler.delegate(methodEvent);
+
+		Collection<ProjectEvent> events = getInsertedEvents();
+		assertEquals("an event should be inserted for each sample", 3, events.size());
+		for (ProjectEvent event : events) {
+			assertTrue(event instanceof SampleAddedProjectEvent);
+		}
+
+		verify(eventRepository, never()).save(any(ProjectEvent.class));
+		verify(projectRepository, times(1)).save(any(Project.class));
+		verify(projectRepository).save(project);
+	}
+
+	@Test
+	public void testDelegateMultipleSamplesRemoved() {
+		Class<? extends ProjectEvent> clazz = SampleRemovedProjectEvent.class;
+		Project project = new Project("p1");
+		List<Sample> samples = Lists.newArrayList(new Sample("s1"), new Sample("s2"));
+		Object[] args = { project, samples };
+		MethodEvent methodEvent = new MethodEvent(clazz, null, args);
+
+		handler.delegate(methodEvent);
+
+		Collection<ProjectEvent> events = getInsertedEvents();
+		assertEquals(2, events.size());
+		for (ProjectEvent event : events) {
+			assertTrue(event instanceof SampleRemovedProjectEvent);
+		}
+
+		verify(projectRepository, times(1)).save(project);
+	}
+
 	@Test
 	public void testDelegateUserRole() {
 		Class<? extends ProjectEvent> clazz = UserRoleSetProjectEvent.class;
@@ -83,13 +133,10 @@ public class ProjectEventHandlerTest {
 		Object[] args = { project, user, ProjectRole.PROJECT_USER };
 		MethodEvent methodEvent = new MethodEvent(clazz, returnValue, args);
 
-		when(eventRepository.save(any(ProjectEvent.class))).thenReturn(new UserRoleSetProjectEvent(returnValue));
 
 		handler.delegate(methodEvent);
 
-		ArgumentCaptor<ProjectEvent> captor = ArgumentCaptor.forClass(ProjectEvent.class);
-		verify(eventRepository).save(captor.capture());
-		ProjectEvent event = captor.getValue();
+		ProjectEvent event = getInsertedEvent();
 		assertTrue(event instanceof UserRoleSetProjectEvent);
 
 		verify(projectRepository).save(any(Project.class));
@@ -103,13 +150,10 @@ public class ProjectEventHandlerTest {
 		Object[] args = { project, user };
 		MethodEvent methodEvent = new MethodEvent(clazz, null, args);
 
-		when(eventRepository.save(any(ProjectEvent.class))).thenReturn(new UserRemovedProjectEvent(project, user));
 
 		handler.delegate(methodEvent);
 
-		ArgumentCaptor<ProjectEvent> captor = ArgumentCaptor.forClass(ProjectEvent.class);
-		verify(eventRepository).save(captor.capture());
-		ProjectEvent event = captor.getValue();
+		ProjectEvent event = getInsertedEvent();
 		assertTrue(event instanceof UserRemovedProjectEvent);
 
 		verify(projectRepository).save(any(Project.class));
@@ -128,17 +172,13 @@ public class ProjectEventHandlerTest {
 		when(psjRepository.getProjectForSample(sample)).thenReturn(
 				Lists.newArrayList(new ProjectSampleJoin(project, sample, true)));
 
-		when(eventRepository.save(any(ProjectEvent.class))).thenReturn(
-				new DataAddedToSampleProjectEvent(project, sample));
 
 		Object[] args = {};
 		MethodEvent methodEvent = new MethodEvent(clazz, join, args);
 
 		handler.delegate(methodEvent);
 
-		ArgumentCaptor<ProjectEvent> captor = ArgumentCaptor.forClass(ProjectEvent.class);
-		verify(eventRepository).save(captor.capture());
-		ProjectEvent event = captor.getValue();
+		ProjectEvent event = getInsertedEvent();
 		assertTrue(event instanceof DataAddedToSampleProjectEvent);
 
 		verify(projectRepository).save(any(Project.class));
@@ -160,17 +200,13 @@ public class ProjectEventHandlerTest {
 		when(psjRepository.getProjectForSample(sample)).thenReturn(
 				Lists.newArrayList(new ProjectSampleJoin(project, sample, true)));
 
-		when(eventRepository.save(any(ProjectEvent.class))).thenReturn(
-				new DataAddedToSampleProjectEvent(project, sample));
 
 		Object[] args = {};
 		MethodEvent methodEvent = new MethodEvent(clazz, Lists.newArrayList(join1, join2), args);
 
 		handler.delegate(methodEvent);
 
-		ArgumentCaptor<ProjectEvent> captor = ArgumentCaptor.forClass(ProjectEvent.class);
-		verify(eventRepository).save(captor.capture());
-		ProjectEvent event = captor.getValue();
+		ProjectEvent event = getInsertedEvent();
 		assertTrue(event instanceof DataAddedToSampleProjectEvent);
 
 		verify(projectRepository).save(any(Project.class));
@@ -191,17 +227,14 @@ public class ProjectEventHandlerTest {
 		when(psjRepository.getProjectForSample(sample)).thenReturn(
 				Lists.newArrayList(new ProjectSampleJoin(project, sample, true), new ProjectSampleJoin(project2, sample, true)));
 
-		when(eventRepository.save(any(ProjectEvent.class))).thenReturn(
-				new DataAddedToSampleProjectEvent(project, sample));
 
 		Object[] args = {};
 		MethodEvent methodEvent = new MethodEvent(clazz, join, args);
 
 		handler.delegate(methodEvent);
 
-		ArgumentCaptor<ProjectEvent> captor = ArgumentCaptor.forClass(ProjectEvent.class);
-		verify(eventRepository, times(2)).save(captor.capture());
-		List<ProjectEvent> allValues = captor.getAllValues();
+		Collection<ProjectEvent> allValues = getInsertedEvents();
+		assertEquals(2, allValues.size());
 
 		Set<Project> projects = Sets.newHashSet(project, project2);
 		for (ProjectEvent event : allValues) {
@@ -211,7 +244,8 @@ public class ProjectEventHandlerTest {
 			projects.remove(eventProject);
 		}
 
-		verify(projectRepository, times(2)).save(project);
+		verify(projectRepository).save(project);
+		verify(projectRepository).save(project2);
 	}
 
 	@Test
@@ -226,4 +260,18 @@ public class ProjectEventHandlerTest {
 
 		verifyZeroInteractions(eventRepository);
 	}
+
+	private ProjectEvent getInsertedEvent() {
+		Collection<ProjectEvent> events = getInsertedEvents();
+		assertEquals("a single event should be inserted", 1, events.size());
+		return events.iterator()
+				.next();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Collection<ProjectEvent> getInsertedEvents() {
+		ArgumentCaptor<Collection<ProjectEvent>> captor = ArgumentCaptor.forClass(Collection.class);
+		verify(eventRepository).insertEvents(captor.capture());
+		return captor.getValue();
+	}
 }
@@ -3,6 +3,7 @@ package ca.corefacility.bioinformatics.irida.processing.impl.unit;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -47,6 +48,20 @@ public class ChecksumFileProcessorTest {
 		assertEquals("checksums should be equal", CHECKSUM, file.getUploadSha256());
 	}
 
+	@Test
+	public void testChecksumAlreadySet() throws IOException {
+		final SequenceFile sf = constructSequenceFile();
+		sf.setUploadSha256(CHECKSUM);
+		Files.write(sf.getFile(), "changed".getBytes());
+
+		SingleEndSequenceFile so = new SingleEndSequenceFile(sf);
+
+		fileProcessor.process(so);
+
+		verifyZeroInteractions(sequenceFileRepository);
+		assertEquals("checksum should not be replaced", CHECKSUM, sf.getUploadSha256());
+	}
+
 	@Test(expected = FileProcessorException.class)
 	public void testFileNotExists() throws IOException {
 		final SequenceFile sf = new SequenceFile(Paths.get("/reallyfakefile"));
@@ -0,0 +1,70 @@
+package ca.corefacility.bioinformatics.irida.processing.impl.unit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.corefacility.bioinformatics.irida.processing.impl.DecompressionDirectory;
+
+/**
+ * Tests for {@link DecompressionDirectory}.
+ */
+public class DecompressionDirectoryTest {
+
+	private Path baseDirectory;
+	private DecompressionDirectory decompressionDirectory;
+
+	@Before
+	public void setUp() throws IOException {
+		baseDirectory = Files.createTempDirectory(null);
+		decompressionDirectory = new DecompressionDirectory(baseDirectory, 1);
+	}
+
+	@Test
+	public void testCreateDirectoryOutsideRevisions() throws IOException {
+		Path directory = decompressionDirectory.createDirectory();
+
+		assertTrue("directory should be created", Files.isDirectory(directory));
+		assertTrue("directory should be under the base directory", directory.startsWith(baseDirectory));
+	}
+
+	@Test
+	public void testRemoveAbandonedDirectories() throws IOException {
+		FileTime old = FileTime.from(Instant.now()
+				.minus(2, ChronoUnit.HOURS));
+
+		Path abandoned = decompressionDirectory.createDirectory();
+		Path abandonedFile = Files.createFile(abandoned.resolve("abandoned.fastq"));
+		Files.setLastModifiedTime(abandonedFile, old);
+		Files.setLastModifiedTime(abandoned, old);
+
+		// a file still being written by another server keeps its own modified
+		// time current
+		Path inProgress = decompressionDirectory.createDirectory();
+		Files.createFile(inProgress.resolve("in-progress.fastq"));
+		Files.setLastModifiedTime(inProgress, old);
+
+		Path recent = decompressionDirectory.createDirectory();
+
+		decompressionDirectory.removeAbandonedDirectories();
+
+		assertFalse("abandoned directory should be removed", Files.exists(abandoned));
+		assertTrue("directory with a file being written should be kept", Files.exists(inProgress));
+		assertTrue("recent directory should be kept", Files.exists(recent));
+	}
+
+	@Test
+	public void testRemoveAbandonedDirectoriesNoDirectory() {
+		// nothing has been decompressed yet
+		decompressionDirectory.removeAbandonedDirectories();
+	}
+}
@@ -4,9 +4,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.file.Paths;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -18,10 +20,11 @@ import org.mockito.ArgumentCaptor;
 
 import com.google.common.collect.Sets;
 
-import ca.corefacility.bioinformatics.irida.exceptions.FileProcessorTimeoutException;
+import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 import ca.corefacility.bioinformatics.irida.model.sample.QCEntry;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessingChain;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
@@ -51,17 +54,33 @@ public class DefaultFileProcessingChainTest {
 		when(objectRepository.findById(objectId)).thenReturn(Optional.of(seqObject));
 	}
 
-	@Test(expected = FileProcessorTimeoutException.class)
-	public void testExceedsTimeout() throws FileProcessorTimeoutException {
+	@Test(expected = EntityNotFoundException.class)
+	public void testObjectNotFound() {
 		FileProcessingChain fileProcessingChain = new DefaultFileProcessingChain(objectRepository, qcRepository);
-		fileProcessingChain.setTimeout(1);
-		fileProcessingChain.setSleepDuration(0);
 
 		fileProcessingChain.launchChain(objectId);
 	}
 
 	@Test
-	public void testProcessEmptyChain() throws FileProcessorTimeoutException {
+	public void testMissingFileFailsProcessor() {
+		SequenceFile missingFile = new SequenceFile(Paths.get("/reallyfakefile"));
+		SequencingObject missingFileObject = new SingleEndSequenceFile(missingFile);
+		when(objectRepository.findById(objectId)).thenReturn(Optional.of(missingFileObject));
+		when(objectRepository.existsById(objectId)).thenReturn(true);
+
+		FileProcessor processor = mock(FileProcessor.class);
+		when(processor.modifiesFile()).thenReturn(false);
+		FileProcessingChain fileProcessingChain = new DefaultFileProcessingChain(objectRepository, qcRepository,
+				processor);
+
+		List<Exception> exceptions = fileProcessingChain.launchChain(objectId);
+
+		assertEquals("missing file should be reported as a processor failure", 1, exceptions.size());
+		verify(processor, never()).process(missingFileObject);
+	}
+
+	@Test
+	public void testProcessEmptyChain() {
 		FileProcessingChain fileProcessingChain = new DefaultFileProcessingChain(objectRepository, qcRepository);
 		when(objectRepository.existsById(objectId)).thenReturn(true);
 
@@ -69,7 +88,7 @@ public class DefaultFileProcessingChainTest {
 	}
 
 	@Test
-	public void testFailWithContinueChain() throws FileProcessorTimeoutException {
+	public void testFailWithContinueChain() {
 		FileProcessingChain fileProcessingChain = new DefaultFileProcessingChain(objectRepository, qcRepository,
 				new FailingFileProcessor());
 		when(objectRepository.existsById(objectId)).thenReturn(true);
@@ -83,7 +102,7 @@ public class DefaultFileProcessingChainTest {
 	}
 
 	@Test(expected = FileProcessorException.class)
-	public void testFastFailProcessorChain() throws FileProcessorTimeoutException {
+	public void testFastFailProcessorChain() {
 		FileProcessingChain fileProcessingChain = new DefaultFileProcessingChain(objectRepository, qcRepository,
 				new FailingFileProcessor());
 		when(objectRepository.existsById(objectId)).thenReturn(true);
@@ -95,7 +114,7 @@ public class DefaultFileProcessingChainTest {
 	}
 
 	@Test(expected = FileProcessorException.class)
-	public void testFailOnProcessorChain() throws FileProcessorTimeoutException {
+	public void testFailOnProcessorChain() {
 		FileProcessingChain fileProcessingChain = new DefaultFileProcessingChain(objectRepository, qcRepository,
 				new FailingFileProcessorNoContinue());
 
@@ -105,7 +124,7 @@ public class DefaultFileProcessingChainTest {
 	}
 
 	@Test
-	public void testFailWriteQCEntry() throws FileProcessorTimeoutException {
+	public void testFailWriteQCEntry() {
 		FileProcessingChain fileProcessingChain = new DefaultFileProcessingChain(objectRepository, qcRepository,
 				new FailingFileProcessorNoContinue());
 		when(objectRepository.existsById(objectId)).thenReturn(true);
@@ -1,7 +1,6 @@
 package ca.corefacility.bioinformatics.irida.processing.impl.unit;
 
 import static org.junit.Assert.*;
-import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
@@ -12,8 +11,6 @@ import java.nio.file.Path;
 import java.util.Iterator;
 
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.Fast5Object;
-import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisOutputFile;
-import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisOutputFileRepository;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -27,6 +24,7 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.impl.FastQCChartRenderer;
 import ca.corefacility.bioinformatics.irida.processing.impl.FastqcFileProcessor;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 
@@ -38,7 +36,6 @@ import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFi
 public class FastqcFileProcessorTest {
 	private FastqcFileProcessor fileProcessor;
 	private SequenceFileRepository sequenceFileRepository;
-	private AnalysisOutputFileRepository outputFileRepository;
 	private MessageSource messageSource;
 	private static final Logger logger = LoggerFactory.getLogger(FastqcFileProcessorTest.class);
 
@@ -51,8 +48,7 @@ public class FastqcFileProcessorTest {
 	public void setUp() {
 		messageSource = mock(MessageSource.class);
 		sequenceFileRepository = mock(SequenceFileRepository.class);
-		outputFileRepository = mock(AnalysisOutputFileRepository.class);
-		fileProcessor = new FastqcFileProcessor(messageSource, sequenceFileRepository, outputFileRepository);
+		fileProcessor = new FastqcFileProcessor(messageSource, sequenceFileRepository);
 	}
 
 	@Test(expected = FileProcessorException.class)
@@ -118,13 +114,15 @@ public class FastqcFileProcessorTest {
 		assertEquals("Total number of bases was not correct.", Long.valueOf(SEQUENCE.length() * 2),
 				updated.getTotalBases());
 
-		verify(outputFileRepository,times(3)).save(any(AnalysisOutputFile.class));
+		assertTrue("Charts should not be written during processing.", updated.getAnalysisOutputFileNames().isEmpty());
+		assertNotNull("Chart data was not stored.", updated.getChartData());
 
-		assertNotNull("Per-base quality score chart was not created.", updated.getAnalysisOutputFileNames().contains("perBaseQualityScoreChart"));
-
-		assertNotNull("Per-sequence quality score chart was not created.", updated.getAnalysisOutputFileNames().contains("perSequenceQualityScoreChart"));
-
-		assertNotNull("Duplication level chart was not created.", updated.getAnalysisOutputFileNames().contains("duplicationLevelChart"));
+		FastQCChartRenderer renderer = new FastQCChartRenderer();
+		assertTrue("Per-base quality score chart was not drawn.",
+				renderer.renderPerBaseQualityScoreChart(updated).length > 0);
+		assertTrue("Per-sequence quality score chart was not drawn.",
+				renderer.renderPerSequenceQualityScoreChart(updated).length > 0);
+		assertTrue("Duplication level chart was not drawn.", renderer.renderDuplicationLevelChart(updated).length > 0);
 
 		Iterator<OverrepresentedSequence> ovrs = updated.getOverrepresentedSequences().iterator();
 		assertTrue("No overrepresented sequences added to analysis.", ovrs.hasNext());
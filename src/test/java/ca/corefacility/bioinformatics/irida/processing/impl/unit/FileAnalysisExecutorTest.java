@@ -0,0 +1,158 @@
+package ca.corefacility.bioinformatics.irida.processing.impl.unit;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.impl.FileAnalysisExecutor;
+
+/**
+ * Tests for {@link FileAnalysisExecutor}.
+ */
+public class FileAnalysisExecutorTest {
+	private ExecutorService executorService;
+
+	@Before
+	public void setUp() {
+		executorService = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		executorService.shutdownNow();
+	}
+
+	@Test
+	public void testAnalyzesFilesConcurrently() {
+		FileAnalysisExecutor executor = new FileAnalysisExecutor(executorService, 1024, 512);
+		List<SequenceFile> files = files(2);
+		CountDownLatch bothRunning = new CountDownLatch(2);
+
+		Map<SequenceFile, Boolean> results = executor.analyze(files, f -> {
+			bothRunning.countDown();
+			return bothRunning.await(5, TimeUnit.SECONDS);
+		});
+
+		assertEquals("should have a result for each file", files, Lists.newArrayList(results.keySet()));
+		assertTrue("both files should have been analyzed at the same time", results.values().stream().allMatch(b -> b));
+	}
+
+	@Test
+	public void testMemoryBudgetLimitsConcurrency() {
+		FileAnalysisExecutor executor = new FileAnalysisExecutor(executorService, 1024, 512);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		executor.analyze(files(4), f -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			Thread.sleep(50);
+			return running.decrementAndGet();
+		});
+
+		assertTrue("no more than 2 files should fit in the budget", maxRunning.get() <= 2);
+	}
+
+	@Test
+	public void testFileLargerThanBudgetStillRuns() {
+		FileAnalysisExecutor executor = new FileAnalysisExecutor(executorService, 256, 512);
+
+		Map<SequenceFile, Long> results = executor.analyze(files(2), SequenceFile::getId);
+
+		assertEquals("both files should be analyzed", 2, results.size());
+	}
+
+	@Test(expected = FileProcessorException.class)
+	public void testFailureIsReported() {
+		FileAnalysisExecutor executor = new FileAnalysisExecutor(executorService, 1024, 512);
+
+		executor.analyze(files(2), f -> {
+			if (f.getId() == 2L) {
+				throw new IllegalStateException("bad file");
+			}
+			return f.getId();
+		});
+	}
+
+	@Test
+	public void testSucceededResultsDiscardedOnFailure() throws InterruptedException {
+		FileAnalysisExecutor executor = new FileAnalysisExecutor(executorService, 1024, 256);
+		CountDownLatch othersDone = new CountDownLatch(2);
+		Set<Long> discarded = ConcurrentHashMap.newKeySet();
+
+		try {
+			executor.analyze(files(3), f -> {
+				if (f.getId() == 2L) {
+					othersDone.await(5, TimeUnit.SECONDS);
+					throw new IllegalStateException("bad file");
+				}
+				othersDone.countDown();
+				return f.getId();
+			}, discarded::add);
+			fail("the failed file should be reported");
+		} catch (FileProcessorException e) {
+			// an analysis finishing after the failure discards its own result
+			executorService.shutdown();
+			executorService.awaitTermination(5, TimeUnit.SECONDS);
+
+			assertEquals("results of the other files should be discarded", Sets.newHashSet(1L, 3L), discarded);
+		}
+	}
+
+	@Test
+	public void testSerialResultsDiscardedOnFailure() {
+		FileAnalysisExecutor executor = new FileAnalysisExecutor();
+		Set<Long> discarded = new HashSet<>();
+
+		try {
+			executor.analyze(files(2), f -> {
+				if (f.getId() == 2L) {
+					throw new IllegalStateException("bad file");
+				}
+				return f.getId();
+			}, discarded::add);
+			fail("the failed file should be reported");
+		} catch (FileProcessorException e) {
+			assertEquals("result of the first file should be discarded", Sets.newHashSet(1L), discarded);
+		}
+	}
+
+	@Test
+	public void testSerialExecutor() {
+		FileAnalysisExecutor executor = new FileAnalysisExecutor();
+		Thread caller = Thread.currentThread();
+
+		Map<SequenceFile, Thread> results = executor.analyze(files(2), f -> Thread.currentThread());
+
+		assertTrue("files should be analyzed in the calling thread",
+				results.values().stream().allMatch(t -> t == caller));
+	}
+
+	private List<SequenceFile> files(int count) {
+		List<SequenceFile> files = Lists.newArrayList();
+		for (long i = 1; i <= count; i++) {
+			SequenceFile file = new SequenceFile(Paths.get("/tmp/file" + i + ".fastq"));
+			file.setId(i);
+			files.add(file);
+		}
+		return files;
+	}
+}
@@ -0,0 +1,211 @@
+package ca.corefacility.bioinformatics.irida.processing.impl.unit;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.corefacility.bioinformatics.irida.processing.impl.GzipDecompressor;
+
+/**
+ * Tests for {@link GzipDecompressor}.
+ */
+public class GzipDecompressorTest {
+	private ExecutorService executorService;
+	private GzipDecompressor decompressor;
+	private Path directory;
+	private byte[] contents;
+
+	@Before
+	public void setUp() throws IOException {
+		executorService = Executors.newFixedThreadPool(4);
+		decompressor = new GzipDecompressor(executorService, 2);
+		directory = Files.createTempDirectory(null);
+
+		StringBuilder fastq = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			fastq.append("@read").append(i).append("\nACGTACGTNACGTACGT\n+\n?????????????????\n");
+		}
+		contents = fastq.toString().getBytes();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		executorService.shutdownNow();
+		org.apache.commons.io.FileUtils.deleteDirectory(directory.toFile());
+	}
+
+	@Test
+	public void testDecompressGzip() throws IOException {
+		Path compressed = directory.resolve("file.fastq.gz");
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+			out.write(contents);
+		}
+
+		Path target = directory.resolve("file.fastq");
+		decompressor.decompress(compressed, target);
+
+		assertArrayEquals("decompressed file should match the original", contents, Files.readAllBytes(target));
+	}
+
+	@Test
+	public void testDecompressConcatenatedGzip() throws IOException {
+		Path compressed = directory.resolve("file.fastq.gz");
+		int half = contents.length / 2;
+		try (OutputStream out = Files.newOutputStream(compressed)) {
+			out.write(gzip(contents, 0, half));
+			out.write(gzip(contents, half, contents.length - half));
+		}
+
+		Path target = directory.resolve("file.fastq");
+		decompressor.decompress(compressed, target);
+
+		assertArrayEquals("all members should be decompressed", contents, Files.readAllBytes(target));
+	}
+
+	@Test
+	public void testDecompressBgzf() throws IOException {
+		Path compressed = directory.resolve("file.fastq.gz");
+		try (OutputStream out = Files.newOutputStream(compressed)) {
+			for (int offset = 0; offset < contents.length; offset += 60000) {
+				out.write(bgzfBlock(contents, offset, Math.min(60000, contents.length - offset)));
+			}
+			// BGZF files end with an empty block
+			out.write(bgzfBlock(contents, 0, 0));
+		}
+
+		Path target = directory.resolve("file.fastq");
+		decompressor.decompress(compressed, target);
+
+		assertArrayEquals("all blocks should be decompressed in order", contents, Files.readAllBytes(target));
+	}
+
+	@Test
+	public void testDecompressMoreFilesThanThreads()
+			throws IOException, InterruptedException, ExecutionException, TimeoutException {
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		GzipDecompressor decompressor = new GzipDecompressor(pool, 1);
+		int files = 8;
+		ExecutorService processing = Executors.newFixedThreadPool(files);
+
+		// random bytes don't compress, so each file is larger than the queues
+		// between the pipeline threads
+		byte[] random = new byte[4 * 1024 * 1024];
+		new Random(1).nextBytes(random);
+		for (int i = 0; i < files; i++) {
+			Files.write(directory.resolve("file" + i + ".fastq.gz"), gzip(random, 0, random.length));
+		}
+
+		try {
+			List<Future<?>> decompressing = new ArrayList<>();
+			for (int i = 0; i < files; i++) {
+				Path compressed = directory.resolve("file" + i + ".fastq.gz");
+				Path target = directory.resolve("file" + i + ".fastq");
+				decompressing.add(processing.submit(() -> {
+					decompressor.decompress(compressed, target);
+					return null;
+				}));
+			}
+
+			for (Future<?> future : decompressing) {
+				future.get(60, TimeUnit.SECONDS);
+			}
+
+			for (int i = 0; i < files; i++) {
+				assertArrayEquals("decompressed file should match the original", random,
+						Files.readAllBytes(directory.resolve("file" + i + ".fastq")));
+			}
+		} finally {
+			processing.shutdownNow();
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSerialDecompressor() throws IOException {
+		Path compressed = directory.resolve("file.fastq.gz");
+		Files.write(compressed, gzip(contents, 0, contents.length));
+
+		Path target = directory.resolve("file.fastq");
+		new GzipDecompressor().decompress(compressed, target);
+
+		assertArrayEquals("decompressed file should match the original", contents, Files.readAllBytes(target));
+	}
+
+	@Test
+	public void testTruncatedFile() throws IOException {
+		byte[] gzipped = gzip(contents, 0, contents.length);
+		Path compressed = directory.resolve("file.fastq.gz");
+		Files.write(compressed, java.util.Arrays.copyOf(gzipped, gzipped.length / 2));
+
+		Path target = directory.resolve("file.fastq");
+		try {
+			decompressor.decompress(compressed, target);
+			fail("truncated file should not decompress");
+		} catch (IOException e) {
+			assertFalse("partial file should be removed", Files.exists(target));
+		}
+	}
+
+	private static byte[] gzip(byte[] bytes, int offset, int length) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (OutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(bytes, offset, length);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Write a single BGZF block the way bgzip does: a gzip member with a BC
+	 * extra subfield holding the size of the block.
+	 */
+	private static byte[] bgzfBlock(byte[] bytes, int offset, int length) {
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		deflater.setInput(bytes, offset, length);
+		deflater.finish();
+		byte[] deflated = new byte[length + 1024];
+		int deflatedLength = deflater.deflate(deflated);
+		deflater.end();
+
+		CRC32 crc = new CRC32();
+		crc.update(bytes, offset, length);
+
+		int blockSize = 18 + deflatedLength + 8;
+		ByteArrayOutputStream block = new ByteArrayOutputStream();
+		block.write(new byte[] { 31, (byte) 139, 8, 4, 0, 0, 0, 0, 0, (byte) 255, 6, 0, 'B', 'C', 2, 0 }, 0, 16);
+		writeShort(block, blockSize - 1);
+		block.write(deflated, 0, deflatedLength);
+		writeInt(block, (int) crc.getValue());
+		writeInt(block, length);
+		return block.toByteArray();
+	}
+
+	private static void writeShort(ByteArrayOutputStream out, int value) {
+		out.write(value & 0xff);
+		out.write((value >> 8) & 0xff);
+	}
+
+	private static void writeInt(ByteArrayOutputStream out, int value) {
+		writeShort(out, value & 0xffff);
+		writeShort(out, (value >> 16) & 0xffff);
+	}
+}
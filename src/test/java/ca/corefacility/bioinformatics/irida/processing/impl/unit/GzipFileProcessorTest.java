@@ -21,6 +21,7 @@ import org.mockito.ArgumentCaptor;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.impl.DecompressionDirectory;
 import ca.corefacility.bioinformatics.irida.processing.impl.GzipFileProcessor;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 
@@ -33,12 +34,15 @@ public class GzipFileProcessorTest {
 
 	private GzipFileProcessor fileProcessor;
 	private SequenceFileRepository sequenceFileRepository;
+	private DecompressionDirectory decompressionDirectory;
 	private static final String FILE_CONTENTS = ">test read\nACGTACTCATG";
 
 	@Before
-	public void setUp() {
+	public void setUp() throws IOException {
 		sequenceFileRepository = mock(SequenceFileRepository.class);
-		fileProcessor = new GzipFileProcessor(sequenceFileRepository, Boolean.FALSE);
+		decompressionDirectory = new DecompressionDirectory(Files.createTempDirectory(null),
+				DecompressionDirectory.DEFAULT_EXPIRY_HOURS);
+		fileProcessor = new GzipFileProcessor(sequenceFileRepository, decompressionDirectory, Boolean.FALSE);
 	}
 
 	@Test(expected = FileProcessorException.class)
@@ -60,7 +64,7 @@ public class GzipFileProcessorTest {
 
 	@Test
 	public void testDeleteOriginalFile() throws IOException {
-		fileProcessor = new GzipFileProcessor(sequenceFileRepository, Boolean.TRUE);
+		fileProcessor = new GzipFileProcessor(sequenceFileRepository, decompressionDirectory, Boolean.TRUE);
 		final SequenceFile sf = constructSequenceFile();
 
 		// compress the file, update the sequence file reference
@@ -0,0 +1,155 @@
+package ca.corefacility.bioinformatics.irida.processing.impl.unit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.MessageSource;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.impl.ChecksumFileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.impl.CoverageFileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.impl.DecompressionDirectory;
+import ca.corefacility.bioinformatics.irida.processing.impl.FastqcFileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.impl.StreamingFastqFileProcessor;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
+
+/**
+ * Tests for {@link StreamingFastqFileProcessor}.
+ */
+public class StreamingFastqFileProcessorTest {
+	private StreamingFastqFileProcessor fileProcessor;
+	private SequenceFileRepository sequenceFileRepository;
+	private CoverageFileProcessor coverageFileProcessor;
+
+	private static final String SEQUENCE = "ACGTACGTN";
+	private static final String FASTQ_FILE_CONTENTS = "@testread\n" + SEQUENCE + "\n+\n?????????\n@testread2\n"
+			+ SEQUENCE + "\n+\n?????????\n";
+
+	@Before
+	public void setUp() throws IOException {
+		sequenceFileRepository = mock(SequenceFileRepository.class);
+		coverageFileProcessor = mock(CoverageFileProcessor.class);
+		FastqcFileProcessor fastqcFileProcessor = new FastqcFileProcessor(mock(MessageSource.class),
+				sequenceFileRepository);
+		ChecksumFileProcessor checksumFileProcessor = new ChecksumFileProcessor(sequenceFileRepository);
+
+		fileProcessor = new StreamingFastqFileProcessor(sequenceFileRepository, checksumFileProcessor,
+				fastqcFileProcessor, coverageFileProcessor,
+				new DecompressionDirectory(Files.createTempDirectory(null), DecompressionDirectory.DEFAULT_EXPIRY_HOURS));
+
+		when(sequenceFileRepository.save(any(SequenceFile.class))).thenAnswer(i -> i.getArguments()[0]);
+	}
+
+	@Test
+	public void testProcessUncompressedFile() throws IOException {
+		Path fastq = Files.createTempFile(null, ".fastq");
+		Files.write(fastq, FASTQ_FILE_CONTENTS.getBytes());
+
+		SequenceFile sf = new SequenceFile(fastq);
+		sf.setId(1L);
+		SingleEndSequenceFile so = new SingleEndSequenceFile(sf);
+
+		fileProcessor.process(so);
+
+		verify(sequenceFileRepository, times(0)).save(any(SequenceFile.class));
+		verify(sequenceFileRepository).saveMetadata(sf);
+
+		assertEquals("checksum should be computed over the file", DigestUtils.sha256Hex(FASTQ_FILE_CONTENTS.getBytes()),
+				sf.getUploadSha256());
+		assertEquals("file should not have moved", fastq, sf.getFile());
+
+		AnalysisFastQC fastqc = sf.getFastQCAnalysis();
+		assertEquals("Total sequences was not correct.", Integer.valueOf(2), fastqc.getTotalSequences());
+		assertEquals("Total number of bases was not correct.", Long.valueOf(SEQUENCE.length() * 2),
+				fastqc.getTotalBases());
+
+		verify(coverageFileProcessor).saveCoverage(so, SEQUENCE.length() * 2);
+
+		Files.deleteIfExists(fastq);
+	}
+
+	@Test
+	public void testProcessCompressedFile() throws IOException {
+		Path gzipped = Files.createTempFile(null, ".fastq.gz");
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzipped))) {
+			out.write(FASTQ_FILE_CONTENTS.getBytes());
+		}
+		String compressedChecksum = DigestUtils.sha256Hex(Files.readAllBytes(gzipped));
+
+		SequenceFile sf = new SequenceFile(gzipped);
+		sf.setId(1L);
+		SingleEndSequenceFile so = new SingleEndSequenceFile(sf);
+
+		fileProcessor.process(so);
+
+		ArgumentCaptor<SequenceFile> fileCaptor = ArgumentCaptor.forClass(SequenceFile.class);
+		verify(sequenceFileRepository).save(fileCaptor.capture());
+		SequenceFile saved = fileCaptor.getValue();
+
+		assertEquals("checksum should be computed over the uploaded compressed file", compressedChecksum,
+				saved.getUploadSha256());
+		assertFalse("decompressed file should not have .gz extension",
+				saved.getFile().getFileName().toString().endsWith(".gz"));
+		assertEquals("decompressed file should contain the original contents", FASTQ_FILE_CONTENTS,
+				new String(Files.readAllBytes(saved.getFile())));
+		assertTrue("compressed file should be kept", Files.exists(gzipped));
+
+		assertEquals("Total sequences was not correct.", Integer.valueOf(2),
+				saved.getFastQCAnalysis().getTotalSequences());
+		verify(coverageFileProcessor).saveCoverage(eq(so), anyLong());
+
+		Files.deleteIfExists(gzipped);
+		Files.deleteIfExists(saved.getFile());
+	}
+
+	@Test
+	public void testProcessCompressedFileWithoutDecompressing() throws IOException {
+		fileProcessor.setDecompressFiles(false);
+
+		Path gzipped = Files.createTempFile(null, ".fastq.gz");
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzipped))) {
+			out.write(FASTQ_FILE_CONTENTS.getBytes());
+		}
+
+		SequenceFile sf = new SequenceFile(gzipped);
+		sf.setId(1L);
+		SingleEndSequenceFile so = new SingleEndSequenceFile(sf);
+
+		fileProcessor.process(so);
+
+		verify(sequenceFileRepository, times(0)).save(any(SequenceFile.class));
+		assertEquals("file should not have changed", gzipped, sf.getFile());
+		assertEquals("Total sequences was not correct.", Integer.valueOf(2),
+				sf.getFastQCAnalysis().getTotalSequences());
+		assertFalse("processor should not modify files", fileProcessor.modifiesFile());
+
+		Files.deleteIfExists(gzipped);
+	}
+
+	@Test(expected = FileProcessorException.class)
+	public void testProcessTruncatedFile() throws IOException {
+		Path fastq = Files.createTempFile(null, ".fastq");
+		Files.write(fastq, "@testread\nACGT\n+\n".getBytes());
+
+		SequenceFile sf = new SequenceFile(fastq);
+		sf.setId(1L);
+
+		fileProcessor.process(new SingleEndSequenceFile(sf));
+	}
+}
@@ -0,0 +1,142 @@
+package ca.corefacility.bioinformatics.irida.repositories;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.test.context.support.WithSecurityContextTestExecutionListener;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DatabaseTearDown;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import ca.corefacility.bioinformatics.irida.config.data.IridaApiJdbcDataSourceConfig;
+import ca.corefacility.bioinformatics.irida.config.services.IridaApiServicesConfig;
+import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
+import ca.corefacility.bioinformatics.irida.model.enums.UserGroupRemovedProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.DataAddedToSampleProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.ProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.SampleAddedProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.SampleRemovedProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.UserGroupRoleSetProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.UserRemovedProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.UserRoleSetProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroup;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
+import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository;
+import ca.corefacility.bioinformatics.irida.repositories.user.UserGroupRepository;
+import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(loader = AnnotationConfigContextLoader.class, classes = { IridaApiServicesConfig.class,
+		IridaApiJdbcDataSourceConfig.class })
+@ActiveProfiles("it")
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class, DbUnitTestExecutionListener.class,
+		WithSecurityContextTestExecutionListener.class })
+@DatabaseSetup("/ca/corefacility/bioinformatics/irida/repositories/ProjectEventRepositoryIT.xml")
+@DatabaseTearDown("/ca/corefacility/bioinformatics/irida/test/integration/TableReset.xml")
+public class ProjectEventRepositoryIT {
+
+	@Autowired
+	private ProjectEventRepository projectEventRepository;
+
+	@Autowired
+	private ProjectRepository projectRepository;
+
+	@Autowired
+	private SampleRepository sampleRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private UserGroupRepository userGroupRepository;
+
+	@Test
+	public void testInsertEventsReadByJpa() {
+		Project project = projectRepository.findById(1L).orElse(null);
+		Sample sample = sampleRepository.findById(1L).orElse(null);
+		User user = userRepository.findById(1L).orElse(null);
+		UserGroup group = userGroupRepository.findById(1L).orElse(null);
+
+		List<ProjectEvent> events = ImmutableList.of(
+				new SampleAddedProjectEvent(new ProjectSampleJoin(project, sample, true)),
+				new DataAddedToSampleProjectEvent(project, sample),
+				new SampleRemovedProjectEvent(project, "removed sample"),
+				new UserRoleSetProjectEvent(new ProjectUserJoin(project, user, ProjectRole.PROJECT_OWNER)),
+				new UserRemovedProjectEvent(project, user),
+				new UserGroupRoleSetProjectEvent(new UserGroupProjectJoin(project, group, ProjectRole.PROJECT_USER)),
+				new UserGroupRemovedProjectEvent(project, group));
+
+		projectEventRepository.insertEvents(events);
+
+		Map<Class<?>, ProjectEvent> read = projectEventRepository.getEventsForProject(project, PageRequest.of(0, 20))
+				.getContent()
+				.stream()
+				.collect(Collectors.toMap(ProjectEvent::getClass, Function.identity()));
+
+		assertEquals("every event type should be read back", events.stream()
+				.map(ProjectEvent::getClass)
+				.collect(Collectors.toSet()), read.keySet());
+		read.values()
+				.forEach(e -> assertEquals("event should be on the project", project.getId(), e.getProject()
+						.getId()));
+
+		assertEquals("sample should be read back", sample.getId(),
+				((SampleAddedProjectEvent) read.get(SampleAddedProjectEvent.class)).getSample()
+						.getId());
+		assertEquals("sample should be read back", sample.getId(),
+				((DataAddedToSampleProjectEvent) read.get(DataAddedToSampleProjectEvent.class)).getSample()
+						.getId());
+		assertEquals("sample name should be read back", "removed sample",
+				((SampleRemovedProjectEvent) read.get(SampleRemovedProjectEvent.class)).getSampleName());
+
+		UserRoleSetProjectEvent userRole = (UserRoleSetProjectEvent) read.get(UserRoleSetProjectEvent.class);
+		assertEquals("user should be read back", user.getId(), userRole.getUser()
+				.getId());
+		assertEquals("role should be read back", ProjectRole.PROJECT_OWNER, userRole.getRole());
+		assertEquals("user should be read back", user.getId(),
+				((UserRemovedProjectEvent) read.get(UserRemovedProjectEvent.class)).getUser()
+						.getId());
+
+		UserGroupRoleSetProjectEvent groupRole = (UserGroupRoleSetProjectEvent) read.get(
+				UserGroupRoleSetProjectEvent.class);
+		assertEquals("group should be read back", group.getId(), groupRole.getUserGroup()
+				.getId());
+		assertEquals("role should be read back", ProjectRole.PROJECT_USER, groupRole.getRole());
+		assertEquals("group should be read back", group.getId(),
+				((UserGroupRemovedProjectEvent) read.get(UserGroupRemovedProjectEvent.class)).getUserGroup()
+						.getId());
+	}
+
+	@Test
+	public void testInsertNoEvents() {
+		Project project = projectRepository.findById(1L).orElse(null);
+
+		projectEventRepository.insertEvents(ImmutableSet.of());
+
+		assertEquals("no events should be inserted", 0, projectEventRepository.getEventsForProject(project,
+				PageRequest.of(0, 20))
+				.getTotalElements());
+	}
+}
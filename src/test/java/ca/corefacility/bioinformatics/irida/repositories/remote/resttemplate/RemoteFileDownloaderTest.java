@@ -0,0 +1,230 @@
+package ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+
+import ca.corefacility.bioinformatics.irida.exceptions.StorageException;
+
+/**
+ * Tests for {@link RemoteFileDownloader}.
+ */
+public class RemoteFileDownloaderTest {
+	private static final String URI = "http://remote/api/sequenceFiles/1";
+	private static final String FILE_NAME = "file.fastq";
+	private static final List<MediaType> MEDIA_TYPES = Arrays.asList(new MediaType("application", "fastq"));
+
+	private FakeServer server;
+	private RemoteFileDownloader downloader;
+	private Path directory;
+	private byte[] content;
+
+	@Before
+	public void setUp() throws IOException {
+		content = new byte[1000];
+		new Random(1).nextBytes(content);
+
+		server = new FakeServer();
+		downloader = new RemoteFileDownloader(new RestTemplate(server), 3, 100);
+		directory = Files.createTempDirectory(null);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(directory.toFile());
+	}
+
+	@Test
+	public void testDownloadInParts() throws IOException {
+		Path file = downloader.download(URI, FILE_NAME, directory, null, MEDIA_TYPES);
+
+		assertEquals("file should have the given name", FILE_NAME, file.getFileName().toString());
+		assertTrue("file should be downloaded under the given directory", file.startsWith(directory));
+		assertArrayEquals("downloaded file should match the remote file", content, Files.readAllBytes(file));
+		assertEquals("each part should be requested once", 10, server.requests.get());
+	}
+
+	@Test
+	public void testDownloadWithoutRangeSupport() throws IOException {
+		server.ranges = false;
+
+		Path file = downloader.download(URI, FILE_NAME, directory, null, MEDIA_TYPES);
+
+		assertArrayEquals("downloaded file should match the remote file", content, Files.readAllBytes(file));
+		assertEquals("file should be read in one request", 1, server.requests.get());
+	}
+
+	@Test
+	public void testResumeFailedParts() throws IOException {
+		server.truncate.set(2);
+
+		Path file = downloader.download(URI, FILE_NAME, directory, null, MEDIA_TYPES);
+
+		assertArrayEquals("downloaded file should match the remote file", content, Files.readAllBytes(file));
+		assertEquals("the rest of each failed part should be requested again", 12, server.requests.get());
+	}
+
+	@Test
+	public void testVerifyChecksum() throws IOException {
+		String sha256 = DigestUtils.sha256Hex(content);
+		server.etag = "\"" + sha256 + "\"";
+
+		Path file = downloader.download(URI, FILE_NAME, directory, sha256, MEDIA_TYPES);
+
+		assertArrayEquals("downloaded file should match the remote file", content, Files.readAllBytes(file));
+	}
+
+	@Test
+	public void testChecksumMismatch() throws IOException {
+		String sha256 = DigestUtils.sha256Hex("a different file");
+		server.etag = "\"" + sha256 + "\"";
+
+		try {
+			downloader.download(URI, FILE_NAME, directory, sha256, MEDIA_TYPES);
+			fail("download should fail when the checksum doesn't match");
+		} catch (StorageException e) {
+			assertEquals("failed download should be removed", 0, directory.toFile().list().length);
+		}
+	}
+
+	@Test
+	public void testChecksumNotVerifiedForChangedFile() throws IOException {
+		// the file was processed after upload, so the server sends no ETag
+		String sha256 = DigestUtils.sha256Hex("the uploaded file");
+
+		Path file = downloader.download(URI, FILE_NAME, directory, sha256, MEDIA_TYPES);
+
+		assertArrayEquals("downloaded file should match the remote file", content, Files.readAllBytes(file));
+	}
+
+	@Test(expected = StorageException.class)
+	public void testPartialFile() {
+		server.ranges = false;
+		server.truncate.set(3);
+
+		downloader.download(URI, FILE_NAME, directory, null, MEDIA_TYPES);
+	}
+
+	@Test
+	public void testFileChangedDuringDownload() throws IOException {
+		server.etag = "\"1\"";
+		server.changeAfterFirstRequest = true;
+
+		try {
+			downloader.download(URI, FILE_NAME, directory, null, MEDIA_TYPES);
+			fail("download should fail when the file changes");
+		} catch (StorageException e) {
+			assertEquals("failed download should be removed", 0, directory.toFile().list().length);
+		}
+	}
+
+	@Test
+	public void testDownloadIntoNewDirectory() throws IOException {
+		Path downloads = directory.resolve(RemoteFileDownloader.DOWNLOADS_DIRECTORY);
+
+		Path file = downloader.download(URI, FILE_NAME, downloads, null, MEDIA_TYPES);
+
+		assertTrue("file should be downloaded under the new directory", file.startsWith(downloads));
+		assertArrayEquals("downloaded file should match the remote file", content, Files.readAllBytes(file));
+	}
+
+	@Test
+	public void testRemoveAbandonedDownloads() throws IOException {
+		FileTime old = FileTime.from(Instant.now()
+				.minus(RemoteFileDownloader.DEFAULT_EXPIRY_HOURS + 1, ChronoUnit.HOURS));
+		Path abandoned = Files.createTempDirectory(directory, "download");
+		Files.setLastModifiedTime(Files.write(abandoned.resolve(FILE_NAME), content), old);
+		Files.setLastModifiedTime(abandoned, old);
+
+		Path file = downloader.download(URI, FILE_NAME, directory, null, MEDIA_TYPES);
+
+		RemoteFileDownloader.removeAbandonedDownloads(directory);
+
+		assertFalse("abandoned download should be removed", Files.exists(abandoned));
+		assertTrue("recent download should be kept", Files.exists(file));
+	}
+
+	/**
+	 * Serves {@link #content} the way the sequence file views do, optionally
+	 * cutting responses short.
+	 */
+	private class FakeServer implements ClientHttpRequestFactory {
+		private final AtomicInteger requests = new AtomicInteger();
+		private final AtomicInteger truncate = new AtomicInteger();
+		private boolean ranges = true;
+		private boolean changeAfterFirstRequest = false;
+		private String etag;
+
+		@Override
+		public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+			return new MockClientHttpRequest(httpMethod, uri) {
+				@Override
+				protected ClientHttpResponse executeInternal() {
+					return respond(getHeaders());
+				}
+			};
+		}
+
+		private ClientHttpResponse respond(HttpHeaders request) {
+			if (requests.incrementAndGet() > 1 && changeAfterFirstRequest) {
+				etag = "\"2\"";
+			}
+
+			String ifRange = request.getFirst(HttpHeaders.IF_RANGE);
+			List<HttpRange> requested = request.getRange();
+
+			MockClientHttpResponse response;
+			if (!ranges || requested.isEmpty() || (ifRange != null && !ifRange.equals(etag))) {
+				response = new MockClientHttpResponse(truncated(content), HttpStatus.OK);
+				response.getHeaders().setContentLength(content.length);
+			} else {
+				long start = requested.get(0).getRangeStart(content.length);
+				long end = requested.get(0).getRangeEnd(content.length);
+				byte[] part = Arrays.copyOfRange(content, (int) start, (int) end + 1);
+
+				response = new MockClientHttpResponse(truncated(part), HttpStatus.PARTIAL_CONTENT);
+				response.getHeaders().set(HttpHeaders.CONTENT_RANGE,
+						"bytes " + start + "-" + end + "/" + content.length);
+			}
+
+			if (etag != null) {
+				response.getHeaders().setETag(etag);
+			}
+			return response;
+		}
+
+		private byte[] truncated(byte[] body) {
+			if (truncate.getAndDecrement() > 0) {
+				return Arrays.copyOf(body, body.length / 2);
+			}
+			return body;
+		}
+	}
+}
@@ -50,6 +50,13 @@ public class SampleFilesPage extends AbstractPage {
 		return driver.findElement(By.id("sample-name")).getText();
 	}
 	
+	public String getAutomatedAssemblyStatus() {
+		return driver.findElement(By.className("paired_end__assembly"))
+				.findElements(By.tagName("span"))
+				.get(1)
+				.getText();
+	}
+
 	public int getQcEntryCount() {
 		return driver.findElements(By.className("qc-item")).size();
 	}
@@ -58,6 +58,15 @@ public class SampleFilesPageIT extends AbstractIridaUIITChromeDriver {
 		page.checkBreadCrumbs(BREADCRUMBS);
 	}
 	
+	@Test
+	public void testPairWithAutomatedAssembly() {
+		page.gotoPage(2L);
+
+		assertTrue("Page Title contains the sample label", page.getPageTitle().contains("sample2"));
+		assertEquals("Displays the files of the pair", 2, page.getSequenceFileCount());
+		assertEquals("Displays the state of the automated assembly", "Running", page.getAutomatedAssemblyStatus());
+	}
+
 	@Test
 	public void testDeleteFile() {
 		page.gotoPage(SAMPLE_ID);
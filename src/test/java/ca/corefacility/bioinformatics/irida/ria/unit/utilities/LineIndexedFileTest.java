@@ -0,0 +1,117 @@
+package ca.corefacility.bioinformatics.irida.ria.unit.utilities;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.corefacility.bioinformatics.irida.ria.utilities.LineIndexedFile;
+
+/**
+ * Tests for {@link LineIndexedFile}.
+ */
+public class LineIndexedFileTest {
+	private static final int INTERVAL = 10;
+	private static final int LINES = 95;
+
+	private Path directory;
+	private Path file;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory(null);
+		file = directory.resolve("output.tsv");
+
+		List<String> lines = new ArrayList<>();
+		lines.add("header\tvalue");
+		for (int i = 1; i < LINES; i++) {
+			lines.add("row" + i + "\t" + i);
+		}
+		Files.write(file, lines);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(directory.toFile());
+	}
+
+	@Test
+	public void testFirstLine() throws IOException {
+		LineIndexedFile indexed = new LineIndexedFile(file, INTERVAL, Long.MAX_VALUE);
+
+		assertEquals("first line should be read", "header\tvalue", indexed.getFirstLine());
+		assertEquals("first line end should be the start of the second line", "header\tvalue\n".length(),
+				indexed.getFirstLineEnd());
+		assertEquals("size should be the size of the file", Files.size(file), indexed.getSize());
+	}
+
+	@Test
+	public void testReadLines() throws IOException {
+		LineIndexedFile indexed = new LineIndexedFile(file, INTERVAL, Long.MAX_VALUE);
+
+		assertEquals("all lines should be counted", LINES, indexed.getLineCount());
+
+		for (long start : new long[] { 1, 9, 10, 11, 37, 90 }) {
+			List<String> lines = indexed.readLines(start, 3);
+			assertEquals("should read the requested number of lines", 3, lines.size());
+			assertEquals("should start reading at the requested line", "row" + start + "\t" + start, lines.get(0));
+			assertEquals("should read consecutive lines", "row" + (start + 2) + "\t" + (start + 2), lines.get(2));
+		}
+	}
+
+	@Test
+	public void testReadPastEnd() throws IOException {
+		LineIndexedFile indexed = new LineIndexedFile(file, INTERVAL, Long.MAX_VALUE);
+
+		assertEquals("should stop at the end of the file", 2, indexed.readLines(LINES - 2, 100).size());
+		assertTrue("should read nothing after the end of the file", indexed.readLines(LINES, 100).isEmpty());
+	}
+
+	@Test
+	public void testNoTrailingNewlineAndCarriageReturns() throws IOException {
+		Files.write(file, "a\r\nb\r\nc".getBytes());
+		LineIndexedFile indexed = new LineIndexedFile(file, 2, Long.MAX_VALUE);
+
+		assertEquals("last line without a line ending should be counted", 3, indexed.getLineCount());
+		assertEquals("carriage returns should be removed", "a", indexed.getFirstLine());
+		assertEquals("should read the lines after the index entry", "b", indexed.readLines(1, 1).get(0));
+		assertEquals("should read the last line", "c", indexed.readLines(2, 1).get(0));
+	}
+
+	@Test
+	public void testIndexPersisted() throws IOException {
+		Path indexFile = directory.resolve("output.tsv" + LineIndexedFile.INDEX_SUFFIX);
+
+		new LineIndexedFile(file, INTERVAL, Long.MAX_VALUE).getLineCount();
+		assertFalse("small files should not have their index written", Files.exists(indexFile));
+
+		new LineIndexedFile(file, INTERVAL, 0).getLineCount();
+		assertTrue("index should be written next to the file", Files.exists(indexFile));
+
+		List<String> lines = new LineIndexedFile(file, INTERVAL, 0).readLines(42, 1);
+		assertEquals("stored index should be used to read lines", "row42\t42", lines.get(0));
+	}
+
+	@Test
+	public void testStaleIndexRebuilt() throws IOException {
+		new LineIndexedFile(file, INTERVAL, 0).getLineCount();
+
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			lines.add("changed" + i);
+		}
+		Files.write(file, lines);
+
+		LineIndexedFile indexed = new LineIndexedFile(file, INTERVAL, 0);
+		assertEquals("index of the changed file should be rebuilt", 30, indexed.getLineCount());
+		assertEquals("should read lines of the changed file", "changed25", indexed.readLines(25, 1).get(0));
+	}
+}
@@ -0,0 +1,81 @@
+package ca.corefacility.bioinformatics.irida.ria.unit.utilities;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.corefacility.bioinformatics.irida.ria.utilities.SampleMetadataStorage;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Tests for {@link SampleMetadataStorage}.
+ */
+public class SampleMetadataStorageTest {
+	private static final int ROWS = 25;
+
+	private SampleMetadataStorage storage;
+
+	@Before
+	public void setUp() throws IOException {
+		storage = new SampleMetadataStorage();
+		List<Map<String, String>> rows = new ArrayList<>();
+		for (int i = 0; i < ROWS; i++) {
+			rows.add(ImmutableMap.of("name", "sample" + i, "value", String.valueOf(i)));
+		}
+		storage.saveRows(rows.iterator());
+	}
+
+	@After
+	public void tearDown() {
+		storage.clear();
+	}
+
+	@Test
+	public void testRowsReadInBatches() throws IOException {
+		List<Integer> batchSizes = new ArrayList<>();
+		List<Map<String, String>> read = new ArrayList<>();
+		storage.forEachBatch(10, batch -> {
+			batchSizes.add(batch.size());
+			read.addAll(batch);
+		});
+
+		assertEquals("rows should be read in batches", Lists.newArrayList(10, 10, 5), batchSizes);
+		assertEquals("all rows should be read", ROWS, read.size());
+		assertEquals("rows should be read in order", "sample24", read.get(24)
+				.get("name"));
+	}
+
+	@Test
+	public void testFoundAndMissing() {
+		storage.setSampleNameColumn("name");
+		assertEquals("all rows should be available before samples are found", ROWS, storage.getRows()
+				.size());
+		assertNull("found rows should not be known yet", storage.getFound());
+
+		storage.saveFoundSamples(Sets.newHashSet("sample1", "sample2"));
+
+		assertNull("rows should be sorted into found and missing", storage.getRows());
+		assertEquals("should have found rows", 2, storage.getFound()
+				.size());
+		assertEquals("should have missing rows", ROWS - 2, storage.getMissing()
+				.size());
+	}
+
+	@Test
+	public void testClear() throws IOException {
+		storage.clear();
+
+		assertNull("rows should be removed", storage.getRows());
+		storage.forEachBatch(10, batch -> fail("no rows should be read"));
+	}
+}
@@ -1,21 +1,44 @@
 package ca.corefacility.bioinformatics.irida.ria.unit.web;
 
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.context.MessageSource;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.ria.web.linelist.LineListController;
+import ca.corefacility.bioinformatics.irida.ria.web.linelist.dto.UISampleMetadata;
 import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectOwnerPermission;
 import ca.corefacility.bioinformatics.irida.security.permissions.sample.UpdateSamplePermission;
 import ca.corefacility.bioinformatics.irida.service.ProjectService;
 import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
 /**
  * Unit test for {@link LineListController}
  */
@@ -49,9 +72,82 @@ public class LineListControllerTest {
 	}
 
 	@Test
-	public void testGetAllProjectMetadataEntries() {
+	public void testGetAllProjectMetadataEntries() throws IOException {
 		long projectId = 1L;
-		lineListController.getProjectSamplesMetadataEntries(projectId);
-		verify(sampleService, times(1)).getSamplesForProject(any(Project.class));
+		Project project = new Project("project");
+		project.setId(projectId);
+		when(projectService.read(projectId)).thenReturn(project);
+
+		Sample s1 = new Sample("s1");
+		s1.setId(1L);
+		s1.setModifiedDate(new Date());
+		Sample s2 = new Sample("s2");
+		s2.setId(2L);
+		s2.setModifiedDate(new Date());
+		Sample s3 = new Sample("s3");
+		s3.setId(3L);
+		s3.setModifiedDate(new Date());
+		when(sampleService.getSamplesForProject(project, 0, 2)).thenReturn(
+				new PageImpl<>(Lists.newArrayList(new ProjectSampleJoin(project, s1, true),
+						new ProjectSampleJoin(project, s2, true)), PageRequest.of(0, 2), 3));
+		when(sampleService.getSamplesForProject(project, 1, 2)).thenReturn(
+				new PageImpl<>(Lists.newArrayList(new ProjectSampleJoin(project, s3, false)), PageRequest.of(1, 2),
+						3));
+
+		MetadataTemplateField field = new MetadataTemplateField("serotype", "text");
+		field.setId(5L);
+		when(sampleService.getMetadataForSamplesInProject(eq(project), any())).thenReturn(
+				ImmutableMap.of(1L, Sets.newHashSet(new MetadataEntry("Enteritidis", "text", field))));
+		when(updateSamplePermission.filterAllowed(any(), any())).thenAnswer(
+				i -> Lists.newArrayList(((Collection<?>) i.getArguments()[1]).iterator()
+						.next()));
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		lineListController.getProjectSamplesMetadataEntries(projectId, null, 2, response);
+
+		assertEquals("Total number of samples should be sent", "3",
+				response.getHeader(LineListController.TOTAL_COUNT_HEADER));
+		List<Map<String, String>> rows = new ObjectMapper().readValue(response.getContentAsString(),
+				new TypeReference<List<Map<String, String>>>() {
+				});
+		assertEquals("Every sample in the project should be written", 3, rows.size());
+		assertEquals("Rows should be in sample order", "s3", rows.get(2)
+				.get(UISampleMetadata.SAMPLE_NAME));
+		assertEquals("Metadata should be written", "Enteritidis", rows.get(0)
+				.get(field.getFieldKey()));
+		assertEquals("Sample should be editable", "true", rows.get(0)
+				.get(UISampleMetadata.EDITABLE));
+		assertEquals("Sample should not be editable", "false", rows.get(1)
+				.get(UISampleMetadata.EDITABLE));
+
+		verify(sampleService, times(2)).getMetadataForSamplesInProject(eq(project), any());
+		verify(updateSamplePermission, times(2)).filterAllowed(any(), any());
+		verify(sampleService, never()).getSamplesForProject(any(Project.class));
+		verify(sampleService, never()).getMetadataForSample(any(Sample.class));
+	}
+
+	@Test
+	public void testGetProjectMetadataEntriesPage() throws IOException {
+		long projectId = 1L;
+		Project project = new Project("project");
+		when(projectService.read(projectId)).thenReturn(project);
+
+		Sample s3 = new Sample("s3");
+		s3.setId(3L);
+		s3.setModifiedDate(new Date());
+		when(sampleService.getSamplesForProject(project, 1, 2)).thenReturn(
+				new PageImpl<>(Lists.newArrayList(new ProjectSampleJoin(project, s3, false)), PageRequest.of(1, 2),
+						3));
+		when(sampleService.getMetadataForSamplesInProject(eq(project), any())).thenReturn(ImmutableMap.of());
+		when(updateSamplePermission.filterAllowed(any(), any())).thenReturn(Lists.newArrayList());
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		lineListController.getProjectSamplesMetadataEntries(projectId, 1, 2, response);
+
+		List<Map<String, String>> rows = new ObjectMapper().readValue(response.getContentAsString(),
+				new TypeReference<List<Map<String, String>>>() {
+				});
+		assertEquals("Only the requested page should be written", 1, rows.size());
+		verify(sampleService, times(1)).getSamplesForProject(any(Project.class), anyInt(), anyInt());
 	}
 }
@@ -0,0 +1,111 @@
+package ca.corefacility.bioinformatics.irida.ria.unit.web.analysis;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisOutputFile;
+import ca.corefacility.bioinformatics.irida.ria.web.analysis.AnalysisOutputCache;
+import ca.corefacility.bioinformatics.irida.ria.web.analysis.dto.SistrResult;
+
+/**
+ * Unit tests for {@link AnalysisOutputCache}
+ */
+public class AnalysisOutputCacheTest {
+	private AnalysisOutputCache cache;
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		cache = new AnalysisOutputCache(1);
+		directory = Files.createTempDirectory(null);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(directory.toFile());
+	}
+
+	@Test
+	public void testTreeCached() throws IOException {
+		AnalysisOutputFile file = outputFile(1L, "tree.newick", "(A:0.1,B:0.2);\n");
+
+		AnalysisOutputCache.NewickTree tree = cache.getTree(file);
+		assertEquals("tree should be read", "(A:0.1,B:0.2);", tree.getNewick());
+		assertFalse("file should have one tree", tree.hasMultipleTrees());
+
+		Files.write(file.getFile(), "(C:0.1,D:0.2);\n".getBytes());
+		assertSame("tree should be served from the cache", tree, cache.getTree(file));
+		assertEquals("one output should be cached", 1, cache.size());
+	}
+
+	@Test
+	public void testMultipleTrees() throws IOException {
+		AnalysisOutputFile file = outputFile(1L, "tree.newick", "(A:0.1,B:0.2);\n(A:0.2,B:0.1);\n");
+
+		AnalysisOutputCache.NewickTree tree = cache.getTree(file);
+		assertEquals("first tree should be read", "(A:0.1,B:0.2);", tree.getNewick());
+		assertTrue("file should have more than one tree", tree.hasMultipleTrees());
+	}
+
+	@Test
+	public void testEmptyTree() throws IOException {
+		AnalysisOutputFile file = outputFile(1L, "tree.newick", "");
+
+		assertNull("empty file should have no tree", cache.getTree(file).getNewick());
+	}
+
+	@Test
+	public void testSistrResults() throws IOException {
+		AnalysisOutputFile file = outputFile(2L, "sistr.json",
+				"[{\"serovar\": \"Enteritidis\", \"qc_status\": \"PASS\"}]");
+
+		List<SistrResult> results = cache.getSistrResults(file);
+		assertEquals("should parse one result", 1, results.size());
+		assertEquals("should parse the serovar", "Enteritidis", results.get(0).getSerovar());
+		assertSame("results should be served from the cache", results, cache.getSistrResults(file));
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidSistrResults() throws IOException {
+		AnalysisOutputFile file = outputFile(2L, "sistr.json", "not json");
+
+		cache.getSistrResults(file);
+	}
+
+	@Test
+	public void testLargeOutputsEvicted() throws IOException {
+		StringBuilder newick = new StringBuilder("(");
+		for (int i = 0; i < 100_000; i++) {
+			newick.append("isolate").append(i).append(":0.1,");
+		}
+		newick.append("ref:0.1);");
+
+		for (long id = 1; id <= 5; id++) {
+			cache.getTree(outputFile(id, "tree" + id + ".newick", newick.toString()));
+		}
+
+		assertTrue("least recently used trees should be evicted", cache.size() < 5);
+	}
+
+	private AnalysisOutputFile outputFile(Long id, String name, String contents) throws IOException {
+		Path path = directory.resolve(name);
+		Files.write(path, contents.getBytes());
+
+		AnalysisOutputFile file = mock(AnalysisOutputFile.class);
+		when(file.getId()).thenReturn(id);
+		when(file.getFileRevisionNumber()).thenReturn(0L);
+		when(file.getFile()).thenReturn(path);
+		return file;
+	}
+}
@@ -0,0 +1,98 @@
+package ca.corefacility.bioinformatics.irida.ria.unit.web.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.*;
+
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisStateTransition;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.ria.web.ajax.dto.UpdatedAnalysisProgress;
+import ca.corefacility.bioinformatics.irida.ria.web.analysis.AnalysisProgressPublisher;
+import ca.corefacility.bioinformatics.irida.service.analysis.AnalysisStateTransitionService;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Unit tests for {@link AnalysisProgressPublisher}
+ */
+public class AnalysisProgressPublisherTest {
+	private static final Long SUBMISSION_ID = 1L;
+
+	private AnalysisStateTransitionService transitionService;
+	private AnalysisProgressPublisher publisher;
+	private AnalysisSubmission submission;
+
+	@Before
+	public void setUp() {
+		transitionService = mock(AnalysisStateTransitionService.class);
+		publisher = new AnalysisProgressPublisher(transitionService, 3600);
+
+		submission = mock(AnalysisSubmission.class);
+		when(submission.getId()).thenReturn(SUBMISSION_ID);
+		when(submission.getCreatedDate()).thenReturn(new Date(0));
+	}
+
+	@After
+	public void tearDown() {
+		publisher.shutdown();
+	}
+
+	@Test
+	public void testWatchRunningAnalysis() {
+		publisher.watch(submission, new UpdatedAnalysisProgress(AnalysisState.RUNNING, null, 10L));
+		publisher.watch(submission, new UpdatedAnalysisProgress(AnalysisState.RUNNING, null, 10L));
+
+		assertEquals("both browsers should be watching the analysis", 2, publisher.getWatcherCount(SUBMISSION_ID));
+		verify(transitionService).subscribe(any());
+	}
+
+	@Test
+	public void testWatchCompletedAnalysis() {
+		publisher.watch(submission, new UpdatedAnalysisProgress(AnalysisState.COMPLETED, null, 10L));
+
+		assertEquals("completed analyses should not be watched", 0, publisher.getWatcherCount(SUBMISSION_ID));
+	}
+
+	@Test
+	public void testCheckTransitionsFromOtherServers() {
+		publisher.watch(submission, new UpdatedAnalysisProgress(AnalysisState.RUNNING, null, 10L));
+
+		AnalysisStateTransition running = transition(2L, AnalysisState.FINISHED_RUNNING);
+		when(transitionService.getLatestTransitions(anyCollectionOf(Long.class))).thenReturn(
+				Lists.newArrayList(running));
+		publisher.checkTransitions();
+		assertEquals("analysis should still be watched while running", 1, publisher.getWatcherCount(SUBMISSION_ID));
+
+		AnalysisStateTransition completed = transition(3L, AnalysisState.COMPLETED);
+		when(transitionService.getLatestTransitions(anyCollectionOf(Long.class))).thenReturn(
+				Lists.newArrayList(completed));
+		publisher.checkTransitions();
+
+		assertEquals("streams should be closed once the analysis completes", 0,
+				publisher.getWatcherCount(SUBMISSION_ID));
+		verify(transitionService, times(2)).getLatestTransitions(anyCollectionOf(Long.class));
+	}
+
+	@Test
+	public void testCheckTransitionsWithoutWatchers() {
+		publisher.checkTransitions();
+
+		verify(transitionService, never()).getLatestTransitions(anyCollectionOf(Long.class));
+	}
+
+	private AnalysisStateTransition transition(Long id, AnalysisState state) {
+		AnalysisStateTransition transition = mock(AnalysisStateTransition.class);
+		when(transition.getId()).thenReturn(id);
+		when(transition.getSubmissionId()).thenReturn(SUBMISSION_ID);
+		when(transition.getAnalysisState()).thenReturn(state);
+		when(transition.getTransitionDate()).thenReturn(new Date());
+		return transition;
+	}
+}
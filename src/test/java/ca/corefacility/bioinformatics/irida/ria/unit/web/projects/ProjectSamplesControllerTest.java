@@ -1,12 +1,14 @@
 package ca.corefacility.bioinformatics.irida.ria.unit.web.projects;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.*;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -22,6 +24,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
 import ca.corefacility.bioinformatics.irida.exceptions.EntityExistsException;
@@ -337,7 +340,8 @@ public class ProjectSamplesControllerTest {
 		when(sampleService.readMultiple(ImmutableList.of(sample.getId()))).thenReturn(ImmutableList.of(sample));
 		when(sequencingObjectService.getSequencingObjectsForSample(sample)).thenReturn(filejoin);
 
-		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), response);
+		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), new MockHttpServletRequest(),
+				response);
 
 		verify(projectService).read(project.getId());
 		verify(sampleService).readMultiple(ImmutableList.of(sample.getId()));
@@ -373,7 +377,8 @@ public class ProjectSamplesControllerTest {
 		when(sampleService.readMultiple(ImmutableList.of(sample.getId()))).thenReturn(ImmutableList.of(sample));
 		when(sequencingObjectService.getSequencingObjectsForSample(sample)).thenReturn(filejoin);
 
-		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), response);
+		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), new MockHttpServletRequest(),
+				response);
 
 		verify(projectService).read(project.getId());
 		verify(sampleService).readMultiple(ImmutableList.of(sample.getId()));
@@ -397,4 +402,83 @@ public class ProjectSamplesControllerTest {
 		}
 
 	}
+
+	@Test
+	public void testResumeDownloadSamples() throws IOException {
+		Project project = TestDataFactory.constructProject();
+		Sample sample = TestDataFactory.constructSample();
+
+		Path path = Paths.get(FILE_PATH);
+		SequenceFile file = new SequenceFile(path);
+
+		ImmutableList<SampleSequencingObjectJoin> filejoin = ImmutableList.of(new SampleSequencingObjectJoin(sample,
+				new SingleEndSequenceFile(file)));
+
+		when(projectService.read(project.getId())).thenReturn(project);
+		when(sampleService.readMultiple(ImmutableList.of(sample.getId()))).thenReturn(ImmutableList.of(sample));
+		when(sequencingObjectService.getSequencingObjectsForSample(sample)).thenReturn(filejoin);
+
+		MockHttpServletResponse fullResponse = new MockHttpServletResponse();
+		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), new MockHttpServletRequest(),
+				fullResponse);
+		byte[] full = fullResponse.getContentAsByteArray();
+		assertEquals("Content-Length should be the length of the archive", full.length,
+				fullResponse.getContentLength());
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=100-");
+		request.addHeader("If-Range", fullResponse.getHeader("ETag"));
+		MockHttpServletResponse partialResponse = new MockHttpServletResponse();
+		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), request, partialResponse);
+
+		assertEquals("should be a partial response", 206, partialResponse.getStatus());
+		assertEquals("Content-Range should describe the rest of the archive",
+				"bytes 100-" + (full.length - 1) + "/" + full.length, partialResponse.getHeader("Content-Range"));
+
+		ByteArrayOutputStream resumed = new ByteArrayOutputStream();
+		resumed.write(full, 0, 100);
+		resumed.write(partialResponse.getContentAsByteArray());
+		assertTrue("resumed download should match the full download",
+				Arrays.equals(full, resumed.toByteArray()));
+
+		request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=" + full.length + "-");
+		MockHttpServletResponse invalidResponse = new MockHttpServletResponse();
+		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), request, invalidResponse);
+		assertEquals("range past the end can't be satisfied", 416, invalidResponse.getStatus());
+	}
+
+	@Test
+	public void testDownloadSamplesIgnoresUnsupportedRange() throws IOException {
+		Project project = TestDataFactory.constructProject();
+		Sample sample = TestDataFactory.constructSample();
+
+		Path path = Paths.get(FILE_PATH);
+		SequenceFile file = new SequenceFile(path);
+
+		ImmutableList<SampleSequencingObjectJoin> filejoin = ImmutableList.of(new SampleSequencingObjectJoin(sample,
+				new SingleEndSequenceFile(file)));
+
+		when(projectService.read(project.getId())).thenReturn(project);
+		when(sampleService.readMultiple(ImmutableList.of(sample.getId()))).thenReturn(ImmutableList.of(sample));
+		when(sequencingObjectService.getSequencingObjectsForSample(sample)).thenReturn(filejoin);
+
+		MockHttpServletResponse fullResponse = new MockHttpServletResponse();
+		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), new MockHttpServletRequest(),
+				fullResponse);
+		byte[] full = fullResponse.getContentAsByteArray();
+
+		for (String range : ImmutableList.of("bytes=0-9,20-29", "bytes=10-5", "bytes=-", "items=0-9", "bytes=abc")) {
+			MockHttpServletRequest request = new MockHttpServletRequest();
+			request.addHeader("Range", range);
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), request, response);
+
+			assertEquals("range " + range + " should be ignored", 200, response.getStatus());
+			assertFalse("range " + range + " should not have a Content-Range",
+					response.containsHeader("Content-Range"));
+			assertTrue("range " + range + " should get the whole archive",
+					Arrays.equals(full, response.getContentAsByteArray()));
+		}
+	}
 }
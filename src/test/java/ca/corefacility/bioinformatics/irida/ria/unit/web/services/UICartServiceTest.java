@@ -9,87 +9,136 @@ import org.junit.Test;
 import org.mockito.Mockito;
 import org.springframework.context.MessageSource;
 
+import ca.corefacility.bioinformatics.irida.model.cart.CartSample;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.ria.web.ajax.dto.cart.CartProjectModel;
 import ca.corefacility.bioinformatics.irida.ria.web.cart.dto.AddToCartRequest;
 import ca.corefacility.bioinformatics.irida.ria.web.cart.dto.CartUpdateResponse;
 import ca.corefacility.bioinformatics.irida.ria.web.services.UICartService;
-import ca.corefacility.bioinformatics.irida.ria.web.sessionAttrs.Cart;
+import ca.corefacility.bioinformatics.irida.service.CartService;
 import ca.corefacility.bioinformatics.irida.service.ProjectService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
 
 public class UICartServiceTest {
 	private UICartService service;
-	private Cart cart;
+	private CartService cartService;
+	private SampleService sampleService;
 
 	private final Long PROJECT_ID = 1L;
 	private final Sample SAMPLE_1 = new Sample("SAMPLE_1");
-	private final Sample SAMPLE_2 = new Sample("SAMPLE_2");
-	private final Sample SAMPLE_3 = new Sample("SAMPLE_3");
 	private final Project PROJECT_1 = new Project("PROJECT_1");
 
 	@Before
 	public void setUp() {
-		cart = new Cart();
+		cartService = Mockito.mock(CartService.class);
 		ProjectService projectService = Mockito.mock(ProjectService.class);
-		SampleService sampleService = Mockito.mock(SampleService.class);
+		sampleService = Mockito.mock(SampleService.class);
 		MessageSource messageSource = Mockito.mock(MessageSource.class);
-		service = new UICartService(cart, projectService, sampleService, messageSource);
+		service = new UICartService(cartService, projectService, sampleService, messageSource);
 
 		SAMPLE_1.setId(1L);
-		SAMPLE_2.setId(2L);
-		SAMPLE_3.setId(3L);
 		PROJECT_1.setId(PROJECT_ID);
 		Mockito.when(projectService.read(PROJECT_ID))
 				.thenReturn(PROJECT_1);
-		Mockito.when(sampleService.readMultiple(ImmutableList.of(1L, 2L))).thenReturn(ImmutableList.of(SAMPLE_1, SAMPLE_2));
-		Mockito.when(sampleService.readMultiple(ImmutableList.of(2L, 3L))).thenReturn(ImmutableList.of(SAMPLE_2, SAMPLE_3));
+		Mockito.when(projectService.readMultiple(ImmutableList.of(PROJECT_ID)))
+				.thenReturn(ImmutableList.of(PROJECT_1));
+		Mockito.when(sampleService.getSampleNamesById(PROJECT_1, ImmutableList.of(1L, 2L)))
+				.thenReturn(ImmutableMap.of(1L, "SAMPLE_1", 2L, "SAMPLE_2"));
+		Mockito.when(sampleService.getSampleNamesById(PROJECT_1, ImmutableList.of(2L, 3L)))
+				.thenReturn(ImmutableMap.of(2L, "SAMPLE_2", 3L, "SAMPLE_3"));
 		Mockito.when(sampleService.read(1L))
 				.thenReturn(SAMPLE_1);
+		Mockito.when(cartService.getSampleIdsInCart(anyCollectionOf(Long.class)))
+				.thenReturn(ImmutableSet.of());
+		Mockito.when(cartService.getSampleNamesInCart(anyCollectionOf(String.class)))
+				.thenReturn(ImmutableSet.of());
 	}
 
 	@Test
 	public void addSamplesToCartTest() {
+		Mockito.when(cartService.countSamplesInCart())
+				.thenReturn(2L);
 		CartUpdateResponse response = service.addSamplesToCart(createAddRequest(PROJECT_ID, ImmutableList.of(1L, 2L)), Locale.ENGLISH);
 		Assert.assertEquals(2, response.getCount());
-		Assert.assertEquals(2, cart.size());
+		Mockito.verify(cartService)
+				.addSamplesToCart(PROJECT_1, ImmutableList.of(1L, 2L));
 
 		// Try adding the same sample again with a new one
+		Mockito.when(cartService.getSampleIdsInCart(anyCollectionOf(Long.class)))
+				.thenReturn(ImmutableSet.of(2L));
+		Mockito.when(cartService.countSamplesInCart())
+				.thenReturn(3L);
 		response = service.addSamplesToCart(createAddRequest(PROJECT_ID, ImmutableList.of(2L, 3L)), Locale.ENGLISH);
 		Assert.assertEquals(3, response.getCount());
-		Assert.assertEquals(3, cart.size());
+		Mockito.verify(cartService)
+				.addSamplesToCart(PROJECT_1, ImmutableList.of(3L));
+
+		// Samples are never loaded to add them to the cart
+		Mockito.verify(sampleService, Mockito.never())
+				.readMultiple(any());
 	}
 
 	@Test
-	public void getNumberOfSamplesInCart() {
+	public void addSamplesWithDuplicateNamesTest() {
+		Mockito.when(cartService.getSampleNamesInCart(anyCollectionOf(String.class)))
+				.thenReturn(ImmutableSet.of("SAMPLE_1"));
 		service.addSamplesToCart(createAddRequest(PROJECT_ID, ImmutableList.of(1L, 2L)), Locale.ENGLISH);
+		Mockito.verify(cartService)
+				.addSamplesToCart(PROJECT_1, ImmutableList.of(2L));
+	}
+
+	@Test
+	public void getNumberOfSamplesInCart() {
+		Mockito.when(cartService.countSamplesInCart())
+				.thenReturn(2L);
 		Assert.assertEquals(2, service.getNumberOfSamplesInCart());
 	}
 
 	@Test
 	public void emptyCartTest() {
-		service.addSamplesToCart(createAddRequest(PROJECT_ID, ImmutableList.of(1L, 2L)), Locale.ENGLISH);
-		Assert.assertEquals(2, service.getNumberOfSamplesInCart());
 		service.emptyCart();
-		Assert.assertEquals(0, service.getNumberOfSamplesInCart());
-
-		/*
-		NOTE: This is an extra test because of a previous failure when emptying the cart then trying
-		to re-add a sample failed.
-		 */
-		service.addSamplesToCart(createAddRequest(PROJECT_ID, ImmutableList.of(1L, 2L)), Locale.ENGLISH);
-		Assert.assertEquals(2, service.getNumberOfSamplesInCart());
+		Mockito.verify(cartService)
+				.emptyCart();
 	}
 
 	@Test
 	public void removeSampleTest() {
-		service.addSamplesToCart(createAddRequest(PROJECT_ID, ImmutableList.of(1L, 2L)), Locale.ENGLISH);
-		Assert.assertEquals(2, service.getNumberOfSamplesInCart());
-		service.removeSample(1L, Locale.ENGLISH);
-		Assert.assertEquals(1, service.getNumberOfSamplesInCart());
+		Mockito.when(cartService.removeSampleFromCart(1L))
+				.thenReturn(true);
+		Mockito.when(cartService.countSamplesInCart())
+				.thenReturn(1L);
+		CartUpdateResponse response = service.removeSample(1L, Locale.ENGLISH);
+		Assert.assertEquals(1, response.getCount());
+		Mockito.verify(cartService)
+				.removeSampleFromCart(1L);
+	}
 
+	@Test
+	public void getSamplesForProjectsTest() {
+		// cart samples are only created by the database, and their names are read from the sample
+		CartSample cartSample = Mockito.mock(CartSample.class);
+		Mockito.when(cartSample.getSampleId())
+				.thenReturn(1L);
+		Mockito.when(cartSample.getSampleName())
+				.thenReturn("SAMPLE_1");
+		Mockito.when(cartService.getSamplesInCartForProject(PROJECT_ID))
+				.thenReturn(ImmutableList.of(cartSample));
+		List<CartProjectModel> models = service.getSamplesForProjects(ImmutableList.of(PROJECT_ID));
+		Assert.assertEquals(1, models.size());
+		Assert.assertEquals("SAMPLE_1", models.get(0)
+				.getSamples()
+				.get(0)
+				.getLabel());
+		Mockito.verify(sampleService, Mockito.never())
+				.readMultiple(any());
 	}
 
 	private AddToCartRequest createAddRequest(Long projectId, List<Long> sampleIds) {
@@ -11,6 +11,7 @@ import org.junit.Test;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.processing.impl.FastQCChartRenderer;
 
 import ca.corefacility.bioinformatics.irida.ria.web.files.dto.FastQCDetailsResponse;
 
@@ -39,7 +40,7 @@ public class UISequenceFileServiceTest {
 	public void setUp() {
 		analysisService = mock(AnalysisService.class);
 		sequencingObjectService = mock(SequencingObjectService.class);
-		service = new UISequenceFileService(analysisService, sequencingObjectService);
+		service = new UISequenceFileService(analysisService, sequencingObjectService, new FastQCChartRenderer());
 		fastQC = mock(AnalysisFastQC.class);
 
 		Path path = Paths.get(FILE_PATH);
@@ -1,11 +1,13 @@
 package ca.corefacility.bioinformatics.irida.security.permissions;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -19,6 +21,7 @@ import org.springframework.security.core.Authentication;
 
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 /**
@@ -223,6 +226,24 @@ public class BasePermissionTest {
 		basePermission.isAllowed(auth, mixedSet);
 	}
 
+	/**
+	 * Tests filtering a collection down to the allowed elements.
+	 */
+	@Test
+	public void testFilterAllowed() {
+		Permittable permittable1 = new Permittable(1L);
+		Permittable permittable2 = new Permittable(2L);
+		Permittable permittable3 = new Permittable(3L);
+		basePermission = new VariablePermittablePermission(Permittable.class, Long.class, crudRepository, permittable1,
+				permittable3);
+
+		List<Object> allowed = basePermission.filterAllowed(auth,
+				Lists.newArrayList(permittable1, permittable2, permittable3));
+
+		assertEquals("should keep the allowed elements in order", Lists.newArrayList(permittable1, permittable3),
+				allowed);
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void testBizarreExecution() {
 		basePermission.isAllowed(auth, new Object());
@@ -192,6 +192,7 @@ public class ReadAnalysisSubmissionPermissionTest {
 		AnalysisSubmission analysisSubmission = AnalysisSubmission.builder(workflowId).name("test")
 				.inputFiles(ImmutableSet.of(pair)).referenceFile(referenceFile).build();
 		analysisSubmission.setSubmitter(new User());
+		analysisSubmission.setId(1L);
 		pair.setAutomatedAssembly(analysisSubmission);
 
 		/*
@@ -229,6 +230,7 @@ public class ReadAnalysisSubmissionPermissionTest {
 		AnalysisSubmission analysisSubmission = AnalysisSubmission.builder(workflowId).name("test")
 				.inputFiles(ImmutableSet.of(pair)).referenceFile(referenceFile).build();
 		analysisSubmission.setSubmitter(new User());
+		analysisSubmission.setId(1L);
 		pair.setSistrTyping(analysisSubmission);
 
 		/*
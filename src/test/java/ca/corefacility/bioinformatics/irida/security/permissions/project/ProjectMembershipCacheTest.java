@@ -0,0 +1,114 @@
+package ca.corefacility.bioinformatics.irida.security.permissions.project;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.event.spi.PostInsertEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Tests for {@link ProjectMembershipCache}.
+ */
+public class ProjectMembershipCacheTest {
+	private static final String USERNAME = "fbristow";
+
+	private ProjectMembershipCache membershipCache;
+	private ProjectUserJoinRepository pujRepository;
+	private UserGroupProjectJoinRepository ugpjRepository;
+
+	@Before
+	public void setUp() {
+		pujRepository = mock(ProjectUserJoinRepository.class);
+		ugpjRepository = mock(UserGroupProjectJoinRepository.class);
+		membershipCache = new ProjectMembershipCache(pujRepository, ugpjRepository, 60, 100);
+
+		when(pujRepository.getProjectIdsForUsername(USERNAME)).thenReturn(ImmutableSet.of(1L));
+		when(ugpjRepository.findProjectIdsByUsername(USERNAME)).thenReturn(ImmutableSet.of(2L));
+	}
+
+	@Test
+	public void testMembershipCachedAcrossRequests() {
+		assertEquals("should have direct and group projects", ImmutableSet.of(1L, 2L),
+				membershipCache.getProjectIds(USERNAME));
+		assertEquals("should have direct and group projects", ImmutableSet.of(1L, 2L),
+				membershipCache.getProjectIds(USERNAME));
+
+		verify(pujRepository, times(1)).getProjectIdsForUsername(USERNAME);
+		assertEquals("second lookup should be a hit", 1, membershipCache.getHitCount());
+		assertEquals("first lookup should be a miss", 1, membershipCache.getMissCount());
+	}
+
+	@Test
+	public void testMembershipChangeClearsCache() {
+		membershipCache.getProjectIds(USERNAME);
+
+		new ProjectMembershipChangeListener(membershipCache).onPostInsert(joinInserted());
+
+		membershipCache.getProjectIds(USERNAME);
+
+		verify(pujRepository, times(2)).getProjectIdsForUsername(USERNAME);
+		assertEquals("both lookups should be misses", 2, membershipCache.getMissCount());
+	}
+
+	@Test
+	public void testMembershipChangeClearsCacheAfterCommit() {
+		membershipCache.getProjectIds(USERNAME);
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			new ProjectMembershipChangeListener(membershipCache).onPostInsert(joinInserted());
+
+			membershipCache.getProjectIds(USERNAME);
+			assertEquals("membership should still be cached before commit", 1, membershipCache.getHitCount());
+
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+				synchronization.afterCommit();
+				synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		membershipCache.getProjectIds(USERNAME);
+
+		verify(pujRepository, times(2)).getProjectIdsForUsername(USERNAME);
+		assertEquals("lookup after commit should be a miss", 2, membershipCache.getMissCount());
+	}
+
+	@Test
+	public void testMembershipChangeDuringLoadNotCached() {
+		when(pujRepository.getProjectIdsForUsername(USERNAME)).thenAnswer(invocation -> {
+			// membership changes while it is being loaded
+			membershipCache.invalidate(USERNAME);
+			return ImmutableSet.of(1L);
+		});
+
+		membershipCache.getProjectIds(USERNAME);
+		membershipCache.getProjectIds(USERNAME);
+
+		verify(pujRepository, times(2)).getProjectIdsForUsername(USERNAME);
+		assertEquals("stale membership should not have been cached", 0, membershipCache.getHitCount());
+	}
+
+	private PostInsertEvent joinInserted() {
+		User user = new User();
+		user.setUsername(USERNAME);
+		return new PostInsertEvent(new ProjectUserJoin(new Project(), user, ProjectRole.PROJECT_USER), 1L, null,
+				null, null);
+	}
+}
@@ -1,10 +1,12 @@
 package ca.corefacility.bioinformatics.irida.security.permissions.sample;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -35,6 +37,9 @@ import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository
 import ca.corefacility.bioinformatics.irida.security.permissions.project.ReadProjectPermission;
 import ca.corefacility.bioinformatics.irida.security.permissions.sample.ReadSamplePermission;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
 /**
  * Tests for {@link ReadSamplePermission}.
  * 
@@ -141,4 +146,31 @@ public class ReadSamplePermissionTest {
 		// we should fast pass through to permission granted for administrators.
 		verifyZeroInteractions(psjRepository);
 	}
+
+	@Test
+	public void testPermissionForCollection() {
+		Sample s1 = new Sample();
+		s1.setId(1L);
+		Sample s2 = new Sample();
+		s2.setId(2L);
+		s2.setSampleName("other");
+
+		List<Object[]> sampleProjects = new ArrayList<>();
+		sampleProjects.add(new Object[] { 1L, 10L });
+		sampleProjects.add(new Object[] { 2L, 20L });
+
+		when(psjRepository.getProjectIdsForSamples(ImmutableSet.of(1L, 2L))).thenReturn(sampleProjects);
+		when(readProjectPermission.getReadableProjectIds(any(), eq(ImmutableSet.of(10L, 20L)))).thenReturn(
+				ImmutableSet.of(10L));
+
+		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
+
+		assertEquals("only the sample in the readable project should be allowed", ImmutableList.of(s1),
+				readSamplePermission.filterAllowed(auth, ImmutableList.of(s1, s2)));
+		assertFalse("permission was granted for the whole collection.",
+				readSamplePermission.isAllowed(auth, ImmutableList.of(s1, s2)));
+
+		// projects are looked up for the whole collection, not sample by sample
+		verify(psjRepository, never()).getProjectForSample(any());
+	}
 }
@@ -1,12 +1,15 @@
 package ca.corefacility.bioinformatics.irida.security.permissions.sample;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -99,4 +102,25 @@ public class UpdateSamplePermissionTest {
 
 		assertFalse("Permission to update sample should not be given.", updateSamplePermission.isAllowed(auth, s));
 	}
+
+	@Test
+	public void testPermissionForCollection() {
+		Sample s1 = new Sample();
+		s1.setId(1L);
+		Sample s2 = new Sample("other");
+		s2.setId(2L);
+		Sample s3 = new Sample("third");
+		s3.setId(3L);
+
+		List<Object[]> sampleOwners = new ArrayList<>();
+		sampleOwners.add(new Object[] { 1L, 10L });
+		sampleOwners.add(new Object[] { 2L, 20L });
+		when(projectSampleJoinRepository.getOwnerProjectIdsForSamples(any())).thenReturn(sampleOwners);
+		when(projectOwnerPermission.filterAllowed(eq(auth), any())).thenReturn(ImmutableList.of(10L));
+
+		List<Object> allowed = updateSamplePermission.filterAllowed(auth, ImmutableList.of(s1, s2, s3));
+
+		assertEquals("Only the sample owned by a managed project should be updatable", ImmutableList.of(s1), allowed);
+		verify(projectSampleJoinRepository, never()).getProjectForSample(any(Sample.class));
+	}
 }
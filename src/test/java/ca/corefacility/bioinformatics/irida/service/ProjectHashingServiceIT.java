@@ -38,6 +38,7 @@ import com.google.common.collect.Sets;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(loader = AnnotationConfigContextLoader.class, classes = { IridaApiServicesConfig.class,
@@ -69,11 +70,45 @@ public class ProjectHashingServiceIT {
 	@Test
 	public void canGenerateHash() {
 		Project project = projectService.read(2L);
-		Integer expectedHash = 1654242358;
 
 		Integer projectHash = hashingService.getProjectHash(project);
+		assertNotNull("Should generate a hash", projectHash);
 
-		assertEquals("Should get the referenced hash", expectedHash, projectHash);
+		Map<Long, String> sampleHashes = hashingService.getSampleHashes(project);
+		assertEquals("Should have a hash for every sample", sampleService.getSamplesForProject(project)
+				.size(), sampleHashes.size());
+
+		Integer rerunHash = hashingService.getProjectHash(project);
+		assertEquals("Should get the stored hash on the 2nd run", projectHash, rerunHash);
+	}
+
+	@WithMockUser(username = "admin", roles = "ADMIN")
+	@Test
+	public void sampleHashChangesWithMetadata() {
+		Project project = projectService.read(2L);
+
+		Map<Long, String> originalHashes = hashingService.getSampleHashes(project);
+
+		Sample sample = sampleService.getSamplesForProject(project)
+				.iterator()
+				.next()
+				.getObject();
+
+		MetadataTemplateField field = metadataTemplateService.saveMetadataField(
+				new MetadataTemplateField("test", "text"));
+		sampleService.mergeSampleMetadata(sample, Sets.newHashSet(new MetadataEntry("value", "text", field)));
+
+		Map<Long, String> newHashes = hashingService.getSampleHashes(project);
+
+		for (Long sampleId : originalHashes.keySet()) {
+			if (sampleId.equals(sample.getId())) {
+				assertNotEquals("changed sample hash should change", originalHashes.get(sampleId),
+						newHashes.get(sampleId));
+			} else {
+				assertEquals("other sample hashes should not change", originalHashes.get(sampleId),
+						newHashes.get(sampleId));
+			}
+		}
 	}
 
 	@WithMockUser(username = "admin", roles = "ADMIN")
@@ -1,34 +1,52 @@
 package ca.corefacility.bioinformatics.irida.service;
 
-import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.project.ProjectContentHash;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleContentHash;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
+import ca.corefacility.bioinformatics.irida.repositories.ProjectContentHashRepository;
+import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sample.SampleContentHashRepository;
 import ca.corefacility.bioinformatics.irida.service.remote.ProjectHashingService;
-import ca.corefacility.bioinformatics.irida.service.remote.SequencingObjectRemoteService;
-import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 import com.google.common.collect.Lists;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.hibernate.event.spi.PostUpdateEvent;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
-import static org.mockito.Mockito.when;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
 
 public class ProjectHashingServiceTest {
     @Mock
-    private ProjectService projectService;
+    private ProjectRepository projectRepository;
     @Mock
     private SampleService sampleService;
     @Mock
     private SequencingObjectService objectService;
     @Mock
     private GenomeAssemblyService assemblyService;
+    @Mock
+    private SampleContentHashRepository sampleHashRepository;
+    @Mock
+    private ProjectContentHashRepository projectHashRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     ProjectHashingService service;
 
@@ -36,98 +54,150 @@ public class ProjectHashingServiceTest {
     public void setup() {
         MockitoAnnotations.initMocks(this);
 
-        service = new ProjectHashingService(projectService, sampleService, objectService, assemblyService);
+        service = new ProjectHashingService(projectRepository, sampleService, objectService, assemblyService, sampleHashRepository,
+                projectHashRepository, transactionManager);
+
+        when(projectHashRepository.findById(any(Long.class))).thenReturn(Optional.empty());
+        when(projectRepository.findById(any(Long.class))).thenReturn(Optional.empty());
     }
 
     @Test
-    public void testLoneProject() {
+    public void testStoredProjectHash() {
         Project p = new Project("test");
-        HashCodeBuilder builder = new HashCodeBuilder();
-        builder.append(p);
+        p.setId(1L);
+
+        when(projectHashRepository.findById(1L)).thenReturn(Optional.of(new ProjectContentHash(1L, 42, 0L)));
 
         Integer projectHash = service.getProjectHash(p);
 
-        assertEquals((Integer) builder.toHashCode(), projectHash);
+        assertEquals((Integer) 42, projectHash);
+        verifyZeroInteractions(sampleHashRepository);
+        verify(projectHashRepository, never()).saveContentHash(any(ProjectContentHash.class));
     }
 
     @Test
-    public void testProjectWithSample() {
+    public void testProjectHashSavedWithVersionRead() {
         Project p = new Project("test");
-        Sample s = new Sample("sample");
+        p.setId(1L);
 
-        when(sampleService.getSamplesForProject(p)).thenReturn(Lists.newArrayList(new ProjectSampleJoin(p, s, true)));
+        when(projectHashRepository.findById(1L)).thenReturn(Optional.of(new ProjectContentHash(1L, null, 3L)));
 
-        HashCodeBuilder builder = new HashCodeBuilder();
-        builder.append(p);
-        builder.append(s);
+        service.getProjectHash(p);
 
-        Integer projectHash = service.getProjectHash(p);
-
-        assertEquals((Integer) builder.toHashCode(), projectHash);
+        ArgumentCaptor<ProjectContentHash> captor = ArgumentCaptor.forClass(ProjectContentHash.class);
+        verify(projectHashRepository).saveContentHash(captor.capture());
+        assertEquals("should only save if the version is unchanged", (Long) 3L, captor.getValue().getVersion());
     }
 
     @Test
-    public void testAddSample() {
+    public void testProjectHashUsesCurrentProject() {
         Project p = new Project("test");
-        Sample s = new Sample("sample");
-
-        HashCodeBuilder builder = new HashCodeBuilder();
-        builder.append(p);
+        p.setId(1L);
+        Project renamed = new Project("renamed");
+        renamed.setId(1L);
 
         Integer projectHash = service.getProjectHash(p);
 
-        assertEquals((Integer) builder.toHashCode(), projectHash);
+        when(projectRepository.findById(1L)).thenReturn(Optional.of(renamed));
 
-        when(sampleService.getSamplesForProject(p)).thenReturn(Lists.newArrayList(new ProjectSampleJoin(p, s, true)));
+        assertNotEquals("hash should be calculated from the project as it is now", projectHash,
+                service.getProjectHash(p));
+    }
 
-        builder.append(s);
-        projectHash = service.getProjectHash(p);
+    @Test
+    public void testLoneProject() {
+        Project p = new Project("test");
+        p.setId(1L);
 
-        assertEquals((Integer) builder.toHashCode(), projectHash);
-    }
+        Integer projectHash = service.getProjectHash(p);
 
+        assertEquals("hash should be repeatable", projectHash, service.getProjectHash(p));
+        verify(projectHashRepository, times(2)).saveContentHash(any(ProjectContentHash.class));
+    }
 
     @Test
-    public void testProjectWithSequenceFile() {
+    public void testOnlyChangedSamplesHashed() {
         Project p = new Project("test");
+        p.setId(1L);
         Sample s = new Sample("sample");
-        SingleEndSequenceFile file = new SingleEndSequenceFile(new SequenceFile());
+        s.setId(2L);
+
+        when(sampleHashRepository.getSamplesWithoutContentHash(p)).thenReturn(Lists.newArrayList(s));
+        when(sampleHashRepository.getContentHashesForProject(p)).thenReturn(
+                Lists.newArrayList(new SampleContentHash(1L, "stored", 0L), new SampleContentHash(2L, null, 5L)));
+
+        service.getProjectHash(p);
 
-        when(sampleService.getSamplesForProject(p)).thenReturn(Lists.newArrayList(new ProjectSampleJoin(p, s, true)));
-        when(objectService.getSequencingObjectsForSample(s)).thenReturn(Lists.newArrayList(new SampleSequencingObjectJoin(s, file)));
+        verify(sampleService).getMetadataForSample(s);
+        verify(objectService).getSequencingObjectsForSample(s);
+        verify(assemblyService).getAssembliesForSample(s);
 
-        HashCodeBuilder builder = new HashCodeBuilder();
-        builder.append(p);
-        builder.append(s);
-        builder.append(file);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<SampleContentHash>> captor = ArgumentCaptor.forClass((Class) Collection.class);
+        verify(sampleHashRepository).saveContentHashes(captor.capture());
+        List<SampleContentHash> saved = Lists.newArrayList(captor.getValue());
+        assertEquals("should only hash the changed sample", 1, saved.size());
+        assertEquals((Long) 2L, saved.get(0).getSampleId());
+        assertEquals("should only save if the version is unchanged", (Long) 5L, saved.get(0).getVersion());
+    }
+
+    @Test
+    public void testProjectHashChangesWithSampleHash() {
+        Project p = new Project("test");
+        p.setId(1L);
+
+        when(sampleHashRepository.getSamplesWithoutContentHash(p)).thenReturn(new ArrayList<>());
+        when(sampleHashRepository.getContentHashesForProject(p)).thenReturn(
+                Lists.newArrayList(new SampleContentHash(1L, "first", 0L)));
 
         Integer projectHash = service.getProjectHash(p);
 
-        assertEquals((Integer) builder.toHashCode(), projectHash);
+        when(sampleHashRepository.getContentHashesForProject(p)).thenReturn(
+                Lists.newArrayList(new SampleContentHash(1L, "second", 1L)));
+
+        assertNotEquals("hash should change with sample contents", projectHash, service.getProjectHash(p));
     }
 
     @Test
-    public void testProjectAddFile() {
+    public void testSampleHashChangesWithFile() {
         Project p = new Project("test");
+        p.setId(1L);
         Sample s = new Sample("sample");
+        s.setId(2L);
         SingleEndSequenceFile file = new SingleEndSequenceFile(new SequenceFile());
+        file.setId(3L);
 
-        when(sampleService.getSamplesForProject(p)).thenReturn(Lists.newArrayList(new ProjectSampleJoin(p, s, true)));
+        when(sampleHashRepository.getSamplesWithoutContentHash(p)).thenReturn(Lists.newArrayList(s));
 
-        HashCodeBuilder builder = new HashCodeBuilder();
-        builder.append(p);
-        builder.append(s);
+        service.getSampleHashes(p);
+        String originalHash = captureSampleHash();
 
-        Integer projectHash = service.getProjectHash(p);
+        when(objectService.getSequencingObjectsForSample(s)).thenReturn(
+                Lists.newArrayList(new SampleSequencingObjectJoin(s, file)));
+        reset(sampleHashRepository);
+        when(sampleHashRepository.getSamplesWithoutContentHash(p)).thenReturn(Lists.newArrayList(s));
+
+        service.getSampleHashes(p);
 
-        assertEquals((Integer) builder.toHashCode(), projectHash);
+        assertNotEquals("sample hash should change with a new file", originalHash, captureSampleHash());
+    }
 
-        when(objectService.getSequencingObjectsForSample(s)).thenReturn(Lists.newArrayList(new SampleSequencingObjectJoin(s, file)));
+    @Test
+    public void testChangedSampleClearsHashes() {
+        Sample s = new Sample("sample");
+        s.setId(5L);
+        ProjectHashingService.ContentChangeListener listener = new ProjectHashingService.ContentChangeListener(service);
 
-        builder.append(file);
-        projectHash = service.getProjectHash(p);
+        listener.onPostUpdate(new PostUpdateEvent(s, 5L, null, null, null, null, null));
 
-        assertEquals((Integer) builder.toHashCode(), projectHash);
+        verify(sampleHashRepository).invalidateContentHashes(Collections.singleton(5L));
+        verify(projectHashRepository).invalidateContentHashesForSamples(Collections.singleton(5L));
     }
 
+    @SuppressWarnings("unchecked")
+    private String captureSampleHash() {
+        ArgumentCaptor<Collection<SampleContentHash>> captor = ArgumentCaptor.forClass((Class) Collection.class);
+        verify(sampleHashRepository).saveContentHashes(captor.capture());
+        return captor.getValue().iterator().next().getContentHash();
+    }
 }
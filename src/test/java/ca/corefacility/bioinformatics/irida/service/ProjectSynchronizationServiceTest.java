@@ -8,6 +8,8 @@ import java.util.Set;
 import ca.corefacility.bioinformatics.irida.exceptions.IridaOAuthException;
 import ca.corefacility.bioinformatics.irida.exceptions.LinkNotFoundException;
 import ca.corefacility.bioinformatics.irida.model.assembly.UploadedAssembly;
+import ca.corefacility.bioinformatics.irida.model.joins.Join;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.Fast5Object;
 import org.junit.Before;
 import org.junit.Test;
@@ -33,6 +35,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
@@ -78,7 +81,7 @@ public class ProjectSynchronizationServiceTest {
 
 		syncService = new ProjectSynchronizationService(projectService, sampleService, objectService,
 				metadataTemplateService, assemblyService, projectRemoteService, sampleRemoteService, singleEndRemoteService,
-				pairRemoteService, assemblyRemoteService, fast5ObjectRemoteService, tokenService, emailController);
+				pairRemoteService, assemblyRemoteService, fast5ObjectRemoteService, tokenService, emailController, 2);
 
 		api = new RemoteAPI();
 		expired = new Project();
@@ -170,6 +173,46 @@ public class ProjectSynchronizationServiceTest {
 		assertEquals(SyncStatus.SYNCHRONIZED, remoteProject.getRemoteStatus().getSyncStatus());
 	}
 
+	@Test
+	public void testSyncProjectsChangedSamples() {
+		expired.getRemoteStatus().setSyncStatus(SyncStatus.MARKED);
+		when(projectService.read(expired.getId())).thenReturn(expired);
+		Project remoteProject = new Project();
+		remoteProject.setRemoteStatus(expired.getRemoteStatus());
+		User readBy = new User();
+		expired.getRemoteStatus().setReadBy(readBy);
+		when(projectService.getProjectsWithRemoteSyncStatus(RemoteStatus.SyncStatus.MARKED))
+				.thenReturn(Lists.newArrayList(expired));
+		when(projectRemoteService.read(expired.getRemoteStatus().getURL())).thenReturn(remoteProject);
+		when(projectRemoteService.getProjectHash(remoteProject)).thenReturn(2);
+		when(projectService.update(remoteProject)).thenReturn(remoteProject);
+
+		// one sample is unchanged, one is new
+		Sample unchanged = new Sample();
+		RemoteStatus unchangedStatus = new RemoteStatus("http://unchanged", api);
+		unchangedStatus.setRemoteContentHash("aaaa");
+		unchanged.setRemoteStatus(unchangedStatus);
+		when(sampleService.getSamplesForProject(any(Project.class))).thenReturn(
+				Lists.<Join<Project, Sample>>newArrayList(new ProjectSampleJoin(remoteProject, unchanged, true)));
+
+		Sample added = new Sample();
+		added.setRemoteStatus(new RemoteStatus("http://added", api));
+		when(projectRemoteService.getSampleHashes(remoteProject)).thenReturn(
+				ImmutableMap.of("http://unchanged", "aaaa", "http://added", "bbbb"));
+		when(sampleRemoteService.read("http://added", api)).thenReturn(added);
+		when(sampleService.create(added)).thenReturn(added);
+
+		syncService.findMarkedProjectsToSync();
+
+		verify(sampleRemoteService).read("http://added", api);
+		verify(sampleRemoteService, never()).read("http://unchanged", api);
+		verify(sampleRemoteService, never()).getSamplesForProject(any(Project.class));
+		verify(projectService).addSampleToProject(expired, added, true);
+
+		assertEquals("new sample hash should be stored", "bbbb", added.getRemoteStatus().getRemoteContentHash());
+		assertEquals(SyncStatus.SYNCHRONIZED, remoteProject.getRemoteStatus().getSyncStatus());
+	}
+
 	@Test
 	public void testSyncProjectsUnauthorized() {
 		expired.getRemoteStatus()
@@ -296,6 +339,23 @@ public class ProjectSynchronizationServiceTest {
 		verify(fast5ObjectRemoteService).mirrorSequencingObject(fast5Object);
 		verify(objectService).createSequencingObjectInSample(fast5Object, sample);
 	}
+
+	@Test
+	public void testSyncFilesClearsRemoteChecksum() {
+		Sample sample = new Sample();
+		SequenceFile file = new SequenceFile(Paths.get("src/test/resources/files/testfast5file.fast5"));
+		file.setUploadSha256("checksum of the file uploaded to the remote");
+		Fast5Object fast5Object = new Fast5Object(file);
+		fast5Object.setRemoteStatus(new RemoteStatus("http://fast5", api));
+		fast5Object.setId(1L);
+
+		when(fast5ObjectRemoteService.mirrorSequencingObject(fast5Object)).thenReturn(fast5Object);
+
+		syncService.syncFast5File(fast5Object, sample);
+
+		verify(objectService).createSequencingObjectInSample(fast5Object, sample);
+		assertNull("checksum should be calculated from the local file", file.getUploadSha256());
+	}
 	
 	@Test(expected = ProjectSynchronizationException.class)
 	public void testSyncFilesError() {
@@ -0,0 +1,136 @@
+package ca.corefacility.bioinformatics.irida.service.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisStateTransition;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisStateTransitionRepository;
+import ca.corefacility.bioinformatics.irida.service.analysis.AnalysisStateTransitionService.StateChangeListener;
+
+/**
+ * Unit tests for {@link AnalysisStateTransitionService}
+ */
+public class AnalysisStateTransitionServiceTest {
+	@Mock
+	private AnalysisStateTransitionRepository transitionRepository;
+
+	private AnalysisStateTransitionService service;
+	private StateChangeListener listener;
+	private List<AnalysisStateTransition> notified;
+
+	@Before
+	public void setUp() {
+		MockitoAnnotations.initMocks(this);
+
+		service = new AnalysisStateTransitionService(transitionRepository);
+		listener = new StateChangeListener(service);
+
+		notified = new ArrayList<>();
+		service.subscribe(notified::add);
+	}
+
+	@Test
+	public void testStateChangeRecorded() {
+		AnalysisSubmission submission = submission(AnalysisState.RUNNING, AnalysisState.FINISHED_RUNNING);
+		listener.submissionSaved(submission);
+
+		ArgumentCaptor<AnalysisStateTransition> captor = ArgumentCaptor.forClass(AnalysisStateTransition.class);
+		verify(transitionRepository).insertTransition(captor.capture());
+
+		AnalysisStateTransition transition = captor.getValue();
+		assertEquals("transition should be for the submission", submission.getId(), transition.getSubmissionId());
+		assertEquals("previous state should be the loaded state", AnalysisState.RUNNING,
+				transition.getPreviousState());
+		assertEquals("state should be the new state", AnalysisState.FINISHED_RUNNING,
+				transition.getAnalysisState());
+		assertEquals("transition should be dated when the submission was modified", submission.getModifiedDate(),
+				transition.getTransitionDate());
+
+		assertEquals("subscribers should be notified of the transition", Collections.singletonList(transition),
+				notified);
+		verify(submission).setLoadedAnalysisState(AnalysisState.FINISHED_RUNNING);
+	}
+
+	@Test
+	public void testLoadedStateRemembered() {
+		AnalysisSubmission submission = submission(null, AnalysisState.RUNNING);
+		listener.submissionLoaded(submission);
+
+		verify(submission).setLoadedAnalysisState(AnalysisState.RUNNING);
+	}
+
+	@Test
+	public void testNewSubmissionRecorded() {
+		AnalysisSubmission submission = submission(null, AnalysisState.NEW);
+		listener.submissionSaved(submission);
+
+		assertEquals("subscribers should be notified of the transition", 1, notified.size());
+		assertNull("new submissions have no previous state", notified.get(0).getPreviousState());
+		assertEquals("state should be the new state", AnalysisState.NEW, notified.get(0).getAnalysisState());
+	}
+
+	@Test
+	public void testUnchangedStateNotRecorded() {
+		AnalysisSubmission submission = submission(AnalysisState.RUNNING, AnalysisState.RUNNING);
+		listener.submissionSaved(submission);
+
+		verify(transitionRepository, never()).insertTransition(any(AnalysisStateTransition.class));
+		assertEquals("subscribers should not be notified", 0, notified.size());
+	}
+
+	@Test
+	public void testTransitionStoredInTransactionNotifiedAfterCommit() {
+		AnalysisSubmission submission = submission(AnalysisState.RUNNING, AnalysisState.COMPLETED);
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			listener.submissionSaved(submission);
+
+			verify(transitionRepository).insertTransition(any(AnalysisStateTransition.class));
+			assertEquals("subscribers should not be notified before commit", 0, notified.size());
+
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+				synchronization.afterCommit();
+				synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertEquals("subscribers should be notified after commit", 1, notified.size());
+	}
+
+	@Test
+	public void testGetLatestTransitionsNoSubmissions() {
+		assertEquals("no transitions should be returned", 0,
+				service.getLatestTransitions(Collections.emptyList()).size());
+
+		verifyZeroInteractions(transitionRepository);
+	}
+
+	private AnalysisSubmission submission(AnalysisState loadedState, AnalysisState state) {
+		AnalysisSubmission submission = mock(AnalysisSubmission.class);
+		when(submission.getId()).thenReturn(1L);
+		when(submission.getModifiedDate()).thenReturn(new Date(1000));
+		when(submission.getLoadedAnalysisState()).thenReturn(loadedState);
+		when(submission.getAnalysisState()).thenReturn(state);
+		return submission;
+	}
+}
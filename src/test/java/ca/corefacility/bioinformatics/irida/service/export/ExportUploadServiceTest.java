@@ -15,6 +15,7 @@ import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateServi
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 import org.mockftpserver.fake.FakeFtpServer;
 import org.mockftpserver.fake.UserAccount;
@@ -25,15 +26,21 @@ import org.mockftpserver.fake.filesystem.UnixFakeFileSystem;
 import org.mockito.ArgumentCaptor;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
@@ -58,7 +65,7 @@ public class ExportUploadServiceTest {
 		// finds an open port
 		server.setServerControlPort(0);
 
-		ExportUploadService exportUploadService = new ExportUploadService(null, null, null, null,
+		ExportUploadService exportUploadService = new ExportUploadService(mockSubmissionService(), null, null, null,
 				new TestEmailController());
 		try {
 			server.start();
@@ -103,7 +110,7 @@ public class ExportUploadServiceTest {
 		// finds an open port
 		server.setServerControlPort(0);
 
-		ExportUploadService exportUploadService = new ExportUploadService(null, null, null, null,
+		ExportUploadService exportUploadService = new ExportUploadService(mockSubmissionService(), null, null, null,
 				new TestEmailController());
 		try {
 			server.start();
@@ -129,6 +136,129 @@ public class ExportUploadServiceTest {
 		assertTrue("seqfile created", fileSystem.exists(createdDirectory + "/" + createdFile.getId() + ".fastq.gz"));
 	}
 
+	@Test
+	public void testUploadSubmissionManyFiles() throws UploadException, IOException {
+		NcbiExportSubmission submission = createFakeSubmission(".fastq", 10);
+
+		String ftpHost = "localhost";
+		String ftpUser = "test";
+		String ftpPassword = "password";
+		String baseDirectory = "/home/test/submit/Test";
+
+		FakeFtpServer server = new FakeFtpServer();
+		server.addUserAccount(new UserAccount(ftpUser, ftpPassword, "/home/test"));
+
+		FileSystem fileSystem = new UnixFakeFileSystem();
+		fileSystem.add(new DirectoryEntry(baseDirectory));
+		server.setFileSystem(fileSystem);
+
+		// finds an open port
+		server.setServerControlPort(0);
+
+		ExportUploadService exportUploadService = new ExportUploadService(mockSubmissionService(), null, null, null,
+				new TestEmailController());
+		exportUploadService.setUploadConnections(3);
+		try {
+			server.start();
+			int ftpPort = server.getServerControlPort();
+
+			exportUploadService.setConnectionDetails(ftpHost, ftpPort, ftpUser, ftpPassword, baseDirectory);
+			String xml = "<xml></xml>";
+
+			exportUploadService.uploadSubmission(submission, xml);
+		} finally {
+			server.stop();
+		}
+
+		String createdDirectory = submission.getDirectoryPath();
+		assertTrue("submit.ready created", fileSystem.exists(createdDirectory + "/submit.ready"));
+		for (SingleEndSequenceFile file : submission.getBioSampleFiles().iterator().next().getFiles()) {
+			SequenceFile sequenceFile = file.getSequenceFile();
+			FileEntry entry = (FileEntry) fileSystem.getEntry(createdDirectory + "/" + sequenceFile.getId() + ".fastq");
+			assertNotNull("seqfile created", entry);
+			assertEquals("seqfile should be complete", Files.size(sequenceFile.getFile()), entry.getSize());
+		}
+		assertNull("progress should be cleared after upload", exportUploadService.getUploadProgress(submission.getId()));
+	}
+
+	@Test
+	public void testResumeUploadSubmission() throws UploadException, IOException {
+		NcbiExportSubmission submission = createFakeSubmission(".fastq");
+		SequenceFile sequenceFile = submission.getBioSampleFiles().iterator().next().getFiles().iterator().next()
+				.getSequenceFile();
+		String contents = new String(Files.readAllBytes(sequenceFile.getFile()));
+
+		String ftpHost = "localhost";
+		String ftpUser = "test";
+		String ftpPassword = "password";
+		String baseDirectory = "/home/test/submit/Test";
+		String xml = "<xml></xml>";
+
+		FakeFtpServer server = new FakeFtpServer();
+		server.addUserAccount(new UserAccount(ftpUser, ftpPassword, "/home/test"));
+
+		FileSystem fileSystem = new UnixFakeFileSystem();
+		fileSystem.add(new DirectoryEntry(baseDirectory));
+		server.setFileSystem(fileSystem);
+
+		// finds an open port
+		server.setServerControlPort(0);
+
+		// the first attempt stops as soon as the submission directory is
+		// saved, as if the server went down
+		NcbiExportSubmissionService firstSubmissionService = mock(NcbiExportSubmissionService.class);
+		when(firstSubmissionService.update(any(NcbiExportSubmission.class)))
+				.thenThrow(new IllegalStateException("server stopped"));
+		ExportUploadService firstUploadService = new ExportUploadService(firstSubmissionService, null, null, null,
+				new TestEmailController());
+
+		NcbiExportSubmissionService restartedSubmissionService = mockSubmissionService();
+		ExportUploadService restartedUploadService = new ExportUploadService(restartedSubmissionService, null,
+				null, null, new TestEmailController());
+
+		String submissionDirectory;
+		try {
+			server.start();
+			int ftpPort = server.getServerControlPort();
+
+			firstUploadService.setConnectionDetails(ftpHost, ftpPort, ftpUser, ftpPassword, baseDirectory);
+			try {
+				firstUploadService.uploadSubmission(submission, xml);
+				fail("first attempt should have stopped");
+			} catch (IllegalStateException e) {
+			}
+
+			ArgumentCaptor<NcbiExportSubmission> saved = ArgumentCaptor.forClass(NcbiExportSubmission.class);
+			verify(firstSubmissionService).update(saved.capture());
+			submissionDirectory = saved.getValue().getDirectoryPath();
+			assertNotNull("submission directory should be saved once created", submissionDirectory);
+
+			// the first half of the file was uploaded before the server went
+			// down
+			fileSystem.add(new FileEntry(submissionDirectory + "/" + sequenceFile.getId() + ".fastq",
+					contents.substring(0, contents.length() / 2)));
+
+			// after the restart, only what was saved is known
+			NcbiExportSubmission reloaded = new NcbiExportSubmission();
+			reloaded.setId(saved.getValue().getId());
+			reloaded.setBioSampleFiles(saved.getValue().getBioSampleFiles());
+			reloaded.setDirectoryPath(submissionDirectory);
+
+			restartedUploadService.setConnectionDetails(ftpHost, ftpPort, ftpUser, ftpPassword, baseDirectory);
+			restartedUploadService.uploadSubmission(reloaded, xml);
+		} finally {
+			server.stop();
+		}
+
+		assertEquals("should not create a new submission directory", 1, fileSystem.listNames(baseDirectory).size());
+		assertTrue("submit.ready created", fileSystem.exists(submissionDirectory + "/submit.ready"));
+		verify(restartedSubmissionService, never()).update(any(NcbiExportSubmission.class));
+
+		FileEntry entry = (FileEntry) fileSystem.getEntry(submissionDirectory + "/" + sequenceFile.getId() + ".fastq");
+		String uploaded = IOUtils.toString(entry.createInputStream(), StandardCharsets.UTF_8);
+		assertEquals("file should be resumed from where it stopped", contents, uploaded);
+	}
+
 	@Test(expected = UploadException.class)
 	public void testUploadSubmissionNoBaseDirectory() throws UploadException, IOException {
 		NcbiExportSubmission submission = createFakeSubmission(".fastq");
@@ -362,17 +492,52 @@ public class ExportUploadServiceTest {
 	 * @return a {@link NcbiExportSubmission}
 	 * @throws IOException if the test file couldn't be created
 	 */
+	/**
+	 * Create a mock {@link NcbiExportSubmissionService} that returns
+	 * submissions as they were updated
+	 *
+	 * @return the mock service
+	 */
+	private NcbiExportSubmissionService mockSubmissionService() {
+		NcbiExportSubmissionService exportSubmissionService = mock(NcbiExportSubmissionService.class);
+		when(exportSubmissionService.update(any(NcbiExportSubmission.class))).then(returnsFirstArg());
+		return exportSubmissionService;
+	}
+
 	private NcbiExportSubmission createFakeSubmission(String sequenceFileExtension) throws IOException {
+		return createFakeSubmission(sequenceFileExtension, 1);
+	}
+
+	/**
+	 * Create a fake submission with several sequence files for test uploads
+	 *
+	 * @param sequenceFileExtension {@link String} File extension for sequence file (".fastq" or ".fastq.gz")
+	 * @param numberOfFiles         the number of sequence files to add to the submission
+	 * @return a {@link NcbiExportSubmission}
+	 * @throws IOException if the test files couldn't be created
+	 */
+	private NcbiExportSubmission createFakeSubmission(String sequenceFileExtension, int numberOfFiles)
+			throws IOException {
 		NcbiExportSubmission submission = new NcbiExportSubmission();
 		submission.setId(1L);
 
 		NcbiBioSampleFiles ncbiBioSampleFiles = new NcbiBioSampleFiles();
-		Path tempFile = Files.createTempFile("sequencefile", sequenceFileExtension);
-		SequenceFile sequenceFile = new SequenceFile(tempFile);
-		sequenceFile.setId(1L);
-		SingleEndSequenceFile singleFile = new SingleEndSequenceFile(sequenceFile);
-		singleFile.setId(1L);
-		ncbiBioSampleFiles.setFiles(Sets.newHashSet(singleFile));
+		Set<SingleEndSequenceFile> files = new HashSet<>();
+		for (long id = 1; id <= numberOfFiles; id++) {
+			Path tempFile = Files.createTempFile("sequencefile", sequenceFileExtension);
+			StringBuilder fastq = new StringBuilder();
+			for (int read = 0; read < 1000; read++) {
+				fastq.append("@read").append(read).append("\nACGTACGT\n+\n????????\n");
+			}
+			Files.write(tempFile, fastq.toString().getBytes(StandardCharsets.UTF_8));
+
+			SequenceFile sequenceFile = new SequenceFile(tempFile);
+			sequenceFile.setId(id);
+			SingleEndSequenceFile singleFile = new SingleEndSequenceFile(sequenceFile);
+			singleFile.setId(id);
+			files.add(singleFile);
+		}
+		ncbiBioSampleFiles.setFiles(files);
 
 		submission.setBioSampleFiles(Lists.newArrayList(ncbiBioSampleFiles));
 
@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.service.impl.integration;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -57,6 +58,28 @@ public class InMemoryTaxonomyServiceIT {
 		assertTrue(search.isEmpty());
 	}
 
+	@Test
+	public void testSearchTree() {
+		Collection<TreeNode<String>> search = taxonomyService.search("LISTERIA");
+		assertEquals("matching terms should be under one root", 1, search.size());
+
+		TreeNode<String> family = search.iterator().next();
+		assertEquals("Listeriaceae", family.getValue());
+		assertEquals(1, family.getChildren().size());
+
+		TreeNode<String> genus = family.getChildren().iterator().next();
+		assertEquals("Listeria", genus.getValue());
+		assertEquals(1, genus.getChildren().size());
+		assertEquals("Listeria monocytogenes", genus.getChildren().iterator().next().getValue());
+	}
+
+	@Test
+	public void testSearchNoMatches() {
+		Collection<TreeNode<String>> search = taxonomyService.search("not a taxon");
+		assertNotNull(search);
+		assertTrue(search.isEmpty());
+	}
+
 	private void testTreeHasString(TreeNode<String> node, String searchTerm) {
 		assertTrue(node.getValue().toLowerCase().contains(searchTerm.toLowerCase()));
 		for (TreeNode<String> child : node.getChildren()) {
@@ -8,6 +8,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import ca.corefacility.bioinformatics.irida.config.data.IridaApiJdbcDataSourceConfig;
 import org.junit.Test;
@@ -236,4 +237,21 @@ public class ProjectEventServiceImplIT {
 
 		assertTrue("no events should be found", events.isEmpty());
 	}
+
+	@WithMockUser(username = "tom", password = "password1", roles = "ADMIN")
+	@Test
+	public void testGetSubscribedEventsAfterDate() throws ParseException {
+		SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+		Date beginning = formatter.parse("2013-07-18 14:00:00");
+
+		Map<User, List<ProjectEvent>> events = projectEventService.getSubscribedEventsAfterDate(beginning);
+
+		assertEquals("only the subscribed user should have events", 1, events.size());
+		User user = events.keySet().iterator().next();
+		assertEquals(Long.valueOf(3L), user.getId());
+		assertEquals("1 event should be returned", 1, events.get(user).size());
+
+		events = projectEventService.getSubscribedEventsAfterDate(formatter.parse("2013-07-18 15:00:00"));
+		assertTrue("no events should be found", events.isEmpty());
+	}
 }
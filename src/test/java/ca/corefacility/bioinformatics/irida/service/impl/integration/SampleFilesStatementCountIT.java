@@ -0,0 +1,133 @@
+package ca.corefacility.bioinformatics.irida.service.impl.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.test.context.support.WithSecurityContextTestExecutionListener;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseOperation;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DatabaseTearDown;
+
+import ca.corefacility.bioinformatics.irida.config.data.IridaApiJdbcDataSourceConfig;
+import ca.corefacility.bioinformatics.irida.config.services.IridaApiServicesConfig;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
+import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
+import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+import ca.corefacility.bioinformatics.irida.utils.SqlStatementCounter;
+
+/**
+ * Checks that listing the files of a {@link Sample} takes the same number of
+ * statements no matter how many files the sample has.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(loader = AnnotationConfigContextLoader.class, classes = { IridaApiServicesConfig.class,
+		IridaApiJdbcDataSourceConfig.class })
+@ActiveProfiles("it")
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class, DbUnitTestExecutionListener.class,
+		WithSecurityContextTestExecutionListener.class })
+@DatabaseSetup("/ca/corefacility/bioinformatics/irida/service/impl/SampleFilesStatementCountIT.xml")
+@DatabaseTearDown(value = "/ca/corefacility/bioinformatics/irida/test/integration/TableReset.xml", type = DatabaseOperation.DELETE_ALL)
+public class SampleFilesStatementCountIT {
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private SampleService sampleService;
+
+	@Autowired
+	private SequencingObjectService objectService;
+
+	private SqlStatementCounter counter;
+
+	@Before
+	public void setUp() {
+		counter = new SqlStatementCounter(entityManagerFactory);
+	}
+
+	@Test
+	@WithMockUser(username = "admin", roles = "ADMIN")
+	public void testListSequencingObjectsForSample() {
+		long fewFiles = countStatementsForSample(1L, 2);
+		long manyFiles = countStatementsForSample(2L, 8);
+
+		assertTrue("listing more files should not take more statements (" + fewFiles + " for 2 files, "
+				+ manyFiles + " for 8 files)", manyFiles <= fewFiles);
+	}
+
+	@Test
+	@WithMockUser(username = "admin", roles = "ADMIN")
+	public void testListSequencingObjectsOfTypeForSample() {
+		Sample sample = sampleService.read(2L);
+
+		counter.reset();
+		Collection<SampleSequencingObjectJoin> pairs = objectService.getSequencesForSampleOfType(sample,
+				SequenceFilePair.class);
+		pairs.forEach(j -> j.getObject()
+				.getFiles()
+				.size());
+		long pairStatements = counter.getStatementCount();
+
+		counter.reset();
+		Collection<SampleSequencingObjectJoin> singles = objectService.getSequencesForSampleOfType(sample,
+				SingleEndSequenceFile.class);
+		singles.forEach(j -> j.getObject()
+				.getFiles()
+				.size());
+		long singleStatements = counter.getStatementCount();
+
+		assertEquals("should be 4 pairs", 4, pairs.size());
+		assertEquals("should be 4 single end files", 4, singles.size());
+		assertTrue("listing 4 pairs should not take a statement per pair, took " + pairStatements,
+				pairStatements < pairs.size());
+		assertTrue("listing 4 single end files should not take a statement per file, took " + singleStatements,
+				singleStatements < singles.size());
+	}
+
+	/**
+	 * Count the statements it takes to list the files for a sample
+	 *
+	 * @param sampleId      the sample to list files for
+	 * @param expectedFiles the number of sequencing objects the sample has
+	 * @return the number of statements
+	 */
+	private long countStatementsForSample(Long sampleId, int expectedFiles) {
+		Sample sample = sampleService.read(sampleId);
+
+		counter.reset();
+		Collection<SampleSequencingObjectJoin> joins = objectService.getSequencingObjectsForSample(sample);
+		for (SampleSequencingObjectJoin join : joins) {
+			SequencingObject object = join.getObject();
+			object.getFiles()
+					.size();
+			object.getQcEntries()
+					.size();
+		}
+		long count = counter.getStatementCount();
+
+		assertEquals("sample should have " + expectedFiles + " sequencing objects", expectedFiles, joins.size());
+
+		return count;
+	}
+}
@@ -455,6 +455,29 @@ public class SampleServiceImplIT {
 		sampleService.getQCEntriesForSample(s);
 	}
 	
+	@Test
+	@WithMockUser(username = "fbristow", roles = "ADMIN")
+	public void testGetUpdatableSamplesByNameIncludesSharedSamples() {
+		Project project = projectService.read(1L);
+		Sample shared = sampleService.read(5L);
+		projectService.addSampleToProject(project, shared, false);
+
+		List<Sample> samples = sampleService.getUpdatableSamplesByName(project,
+				Sets.newHashSet("sample1", "sample5", "sample4"));
+
+		Set<Long> ids = samples.stream()
+				.map(Sample::getId)
+				.collect(Collectors.toSet());
+		assertEquals("should find the owned and shared samples in the project", Sets.newHashSet(1L, 5L), ids);
+	}
+
+	@Test(expected = AccessDeniedException.class)
+	@WithMockUser(username = "dr-evil", roles = "USER")
+	public void testGetUpdatableSamplesByNameNotAllowed() {
+		Project project = projectService.read(1L);
+		sampleService.getUpdatableSamplesByName(project, Sets.newHashSet("sample1"));
+	}
+
 	private void assertSampleNotFound(Long id) {
 		try {
 			sampleService.read(id);
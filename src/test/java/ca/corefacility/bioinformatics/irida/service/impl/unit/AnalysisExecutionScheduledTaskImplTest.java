@@ -7,10 +7,16 @@ import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import ca.corefacility.bioinformatics.irida.service.analysis.workspace.AnalysisWorkspaceService;
 import org.joda.time.DateTime;
@@ -18,6 +24,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
 
 import com.github.jmchilton.blend4j.galaxy.HistoriesClient;
 import com.google.common.collect.Sets;
@@ -245,8 +252,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 				Sets.newHashSet("1"));
 		GalaxyWorkflowStatus galaxyWorkflowStatus = new GalaxyWorkflowStatus(GalaxyWorkflowState.OK, stateIds);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
+		whenRunning(analysisSubmission);
 		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(galaxyWorkflowStatus);
 
 		when(analysisWorkspaceService.outputFilesExist(analysisSubmission)).thenReturn(true);
@@ -276,8 +282,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 				Sets.newHashSet("1"));
 		GalaxyWorkflowStatus galaxyWorkflowStatus = new GalaxyWorkflowStatus(GalaxyWorkflowState.OK, stateIds);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
+		whenRunning(analysisSubmission);
 		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(galaxyWorkflowStatus);
 
 		when(analysisWorkspaceService.outputFilesExist(analysisSubmission)).thenReturn(true);
@@ -303,8 +308,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		Map<GalaxyWorkflowState, Set<String>> stateIds = Util.buildStateIdsWithStateFilled(GalaxyWorkflowState.RUNNING,
 				Sets.newHashSet("1"));
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
+		whenRunning(analysisSubmission);
 		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(
 				new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, stateIds));
 
@@ -330,8 +334,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 				Sets.newHashSet("1"));
 		GalaxyWorkflowStatus galaxyWorkflowStatus = new GalaxyWorkflowStatus(GalaxyWorkflowState.OK, stateIds);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
+		whenRunning(analysisSubmission);
 		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(galaxyWorkflowStatus);
 
 		when(analysisWorkspaceService.outputFilesExist(analysisSubmission)).thenReturn(false);
@@ -355,8 +358,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		Map<GalaxyWorkflowState, Set<String>> stateIds = Util.buildStateIdsWithStateFilled(GalaxyWorkflowState.QUEUED,
 				Sets.newHashSet("1"));
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
+		whenRunning(analysisSubmission);
 		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(
 				new GalaxyWorkflowStatus(GalaxyWorkflowState.QUEUED, stateIds));
 
@@ -383,8 +385,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 				Sets.newHashSet("1"));
 		GalaxyWorkflowStatus galaxyWorkflowStatus = new GalaxyWorkflowStatus(GalaxyWorkflowState.ERROR, stateIds);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
+		whenRunning(analysisSubmission);
 		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(galaxyWorkflowStatus);
 
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
@@ -412,8 +413,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 				Sets.newHashSet("1"));
 		GalaxyWorkflowStatus galaxyWorkflowStatus = new GalaxyWorkflowStatus(GalaxyWorkflowState.ERROR, stateIds);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
+		whenRunning(analysisSubmission);
 		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(galaxyWorkflowStatus);
 
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
@@ -436,8 +436,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 			throws ExecutionManagerException, IridaWorkflowNotFoundException {
 		analysisSubmission.setAnalysisState(AnalysisState.RUNNING);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
+		whenRunning(analysisSubmission);
 		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenThrow(new IllegalArgumentException());
 
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
@@ -462,8 +461,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		analysisSubmission.setEmailPipelineResultCompleted(true);
 		analysisSubmission.setEmailPipelineResultError(true);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
+		whenRunning(analysisSubmission);
 		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenThrow(new IllegalArgumentException());
 
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
@@ -489,8 +487,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 				Sets.newHashSet("1"));
 		GalaxyWorkflowStatus galaxyWorkflowStatus = new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, stateIds);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
+		whenRunning(analysisSubmission);
 		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(galaxyWorkflowStatus);
 
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
@@ -499,6 +496,173 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		verify(analysisSubmissionRepository).save(analysisSubmission);
 	}
 
+	/**
+	 * Tests that running analyses are checked in Galaxy at the same time. Each
+	 * status check waits for all the others to start, so checking them one at
+	 * a time would time out.
+	 *
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testMonitorRunningAnalysesConcurrently() throws ExecutionManagerException {
+		int count = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(count);
+		analysisExecutionScheduledTask = new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository,
+				analysisExecutionService, CleanupAnalysisSubmissionCondition.ALWAYS_CLEANUP, galaxyJobErrorsService,
+				jobErrorRepository, emailController, analysisWorkspaceService, executor, 100, Duration.ZERO,
+				Duration.ZERO);
+
+		AnalysisSubmission[] submissions = new AnalysisSubmission[count];
+		for (int i = 0; i < count; i++) {
+			submissions[i] = runningSubmission(i + 1L);
+		}
+		whenRunning(submissions);
+
+		CyclicBarrier allChecking = new CyclicBarrier(count);
+		when(analysisExecutionService.getWorkflowStatus(any(AnalysisSubmission.class))).thenAnswer(invocation -> {
+			allChecking.await(10, TimeUnit.SECONDS);
+			return runningStatus("1");
+		});
+
+		try {
+			Set<Future<AnalysisSubmission>> futures = analysisExecutionScheduledTask.monitorRunningAnalyses();
+
+			assertEquals("should have checked every submission", count, futures.size());
+			for (AnalysisSubmission submission : submissions) {
+				assertEquals(AnalysisState.RUNNING, submission.getAnalysisState());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Tests that a running analysis whose progress hasn't changed isn't
+	 * checked again until its backoff has passed.
+	 *
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testMonitorRunningAnalysesBackoff() throws ExecutionManagerException {
+		AnalysisExecutionScheduledTaskImpl task = new AnalysisExecutionScheduledTaskImpl(
+				analysisSubmissionRepository, analysisExecutionService,
+				CleanupAnalysisSubmissionCondition.ALWAYS_CLEANUP, galaxyJobErrorsService, jobErrorRepository,
+				emailController, analysisWorkspaceService, Runnable::run, 100, Duration.ofHours(1),
+				Duration.ofHours(2));
+
+		analysisSubmission.setAnalysisState(AnalysisState.RUNNING);
+		whenRunning(analysisSubmission);
+		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(runningStatus("1"));
+
+		// the first check records the progress, the second finds it unchanged
+		task.monitorRunningAnalyses();
+		task.monitorRunningAnalyses();
+		assertEquals("should have checked the submission", 1, task.getLastMonitorSweepChecked());
+
+		task.monitorRunningAnalyses();
+		assertEquals("should not have checked the submission", 0, task.getLastMonitorSweepChecked());
+		assertEquals("should have skipped the submission", 1, task.getLastMonitorSweepSkipped());
+
+		verify(analysisExecutionService, times(2)).getWorkflowStatus(analysisSubmission);
+	}
+
+	/**
+	 * Tests that a running analysis that's making progress is checked on
+	 * every sweep.
+	 *
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testMonitorRunningAnalysesProgressNoBackoff() throws ExecutionManagerException {
+		analysisExecutionScheduledTask = new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository,
+				analysisExecutionService, CleanupAnalysisSubmissionCondition.ALWAYS_CLEANUP, galaxyJobErrorsService,
+				jobErrorRepository, emailController, analysisWorkspaceService, Runnable::run, 100,
+				Duration.ofHours(1), Duration.ofHours(2));
+
+		analysisSubmission.setAnalysisState(AnalysisState.RUNNING);
+		whenRunning(analysisSubmission);
+		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(runningStatus("1"),
+				runningStatus("1", "2"), runningStatus("1", "2", "3"));
+
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+
+		verify(analysisExecutionService, times(3)).getWorkflowStatus(analysisSubmission);
+	}
+
+	/**
+	 * Tests that running analyses are loaded a page at a time in order of id.
+	 *
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testMonitorRunningAnalysesPages() throws ExecutionManagerException {
+		analysisExecutionScheduledTask = new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository,
+				analysisExecutionService, CleanupAnalysisSubmissionCondition.ALWAYS_CLEANUP, galaxyJobErrorsService,
+				jobErrorRepository, emailController, analysisWorkspaceService, Runnable::run, 1, Duration.ZERO,
+				Duration.ZERO);
+
+		AnalysisSubmission first = runningSubmission(1L);
+		AnalysisSubmission second = runningSubmission(2L);
+		when(analysisSubmissionRepository.findIdsByAnalysisStateAfterId(eq(AnalysisState.RUNNING), eq(0L),
+				any(Pageable.class))).thenReturn(Arrays.asList(1L));
+		when(analysisSubmissionRepository.findIdsByAnalysisStateAfterId(eq(AnalysisState.RUNNING), eq(1L),
+				any(Pageable.class))).thenReturn(Arrays.asList(2L));
+		when(analysisSubmissionRepository.findAllById(Arrays.asList(1L))).thenReturn(Arrays.asList(first));
+		when(analysisSubmissionRepository.findAllById(Arrays.asList(2L))).thenReturn(Arrays.asList(second));
+		when(analysisExecutionService.getWorkflowStatus(any(AnalysisSubmission.class))).thenReturn(
+				runningStatus("1"));
+
+		Set<Future<AnalysisSubmission>> futures = analysisExecutionScheduledTask.monitorRunningAnalyses();
+
+		assertEquals("should have checked both submissions", 2, futures.size());
+		verify(analysisSubmissionRepository).findIdsByAnalysisStateAfterId(eq(AnalysisState.RUNNING), eq(2L),
+				any(Pageable.class));
+	}
+
+	/**
+	 * Set up the repository to return the given submissions as the running
+	 * submissions.
+	 *
+	 * @param submissions the running submissions
+	 */
+	private void whenRunning(AnalysisSubmission... submissions) {
+		List<Long> ids = Arrays.stream(submissions)
+				.map(AnalysisSubmission::getId)
+				.collect(Collectors.toList());
+		when(analysisSubmissionRepository.findIdsByAnalysisStateAfterId(eq(AnalysisState.RUNNING), eq(0L),
+				any(Pageable.class))).thenReturn(ids);
+		when(analysisSubmissionRepository.findAllById(ids)).thenReturn(Arrays.asList(submissions));
+	}
+
+	private AnalysisSubmission runningSubmission(Long id) {
+		AnalysisSubmission submission = AnalysisSubmission.builder(workflowId)
+				.name("my analysis " + id)
+				.inputFiles(sequenceFiles)
+				.emailPipelineResultCompleted(false)
+				.emailPipelineResultError(false)
+				.build();
+		submission.setId(id);
+		submission.setRemoteAnalysisId(id.toString());
+		submission.setAnalysisState(AnalysisState.RUNNING);
+		return submission;
+	}
+
+	/**
+	 * Build a running workflow status where the given history items are
+	 * complete and one more is still running.
+	 *
+	 * @param completeIds the ids of the complete history items
+	 * @return the {@link GalaxyWorkflowStatus}
+	 */
+	private GalaxyWorkflowStatus runningStatus(String... completeIds) {
+		Map<GalaxyWorkflowState, Set<String>> stateIds = Util.buildStateIdsWithStateFilled(
+				GalaxyWorkflowState.RUNNING, Sets.newHashSet("running"));
+		stateIds.put(GalaxyWorkflowState.OK, Sets.newHashSet(completeIds));
+		return new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, stateIds);
+	}
+
 	/**
 	 * Tests successfully transferring results for a submitted analysis.
 	 *
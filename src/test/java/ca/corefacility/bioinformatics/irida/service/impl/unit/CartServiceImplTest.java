@@ -0,0 +1,72 @@
+package ca.corefacility.bioinformatics.irida.service.impl.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.repositories.cart.CartSampleRepository;
+import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+import ca.corefacility.bioinformatics.irida.service.CartService;
+import ca.corefacility.bioinformatics.irida.service.impl.CartServiceImpl;
+
+import com.google.common.collect.ImmutableList;
+
+public class CartServiceImplTest {
+	private CartService cartService;
+	private CartSampleRepository cartSampleRepository;
+	private UserRepository userRepository;
+
+	private Project project;
+
+	@Before
+	public void setUp() {
+		cartSampleRepository = mock(CartSampleRepository.class);
+		userRepository = mock(UserRepository.class);
+		cartService = new CartServiceImpl(cartSampleRepository, userRepository);
+
+		User user = new User();
+		user.setId(5L);
+		SecurityContextHolder.getContext()
+				.setAuthentication(new TestingAuthenticationToken(user, null));
+
+		project = new Project("project");
+		project.setId(1L);
+	}
+
+	@After
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void testAddSamplesToCart() {
+		List<Long> sampleIds = ImmutableList.of(1L, 2L, 3L);
+		when(cartSampleRepository.addSamplesToCart(5L, 1L, sampleIds)).thenReturn(2);
+
+		assertEquals("should return the number of samples added", 2, cartService.addSamplesToCart(project, sampleIds));
+		verify(cartSampleRepository).addSamplesToCart(5L, 1L, sampleIds);
+		verifyZeroInteractions(userRepository);
+	}
+
+	@Test
+	public void testAddNoSamplesToCart() {
+		assertEquals(0, cartService.addSamplesToCart(project, ImmutableList.of()));
+		verifyZeroInteractions(cartSampleRepository);
+	}
+
+	@Test
+	public void testRemoveSampleFromCart() {
+		when(cartSampleRepository.removeSample(5L, 1L)).thenReturn(1);
+		assertEquals(true, cartService.removeSampleFromCart(1L));
+		assertEquals(false, cartService.removeSampleFromCart(2L));
+	}
+}
@@ -1,23 +1,28 @@
 package ca.corefacility.bioinformatics.irida.service.impl.unit;
 
-import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.mail.MailSendException;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 
 import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
@@ -28,35 +33,36 @@ import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.service.EmailController;
 import ca.corefacility.bioinformatics.irida.service.ProjectEventService;
-import ca.corefacility.bioinformatics.irida.service.ProjectService;
 import ca.corefacility.bioinformatics.irida.service.impl.ProjectEventEmailScheduledTaskImpl;
-import ca.corefacility.bioinformatics.irida.service.user.UserService;
 
 public class ProjectEventEmailScheduedTaskImplTest {
-	ProjectEventEmailScheduledTaskImpl task;
+	private static final int SEND_ATTEMPTS = 3;
 
-	@Mock
-	UserService userService;
+	ProjectEventEmailScheduledTaskImpl task;
 
 	@Mock
 	ProjectEventService eventService;
 
-	@Mock
-	ProjectService projectService;
-
 	@Mock
 	EmailController emailController;
 
+	ExecutorService emailExecutor;
+
 	@Before
 	public void setUp() {
 		MockitoAnnotations.initMocks(this);
 
-		task = new ProjectEventEmailScheduledTaskImpl(userService, eventService, projectService, emailController);
+		emailExecutor = Executors.newFixedThreadPool(2);
+		task = new ProjectEventEmailScheduledTaskImpl(eventService, emailController, emailExecutor, SEND_ATTEMPTS, 0);
 
 		when(emailController.isMailConfigured()).thenReturn(true);
 	}
 
-	@SuppressWarnings("unchecked")
+	@After
+	public void tearDown() {
+		emailExecutor.shutdownNow();
+	}
+
 	@Test
 	public void testEmailUserTasks() {
 		Date priorDateFromCronString = ProjectEventEmailScheduledTaskImpl
@@ -64,23 +70,18 @@ public class ProjectEventEmailScheduedTaskImplTest {
 
 		User tom = new User("tom", null, null, null, null, null);
 		Project p = new Project("testproject");
-		List<User> users = Lists.newArrayList(tom);
 		ProjectUserJoin join = new ProjectUserJoin(p, tom, ProjectRole.PROJECT_OWNER);
 		join.setEmailSubscription(true);
 		List<ProjectEvent> events = Lists.newArrayList(new UserRoleSetProjectEvent(join));
 
-		when(userService.getUsersWithEmailSubscriptions()).thenReturn(users);
-		when(eventService.getEventsForUserAfterDate(eq(tom), any(Date.class))).thenReturn(events);
-		when(projectService.getProjectsForUser(tom)).thenReturn(Lists.newArrayList(join));
+		when(eventService.getSubscribedEventsAfterDate(any(Date.class))).thenReturn(ImmutableMap.of(tom, events));
 
 		Date now = new Date();
 		task.emailUserTasks();
 
-		verify(userService).getUsersWithEmailSubscriptions();
-
 		ArgumentCaptor<Date> dateCaptor = ArgumentCaptor.forClass(Date.class);
 
-		verify(eventService).getEventsForUserAfterDate(eq(tom), dateCaptor.capture());
+		verify(eventService).getSubscribedEventsAfterDate(dateCaptor.capture());
 
 		verify(emailController).sendSubscriptionUpdateEmail(tom, events);
 
@@ -94,72 +95,68 @@ public class ProjectEventEmailScheduedTaskImplTest {
 
 	@SuppressWarnings("unchecked")
 	@Test
-	public void testEmailUserPartialSubscriptoinTasks() {
+	public void testEmailMultipleUsers() {
 		User tom = new User("tom", null, null, null, null, null);
+		User jerry = new User("jerry", null, null, null, null, null);
 		Project p = new Project("testproject");
-		Project p2 = new Project("testproject2");
-		List<User> users = Lists.newArrayList(tom);
-		ProjectUserJoin join = new ProjectUserJoin(p, tom, ProjectRole.PROJECT_OWNER);
-		join.setEmailSubscription(true);
-
-		ProjectUserJoin notSubscribed = new ProjectUserJoin(p2, tom, ProjectRole.PROJECT_OWNER);
+		List<ProjectEvent> tomEvents = Lists.newArrayList(
+				new UserRoleSetProjectEvent(new ProjectUserJoin(p, tom, ProjectRole.PROJECT_OWNER)));
+		List<ProjectEvent> jerryEvents = Lists.newArrayList(
+				new UserRoleSetProjectEvent(new ProjectUserJoin(p, jerry, ProjectRole.PROJECT_USER)));
 
-		List<ProjectEvent> events = Lists.newArrayList(new UserRoleSetProjectEvent(join),
-				new UserRoleSetProjectEvent(notSubscribed));
+		when(eventService.getSubscribedEventsAfterDate(any(Date.class)))
+				.thenReturn(ImmutableMap.of(tom, tomEvents, jerry, jerryEvents));
 
-		when(userService.getUsersWithEmailSubscriptions()).thenReturn(users);
-		when(eventService.getEventsForUserAfterDate(eq(tom), any(Date.class))).thenReturn(events);
-		when(projectService.getProjectsForUser(tom)).thenReturn(Lists.newArrayList(join, notSubscribed));
+		// a failure for one user shouldn't stop the other emails
+		doThrow(new MailSendException("failed")).when(emailController)
+				.sendSubscriptionUpdateEmail(eq(tom), any(List.class));
 
 		task.emailUserTasks();
 
-		verify(userService).getUsersWithEmailSubscriptions();
+		verify(eventService).getSubscribedEventsAfterDate(any(Date.class));
+		verify(emailController, times(SEND_ATTEMPTS)).sendSubscriptionUpdateEmail(tom, tomEvents);
+		verify(emailController).sendSubscriptionUpdateEmail(jerry, jerryEvents);
+	}
 
-		verify(eventService).getEventsForUserAfterDate(eq(tom), any(Date.class));
+	@Test
+	public void testRetryEmail() {
+		User tom = new User("tom", null, null, null, null, null);
+		Project p = new Project("testproject");
+		List<ProjectEvent> events = Lists.newArrayList(
+				new UserRoleSetProjectEvent(new ProjectUserJoin(p, tom, ProjectRole.PROJECT_OWNER)));
 
-		@SuppressWarnings("rawtypes")
-		ArgumentCaptor<List> eventCaptor = ArgumentCaptor.forClass(List.class);
-		
-		verify(emailController).sendSubscriptionUpdateEmail(eq(tom), eventCaptor.capture());
-		
-		List<ProjectEvent> sentEvents = eventCaptor.getValue();
+		when(eventService.getSubscribedEventsAfterDate(any(Date.class))).thenReturn(ImmutableMap.of(tom, events));
+
+		doThrow(new MailSendException("failed")).doNothing()
+				.when(emailController)
+				.sendSubscriptionUpdateEmail(tom, events);
+
+		task.emailUserTasks();
 
-		assertEquals("should send 1 event", 1, sentEvents.size());
-		
-		ProjectEvent sentEvent = sentEvents.iterator().next();
-		assertEquals("should have sent from subscribed project", p, sentEvent.getProject());
+		verify(emailController, times(2)).sendSubscriptionUpdateEmail(tom, events);
 	}
 
 	@SuppressWarnings("unchecked")
 	@Test
 	public void testNoTasks() {
-		User tom = new User("tom", null, null, null, null, null);
-		List<User> users = Lists.newArrayList(tom);
-
-		when(userService.getUsersWithEmailSubscriptions()).thenReturn(users);
-		when(eventService.getEventsForUserAfterDate(eq(tom), any(Date.class))).thenReturn(Lists.newArrayList());
+		Map<User, List<ProjectEvent>> noEvents = ImmutableMap.of();
+		when(eventService.getSubscribedEventsAfterDate(any(Date.class))).thenReturn(noEvents);
 
 		task.emailUserTasks();
 
-		verify(userService).getUsersWithEmailSubscriptions();
-
-		verify(eventService).getEventsForUserAfterDate(eq(tom), any(Date.class));
+		verify(eventService).getSubscribedEventsAfterDate(any(Date.class));
 
 		verify(emailController, times(0)).sendSubscriptionUpdateEmail(any(User.class), any(List.class));
 	}
 
 	@SuppressWarnings("unchecked")
 	@Test
-	public void testNoUsers() {
-		when(userService.getUsersWithEmailSubscriptions()).thenReturn(Lists.newArrayList());
+	public void testMailNotConfigured() {
+		when(emailController.isMailConfigured()).thenReturn(false);
 
 		task.emailUserTasks();
 
-		verify(userService).getUsersWithEmailSubscriptions();
-
-		verifyZeroInteractions(eventService);
-
+		verify(eventService, times(0)).getSubscribedEventsAfterDate(any(Date.class));
 		verify(emailController, times(0)).sendSubscriptionUpdateEmail(any(User.class), any(List.class));
 	}
-
 }
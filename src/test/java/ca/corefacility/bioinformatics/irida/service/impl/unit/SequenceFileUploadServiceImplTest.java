@@ -0,0 +1,209 @@
+package ca.corefacility.bioinformatics.irida.service.impl.unit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFileUpload;
+import ca.corefacility.bioinformatics.irida.service.SequenceFileUploadService;
+import ca.corefacility.bioinformatics.irida.service.impl.SequenceFileUploadServiceImpl;
+
+/**
+ * Unit tests for {@link SequenceFileUploadServiceImpl}
+ */
+public class SequenceFileUploadServiceImplTest {
+	private static final int PART_SIZE = 1000;
+
+	private SequenceFileUploadService uploadService;
+	private Path baseDirectory;
+	private Sample sample;
+	private byte[] content;
+
+	@Before
+	public void setUp() throws IOException {
+		baseDirectory = Files.createTempDirectory("sequence-files");
+		uploadService = new SequenceFileUploadServiceImpl(baseDirectory, PART_SIZE, 24);
+
+		SecurityContextHolder.getContext()
+				.setAuthentication(new TestingAuthenticationToken("user", null));
+
+		sample = new Sample("sample");
+		sample.setId(1L);
+
+		content = new byte[PART_SIZE * 3 + 500];
+		new Random(1).nextBytes(content);
+	}
+
+	@After
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+		FileUtils.deleteQuietly(baseDirectory.toFile());
+	}
+
+	@Test
+	public void testUploadInOrder() throws IOException {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", content.length, null, null);
+		assertEquals("file should be split into parts", 4, upload.getPartCount());
+
+		for (int part = 1; part <= upload.getPartCount(); part++) {
+			uploadService.writePart(upload, part, partContent(upload, part));
+		}
+
+		assertUploaded(upload);
+	}
+
+	@Test
+	public void testUploadOutOfOrder() throws IOException {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", content.length, null,
+				DigestUtils.sha256Hex(content));
+
+		for (int part : new int[] { 3, 1, 4, 2 }) {
+			String partSha256 = uploadService.writePart(upload, part, partContent(upload, part));
+			assertEquals("part checksum should be returned", DigestUtils.sha256Hex(partBytes(upload, part)),
+					partSha256);
+		}
+
+		assertUploaded(upload);
+	}
+
+	@Test
+	public void testResumeUpload() throws IOException {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", content.length, null, null);
+		uploadService.writePart(upload, 1, partContent(upload, 1));
+		uploadService.writePart(upload, 3, partContent(upload, 3));
+
+		// an interrupted part isn't marked as received
+		try {
+			uploadService.writePart(upload, 2,
+					new ByteArrayInputStream(Arrays.copyOf(partBytes(upload, 2), PART_SIZE / 2)));
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		SequenceFileUpload read = uploadService.readUpload(sample.getId(), upload.getUploadId());
+		assertEquals("parts 1 and 3 should have been received", 2, read.getCompletedParts()
+				.size());
+		assertTrue(read.getCompletedParts()
+				.contains(1));
+		assertTrue(read.getCompletedParts()
+				.contains(3));
+
+		// a part sent again with different content replaces the old one
+		byte[] wrong = new byte[PART_SIZE];
+		uploadService.writePart(read, 1, new ByteArrayInputStream(wrong));
+		uploadService.writePart(read, 1, partContent(read, 1));
+
+		uploadService.writePart(read, 2, partContent(read, 2));
+		uploadService.writePart(read, 4, partContent(read, 4));
+
+		assertUploaded(read);
+	}
+
+	@Test
+	public void testUploadToSeveralServers() throws IOException {
+		SequenceFileUploadService otherServer = new SequenceFileUploadServiceImpl(baseDirectory, PART_SIZE, 24);
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", content.length, null,
+				DigestUtils.sha256Hex(content));
+
+		// this server adds the wrong part 2 to its checksum, then the right
+		// one is sent to another server
+		uploadService.writePart(upload, 1, partContent(upload, 1));
+		uploadService.writePart(upload, 2, new ByteArrayInputStream(new byte[PART_SIZE]));
+		SequenceFileUpload other = otherServer.readUpload(sample.getId(), upload.getUploadId());
+		otherServer.writePart(other, 2, partContent(other, 2));
+		otherServer.writePart(other, 3, partContent(other, 3));
+
+		uploadService.writePart(upload, 4, partContent(upload, 4));
+
+		assertUploaded(upload);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompleteMissingParts() throws IOException {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", content.length, null, null);
+		uploadService.writePart(upload, 1, partContent(upload, 1));
+
+		uploadService.completeUpload(upload);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompleteWrongChecksum() throws IOException {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", content.length, null,
+				DigestUtils.sha256Hex("something else"));
+		for (int part = 1; part <= upload.getPartCount(); part++) {
+			uploadService.writePart(upload, part, partContent(upload, part));
+		}
+
+		uploadService.completeUpload(upload);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPartTooLong() throws IOException {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", content.length, null, null);
+		uploadService.writePart(upload, 4, new ByteArrayInputStream(new byte[PART_SIZE]));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidFileName() {
+		uploadService.createUpload(sample, "../reads.fastq", content.length, null, null);
+	}
+
+	@Test(expected = EntityNotFoundException.class)
+	public void testReadOtherUsersUpload() {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", content.length, null, null);
+
+		SecurityContextHolder.getContext()
+				.setAuthentication(new TestingAuthenticationToken("other", null));
+		uploadService.readUpload(sample.getId(), upload.getUploadId());
+	}
+
+	@Test(expected = EntityNotFoundException.class)
+	public void testReadInvalidUploadId() {
+		uploadService.readUpload(sample.getId(), "../../etc");
+	}
+
+	@Test
+	public void testRemoveUpload() {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", content.length, null, null);
+		uploadService.removeUpload(upload);
+
+		assertFalse("upload directory should be removed",
+				Files.exists(baseDirectory.resolve("uploads")
+						.resolve(upload.getUploadId())));
+	}
+
+	private void assertUploaded(SequenceFileUpload upload) throws IOException {
+		Path file = uploadService.completeUpload(upload);
+
+		assertTrue("file should be in the sequence file directory", file.startsWith(baseDirectory));
+		assertArrayEquals("uploaded file should match", content, Files.readAllBytes(file));
+		assertEquals("checksum should match", DigestUtils.sha256Hex(content), upload.getSha256());
+	}
+
+	private ByteArrayInputStream partContent(SequenceFileUpload upload, int part) {
+		return new ByteArrayInputStream(partBytes(upload, part));
+	}
+
+	private byte[] partBytes(SequenceFileUpload upload, int part) {
+		int offset = (int) upload.getPartOffset(part);
+		return Arrays.copyOfRange(content, offset, offset + (int) upload.getPartLength(part));
+	}
+}
@@ -0,0 +1,92 @@
+package ca.corefacility.bioinformatics.irida.service.impl.unit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.google.common.collect.Lists;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessingChain;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
+import ca.corefacility.bioinformatics.irida.service.SequencingObjectProcessingService;
+import ca.corefacility.bioinformatics.irida.service.impl.processor.SequenceFileProcessorLauncher;
+
+/**
+ * Tests for {@link SequencingObjectProcessingService}
+ */
+public class SequencingObjectProcessingServiceTest {
+
+	private SequencingObjectProcessingService service;
+	private SequencingObjectRepository repository;
+	private ThreadPoolTaskExecutor executor;
+
+	@Before
+	public void setUp() {
+		repository = mock(SequencingObjectRepository.class);
+		executor = mock(ThreadPoolTaskExecutor.class);
+
+		service = new SequencingObjectProcessingService(repository, executor, mock(FileProcessingChain.class));
+	}
+
+	@Test
+	public void testClaimsBatchInOneStatement() {
+		List<Long> ids = Lists.newArrayList(1L, 2L, 3L);
+
+		when(executor.getCorePoolSize()).thenReturn(4);
+		when(executor.getActiveCount()).thenReturn(1);
+		when(repository.getUnclaimedSequencingObjectIdsWithProcessingState(
+				eq(SequencingObject.ProcessingState.UNPROCESSED), any(Pageable.class))).thenReturn(ids);
+
+		service.findFilesToProcess();
+
+		verify(repository).claimForFileProcessor(eq(ids), anyString(), eq(SequencingObject.ProcessingState.QUEUED),
+				any(Date.class));
+		verify(repository, never()).getSequencingObjectsWithProcessingState(any(SequencingObject.ProcessingState.class));
+	}
+
+	@Test
+	public void testNoQueueSpace() {
+		when(executor.getCorePoolSize()).thenReturn(4);
+		when(executor.getActiveCount()).thenReturn(4);
+
+		service.findFilesToProcess();
+
+		verify(repository, never()).getUnclaimedSequencingObjectIdsWithProcessingState(
+				any(SequencingObject.ProcessingState.class), any(Pageable.class));
+		verify(repository, never()).claimForFileProcessor(anyCollectionOf(Long.class), anyString(),
+				any(SequencingObject.ProcessingState.class), any(Date.class));
+	}
+
+	@Test
+	public void testRunProcessingJobLaunchesNewlyClaimedObjects() {
+		List<Long> ids = Lists.newArrayList(1L);
+
+		when(executor.getCorePoolSize()).thenReturn(4);
+		when(executor.getActiveCount()).thenReturn(0);
+		when(repository.getUnclaimedSequencingObjectIdsWithProcessingState(
+				eq(SequencingObject.ProcessingState.UNPROCESSED), any(Pageable.class))).thenReturn(ids);
+		when(repository.getSequencingObjectIdsWithProcessingStateAndProcessor(
+				eq(SequencingObject.ProcessingState.QUEUED), anyString())).thenReturn(ids);
+
+		service.runProcessingJob();
+
+		verify(repository).renewProcessingLease(anyString(), anyCollectionOf(SequencingObject.ProcessingState.class),
+				any(Date.class));
+		verify(repository).releaseExpiredProcessingLeases(eq(SequencingObject.ProcessingState.UNPROCESSED),
+				anyCollectionOf(SequencingObject.ProcessingState.class), any(Date.class));
+		verify(repository).updateProcessingState(eq(ids), anyString(), eq(SequencingObject.ProcessingState.QUEUED),
+				eq(SequencingObject.ProcessingState.PROCESSING));
+		verify(executor).execute(any(SequenceFileProcessorLauncher.class));
+	}
+}
@@ -501,6 +501,52 @@ public class SampleServiceImplTest {
 		assertTrue("should be no pipeline entries left", pipelineOpt.isEmpty());
 	}
 
+	@Test
+	public void testMergeMetadataForSamples() {
+		Project p = new Project();
+		p.setId(1L);
+		Sample s1 = new Sample("sample1");
+		s1.setId(1L);
+		Sample s2 = new Sample("sample2");
+		s2.setId(2L);
+
+		MetadataTemplateField field1 = new MetadataTemplateField("field1", "text");
+		MetadataTemplateField field2 = new MetadataTemplateField("field2", "text");
+		MetadataEntry existing = new MetadataEntry("old", "text", field1);
+
+		when(metadataEntryRepository.getMetadataForSamplesInProject(eq(p), any())).thenReturn(
+				Lists.<Object[]>newArrayList(new Object[] { 1L, existing }));
+
+		Map<Sample, Set<MetadataEntry>> metadata = new HashMap<>();
+		metadata.put(s1, Sets.newHashSet(new MetadataEntry("new", "text", field1)));
+		metadata.put(s2, Sets.newHashSet(new MetadataEntry("value", "text", field2)));
+
+		sampleService.mergeSampleMetadata(p, metadata);
+
+		ArgumentCaptor<List> saveCaptor = ArgumentCaptor.forClass(List.class);
+		verify(metadataEntryRepository).saveAll(saveCaptor.capture());
+		List<MetadataEntry> savedValues = saveCaptor.getValue();
+
+		assertEquals("should save an entry for each sample", 2, savedValues.size());
+		assertTrue("existing entry should be updated", savedValues.contains(existing));
+		assertEquals("value should have been updated", "new", existing.getValue());
+		verify(metadataEntryRepository, never()).getMetadataForSample(any(Sample.class));
+	}
+
+	@Test
+	public void testGetUpdatableSamplesByNameIncludesSharedSamples() {
+		Project p = new Project();
+		p.setId(1L);
+		Sample shared = new Sample("shared");
+		shared.setId(1L);
+		Set<String> names = Sets.newHashSet("shared");
+
+		when(sampleRepository.getSamplesByNameInProject(p, names)).thenReturn(Lists.newArrayList(shared));
+
+		assertEquals("samples shared into the project should be returned", Lists.newArrayList(shared),
+				sampleService.getUpdatableSamplesByName(p, names));
+	}
+
 	private Sample s(Long id) {
 		Sample s = new Sample();
 		s.setId(id);
@@ -0,0 +1,37 @@
+package ca.corefacility.bioinformatics.irida.utils;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Counts the SQL statements Hibernate prepares, so tests can check how many
+ * queries a listing takes. Call {@link #reset()} before the code being tested
+ * and {@link #getStatementCount()} after.
+ */
+public class SqlStatementCounter {
+	private final Statistics statistics;
+
+	public SqlStatementCounter(EntityManagerFactory entityManagerFactory) {
+		this.statistics = entityManagerFactory.unwrap(SessionFactory.class)
+				.getStatistics();
+		this.statistics.setStatisticsEnabled(true);
+	}
+
+	/**
+	 * Start counting statements from zero
+	 */
+	public void reset() {
+		statistics.clear();
+	}
+
+	/**
+	 * Get the number of statements prepared since the counter was reset
+	 *
+	 * @return the number of statements
+	 */
+	public long getStatementCount() {
+		return statistics.getPrepareStatementCount();
+	}
+}
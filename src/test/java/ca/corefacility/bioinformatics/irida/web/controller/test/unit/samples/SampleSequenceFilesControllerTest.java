@@ -20,6 +20,7 @@ import ca.corefacility.bioinformatics.irida.model.enums.SequencingRunUploadStatu
 import ca.corefacility.bioinformatics.irida.model.run.SequencingRun;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.springframework.hateoas.Link;
 import org.springframework.http.HttpStatus;
@@ -38,14 +39,17 @@ import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFileUpload;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
 import ca.corefacility.bioinformatics.irida.service.AnalysisService;
+import ca.corefacility.bioinformatics.irida.service.SequenceFileUploadService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import ca.corefacility.bioinformatics.irida.service.SequencingRunService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 import ca.corefacility.bioinformatics.irida.web.assembler.resource.ResourceCollection;
 import ca.corefacility.bioinformatics.irida.web.assembler.resource.RootResource;
+import ca.corefacility.bioinformatics.irida.web.assembler.resource.sequencefile.SequenceFilePairUploadResource;
 import ca.corefacility.bioinformatics.irida.web.assembler.resource.sequencefile.SequenceFileResource;
 import ca.corefacility.bioinformatics.irida.web.controller.api.RESTGenericController;
 import ca.corefacility.bioinformatics.irida.web.controller.api.samples.RESTSampleSequenceFilesController;
@@ -60,6 +64,7 @@ public class SampleSequenceFilesControllerTest {
 	private SequencingRunService miseqRunService;
 	private SequencingObjectService sequencingObjectService;
 	private AnalysisService analysisService;
+	private SequenceFileUploadService uploadService;
 	private SequencingRun sequencingRun;
 
 	@Before
@@ -68,9 +73,11 @@ public class SampleSequenceFilesControllerTest {
 		miseqRunService = mock(SequencingRunService.class);
 		sequencingObjectService = mock(SequencingObjectService.class);
 		analysisService = mock(AnalysisService.class);
+		uploadService = mock(SequenceFileUploadService.class);
 		sequencingRun = mock(SequencingRun.class);
 
-		controller = new RESTSampleSequenceFilesController(sampleService, miseqRunService, sequencingObjectService,analysisService);
+		controller = new RESTSampleSequenceFilesController(sampleService, miseqRunService, sequencingObjectService,
+				analysisService, uploadService);
 	}
 
 	@Test
@@ -275,6 +282,56 @@ public class SampleSequenceFilesControllerTest {
 		Files.delete(f);
 	}
 
+	@Test
+	public void testAddUploadedSequenceFileToSample() throws IOException {
+		Sample s = TestDataFactory.constructSample();
+		SingleEndSequenceFile so = TestDataFactory.constructSingleEndSequenceFile();
+		SampleSequencingObjectJoin sso = new SampleSequencingObjectJoin(s, so);
+
+		SequenceFileUpload upload = new SequenceFileUpload("upload", s.getId(), "user", "file.fastq", 10, 5, null);
+		upload.setSha256("abc123");
+		Path f = Files.createTempFile(null, null);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		when(uploadService.readUpload(s.getId(), "upload")).thenReturn(upload);
+		when(uploadService.completeUpload(upload)).thenReturn(f);
+		when(sampleService.read(s.getId())).thenReturn(s);
+		when(sequencingObjectService.createSequencingObjectInSample(any(SingleEndSequenceFile.class), Matchers.eq(s)))
+				.thenReturn(sso);
+		when(sequencingObjectService.read(so.getId())).thenReturn(so);
+
+		ModelMap modelMap = controller.addUploadedSequenceFileToSample(s.getId(), "upload", null, response);
+
+		ArgumentCaptor<SingleEndSequenceFile> created = ArgumentCaptor.forClass(SingleEndSequenceFile.class);
+		verify(sequencingObjectService).createSequencingObjectInSample(created.capture(), Matchers.eq(s));
+		assertEquals("the uploaded file should be saved", f, created.getValue()
+				.getSequenceFile()
+				.getFile());
+		assertEquals("the upload checksum should be kept", "abc123", created.getValue()
+				.getSequenceFile()
+				.getUploadSha256());
+		verify(uploadService).removeUpload(upload);
+
+		assertTrue("object must be a SequenceFile",
+				modelMap.get(RESTGenericController.RESOURCE_NAME) instanceof SequenceFile);
+		assertEquals("response must have CREATED status", HttpStatus.CREATED.value(), response.getStatus());
+
+		Files.delete(f);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddUploadedSequenceFilePairSameUpload() {
+		Sample s = TestDataFactory.constructSample();
+		SequenceFileUpload upload = new SequenceFileUpload("upload", s.getId(), "user", "file.fastq", 10, 5, null);
+		when(uploadService.readUpload(s.getId(), "upload")).thenReturn(upload);
+
+		SequenceFilePairUploadResource pairResource = new SequenceFilePairUploadResource();
+		pairResource.setUpload1("upload");
+		pairResource.setUpload2("upload");
+
+		controller.addUploadedSequenceFilePairToSample(s.getId(), pairResource, new MockHttpServletResponse());
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void testAddNewSequenceFileToSampleCompletedRun() throws IOException {
 		Sample s = TestDataFactory.constructSample();